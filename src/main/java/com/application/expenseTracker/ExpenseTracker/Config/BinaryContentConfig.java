@@ -0,0 +1,85 @@
+package com.application.expenseTracker.ExpenseTracker.Config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Lets clients ask for {@code application/cbor} or {@code application/x-jackson-smile} in
+ * {@code Accept} (and send them as {@code Content-Type}) instead of JSON. Both converters use the
+ * application's Jackson settings and are placed just ahead of Spring's defaults for these formats,
+ * which sit after JSON, so requests without a binary {@code Accept} still get JSON.
+ *
+ * <p>Binary clients decode with a Jackson-style library rather than by eye, so dates are written
+ * as numeric arrays instead of ISO strings, and Smile back-references repeated field names and
+ * short values such as the category and payment mode.
+ *
+ * <p>The messages controllers return as plain strings are never written as raw text under a
+ * binary content type: the string converter declines CBOR and Smile, so the Jackson converter
+ * picks them up and {@link BinaryStringBodyAdvice} wraps them in an error object first.
+ */
+@Configuration
+public class BinaryContentConfig implements WebMvcConfigurer {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(binaryMapper(builder, new CBORFactory()));
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(binaryMapper(builder, smileFactory()));
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.replaceAll(converter -> converter instanceof StringHttpMessageConverter
+                ? new TextStringHttpMessageConverter(((StringHttpMessageConverter) converter).getDefaultCharset())
+                : converter);
+    }
+
+    public static boolean isBinary(MediaType mediaType) {
+        return mediaType != null && (MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(mediaType) || APPLICATION_SMILE.equalsTypeAndSubtype(mediaType));
+    }
+
+    public static SmileFactory smileFactory() {
+        SmileFactory factory = new SmileFactory();
+        factory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        return factory;
+    }
+
+    public static ObjectMapper binaryMapper(Jackson2ObjectMapperBuilder builder, JsonFactory factory) {
+        return builder.factory(factory).featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    }
+
+    /** Writes strings for every content type except CBOR and Smile, which are left to Jackson. */
+    static class TextStringHttpMessageConverter extends StringHttpMessageConverter {
+
+        TextStringHttpMessageConverter(Charset defaultCharset) {
+            super(defaultCharset);
+            setWriteAcceptCharset(false);
+        }
+
+        @Override
+        protected boolean canWrite(MediaType mediaType) {
+            return !isBinary(mediaType) && super.canWrite(mediaType);
+        }
+    }
+}
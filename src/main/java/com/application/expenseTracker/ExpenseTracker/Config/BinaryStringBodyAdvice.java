@@ -0,0 +1,45 @@
+package com.application.expenseTracker.ExpenseTracker.Config;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Turns the plain string messages controllers answer with into an object before they are
+ * written as CBOR or Smile, shaped like the {@code GlobalExceptionHandler} errors:
+ * {@code error} for a 4xx or 5xx response, {@code message} otherwise.
+ */
+@ControllerAdvice
+public class BinaryStringBodyAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(body instanceof String) || !BinaryContentConfig.isBinary(selectedContentType)) {
+            return body;
+        }
+        int status = response instanceof ServletServerHttpResponse
+                ? ((ServletServerHttpResponse) response).getServletResponse().getStatus()
+                : 200;
+        Map<String, Object> details = new HashMap<>();
+        details.put("timestamp", LocalDateTime.now());
+        details.put(status >= 400 ? "error" : "message", body);
+        details.put("status", status);
+        return details;
+    }
+}
@@ -0,0 +1,35 @@
+package com.application.expenseTracker.ExpenseTracker.Config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.Schedules;
+
+import java.util.Arrays;
+
+/**
+ * Keeps lazy initialisation safe. Scheduled methods are only registered when their bean is
+ * created, so a lazy bean with {@code @Scheduled} methods would never run them; such beans are
+ * always created at startup.
+ */
+@Configuration
+public class LazyInitializationConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter scheduledBeansExcludeFilter() {
+        return (beanName, beanDefinition, beanType) -> hasScheduledMethods(beanType);
+    }
+
+    static boolean hasScheduledMethods(Class<?> beanType) {
+        if (beanType == null || !AnnotationUtils.isCandidateClass(beanType, Arrays.asList(Scheduled.class, Schedules.class))) {
+            return false;
+        }
+        return !MethodIntrospector.selectMethods(beanType, (MethodIntrospector.MetadataLookup<Boolean>) method ->
+                AnnotatedElementUtils.hasAnnotation(method, Scheduled.class) || AnnotatedElementUtils.hasAnnotation(method, Schedules.class)
+                        ? Boolean.TRUE : null).isEmpty();
+    }
+}
@@ -0,0 +1,73 @@
+package com.application.expenseTracker.ExpenseTracker.Config;
+
+import com.application.expenseTracker.ExpenseTracker.Service.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Read/write splitting, enabled by setting {@code expense.datasource.replica.url}. The primary
+ * pool keeps using the {@code spring.datasource.*} settings; the replica pool takes the same keys
+ * under {@code expense.datasource.replica}. Without a replica url the application keeps Spring
+ * Boot's single datasource.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "expense.datasource.replica", name = "url")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public HikariDataSource primaryPool(DataSourceProperties properties, Environment environment) {
+        checkSupported(environment);
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("primary");
+        return pool;
+    }
+
+    @Bean
+    public HikariDataSource replicaPool(Environment environment) throws Exception {
+        DataSourceProperties properties = Binder.get(environment).bind("expense.datasource.replica", DataSourceProperties.class).get();
+        properties.afterPropertiesSet();
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("replica");
+        pool.setReadOnly(true);
+        return pool;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("primaryPool") DataSource primaryPool, @Qualifier("replicaPool") DataSource replicaPool,
+                                               @Value("${expense.datasource.replica.max-lag-ms:5000}") long maxLagMs) {
+        return new ReplicaLagMonitor(primaryPool, replicaPool, maxLagMs);
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(@Qualifier("primaryPool") DataSource primaryPool, @Qualifier("replicaPool") DataSource replicaPool,
+                                                             ReplicaLagMonitor replicaLagMonitor) {
+        return new ReplicaRoutingDataSource(primaryPool, replicaPool, replicaLagMonitor::isReplicaUsable);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    /**
+     * Write-behind readers wait until their expenses are inserted on the primary, which says
+     * nothing about whether the replica has them yet.
+     */
+    private static void checkSupported(Environment environment) {
+        if (environment.getProperty("expense.ingest.write-behind.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("expense.datasource.replica.url cannot be combined with expense.ingest.write-behind.enabled");
+        }
+    }
+}
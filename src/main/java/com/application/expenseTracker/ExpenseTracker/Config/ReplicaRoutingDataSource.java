@@ -0,0 +1,73 @@
+package com.application.expenseTracker.ExpenseTracker.Config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary. The target is
+ * chosen when a connection is first used, so this sits behind a LazyConnectionDataSourceProxy:
+ * a transaction is only known to be read-only after it began. Reads go to the primary while the
+ * replica lags or is unreachable.
+ * <p>
+ * Code that caches what it reads, or must see its own writes, wraps the read in
+ * {@link #onPrimary(Supplier)}: a result read from a lagging replica would otherwise stay cached
+ * after the writes it is missing were already applied to the cache.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target { PRIMARY, REPLICA }
+
+    private static final ThreadLocal<int[]> primaryPins = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final BooleanSupplier replicaUsable;
+    private final AtomicLong primaryConnections = new AtomicLong();
+    private final AtomicLong replicaConnections = new AtomicLong();
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, BooleanSupplier replicaUsable) {
+        this.replicaUsable = replicaUsable;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Target.PRIMARY, primary);
+        targets.put(Target.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /** Runs {@code work} with every connection it opens on the primary, read-only or not. */
+    public static <T> T onPrimary(Supplier<T> work) {
+        int[] pins = primaryPins.get();
+        pins[0]++;
+        try {
+            return work.get();
+        } finally {
+            if (--pins[0] == 0) {
+                primaryPins.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (primaryPins.get()[0] == 0 && TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaUsable.getAsBoolean()) {
+            replicaConnections.incrementAndGet();
+            return Target.REPLICA;
+        }
+        primaryConnections.incrementAndGet();
+        return Target.PRIMARY;
+    }
+
+    public long getPrimaryConnections() {
+        return primaryConnections.get();
+    }
+
+    public long getReplicaConnections() {
+        return replicaConnections.get();
+    }
+}
@@ -3,6 +3,7 @@ package com.application.expenseTracker.ExpenseTracker.Config;
 import com.application.expenseTracker.ExpenseTracker.Filter.JwtRequestFilter;
 import com.application.expenseTracker.ExpenseTracker.Service.MyUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -19,6 +20,9 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @EnableWebSecurity
 public class SecurityConfig {
 
+    private static final int MIN_BCRYPT_STRENGTH = 4;
+    private static final int MAX_BCRYPT_STRENGTH = 12;
+
     @Autowired
     private JwtRequestFilter jwtRequestFilter;
 
@@ -31,10 +35,14 @@ public class SecurityConfig {
         return authenticationConfiguration.getAuthenticationManager();
     }
 
+    // Each step of BCrypt strength doubles the cost of a login; keep it within what the login pool can sustain
+    @Value("${auth.bcrypt.strength:10}")
+    private int bcryptStrength;
+
     // Define the PasswordEncoder bean (CRITICAL for password hashing)
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(Math.max(MIN_BCRYPT_STRENGTH, Math.min(MAX_BCRYPT_STRENGTH, bcryptStrength)));
     }
 
     // Configure the main security filter chain
@@ -43,8 +51,8 @@ public class SecurityConfig {
         http
                 .csrf(csrf -> csrf.disable()) // Disable CSRF for stateless APIs
                 .authorizeHttpRequests(auth -> auth
-                        // Allow / and /authenticate to be accessed without a token
-                        .requestMatchers().permitAll()
+                        // Allow login and refresh to be accessed without a token
+                        .antMatchers("/auth/login", "/auth/refresh").permitAll()
                         // All other requests (e.g., /api/v1/**) must be authenticated
                         .anyRequest().authenticated()
                 )
@@ -0,0 +1,85 @@
+package com.application.expenseTracker.ExpenseTracker.Config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Sends connections to one of the expense shards. Shard 0 is the {@code spring.datasource}
+ * database and holds every table; the other shards only hold USER_EXPENSE. A connection goes to
+ * shard 0 unless the thread is inside {@link #onShard(int, Supplier)}. Like
+ * {@link ReplicaRoutingDataSource} the target is chosen when a connection is first used, so this
+ * sits behind a LazyConnectionDataSourceProxy and a transaction stays on the shard it began on:
+ * work for another shard needs its own transaction.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final ThreadLocal<Integer> pinnedShard = new ThreadLocal<>();
+
+    private final List<DataSource> shards;
+    private final int shardCount;
+    private final AtomicLongArray connections;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        this.shards = shards;
+        this.shardCount = shards.size();
+        this.connections = new AtomicLongArray(shardCount);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            targets.put(shard, shards.get(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        afterPropertiesSet();
+    }
+
+    /** Runs {@code work} with every connection it opens on {@code shard}. */
+    public static <T> T onShard(int shard, Supplier<T> work) {
+        Integer previous = pinnedShard.get();
+        pinnedShard.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                pinnedShard.remove();
+            } else {
+                pinnedShard.set(previous);
+            }
+        }
+    }
+
+    /** @return the shard the current thread is pinned to, or {@code null} outside {@link #onShard(int, Supplier)} */
+    public static Integer currentShard() {
+        return pinnedShard.get();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = pinnedShard.get();
+        int target = shard == null ? 0 : shard;
+        connections.incrementAndGet(target);
+        return target;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public long getConnections(int shard) {
+        return connections.get(shard);
+    }
+
+    /** Closes the shard pools; called by Spring when the context shuts down. */
+    public void close() throws Exception {
+        for (DataSource shard : shards) {
+            if (shard instanceof AutoCloseable) {
+                ((AutoCloseable) shard).close();
+            }
+        }
+    }
+}
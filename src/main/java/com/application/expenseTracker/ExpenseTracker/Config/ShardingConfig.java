@@ -0,0 +1,128 @@
+package com.application.expenseTracker.ExpenseTracker.Config;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Repository.CalculationRepository;
+import com.application.expenseTracker.ExpenseTracker.Repository.ShardedCalculationRepository;
+import com.application.expenseTracker.ExpenseTracker.Service.ExpenseShardService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.tool.hbm2ddl.SchemaUpdate;
+import org.hibernate.tool.schema.TargetType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Sharded expense storage, enabled by setting {@code expense.shard.urls} to the databases of
+ * shards 1..N (comma separated). Shard 0 is the {@code spring.datasource} database and keeps
+ * every other table; the extra shards get USER_EXPENSE and its id sequence, which starts at
+ * {@code shard x expense.shard.id-range} so ids stay unique across shards and survive moves.
+ * {@link CalculationRepository} is wrapped by {@link ShardedCalculationRepository}, which routes
+ * each call to the user's shard or scatters it over all of them.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "expense.shard", name = "urls")
+public class ShardingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardingConfig.class);
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties properties, Environment environment) {
+        checkSupported(environment);
+        long idRange = environment.getProperty("expense.shard.id-range", Long.class, 1_000_000_000_000L);
+        String username = environment.getProperty("expense.shard.username", properties.determineUsername());
+        String password = environment.getProperty("expense.shard.password", properties.determinePassword());
+
+        List<DataSource> shards = new ArrayList<>();
+        HikariDataSource home = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        home.setPoolName("shard-0");
+        shards.add(home);
+        String[] urls = environment.getRequiredProperty("expense.shard.urls", String[].class);
+        for (String url : urls) {
+            int shard = shards.size();
+            HikariDataSource pool = DataSourceBuilder.create().type(HikariDataSource.class)
+                    .url(url.trim()).username(username).password(password).build();
+            pool.setPoolName("shard-" + shard);
+            createSchema(pool, shard, idRange);
+            shards.add(pool);
+        }
+        logger.info("Expense storage is split over {} shards", shards.size());
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    public static BeanPostProcessor shardedCalculationRepositoryPostProcessor(ObjectProvider<ExpenseShardService> expenseShardService) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof CalculationRepository && !ShardedCalculationRepository.isSharded(bean)) {
+                    return ShardedCalculationRepository.wrap((CalculationRepository) bean, expenseShardService::getObject);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Creates USER_EXPENSE and the id sequence on an extra shard, with the names and indexes
+     * Hibernate gives them on shard 0, and moves the sequence into the shard's id range.
+     */
+    static void createSchema(DataSource shard, int index, long idRange) {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.DATASOURCE, shard)
+                .applySetting(AvailableSettings.PHYSICAL_NAMING_STRATEGY, CamelCaseToUnderscoresNamingStrategy.class.getName())
+                .applySetting(AvailableSettings.IMPLICIT_NAMING_STRATEGY, SpringImplicitNamingStrategy.class.getName())
+                .build();
+        try {
+            Metadata metadata = new MetadataSources(registry).addAnnotatedClass(Expense.class).buildMetadata();
+            new SchemaUpdate().execute(EnumSet.of(TargetType.DATABASE), metadata);
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+        }
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(shard);
+        Long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR HIBERNATE_SEQUENCE", Long.class);
+        if (next != null && next < index * idRange) {
+            jdbcTemplate.execute("ALTER SEQUENCE HIBERNATE_SEQUENCE RESTART WITH " + index * idRange);
+        }
+    }
+
+    /** These read or write USER_EXPENSE on the default database directly and would only see shard 0. */
+    private static void checkSupported(Environment environment) {
+        if (environment.containsProperty("expense.datasource.replica.url")) {
+            throw new IllegalStateException("expense.shard.urls cannot be combined with expense.datasource.replica.url");
+        }
+        if (environment.getProperty("expense.ingest.write-behind.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("expense.shard.urls cannot be combined with expense.ingest.write-behind.enabled");
+        }
+        if (environment.getProperty("expense.snapshot.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("expense.shard.urls cannot be combined with expense.snapshot.enabled");
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.application.expenseTracker.ExpenseTracker.Controller;
+
+import com.application.expenseTracker.ExpenseTracker.Dto.LoginRequest;
+import com.application.expenseTracker.ExpenseTracker.Dto.RefreshRequest;
+import com.application.expenseTracker.ExpenseTracker.Service.AuthService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/auth")
+public class AuthController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
+
+    /** Seconds a client is asked to wait when the login pool is saturated. */
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    @Autowired
+    private AuthService authService;
+
+    @PostMapping("/login")
+    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
+        try {
+            logger.debug("Entered login");
+            if (loginRequest == null || isBlank(loginRequest.getEmail()) || isBlank(loginRequest.getPassword())) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share the email and password!");
+            }
+            return ResponseEntity.status(HttpStatus.OK).body(authService.login(loginRequest.getEmail(), loginRequest.getPassword()));
+        } catch (BadCredentialsException e) {
+            logger.warn("Login failed for email: {}", loginRequest.getEmail());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid email or password!");
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .body("Too many logins in progress, please retry shortly!");
+        } catch (Exception e) {
+            logger.error("Error while logging in: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while logging in the error is: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshRequest refreshRequest) {
+        try {
+            logger.debug("Entered refresh");
+            if (refreshRequest == null || isBlank(refreshRequest.getRefreshToken())) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share the refresh token!");
+            }
+            return ResponseEntity.status(HttpStatus.OK).body(authService.refresh(refreshRequest.getRefreshToken()));
+        } catch (BadCredentialsException e) {
+            logger.warn("Refresh failed: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Please log in again, the refresh token is invalid or expired!");
+        } catch (Exception e) {
+            logger.error("Error while refreshing tokens: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while refreshing the tokens the error is: " + e.getMessage());
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
@@ -0,0 +1,87 @@
+package com.application.expenseTracker.ExpenseTracker.Controller;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Budget;
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Exception.InvalidBudgetException;
+import com.application.expenseTracker.ExpenseTracker.Service.BudgetService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/")
+public class BudgetController {
+
+    private static final Logger logger = LoggerFactory.getLogger(BudgetController.class);
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @PutMapping("/budgets")
+    public ResponseEntity<?> setBudget(@RequestBody Budget budget) {
+        try {
+            logger.debug("Entered setBudget");
+            return ResponseEntity.status(HttpStatus.OK).body(budgetService.setBudget(budget));
+        } catch (InvalidBudgetException e) {
+            logger.warn("Entered budget is invalid: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share a valid Budget! " + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error while setting budget: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while setting the budget the error is: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/budgets")
+    public ResponseEntity<?> getBudgets(@RequestParam String userEmail,
+                                        @RequestParam(required = false) String month) {
+        try {
+            logger.debug("Entered getBudgets");
+            YearMonth budgetMonth;
+            try {
+                budgetMonth = month == null || month.isEmpty() ? YearMonth.now() : YearMonth.parse(month);
+            } catch (DateTimeParseException e) {
+                logger.warn("Entered month: {} is invalid", month);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share the month as YYYY-MM!");
+            }
+            List<Budget> budgets = budgetService.getBudgets(userEmail, budgetMonth);
+            if (budgets.isEmpty()) {
+                logger.warn("No budgets found for userEmail: {} in month: {}", userEmail, budgetMonth);
+                return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+            }
+            return ResponseEntity.status(HttpStatus.OK).body(budgets);
+        } catch (Exception e) {
+            logger.error("Error while fetching budgets: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching the budgets the error is: " + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/budgets")
+    public ResponseEntity<?> deleteBudget(@RequestParam String userEmail,
+                                          @RequestParam String month,
+                                          @RequestParam(required = false) Expense.ExpenseCategory category) {
+        try {
+            logger.debug("Entered deleteBudget");
+            YearMonth budgetMonth;
+            try {
+                budgetMonth = YearMonth.parse(month);
+            } catch (DateTimeParseException e) {
+                logger.warn("Entered month: {} is invalid", month);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share the month as YYYY-MM!");
+            }
+            if (!budgetService.deleteBudget(userEmail, budgetMonth, category)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No budget found for userEmail: " + userEmail + " in month: " + budgetMonth);
+            }
+            return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+        } catch (Exception e) {
+            logger.error("Error while deleting budget: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while deleting the budget the error is: " + e.getMessage());
+        }
+    }
+}
@@ -1,26 +1,44 @@
 package com.application.expenseTracker.ExpenseTracker.Controller;
 
+import com.application.expenseTracker.ExpenseTracker.Config.ReplicaRoutingDataSource;
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpenseAnomaly;
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpensePatch;
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpenseQuery;
 import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
 import com.application.expenseTracker.ExpenseTracker.Exception.ExpenseNotFoundException;
 import com.application.expenseTracker.ExpenseTracker.Exception.InvalidBudgetException;
 import com.application.expenseTracker.ExpenseTracker.Service.CalculationService;
 
 import com.application.expenseTracker.ExpenseTracker.Service.EmailService;
-import org.hibernate.Session;
-import org.hibernate.SessionFactory;
+import com.application.expenseTracker.ExpenseTracker.Service.ExpensePurgeService;
+import com.application.expenseTracker.ExpenseTracker.Service.ExpenseSeriesService;
+import com.application.expenseTracker.ExpenseTracker.Service.ExpenseStatementService;
+import com.application.expenseTracker.ExpenseTracker.Service.SchedulerLeaseService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 
@@ -31,8 +49,10 @@ public class CalculationController {
 
     private static final Logger logger = LoggerFactory.getLogger(CalculationController.class);
 
-    @Autowired
-    private SessionFactory sessionFactory;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_SERIES_DAYS = 3660;
+    private static final int MAX_PERCENTILE_MONTHS = 120;
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
 
     @Autowired
     private CalculationService calculationService;
@@ -40,6 +60,18 @@ public class CalculationController {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private ExpensePurgeService expensePurgeService;
+
+    @Autowired
+    private SchedulerLeaseService schedulerLeaseService;
+
+    @Autowired
+    private ExpenseStatementService expenseStatementService;
+
+    @Value("${expense.recurring.partitions:4}")
+    private int recurringPartitions = 4;
+
     @PostMapping("/expenses")
     @ExceptionHandler(InvalidBudgetException.class)
     public ResponseEntity<?> addExpense(@RequestBody Expense expense) {
@@ -48,13 +80,11 @@ public class CalculationController {
             if (expense.getUserEmail() == null || expense.getUserEmail().isEmpty()) {
                 logger.warn("Entered userEmail is empty");
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share the Email-Id!");
-            } else if (expense.getBudget()<= 0) {
-                logger.warn("Entered budget is invalid");
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share a valid Budget!");
             }else{
                 calculationService.addExpense(expense);
                 logger.info("Expense added successfully");
-                calculationService.checkAndSendBudgetAlerts(expense.getUserEmail(),expense.getBudget(),LocalDate.now());
+                calculationService.checkAndSendBudgetAlerts(expense.getUserEmail(), expense.getCategory(),
+                        expense.getExpenseDone() != null ? expense.getExpenseDone() : LocalDate.now());
                 logger.info("If any budget breached is alerted");
                 return ResponseEntity.status(HttpStatus.OK).body(expense);
             }
@@ -76,7 +106,7 @@ public class CalculationController {
                 logger.warn("There are not yet any expenses shared");
                 return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
             }
-            logger.info("Fetched expenses of size: " + expenses.size());
+            logger.info("Fetched expenses of size: {}", expenses.size());
         } catch (Exception e) {
             logger.error("Error while getting all expenses: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching the expenses!" + e.getMessage());
@@ -84,20 +114,82 @@ public class CalculationController {
         return ResponseEntity.status(HttpStatus.OK).body(expenses);
     }
 
+    @GetMapping("/expenses/{id}")
+    public ResponseEntity<?> getExpenseById(@PathVariable Long id) {
+        try {
+            logger.debug("Entered getExpenseById");
+            Optional<Expense> expense = calculationService.findById(id);
+            if (!expense.isPresent()) {
+                logger.warn("No expense found for id: {}", id);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Expense not found for ID: " + id);
+            }
+            return ResponseEntity.status(HttpStatus.OK).body(expense.get());
+        } catch (Exception e) {
+            logger.error("Error while fetching expense: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching the expense for id: " + id + " the error is: " + e.getMessage());
+        }
+    }
+
     @PutMapping("/expenses/{id}")
     public ResponseEntity<?> updateExpense(@RequestBody Expense expense, @PathVariable Long id) {
-        Optional<Expense> myExpenses = null;
         try {
-            calculationService.findById(id).orElseThrow(() -> new ExpenseNotFoundException("Expense not found for ID: " + id));
+            // The update is based on this read, so it must not come from a lagging replica.
+            Expense existing = ReplicaRoutingDataSource.onPrimary(() -> calculationService.findById(id)).orElseThrow(() -> new ExpenseNotFoundException("Expense not found for ID: " + id));
+            expense.setId(id);
+            if (expense.getVersion() == null) {
+                // Clients that do not send a version keep the previous last-writer-wins behaviour.
+                expense.setVersion(existing.getVersion());
+            }
             calculationService.updateExpense(expense);
-            return ResponseEntity.status(HttpStatus.OK).body(myExpenses);
+            return ResponseEntity.status(HttpStatus.OK).body(expense);
 
+        } catch (ObjectOptimisticLockingFailureException e) {
+            logger.warn("Concurrent update detected for expense id: {}", id);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("The expense with id: " + id + " was changed by another request, please reload it and retry!");
         } catch (Exception e) {
             logger.error("Error while updating expense: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while updating the expenses for id: " + id + " the error is: " + e.getMessage());
         }
     }
 
+    @PatchMapping("/expenses/{id}")
+    public ResponseEntity<?> patchExpense(@PathVariable Long id, @RequestBody ExpensePatch patch,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            logger.debug("Entered patchExpense");
+            if (patch.getVersion() == null && ifMatch != null) {
+                patch.setVersion(Long.valueOf(ifMatch.replace("W/", "").replace("\"", "").trim()));
+            }
+            if (patch.getVersion() == null) {
+                logger.warn("Entered patch for id: {} has no version", id);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share the version of the expense in the body or the If-Match header!");
+            } else if (patch.isEmpty()) {
+                logger.warn("Entered patch for id: {} has no fields", id);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share at least one field to update!");
+            } else if (patch.getAmount() != null && patch.getAmount().signum() < 0) {
+                logger.warn("Entered patch amount is invalid");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share a valid amount!");
+            }
+            Long version = calculationService.patchExpense(id, patch);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("id", id);
+            result.put("version", version);
+            return ResponseEntity.status(HttpStatus.OK).eTag("\"" + version + "\"").body(result);
+        } catch (NumberFormatException e) {
+            logger.warn("Entered If-Match header: {} is invalid", ifMatch);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share a numeric version in the If-Match header!");
+        } catch (ExpenseNotFoundException e) {
+            logger.warn("Expense not found for id: {}", id);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            logger.warn("Concurrent update detected for expense id: {}", id);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("The expense with id: " + id + " was changed by another request, please reload it and retry!");
+        } catch (Exception e) {
+            logger.error("Error while patching expense: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while updating the expenses for id: " + id + " the error is: " + e.getMessage());
+        }
+    }
+
     @GetMapping("list/category/{category}")
     public ResponseEntity<?> getExpensesByCategory(@PathVariable Expense.ExpenseCategory category) {
         List<Expense> myExpenses = null;
@@ -127,19 +219,109 @@ public class CalculationController {
             }
         } catch (Exception e) {
             logger.error("Error while fetching expense: {}", e.getMessage(), e);
-            e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching the expenses by date range shared between startDate: " + startDate + " endDate: " + endDate + " the error is: " + e.getMessage());
         }
         return ResponseEntity.status(HttpStatus.OK).body(myExpenses);
     }
 
+    @GetMapping("/expenses/search")
+    public ResponseEntity<?> searchExpenses(@RequestParam String q,
+                                            @RequestParam(required = false) Expense.ExpenseCategory category,
+                                            @RequestParam(required = false) LocalDate startDate,
+                                            @RequestParam(required = false) LocalDate endDate,
+                                            @RequestParam(defaultValue = "0") int page,
+                                            @RequestParam(defaultValue = "20") int size) {
+        try {
+            logger.debug("Entered searchExpenses");
+            if (q == null || q.trim().isEmpty()) {
+                logger.warn("Entered search query is empty");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share a search query!");
+            } else if (page < 0 || size <= 0 || size > MAX_PAGE_SIZE) {
+                logger.warn("Entered page: {} or size: {} is invalid", page, size);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share a valid page and a size between 1 and " + MAX_PAGE_SIZE + "!");
+            }
+            Map<String, Object> result = calculationService.searchExpenses(q, category, startDate, endDate, page, size);
+            if (((Integer) result.get("total")) == 0) {
+                logger.warn("No Expense matched the search query");
+                return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+            }
+            return ResponseEntity.status(HttpStatus.OK).body(result);
+        } catch (Exception e) {
+            logger.error("Error while searching expenses: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while searching the expenses for query: " + q + " the error is: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/expenses/anomalies")
+    public ResponseEntity<?> getAnomalies(@RequestParam(required = false) String userEmail,
+                                          @RequestParam(defaultValue = "50") int limit) {
+        try {
+            logger.debug("Entered getAnomalies");
+            if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+                logger.warn("Entered limit: {} is invalid", limit);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share a limit between 1 and " + MAX_PAGE_SIZE + "!");
+            }
+            List<ExpenseAnomaly> anomalies = calculationService.getRecentAnomalies(userEmail == null || userEmail.isEmpty() ? null : userEmail, limit);
+            if (anomalies.isEmpty()) {
+                logger.warn("No anomalous expenses were found");
+                return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+            }
+            return ResponseEntity.status(HttpStatus.OK).body(anomalies);
+        } catch (Exception e) {
+            logger.error("Error while getting anomalies: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching the anomalous expenses the error is: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/expenses/series")
+    public ResponseEntity<?> getExpenseSeries(@RequestParam String bucket,
+                                              @RequestParam LocalDate from,
+                                              @RequestParam LocalDate to,
+                                              @RequestParam(required = false) String groupBy) {
+        try {
+            logger.debug("Entered getExpenseSeries");
+            ExpenseSeriesService.Bucket seriesBucket;
+            ExpenseSeriesService.GroupBy seriesGroupBy;
+            if ("day".equalsIgnoreCase(bucket)) {
+                seriesBucket = ExpenseSeriesService.Bucket.DAY;
+            } else if ("week".equalsIgnoreCase(bucket)) {
+                seriesBucket = ExpenseSeriesService.Bucket.WEEK;
+            } else if ("month".equalsIgnoreCase(bucket)) {
+                seriesBucket = ExpenseSeriesService.Bucket.MONTH;
+            } else {
+                logger.warn("Entered bucket: {} is invalid", bucket);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share a bucket out of day, week or month!");
+            }
+            if (groupBy == null || groupBy.isEmpty()) {
+                seriesGroupBy = ExpenseSeriesService.GroupBy.NONE;
+            } else if ("category".equalsIgnoreCase(groupBy)) {
+                seriesGroupBy = ExpenseSeriesService.GroupBy.CATEGORY;
+            } else if ("paymentMode".equalsIgnoreCase(groupBy)) {
+                seriesGroupBy = ExpenseSeriesService.GroupBy.PAYMENT_MODE;
+            } else {
+                logger.warn("Entered groupBy: {} is invalid", groupBy);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share a groupBy out of category or paymentMode!");
+            }
+            if (from.isAfter(to) || (seriesBucket == ExpenseSeriesService.Bucket.DAY && from.plusDays(MAX_SERIES_DAYS).isBefore(to))) {
+                logger.warn("Entered range from: {} to: {} is invalid", from, to);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share a valid range, daily series are limited to " + MAX_SERIES_DAYS + " days!");
+            }
+            List<Map<String, Object>> series = calculationService.getExpenseSeries(seriesBucket, seriesGroupBy, from, to);
+            return ResponseEntity.status(HttpStatus.OK).body(series);
+        } catch (Exception e) {
+            logger.error("Error while fetching expense series: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching the expense series between from: " + from + " to: " + to + " the error is: " + e.getMessage());
+        }
+    }
+
     @DeleteMapping("/expense/{id}")
     public ResponseEntity<?> deleteExpenseById(@PathVariable Long id) {
         try {
-            calculationService.findById(id).orElseThrow(() -> new ExpenseNotFoundException("Expense not found for ID: " + id));
-            calculationService.deleteExpenseById(id);
+            if (calculationService.deleteExpenseById(id) == 0) {
+                throw new ExpenseNotFoundException("Expense not found for ID: " + id);
+            }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error while deleting expense: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while deleting the expenses for id: " + id + " the error is: " + e.getMessage());
         }
         return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
@@ -147,13 +329,50 @@ public class CalculationController {
 
     @DeleteMapping("/expense/delete")
     public ResponseEntity<?> deleteAllExpenses() {
+        int deleted;
         try {
-            calculationService.deleteAllExpenses();
+            deleted = calculationService.deleteAllExpenses();
+            logger.info("Deleted all expenses, count: {}", deleted);
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error while deleting all expenses: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while deleting the expenses the error is: " + e.getMessage());
         }
-        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+        return ResponseEntity.status(HttpStatus.OK).body(Collections.singletonMap("deleted", deleted));
+    }
+
+    @PostMapping("/expenses/purge")
+    public ResponseEntity<?> startPurge(@RequestParam(required = false) String userEmail,
+                                        @RequestParam(required = false) LocalDate startDate,
+                                        @RequestParam(required = false) LocalDate endDate) {
+        try {
+            logger.debug("Entered startPurge");
+            if ((userEmail == null || userEmail.isEmpty()) && startDate == null && endDate == null) {
+                logger.warn("Purge requested without any criteria");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share a userEmail and/or a date range to purge, use /expense/delete to delete everything!");
+            } else if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
+                logger.warn("Entered purge range startDate: {} endDate: {} is invalid", startDate, endDate);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share a startDate before the endDate!");
+            }
+            ExpensePurgeService.PurgeJob job = expensePurgeService.startPurge(userEmail == null || userEmail.isEmpty() ? null : userEmail, startDate, endDate);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (Exception e) {
+            logger.error("Error while starting purge: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while starting the purge the error is: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/expenses/purge/{jobId}")
+    public ResponseEntity<?> getPurge(@PathVariable String jobId) {
+        return expensePurgeService.getJob(jobId)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.status(HttpStatus.OK).body(job))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("Purge job not found for ID: " + jobId));
+    }
+
+    @DeleteMapping("/expenses/purge/{jobId}")
+    public ResponseEntity<?> cancelPurge(@PathVariable String jobId) {
+        return expensePurgeService.cancel(jobId)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.status(HttpStatus.ACCEPTED).body(job))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("Purge job not found for ID: " + jobId));
     }
 
     @GetMapping("/expenses/payment/{paymentMode}")
@@ -164,7 +383,7 @@ public class CalculationController {
             if (myExpenses.isEmpty())
                 return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error while fetching expenses by paymentMode: {}: {}", paymentMode, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching the expenses filtered by category: " + paymentMode + " the error is: " + e.getMessage());
         }
         return ResponseEntity.status(HttpStatus.OK).body(myExpenses);
@@ -179,81 +398,146 @@ public class CalculationController {
             if (myExpenses.isEmpty())
                 return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error while fetching total expenses: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching all the expenses the error is: " + e.getMessage());
         }
         return ResponseEntity.status(HttpStatus.OK).body(myExpenses);
     }
 
     @GetMapping("/expenses/recent/")
-    public ResponseEntity<?> getRecentExpenses() {
+    public ResponseEntity<?> getRecentExpenses(@RequestParam(required = false) String userEmail) {
         List<Expense> myExpenses = null;
         try {
-            myExpenses = calculationService.getRecentExpenses(LocalDate.now());
+            myExpenses = calculationService.getRecentExpenses(userEmail == null || userEmail.isEmpty() ? null : userEmail, LocalDate.now());
             if (myExpenses.isEmpty())
                 return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error while fetching recent expenses: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching all the expenses the error is: " + e.getMessage());
         }
         return ResponseEntity.status(HttpStatus.OK).body(myExpenses);
     }
 
-    @Transactional
     @GetMapping("/expenses/recurring/")
     public ResponseEntity<?> getRecurringExpenses() {
         List<Expense> myExpenses = null;
         try {
-            Session session = sessionFactory.getCurrentSession();
-            String hql = "FROM Expense E WHERE E.isRecurring = true";
-            myExpenses = session.createQuery(hql, Expense.class).list();
+            myExpenses = calculationService.getRecurringExpenses();
             if (myExpenses.isEmpty())
                 return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error while fetching recurring expenses: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching all the expenses the error is: " + e.getMessage());
         }
         return ResponseEntity.status(HttpStatus.OK).body(myExpenses);
     }
 
-    @Transactional
     @GetMapping("/expenses/amount-above/{myAmount}/")
     public ResponseEntity<?> getExpensesAbove(@PathVariable BigDecimal myAmount) {
         List<Expense> myExpenses = null;
         try {
-            Session session = sessionFactory.getCurrentSession();
-            String hql = "FROM Expense E WHERE E.amount > :myAmount";
-            myExpenses = session.createQuery(hql, Expense.class).setParameter("myAmount", myAmount).list();
+            myExpenses = calculationService.getExpensesAbove(myAmount);
             if (myExpenses.isEmpty())
                 return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error while fetching expenses above: {}: {}", myAmount, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching all the expenses the error is: " + e.getMessage());
         }
         return ResponseEntity.status(HttpStatus.OK).body(myExpenses);
     }
 
-    @Transactional
     @GetMapping("/expenses/amount-below/{myAmount}/")
     public ResponseEntity<?> getExpensesBelow(@PathVariable BigDecimal myAmount) {
         List<Expense> myExpenses = null;
         try {
-            Session session = sessionFactory.getCurrentSession();
-            String hql = "FROM Expense E WHERE E.amount < :myAmount";
-            myExpenses = session.createQuery(hql, Expense.class).setParameter("myAmount", myAmount).list();
+            myExpenses = calculationService.getExpensesBelow(myAmount);
             if (myExpenses.isEmpty())
                 return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error while fetching expenses below: {}: {}", myAmount, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching all the expenses the error is: " + e.getMessage());
         }
         return ResponseEntity.status(HttpStatus.OK).body(myExpenses);
     }
 
+    @GetMapping("/expenses/query")
+    public ResponseEntity<?> queryExpenses(@RequestParam(required = false) String userEmail,
+                                           @RequestParam(required = false) List<Expense.ExpenseCategory> category,
+                                           @RequestParam(required = false) List<Expense.PaymentMode> paymentMode,
+                                           @RequestParam(required = false) LocalDate startDate,
+                                           @RequestParam(required = false) LocalDate endDate,
+                                           @RequestParam(required = false) BigDecimal minAmount,
+                                           @RequestParam(required = false) BigDecimal maxAmount,
+                                           @RequestParam(required = false) Boolean recurring,
+                                           @RequestParam(defaultValue = "expenseDone") String sort,
+                                           @RequestParam(defaultValue = "desc") String direction,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "20") int limit) {
+        try {
+            logger.debug("Entered queryExpenses");
+            ExpenseQuery query = new ExpenseQuery();
+            if ("expenseDone".equalsIgnoreCase(sort)) {
+                query.setSort(ExpenseQuery.SortField.EXPENSE_DONE);
+            } else if ("amount".equalsIgnoreCase(sort)) {
+                query.setSort(ExpenseQuery.SortField.AMOUNT);
+            } else if ("id".equalsIgnoreCase(sort)) {
+                query.setSort(ExpenseQuery.SortField.ID);
+            } else {
+                logger.warn("Entered sort: {} is invalid", sort);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share a sort of expenseDone, amount or id!");
+            }
+            if ("desc".equalsIgnoreCase(direction) || "asc".equalsIgnoreCase(direction)) {
+                query.setDescending("desc".equalsIgnoreCase(direction));
+            } else {
+                logger.warn("Entered direction: {} is invalid", direction);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share a direction of asc or desc!");
+            }
+            if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+                logger.warn("Entered limit: {} is invalid", limit);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share a limit between 1 and " + MAX_PAGE_SIZE + "!");
+            } else if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
+                logger.warn("Entered startDate: {} is after endDate: {}", startDate, endDate);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share a startDate on or before the endDate!");
+            } else if (minAmount != null && maxAmount != null && minAmount.compareTo(maxAmount) > 0) {
+                logger.warn("Entered minAmount: {} is above maxAmount: {}", minAmount, maxAmount);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share a minAmount no larger than the maxAmount!");
+            }
+            if (cursor != null && !cursor.isEmpty()) {
+                try {
+                    query.applyCursor(cursor);
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Entered cursor is invalid: {}", e.getMessage());
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share the cursor returned with the previous page for the same sort!");
+                }
+            }
+            query.setUserEmail(userEmail == null || userEmail.isEmpty() ? null : userEmail);
+            query.setCategories(category);
+            query.setPaymentModes(paymentMode);
+            query.setStartDate(startDate);
+            query.setEndDate(endDate);
+            query.setMinAmount(minAmount);
+            query.setMaxAmount(maxAmount);
+            query.setRecurring(recurring);
+            query.setLimit(limit);
+            return ResponseEntity.status(HttpStatus.OK).body(calculationService.queryExpenses(query));
+        } catch (Exception e) {
+            logger.error("Error while querying expenses: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while querying the expenses the error is: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/expenses/summary")
-    public ResponseEntity<?> getExpenseSummary() {
+    public ResponseEntity<?> getExpenseSummary(@RequestParam(required = false) String userEmail,
+                                               @RequestParam(required = false) String month) {
         try{
-            Map<String, Object> summary = calculationService.getExpenseSummary();
+            YearMonth summaryMonth;
+            try {
+                summaryMonth = month == null || month.isEmpty() ? YearMonth.now() : YearMonth.parse(month);
+            } catch (DateTimeParseException e) {
+                logger.warn("Entered month: {} is invalid", month);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share the month as YYYY-MM!");
+            }
+            Map<String, Object> summary = calculationService.getExpenseSummary(userEmail == null || userEmail.isEmpty() ? null : userEmail, summaryMonth);
             return ResponseEntity.status(HttpStatus.OK).body(summary);
         }
         catch(Exception e){
@@ -262,38 +546,174 @@ public class CalculationController {
         }
     }
 
+    @GetMapping("/expenses/percentiles")
+    public ResponseEntity<?> getSpendingPercentiles(@RequestParam(required = false) String userEmail,
+                                                    @RequestParam(required = false) Expense.ExpenseCategory category,
+                                                    @RequestParam(required = false) String from,
+                                                    @RequestParam(required = false) String to,
+                                                    @RequestParam(defaultValue = "0.5,0.9") List<Double> q) {
+        try {
+            logger.debug("Entered getSpendingPercentiles");
+            if (userEmail == null || userEmail.isEmpty()) {
+                logger.warn("Entered userEmail is empty");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share the Email-Id!");
+            }
+            YearMonth fromMonth;
+            YearMonth toMonth;
+            try {
+                toMonth = to == null || to.isEmpty() ? YearMonth.now() : YearMonth.parse(to);
+                fromMonth = from == null || from.isEmpty() ? toMonth : YearMonth.parse(from);
+            } catch (DateTimeParseException e) {
+                logger.warn("Entered months: {} to {} are invalid", from, to);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share the months as YYYY-MM!");
+            }
+            if (fromMonth.isAfter(toMonth) || fromMonth.plusMonths(MAX_PERCENTILE_MONTHS).isBefore(toMonth.plusMonths(1))) {
+                logger.warn("Entered month range: {} to {} is invalid", fromMonth, toMonth);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share a range of at most " + MAX_PERCENTILE_MONTHS + " months that does not end before it starts!");
+            }
+            if (q.isEmpty() || q.size() > 10 || q.stream().anyMatch(quantile -> quantile == null || quantile < 0 || quantile > 1)) {
+                logger.warn("Entered quantiles: {} are invalid", q);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share up to 10 quantiles between 0 and 1!");
+            }
+            return ResponseEntity.status(HttpStatus.OK).body(calculationService.getSpendingPercentiles(userEmail, category, fromMonth, toMonth, q));
+        } catch (Exception e) {
+            logger.error("Error while getting spending percentiles: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching the spending percentiles the error is: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/expenses/statements/{month}")
+    public ResponseEntity<?> getMonthlyStatement(@PathVariable String month, @RequestParam(required = false) String userEmail) {
+        try {
+            logger.debug("Entered getMonthlyStatement");
+            if (userEmail == null || userEmail.isEmpty()) {
+                logger.warn("Entered userEmail is empty");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share the Email-Id!");
+            }
+            if (!expenseStatementService.isEnabled()) {
+                logger.warn("Monthly statements are disabled");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Monthly statements are not enabled!");
+            }
+            YearMonth statementMonth;
+            try {
+                statementMonth = YearMonth.parse(month);
+            } catch (DateTimeParseException e) {
+                logger.warn("Entered month: {} is invalid", month);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share the month as YYYY-MM!");
+            }
+            if (!statementMonth.isBefore(YearMonth.now())) {
+                logger.warn("Entered month: {} has not ended", statementMonth);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please share a month that has already ended!");
+            }
+            Path statement = expenseStatementService.getStatement(userEmail, statementMonth);
+            logger.info("Serving the statement for {}", statementMonth);
+            return ResponseEntity.status(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"statement-" + statementMonth + ".csv\"")
+                    .contentType(TEXT_CSV)
+                    .body(new FileSystemResource(statement));
+        } catch (Exception e) {
+            logger.error("Error while getting the monthly statement: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching the statement the error is: " + e.getMessage());
+        }
+    }
+
     @PostMapping("/expenses/{myid}/newdate")
     public ResponseEntity<?> updateExpenseDone(@PathVariable Long myid, @RequestParam LocalDate newdate){
         try{
             logger.debug("Entered updateExpenseDone");
-            Expense expense = calculationService.findById(myid).orElseThrow(() -> new ExpenseNotFoundException("Expense not found for ID: " + myid));
-            expense.setExpenseDone(newdate);
-            calculationService.updateExpense(expense);
-            logger.debug("Updated ExpenseDone for id: " + myid +" with newdate: "+ newdate);
+            ExpensePatch patch = new ExpensePatch();
+            patch.setExpenseDone(newdate);
+            calculationService.patchExpense(myid, patch);
+            logger.debug("Updated ExpenseDone for id: {} with newdate: {}", myid, newdate);
+            // The response stays the full expense, read back after the single-column update
+            Expense expense = ReplicaRoutingDataSource.onPrimary(() -> calculationService.findById(myid)).orElseThrow(() -> new ExpenseNotFoundException("Expense not found for ID: " + myid));
             return ResponseEntity.status(HttpStatus.OK).body(expense);
         }catch(Exception e) {
-            logger.error("An error occurred while getting ExpenseSummary!: {} ", e.getMessage(), e);
+            logger.error("An error occurred while updating ExpenseDone!: {} ", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching all the expenses the error is: " + e.getMessage());
         }
     }
 
+    /**
+     * Runs on every instance, but each recurring template belongs to one partition (by hash of
+     * its userEmail) and each partition of a month to one database lease, so every template is
+     * processed once. Instances start at different partitions to share the work.
+     */
     @Scheduled(cron = "0 0 0 1 * ?")
     public void createRecurringEntries(){
+        runRecurringEntries(YearMonth.now());
+    }
+
+    /** Picks up partitions of this month's run whose lease expired because its instance died. */
+    @Scheduled(fixedDelayString = "${expense.recurring.catch-up.interval.ms:60000}", initialDelayString = "${expense.recurring.catch-up.interval.ms:60000}")
+    public void resumeRecurringEntries() {
+        YearMonth month = YearMonth.now();
+        try {
+            if (schedulerLeaseService.isPending(recurringLeasePrefix(month), recurringPartitions)) {
+                logger.info("Resuming unfinished recurring expense partitions for {}", month);
+                runRecurringEntries(month);
+            }
+        } catch (Exception e) {
+            logger.error("An error occurred while resuming the recurring expenses!: {} ", e.getMessage(), e);
+        }
+    }
+
+    private void runRecurringEntries(YearMonth month) {
         try {
             logger.debug("Entered Scheduled Job to create Recurring Expenses");
-            List<Expense> expenses = calculationService.getRecurringExpenses();
-            if (expenses.isEmpty()) {
-                logger.warn("No Recurring Expense present");
-            }else{
-                for(Expense expense: expenses) {
-                    logger.debug("Adding Expense with Title: " + expense.getTitle() + " and Amount: " + expense.getAmount() + " for Category: " + expense.getCategory());
-                    calculationService.addExpense(expense);
-                    expense.setExpenseDone(LocalDate.now());
-                    calculationService.updateExpense(expense);
+            List<Expense> expenses = null;
+            int firstPartition = Math.floorMod(schedulerLeaseService.getNodeId().hashCode(), recurringPartitions);
+            for (int i = 0; i < recurringPartitions; i++) {
+                int partition = (firstPartition + i) % recurringPartitions;
+                String leaseKey = recurringLeasePrefix(month) + partition;
+                if (!schedulerLeaseService.tryAcquire(leaseKey)) {
+                    continue;
                 }
+                if (expenses == null) {
+                    expenses = new ArrayList<>(calculationService.getRecurringExpenses());
+                    expenses.sort(Comparator.comparing(Expense::getId, Comparator.nullsFirst(Comparator.<Long>naturalOrder())));
+                    if (expenses.isEmpty()) {
+                        logger.warn("No Recurring Expense present");
+                    }
+                }
+                createRecurringEntries(leaseKey, partition, month, expenses, schedulerLeaseService.getCheckpoint(leaseKey));
             }
         }catch (Exception e){
             logger.error("An error occurred while creating/fetching the recurring expenses!: {} ", e.getMessage(), e );
         }
     }
+
+    /**
+     * The checkpoint only moves after a template was written, so a holder that stops in between
+     * leaves one template the next holder sees again. Its date, already in {@code month}, marks it
+     * as done, and the version check of the update stops a holder that lost its lease from
+     * writing it a second time.
+     */
+    private void createRecurringEntries(String leaseKey, int partition, YearMonth month, List<Expense> expenses, Long checkpoint) {
+        for(Expense expense: expenses) {
+            if (Math.floorMod(Objects.hashCode(expense.getUserEmail()), recurringPartitions) != partition
+                    || (checkpoint != null && expense.getId() != null && expense.getId() <= checkpoint)) {
+                continue;
+            }
+            if (expense.getExpenseDone() != null && YearMonth.from(expense.getExpenseDone()).equals(month)) {
+                logger.debug("Recurring expense: {} already has its entry for {}", expense.getId(), month);
+                continue;
+            }
+            logger.debug("Adding Expense with Title: {} and Amount: {} for Category: {}", expense.getTitle(), expense.getAmount(), expense.getCategory());
+            // The checkpoint is the template's id, the order the templates are walked in
+            Long templateId = expense.getId();
+            calculationService.addExpense(expense);
+            expense.setExpenseDone(LocalDate.now());
+            calculationService.updateExpense(expense);
+            if (!schedulerLeaseService.renew(leaseKey, templateId)) {
+                logger.warn("Lost lease: {} after expense: {}, leaving the rest to its new owner", leaseKey, templateId);
+                return;
+            }
+        }
+        schedulerLeaseService.complete(leaseKey);
+    }
+
+    private static String recurringLeasePrefix(YearMonth month) {
+        return "recurring-expenses:" + month + ":";
+    }
 }
@@ -0,0 +1,32 @@
+package com.application.expenseTracker.ExpenseTracker.Controller;
+
+import com.application.expenseTracker.ExpenseTracker.Service.ExpenseArchiveService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/expensearchive} shows the archived months and the last run,
+ * {@code POST /actuator/expensearchive} archives everything before the horizon immediately.
+ */
+@Component
+@Endpoint(id = "expensearchive")
+public class ExpenseArchiveEndpoint {
+
+    @Autowired
+    private ExpenseArchiveService expenseArchiveService;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return expenseArchiveService.getStats();
+    }
+
+    @WriteOperation
+    public Map<String, Object> archive() {
+        return expenseArchiveService.archive(expenseArchiveService.getHorizon());
+    }
+}
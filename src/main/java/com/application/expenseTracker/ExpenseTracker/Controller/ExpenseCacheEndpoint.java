@@ -0,0 +1,32 @@
+package com.application.expenseTracker.ExpenseTracker.Controller;
+
+import com.application.expenseTracker.ExpenseTracker.Service.ExpenseCacheService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/expensecache} shows hit, miss and eviction counts of the off-heap expense
+ * cache, {@code DELETE /actuator/expensecache} empties it.
+ */
+@Component
+@Endpoint(id = "expensecache")
+public class ExpenseCacheEndpoint {
+
+    @Autowired
+    private ExpenseCacheService expenseCacheService;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return expenseCacheService.getStats();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        expenseCacheService.invalidateAll();
+    }
+}
@@ -0,0 +1,23 @@
+package com.application.expenseTracker.ExpenseTracker.Controller;
+
+import com.application.expenseTracker.ExpenseTracker.Service.ExpenseIngestService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/** {@code GET /actuator/expenseingest} shows the write-behind backlog and how many batches were written. */
+@Component
+@Endpoint(id = "expenseingest")
+public class ExpenseIngestEndpoint {
+
+    @Autowired
+    private ExpenseIngestService expenseIngestService;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return expenseIngestService.getStats();
+    }
+}
@@ -0,0 +1,32 @@
+package com.application.expenseTracker.ExpenseTracker.Controller;
+
+import com.application.expenseTracker.ExpenseTracker.Service.ExpensePercentileService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/expensepercentiles} shows the sketch count and the last rebuild,
+ * {@code POST /actuator/expensepercentiles} rebuilds the sketches from the table and the archive.
+ */
+@Component
+@Endpoint(id = "expensepercentiles")
+public class ExpensePercentileEndpoint {
+
+    @Autowired
+    private ExpensePercentileService expensePercentileService;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return expensePercentileService.getStats();
+    }
+
+    @WriteOperation
+    public Map<String, Object> rebuild() {
+        return expensePercentileService.rebuild();
+    }
+}
@@ -0,0 +1,40 @@
+package com.application.expenseTracker.ExpenseTracker.Controller;
+
+import com.application.expenseTracker.ExpenseTracker.Service.ExpenseShardService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/expenseshards} shows expenses and users per shard.
+ * {@code POST /actuator/expenseshards} with {@code {"userEmail", "shard"}} moves one user, and
+ * without a body rebalances every user onto the shard the ring gives them.
+ */
+@Component
+@Endpoint(id = "expenseshards")
+public class ExpenseShardEndpoint {
+
+    @Autowired
+    private ExpenseShardService expenseShardService;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return expenseShardService.getStats();
+    }
+
+    @WriteOperation
+    public Map<String, Object> reshard(@Nullable String userEmail, @Nullable Integer shard) {
+        if (userEmail == null) {
+            return expenseShardService.rebalance();
+        }
+        if (shard == null) {
+            throw new IllegalArgumentException("Please share the shard to move the user to!");
+        }
+        return expenseShardService.moveUser(userEmail, shard);
+    }
+}
@@ -0,0 +1,35 @@
+package com.application.expenseTracker.ExpenseTracker.Controller;
+
+import com.application.expenseTracker.ExpenseTracker.Service.ExpenseStatementService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/expensestatements} shows the last statement run,
+ * {@code POST /actuator/expensestatements} with an optional {@code {"month": "YYYY-MM"}} writes
+ * the statements of that month, last month by default, immediately.
+ */
+@Component
+@Endpoint(id = "expensestatements")
+public class ExpenseStatementEndpoint {
+
+    @Autowired
+    private ExpenseStatementService expenseStatementService;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return expenseStatementService.getStats();
+    }
+
+    @WriteOperation
+    public Map<String, Object> generate(@Nullable String month) {
+        return expenseStatementService.generate(month == null ? YearMonth.now().minusMonths(1) : YearMonth.parse(month));
+    }
+}
@@ -0,0 +1,32 @@
+package com.application.expenseTracker.ExpenseTracker.Controller;
+
+import com.application.expenseTracker.ExpenseTracker.Service.SnapshotService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/snapshots} shows the last snapshot and restore, {@code POST /actuator/snapshots}
+ * writes a new snapshot immediately.
+ */
+@Component
+@Endpoint(id = "snapshots")
+public class SnapshotEndpoint {
+
+    @Autowired
+    private SnapshotService snapshotService;
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        return snapshotService.status();
+    }
+
+    @WriteOperation
+    public Map<String, Object> takeSnapshot() {
+        return snapshotService.snapshot();
+    }
+}
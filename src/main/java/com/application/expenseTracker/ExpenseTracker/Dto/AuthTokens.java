@@ -0,0 +1,25 @@
+package com.application.expenseTracker.ExpenseTracker.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Response of a login or refresh. The access token is a JWT for the {@code Authorization: Bearer}
+ * header; the refresh token is opaque, single-use and exchanged at {@code /auth/refresh}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthTokens {
+
+    private String accessToken;
+    private String tokenType;
+    /** Seconds until the access token expires. */
+    private long expiresIn;
+    private String refreshToken;
+    /** Seconds until the refresh token expires. */
+    private long refreshExpiresIn;
+}
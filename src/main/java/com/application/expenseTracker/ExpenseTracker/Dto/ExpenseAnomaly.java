@@ -0,0 +1,31 @@
+package com.application.expenseTracker.ExpenseTracker.Dto;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * An expense whose amount was far from the user's usual amount for its category. {@code mean}
+ * and {@code stdDev} are the statistics before the expense was counted.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseAnomaly {
+
+    private Long expenseId;
+    private String userEmail;
+    private Expense.ExpenseCategory category;
+    private BigDecimal amount;
+    private double mean;
+    private double stdDev;
+    /** How many standard deviations above the mean the amount was. */
+    private double score;
+    private LocalDateTime detectedAt;
+}
@@ -0,0 +1,35 @@
+package com.application.expenseTracker.ExpenseTracker.Dto;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Partial update of an {@link Expense}. Only non-null fields are written; {@code version} is the
+ * version the client last read and guards against overwriting a concurrent edit.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpensePatch {
+
+    private String title;
+    private BigDecimal amount;
+    private Expense.ExpenseCategory category;
+    private Expense.PaymentMode paymentMode;
+    private LocalDate expenseDone;
+    private String notes;
+    private Boolean recurring;
+    private Long version;
+
+    public boolean isEmpty() {
+        return title == null && amount == null && category == null && paymentMode == null
+                && expenseDone == null && notes == null && recurring == null;
+    }
+}
@@ -0,0 +1,126 @@
+package com.application.expenseTracker.ExpenseTracker.Dto;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Filter, sort order and page position for {@code GET /expenses/query}. Every filter is optional;
+ * the ones that are set are ANDed. Dates and amounts are inclusive bounds.
+ *
+ * <p>Pages are keyset based: {@code cursor} is the opaque value returned with the previous page and
+ * holds the sort value and id of its last row, so the next page starts right after it however deep
+ * the client has paged.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class ExpenseQuery {
+
+    public enum SortField {
+        EXPENSE_DONE("expenseDone"), AMOUNT("amount"), ID("id");
+
+        private final String property;
+
+        SortField(String property) {
+            this.property = property;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+    }
+
+    private String userEmail;
+    private List<Expense.ExpenseCategory> categories;
+    private List<Expense.PaymentMode> paymentModes;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    private Boolean recurring;
+    private SortField sort = SortField.EXPENSE_DONE;
+    private boolean descending = true;
+    private int limit = 20;
+
+    /** Position decoded from the cursor; {@code null} for the first page. */
+    private Object afterValue;
+    private Long afterId;
+
+    /**
+     * Identifies which filters are set together with the sort order and whether a cursor is
+     * present. Queries of the same shape compile to the same JPQL and differ only in parameters.
+     */
+    public String getShape() {
+        StringBuilder shape = new StringBuilder();
+        shape.append(userEmail != null ? 'u' : '-')
+                .append(categories != null && !categories.isEmpty() ? 'c' : '-')
+                .append(paymentModes != null && !paymentModes.isEmpty() ? 'p' : '-')
+                .append(startDate != null ? 's' : '-')
+                .append(endDate != null ? 'e' : '-')
+                .append(minAmount != null ? 'n' : '-')
+                .append(maxAmount != null ? 'x' : '-')
+                .append(recurring != null ? 'r' : '-')
+                .append(afterId != null ? 'k' : '-');
+        return shape.append('|').append(sort).append('|').append(descending ? "DESC" : "ASC").toString();
+    }
+
+    /** @return the cursor pointing just past {@code last} in this query's sort order */
+    public String cursorAfter(Expense last) {
+        String value;
+        switch (sort) {
+            case EXPENSE_DONE:
+                value = last.getExpenseDone().toString();
+                break;
+            case AMOUNT:
+                value = last.getAmount().toPlainString();
+                break;
+            default:
+                value = "";
+        }
+        String raw = sort + "|" + (descending ? "DESC" : "ASC") + "|" + value + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Positions the query after the row the cursor points at.
+     *
+     * @throws IllegalArgumentException when the cursor is malformed or was issued for a different sort order
+     */
+    public void applyCursor(String cursor) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        if (!parts[0].equals(sort.name()) || !parts[1].equals(descending ? "DESC" : "ASC")) {
+            throw new IllegalArgumentException("Cursor was issued for a different sort order");
+        }
+        try {
+            switch (sort) {
+                case EXPENSE_DONE:
+                    afterValue = LocalDate.parse(parts[2]);
+                    break;
+                case AMOUNT:
+                    afterValue = new BigDecimal(parts[2]);
+                    break;
+                default:
+                    afterValue = null;
+            }
+            afterId = Long.valueOf(parts[3]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.application.expenseTracker.ExpenseTracker.Dto;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One committed change to USER_EXPENSE. {@code expense} is the full row for CREATED and UPDATED,
+ * {@code patch} the applied fields for PATCHED; DELETED_ALL carries no ids. ARCHIVED lists rows
+ * moved out of the table into the archive, where they are read-only and only read by date range.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalEntry {
+
+    public enum Type { CREATED, UPDATED, PATCHED, DELETED, DELETED_ALL, ARCHIVED }
+
+    /** Position in the journal, assigned on append and not part of the stored record. */
+    @JsonIgnore
+    private long offset;
+    private Type type;
+    private LocalDateTime timestamp;
+    private List<Long> expenseIds;
+    private Expense expense;
+    private ExpensePatch patch;
+}
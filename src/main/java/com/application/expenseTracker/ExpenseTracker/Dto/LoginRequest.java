@@ -0,0 +1,16 @@
+package com.application.expenseTracker.ExpenseTracker.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoginRequest {
+
+    private String email;
+    private String password;
+}
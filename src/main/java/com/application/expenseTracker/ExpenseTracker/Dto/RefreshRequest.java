@@ -0,0 +1,15 @@
+package com.application.expenseTracker.ExpenseTracker.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshRequest {
+
+    private String refreshToken;
+}
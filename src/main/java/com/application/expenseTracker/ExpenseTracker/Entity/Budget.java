@@ -0,0 +1,39 @@
+package com.application.expenseTracker.ExpenseTracker.Entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * A user's spending limit for one month, either for the whole month or, when {@code category} is
+ * set, for one category within it. Budget alerts compare the month's expenses against it.
+ */
+@Entity
+@Table(name = "USER_BUDGET", indexes = @Index(name = "idx_budget_user_month", columnList = "userEmail, budgetMonth"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class Budget {
+
+    /** {@code userEmail|YYYY-MM|category}, with {@code *} as the category of a whole-month budget */
+    @Id
+    private String budgetKey;
+    private String userEmail;
+    /** {@code YYYY-MM} */
+    private String budgetMonth;
+    @Enumerated(EnumType.STRING)
+    private Expense.ExpenseCategory category;
+    private BigDecimal amount;
+    private LocalDateTime updatedAt;
+
+    public static String key(String userEmail, YearMonth month, Expense.ExpenseCategory category) {
+        return userEmail + "|" + month + "|" + (category == null ? "*" : category.name());
+    }
+}
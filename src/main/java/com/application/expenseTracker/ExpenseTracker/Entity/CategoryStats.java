@@ -0,0 +1,33 @@
+package com.application.expenseTracker.ExpenseTracker.Entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Running amount statistics of one user's expenses in one category, as last persisted by
+ * {@link com.application.expenseTracker.ExpenseTracker.Service.ExpenseAnomalyService}.
+ */
+@Entity
+@Table(name = "EXPENSE_CATEGORY_STATS")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryStats {
+
+    /** {@code userEmail|category} */
+    @Id
+    private String statsKey;
+    private String userEmail;
+    @Enumerated(EnumType.STRING)
+    private Expense.ExpenseCategory category;
+    private long samples;
+    private double mean;
+    private double variance;
+    private LocalDateTime updatedAt;
+}
@@ -1,7 +1,9 @@
 package com.application.expenseTracker.ExpenseTracker.Entity;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.sun.istack.NotNull;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -17,13 +19,17 @@ import java.time.LocalDateTime;
         name="USER_EXPENSE",
         indexes = {
         @Index(name = "idx_payment_mode", columnList = "paymentMode"),
-        @Index(name = "idx_category", columnList = "category")}
+        @Index(name = "idx_category", columnList = "category"),
+        @Index(name = "idx_expense_done", columnList = "expenseDone"),
+        @Index(name = "idx_amount", columnList = "amount"),
+        @Index(name = "idx_user_expense_done", columnList = "userEmail, expenseDone")}
 )
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
+@DynamicUpdate
 public class Expense {
 
     public enum ExpenseCategory { FOOD, TRAVEL, RENT, UTILITIES, OTHER }
@@ -38,7 +44,6 @@ public class Expense {
     private String userEmail;
     @NotNull
     private BigDecimal amount;
-    private int budget;
     @NotNull
     @Enumerated(EnumType.STRING)
     private ExpenseCategory category;
@@ -52,4 +57,10 @@ public class Expense {
     private LocalDateTime createdAt;
     @LastModifiedDate
     private LocalDateTime updatedAt;
+    @Version
+    private Long version;
+    /** Set on the response of a newly added expense, see ExpenseAnomalyService. */
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean anomaly;
 }
@@ -0,0 +1,30 @@
+package com.application.expenseTracker.ExpenseTracker.Entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * The shard holding a user's expenses. A user is placed by consistent hash on their first
+ * expense and keeps the shard until resharding moves them, so adding shards never strands rows.
+ * Stored on shard 0 only.
+ */
+@Entity
+@Table(name = "EXPENSE_SHARD_ASSIGNMENT")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseShardAssignment {
+
+    @Id
+    private String userEmail;
+    private int shard;
+    private LocalDateTime assignedAt;
+}
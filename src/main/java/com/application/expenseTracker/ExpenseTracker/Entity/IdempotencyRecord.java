@@ -0,0 +1,38 @@
+package com.application.expenseTracker.ExpenseTracker.Entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * The response to a request sent with an {@code Idempotency-Key}, replayed to retries of it. A
+ * record without a {@code status} is claimed by a request still running; its short
+ * {@code expiresAt} lets another instance take the key over if that request's instance died.
+ */
+@Entity
+@Table(name = "IDEMPOTENCY_RECORD", indexes = @Index(name = "idx_idempotency_expires_at", columnList = "expiresAt"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    /** Hex SHA-256 of the user, path and key. */
+    @Id
+    private String keyHash;
+    /** Hex SHA-256 of the request body, to refuse a reused key sent with a different request. */
+    private String requestHash;
+    /** Random per claim, so only the request holding it can complete or release the record. */
+    private String claimToken;
+    private Integer status;
+    private String contentType;
+    /** Base64, so binary responses such as CBOR replay byte for byte. */
+    @Column(length = 65536)
+    private String responseBody;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+}
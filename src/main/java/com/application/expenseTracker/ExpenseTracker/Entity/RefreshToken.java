@@ -0,0 +1,29 @@
+package com.application.expenseTracker.ExpenseTracker.Entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An issued refresh token. Only the SHA-256 of the token is stored, so the table cannot be used
+ * to sign in; a token is deleted when it is used, as every refresh hands out a new one.
+ */
+@Entity
+@Table(name = "REFRESH_TOKEN", indexes = @Index(name = "idx_refresh_token_expires_at", columnList = "expiresAt"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshToken {
+
+    /** Hex SHA-256 of the token. */
+    @Id
+    private String tokenHash;
+    private String userEmail;
+    private LocalDateTime expiresAt;
+    private LocalDateTime createdAt;
+}
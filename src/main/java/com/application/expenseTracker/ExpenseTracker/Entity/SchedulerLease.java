@@ -0,0 +1,34 @@
+package com.application.expenseTracker.ExpenseTracker.Entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Ownership of one run of a scheduled job (or one partition of it) across instances. A lease is
+ * held by {@code owner} until {@code expiresAt}; an expired, incomplete lease can be taken over
+ * and resumed after {@code checkpoint}.
+ */
+@Entity
+@Table(name = "SCHEDULER_LEASE")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchedulerLease {
+
+    @Id
+    private String leaseKey;
+    private String owner;
+    private LocalDateTime expiresAt;
+    private boolean completed;
+    private Long checkpoint;
+    private LocalDateTime acquiredAt;
+    private LocalDateTime completedAt;
+}
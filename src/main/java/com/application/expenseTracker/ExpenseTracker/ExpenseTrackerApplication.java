@@ -2,6 +2,7 @@ package com.application.expenseTracker.ExpenseTracker;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
@@ -11,7 +12,11 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 public class ExpenseTrackerApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(ExpenseTrackerApplication.class, args);
+		ConfigurableApplicationContext context = SpringApplication.run(ExpenseTrackerApplication.class, args);
+		// Training start of the fast-start build: the JVM writes the class-data sharing archive as it exits
+		if (Boolean.getBoolean("expense.startup.exit-after-start")) {
+			System.exit(SpringApplication.exit(context));
+		}
 	}
 
 }
@@ -0,0 +1,206 @@
+package com.application.expenseTracker.ExpenseTracker.Filter;
+
+import com.application.expenseTracker.ExpenseTracker.Service.IdempotencyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Replays the original response to a retried POST that carries the same {@code Idempotency-Key},
+ * so a retry over a flaky network does not add the expense or send budget alerts again. Runs
+ * after the security filters, so keys are scoped to the signed-in user. The body is held in
+ * memory to hash it, so one over {@code expense.idempotency.max-body-bytes} is refused with 413.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    /** Set on a replay whose original body was too large to keep. */
+    public static final String BODY_OMITTED_HEADER = "Idempotent-Body-Omitted";
+    static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Value("${expense.idempotency.paths:/api/v1/expenses}")
+    private String[] paths = {"/api/v1/expenses"};
+
+    @Value("${expense.idempotency.max-body-bytes:65536}")
+    private int maxBodyBytes = 65536;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || request.getHeader(KEY_HEADER) == null
+                || !Arrays.asList(paths).contains(pathOf(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(KEY_HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeMessage(response, HttpStatus.BAD_REQUEST, "Please share an Idempotency-Key of 1 to " + MAX_KEY_LENGTH + " characters!");
+            return;
+        }
+        byte[] body = request.getContentLengthLong() > maxBodyBytes ? null : readBody(request);
+        if (body == null) {
+            writeMessage(response, HttpStatus.PAYLOAD_TOO_LARGE, "Please keep requests with an Idempotency-Key under " + maxBodyBytes + " bytes!");
+            return;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String user = authentication == null ? "" : authentication.getName();
+
+        IdempotencyService.Claim claim;
+        try {
+            claim = idempotencyService.claim(user, pathOf(request), key, body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writeMessage(response, HttpStatus.SERVICE_UNAVAILABLE, "The request was interrupted, please retry!");
+            return;
+        }
+        switch (claim.getOutcome()) {
+            case REPLAY:
+                IdempotencyService.StoredResponse stored = claim.getResponse();
+                response.setStatus(stored.getStatus());
+                if (stored.getContentType() != null) {
+                    response.setContentType(stored.getContentType());
+                }
+                response.setHeader(REPLAYED_HEADER, "true");
+                if (stored.isBodyOmitted()) {
+                    response.setHeader(BODY_OMITTED_HEADER, "true");
+                }
+                response.getOutputStream().write(stored.getBody());
+                return;
+            case MISMATCH:
+                writeMessage(response, HttpStatus.UNPROCESSABLE_ENTITY, "Please use a new Idempotency-Key for a different request!");
+                return;
+            case IN_PROGRESS:
+                response.setHeader("Retry-After", "1");
+                writeMessage(response, HttpStatus.CONFLICT, "A request with this Idempotency-Key is still being processed, please retry!");
+                return;
+            default:
+                break;
+        }
+
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(new CachedBodyRequest(request, body), cachingResponse);
+        } catch (IOException | ServletException | RuntimeException e) {
+            idempotencyService.release(claim);
+            throw e;
+        }
+        idempotencyService.complete(claim, cachingResponse.getStatus(), cachingResponse.getContentType(), cachingResponse.getContentAsByteArray());
+        cachingResponse.copyBodyToResponse();
+    }
+
+    /** @return the body, or {@code null} once it grows past the limit, as a chunked one without a length can */
+    private byte[] readBody(HttpServletRequest request) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+        InputStream input = request.getInputStream();
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            if (body.size() + read > maxBodyBytes) {
+                return null;
+            }
+            body.write(buffer, 0, read);
+        }
+        return body.toByteArray();
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.endsWith("/") && path.length() > 1 ? path.substring(0, path.length() - 1) : path;
+    }
+
+    private static void writeMessage(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(message);
+    }
+
+    /** Hands the already read body to the rest of the chain. */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
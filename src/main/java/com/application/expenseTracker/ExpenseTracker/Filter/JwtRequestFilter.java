@@ -2,6 +2,9 @@ package com.application.expenseTracker.ExpenseTracker.Filter;
 
 import com.application.expenseTracker.ExpenseTracker.Utility.JwtUtil;
 import com.application.expenseTracker.ExpenseTracker.Service.MyUserDetailsService;
+import io.jsonwebtoken.JwtException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -19,6 +22,8 @@ import java.io.IOException;
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
+    private static final Logger logger = LoggerFactory.getLogger(JwtRequestFilter.class);
+
     @Autowired
     private MyUserDetailsService userDetailsService;
 
@@ -37,7 +42,12 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         // 1. Check for Bearer token
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             jwt = authorizationHeader.substring(7);
-            username = jwtUtil.extractUsername(jwt);
+            try {
+                username = jwtUtil.extractUsername(jwt);
+            } catch (JwtException | IllegalArgumentException e) {
+                // Expired or tampered tokens leave the request unauthenticated; clients refresh at /auth/refresh
+                logger.debug("Ignoring invalid JWT: {}", e.getMessage());
+            }
         }
 
         // 2. Validate token and set Security Context
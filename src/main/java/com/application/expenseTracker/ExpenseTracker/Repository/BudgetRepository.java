@@ -0,0 +1,13 @@
+package com.application.expenseTracker.ExpenseTracker.Repository;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Budget;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BudgetRepository extends JpaRepository<Budget, String> {
+
+    List<Budget> findByUserEmailAndBudgetMonthOrderByBudgetKey(String userEmail, String budgetMonth);
+}
@@ -1,10 +1,13 @@
 package com.application.expenseTracker.ExpenseTracker.Repository;
 
 import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -12,15 +15,17 @@ import java.util.List;
 
 
 @Repository
-public interface CalculationRepository extends JpaRepository<Expense, Long> {
+public interface CalculationRepository extends JpaRepository<Expense, Long>, CalculationRepositoryCustom {
 
     List<Expense> findByCategory(Expense.ExpenseCategory category);
     List<Expense> findByPaymentMode(Expense.PaymentMode paymentMode);
     List<Expense> findByExpenseDoneBetween(LocalDate start, LocalDate end);
     List<Expense> findByExpenseDoneLessThanEqual(LocalDate now);
-
-    @Query(value = "SELECT COALESCE(SUM(E.amount),0) FROM Expense E WHERE MONTH(E.expenseDone) = (MONTH(:now)) AND YEAR(E.expenseDone) = (YEAR(:now))" )
-    BigDecimal getTotalExpensesThisMonth(@Param("now") LocalDate now);
+    List<Expense> findByExpenseDoneGreaterThanEqual(LocalDate start);
+    List<Expense> findByUserEmailAndExpenseDoneGreaterThanEqual(String userEmail, LocalDate start);
+    List<Expense> findByUserEmailAndExpenseDoneBetween(String userEmail, LocalDate start, LocalDate end);
+    List<Expense> findByAmountGreaterThan(BigDecimal amount);
+    List<Expense> findByAmountLessThan(BigDecimal amount);
 
     @Query(value = "SELECT E.category, SUM(E.amount) AS TOTAL FROM Expense E GROUP BY E.category ORDER BY TOTAL DESC")
     List<Object[]> getTopCategories();
@@ -28,6 +33,60 @@ public interface CalculationRepository extends JpaRepository<Expense, Long> {
     @Query(value = "SELECT SUM(E.amount)/COUNT(DISTINCT E.expenseDone) FROM Expense E WHERE MONTH(E.expenseDone) = (MONTH(:now)) AND YEAR(E.expenseDone) = (YEAR(:now))")
     BigDecimal getAverageDailyExpense(@Param("now") LocalDate now);
 
+    @Query(value = "SELECT COALESCE(SUM(E.amount),0) FROM Expense E WHERE E.expenseDone BETWEEN :start AND :end AND (:userEmail IS NULL OR E.userEmail = :userEmail)")
+    BigDecimal getTotalExpenses(@Param("userEmail") String userEmail, @Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    @Query(value = "SELECT COALESCE(SUM(E.amount),0) FROM Expense E WHERE E.expenseDone BETWEEN :start AND :end AND E.userEmail = :userEmail AND E.category = :category")
+    BigDecimal getTotalExpensesByCategory(@Param("userEmail") String userEmail, @Param("category") Expense.ExpenseCategory category, @Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    @Query(value = "SELECT E.category, SUM(E.amount) AS TOTAL FROM Expense E WHERE E.expenseDone BETWEEN :start AND :end AND (:userEmail IS NULL OR E.userEmail = :userEmail) GROUP BY E.category ORDER BY TOTAL DESC")
+    List<Object[]> getTopCategories(@Param("userEmail") String userEmail, @Param("start") LocalDate start, @Param("end") LocalDate end, Pageable pageable);
+
+    @Query(value = "SELECT SUM(E.amount)/COUNT(DISTINCT E.expenseDone) FROM Expense E WHERE E.expenseDone BETWEEN :start AND :end AND (:userEmail IS NULL OR E.userEmail = :userEmail)")
+    BigDecimal getAverageDailyExpense(@Param("userEmail") String userEmail, @Param("start") LocalDate start, @Param("end") LocalDate end);
+
     @Query(value = "FROM Expense E WHERE E.isRecurring = true")
     List<Expense> getRecurringExpenses();
+
+    @Query(value = "SELECT E.expenseDone, SUM(E.amount) FROM Expense E WHERE E.expenseDone BETWEEN :start AND :end GROUP BY E.expenseDone")
+    List<Object[]> getDailyTotals(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    @Query(value = "SELECT E.expenseDone, E.category, SUM(E.amount) FROM Expense E WHERE E.expenseDone BETWEEN :start AND :end GROUP BY E.expenseDone, E.category")
+    List<Object[]> getDailyTotalsByCategory(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    @Query(value = "SELECT E.expenseDone, E.paymentMode, SUM(E.amount) FROM Expense E WHERE E.expenseDone BETWEEN :start AND :end GROUP BY E.expenseDone, E.paymentMode")
+    List<Object[]> getDailyTotalsByPaymentMode(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    @Query(value = "SELECT E.expenseDone, SUM(E.amount) FROM Expense E WHERE E.expenseDone BETWEEN :start AND :end AND (:userEmail IS NULL OR E.userEmail = :userEmail) GROUP BY E.expenseDone")
+    List<Object[]> getDailyTotalsForUser(@Param("userEmail") String userEmail, @Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    /** Each user and month, as {@code userEmail, year, month}, with expenses dated before {@code before}. */
+    @Query(value = "SELECT DISTINCT E.userEmail, YEAR(E.expenseDone), MONTH(E.expenseDone) FROM Expense E WHERE E.expenseDone < :before")
+    List<Object[]> findMonthsBefore(@Param("before") LocalDate before);
+
+    /** Users with expenses dated in the range. */
+    @Query(value = "SELECT DISTINCT E.userEmail FROM Expense E WHERE E.userEmail IS NOT NULL AND E.expenseDone BETWEEN :start AND :end")
+    List<String> findUserEmailsWithExpensesBetween(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    /** One {@code count, latest updatedAt} row for the user's expenses dated in the range; any add, change or delete moves it. */
+    @Query(value = "SELECT COUNT(E), MAX(E.updatedAt) FROM Expense E WHERE E.userEmail = :userEmail AND E.expenseDone BETWEEN :start AND :end")
+    List<Object[]> getVersionOfUser(@Param("userEmail") String userEmail, @Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    @Query(value = "SELECT E.id FROM Expense E WHERE E.id > :afterId AND (:userEmail IS NULL OR E.userEmail = :userEmail) AND (:start IS NULL OR E.expenseDone >= :start) AND (:end IS NULL OR E.expenseDone <= :end) ORDER BY E.id")
+    List<Long> findIdsForPurge(@Param("afterId") Long afterId, @Param("userEmail") String userEmail, @Param("start") LocalDate start, @Param("end") LocalDate end, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM Expense E WHERE E.id = :id")
+    int deleteExpenseById(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM Expense E WHERE E.id IN :ids")
+    int deleteExpensesByIds(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM Expense E")
+    int deleteAllExpenses();
 }
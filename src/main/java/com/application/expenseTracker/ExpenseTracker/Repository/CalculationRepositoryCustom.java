@@ -0,0 +1,45 @@
+package com.application.expenseTracker.ExpenseTracker.Repository;
+
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpensePatch;
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpenseQuery;
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface CalculationRepositoryCustom {
+
+    /**
+     * Applies the non-null fields of {@code patch} with a single UPDATE and bumps the version.
+     * When the patch carries a version the row is only updated if it still has that version.
+     *
+     * @return the number of updated rows, 0 when the expense is missing or was changed concurrently
+     */
+    int patchExpense(Long id, ExpensePatch patch);
+
+    /**
+     * Runs the filters set on {@code query} as one parameterised query, ordered by the sort
+     * field and id and starting after the query's cursor position.
+     *
+     * @return at most {@code maxResults} expenses
+     */
+    List<Expense> queryExpenses(ExpenseQuery query, int maxResults);
+
+    /**
+     * Deletes each of {@code expenses} that still has the version it was read with, in one
+     * transaction. An expense updated or deleted since it was read is left alone.
+     *
+     * @return the ids of the deleted expenses
+     */
+    List<Long> deleteExpensesIfUnchanged(List<Expense> expenses);
+
+    /**
+     * Streams the user's expenses dated in the range, ordered by date and id, to {@code action}
+     * one at a time, so a month of expenses is read in one query without being held in memory.
+     * Each expense is detached once {@code action} returns.
+     *
+     * @return the number of expenses visited
+     */
+    long forEachExpenseOfUser(@ShardKey String userEmail, LocalDate start, LocalDate end, Consumer<Expense> action);
+}
@@ -0,0 +1,200 @@
+package com.application.expenseTracker.ExpenseTracker.Repository;
+
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpensePatch;
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpenseQuery;
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class CalculationRepositoryImpl implements CalculationRepositoryCustom {
+
+    /** Rows fetched per round trip by {@link #forEachExpenseOfUser}. */
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * JPQL per query shape. There are a few thousand shapes at most, and because each one always
+     * produces the same string Hibernate's query plan cache keeps its parsed plan as well.
+     */
+    private final Map<String, String> queryPlans = new ConcurrentHashMap<>();
+
+    @Override
+    @Transactional
+    public int patchExpense(Long id, ExpensePatch patch) {
+        Map<String, Object> assignments = new LinkedHashMap<>();
+        putIfPresent(assignments, "title", patch.getTitle());
+        putIfPresent(assignments, "amount", patch.getAmount());
+        putIfPresent(assignments, "category", patch.getCategory());
+        putIfPresent(assignments, "paymentMode", patch.getPaymentMode());
+        putIfPresent(assignments, "expenseDone", patch.getExpenseDone());
+        putIfPresent(assignments, "notes", patch.getNotes());
+        putIfPresent(assignments, "isRecurring", patch.getRecurring());
+        assignments.put("updatedAt", LocalDateTime.now());
+
+        StringBuilder jpql = new StringBuilder("UPDATE Expense E SET E.version = COALESCE(E.version, 0) + 1");
+        for (String field : assignments.keySet()) {
+            jpql.append(", E.").append(field).append(" = :").append(field);
+        }
+        jpql.append(" WHERE E.id = :id");
+        if (patch.getVersion() != null) {
+            jpql.append(" AND E.version = :version");
+        }
+
+        Query query = entityManager.createQuery(jpql.toString());
+        assignments.forEach(query::setParameter);
+        query.setParameter("id", id);
+        if (patch.getVersion() != null) {
+            query.setParameter("version", patch.getVersion());
+        }
+        return query.executeUpdate();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Expense> queryExpenses(ExpenseQuery query, int maxResults) {
+        String jpql = queryPlans.computeIfAbsent(query.getShape(), shape -> compile(query));
+        TypedQuery<Expense> typedQuery = entityManager.createQuery(jpql, Expense.class);
+        if (query.getUserEmail() != null) {
+            typedQuery.setParameter("userEmail", query.getUserEmail());
+        }
+        if (query.getCategories() != null && !query.getCategories().isEmpty()) {
+            typedQuery.setParameter("categories", query.getCategories());
+        }
+        if (query.getPaymentModes() != null && !query.getPaymentModes().isEmpty()) {
+            typedQuery.setParameter("paymentModes", query.getPaymentModes());
+        }
+        if (query.getRecurring() != null) {
+            typedQuery.setParameter("recurring", query.getRecurring());
+        }
+        if (query.getStartDate() != null) {
+            typedQuery.setParameter("startDate", query.getStartDate());
+        }
+        if (query.getEndDate() != null) {
+            typedQuery.setParameter("endDate", query.getEndDate());
+        }
+        if (query.getMinAmount() != null) {
+            typedQuery.setParameter("minAmount", query.getMinAmount());
+        }
+        if (query.getMaxAmount() != null) {
+            typedQuery.setParameter("maxAmount", query.getMaxAmount());
+        }
+        if (query.getAfterId() != null) {
+            if (query.getSort() != ExpenseQuery.SortField.ID) {
+                typedQuery.setParameter("afterValue", query.getAfterValue());
+            }
+            typedQuery.setParameter("afterId", query.getAfterId());
+        }
+        return typedQuery.setMaxResults(maxResults).getResultList();
+    }
+
+    /**
+     * Equality filters come first and ranges last, matching the column order of the composite
+     * indexes on USER_EXPENSE. Every predicate compares a bare column so it stays indexable, and
+     * the keyset condition on (sort field, id) lets the database seek instead of skipping rows.
+     */
+    static String compile(ExpenseQuery query) {
+        StringBuilder jpql = new StringBuilder("SELECT E FROM Expense E WHERE 1 = 1");
+        if (query.getUserEmail() != null) {
+            jpql.append(" AND E.userEmail = :userEmail");
+        }
+        if (query.getCategories() != null && !query.getCategories().isEmpty()) {
+            jpql.append(" AND E.category IN :categories");
+        }
+        if (query.getPaymentModes() != null && !query.getPaymentModes().isEmpty()) {
+            jpql.append(" AND E.paymentMode IN :paymentModes");
+        }
+        if (query.getRecurring() != null) {
+            jpql.append(" AND E.isRecurring = :recurring");
+        }
+        if (query.getStartDate() != null) {
+            jpql.append(" AND E.expenseDone >= :startDate");
+        }
+        if (query.getEndDate() != null) {
+            jpql.append(" AND E.expenseDone <= :endDate");
+        }
+        if (query.getMinAmount() != null) {
+            jpql.append(" AND E.amount >= :minAmount");
+        }
+        if (query.getMaxAmount() != null) {
+            jpql.append(" AND E.amount <= :maxAmount");
+        }
+
+        String sortProperty = "E." + query.getSort().getProperty();
+        String comparison = query.isDescending() ? "<" : ">";
+        String direction = query.isDescending() ? " DESC" : " ASC";
+        if (query.getAfterId() != null) {
+            if (query.getSort() == ExpenseQuery.SortField.ID) {
+                jpql.append(" AND E.id ").append(comparison).append(" :afterId");
+            } else {
+                jpql.append(" AND (").append(sortProperty).append(' ').append(comparison).append(" :afterValue OR (")
+                        .append(sortProperty).append(" = :afterValue AND E.id ").append(comparison).append(" :afterId))");
+            }
+        }
+        jpql.append(" ORDER BY ");
+        if (query.getSort() != ExpenseQuery.SortField.ID) {
+            jpql.append(sortProperty).append(direction).append(", ");
+        }
+        return jpql.append("E.id").append(direction).toString();
+    }
+
+    @Override
+    @Transactional
+    public List<Long> deleteExpensesIfUnchanged(List<Expense> expenses) {
+        Query versioned = entityManager.createQuery("DELETE FROM Expense E WHERE E.id = :id AND E.version = :version");
+        Query unversioned = entityManager.createQuery("DELETE FROM Expense E WHERE E.id = :id AND E.version IS NULL");
+        List<Long> deleted = new ArrayList<>();
+        for (Expense expense : expenses) {
+            Query query = expense.getVersion() == null ? unversioned : versioned.setParameter("version", expense.getVersion());
+            if (query.setParameter("id", expense.getId()).executeUpdate() == 1) {
+                deleted.add(expense.getId());
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long forEachExpenseOfUser(String userEmail, LocalDate start, LocalDate end, Consumer<Expense> action) {
+        TypedQuery<Expense> query = entityManager.createQuery("SELECT E FROM Expense E WHERE E.userEmail = :userEmail "
+                        + "AND E.expenseDone BETWEEN :start AND :end ORDER BY E.expenseDone, E.id", Expense.class)
+                .setParameter("userEmail", userEmail)
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .setHint(QueryHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(QueryHints.HINT_READONLY, true);
+        long visited = 0;
+        try (Stream<Expense> expenses = query.getResultStream()) {
+            Iterator<Expense> iterator = expenses.iterator();
+            while (iterator.hasNext()) {
+                Expense expense = iterator.next();
+                action.accept(expense);
+                entityManager.detach(expense);
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    private static void putIfPresent(Map<String, Object> assignments, String field, Object value) {
+        if (value != null) {
+            assignments.put(field, value);
+        }
+    }
+}
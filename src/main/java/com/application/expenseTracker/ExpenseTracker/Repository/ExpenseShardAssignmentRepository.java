@@ -0,0 +1,9 @@
+package com.application.expenseTracker.ExpenseTracker.Repository;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.ExpenseShardAssignment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ExpenseShardAssignmentRepository extends JpaRepository<ExpenseShardAssignment, String> {
+}
@@ -0,0 +1,48 @@
+package com.application.expenseTracker.ExpenseTracker.Repository;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /** Fails with a duplicate key when the key was claimed first, here or on another instance. */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO IDEMPOTENCY_RECORD (KEY_HASH, REQUEST_HASH, CLAIM_TOKEN, CREATED_AT, EXPIRES_AT) VALUES (:keyHash, :requestHash, :claimToken, :now, :expiresAt)", nativeQuery = true)
+    int claim(@Param("keyHash") String keyHash, @Param("requestHash") String requestHash, @Param("claimToken") String claimToken,
+              @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /** Claims a key whose record expired, whether it was completed or abandoned by its instance. */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE IdempotencyRecord R SET R.requestHash = :requestHash, R.claimToken = :claimToken, R.status = NULL, R.contentType = NULL, R.responseBody = NULL, "
+            + "R.createdAt = :now, R.expiresAt = :expiresAt WHERE R.keyHash = :keyHash AND R.expiresAt < :now")
+    int takeOver(@Param("keyHash") String keyHash, @Param("requestHash") String requestHash, @Param("claimToken") String claimToken,
+                 @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /** Only the request holding {@code claimToken} completes the record; one whose claim was taken over changes nothing. */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE IdempotencyRecord R SET R.status = :status, R.contentType = :contentType, R.responseBody = :responseBody, R.expiresAt = :expiresAt "
+            + "WHERE R.keyHash = :keyHash AND R.claimToken = :claimToken AND R.status IS NULL")
+    int complete(@Param("keyHash") String keyHash, @Param("claimToken") String claimToken, @Param("status") int status, @Param("contentType") String contentType,
+                 @Param("responseBody") String responseBody, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM IdempotencyRecord R WHERE R.keyHash = :keyHash AND R.claimToken = :claimToken AND R.status IS NULL")
+    int release(@Param("keyHash") String keyHash, @Param("claimToken") String claimToken);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM IdempotencyRecord R WHERE R.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
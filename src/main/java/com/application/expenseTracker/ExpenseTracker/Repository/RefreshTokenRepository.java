@@ -0,0 +1,26 @@
+package com.application.expenseTracker.ExpenseTracker.Repository;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+
+    /** Deletes the token if it has not expired; a token can only be consumed once, even by concurrent refreshes. */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM RefreshToken T WHERE T.tokenHash = :tokenHash AND T.expiresAt > :now")
+    int consume(@Param("tokenHash") String tokenHash, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM RefreshToken T WHERE T.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
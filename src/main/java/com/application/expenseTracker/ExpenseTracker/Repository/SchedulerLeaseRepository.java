@@ -0,0 +1,43 @@
+package com.application.expenseTracker.ExpenseTracker.Repository;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    /** Fails with a duplicate key when another instance created the lease first. */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO SCHEDULER_LEASE (LEASE_KEY, OWNER, EXPIRES_AT, COMPLETED, ACQUIRED_AT) "
+            + "VALUES (:leaseKey, :owner, TIMESTAMPADD(MILLISECOND, :ttlMs, CURRENT_TIMESTAMP), FALSE, CURRENT_TIMESTAMP)", nativeQuery = true)
+    int insertLease(@Param("leaseKey") String leaseKey, @Param("owner") String owner, @Param("ttlMs") long ttlMs);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE SCHEDULER_LEASE SET OWNER = :owner, EXPIRES_AT = TIMESTAMPADD(MILLISECOND, :ttlMs, CURRENT_TIMESTAMP), ACQUIRED_AT = CURRENT_TIMESTAMP "
+            + "WHERE LEASE_KEY = :leaseKey AND COMPLETED = FALSE AND (EXPIRES_AT < CURRENT_TIMESTAMP OR OWNER = :owner)", nativeQuery = true)
+    int takeOver(@Param("leaseKey") String leaseKey, @Param("owner") String owner, @Param("ttlMs") long ttlMs);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE SCHEDULER_LEASE SET EXPIRES_AT = TIMESTAMPADD(MILLISECOND, :ttlMs, CURRENT_TIMESTAMP), CHECKPOINT = :checkpoint "
+            + "WHERE LEASE_KEY = :leaseKey AND OWNER = :owner AND COMPLETED = FALSE", nativeQuery = true)
+    int renew(@Param("leaseKey") String leaseKey, @Param("owner") String owner, @Param("ttlMs") long ttlMs, @Param("checkpoint") Long checkpoint);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE SCHEDULER_LEASE SET COMPLETED = TRUE, COMPLETED_AT = CURRENT_TIMESTAMP WHERE LEASE_KEY = :leaseKey AND OWNER = :owner", nativeQuery = true)
+    int complete(@Param("leaseKey") String leaseKey, @Param("owner") String owner);
+
+    long countByLeaseKeyStartingWith(String prefix);
+
+    /** Leases under the prefix that are not completed and whose holder stopped renewing them. */
+    @Query(value = "SELECT COUNT(*) FROM SCHEDULER_LEASE WHERE LEASE_KEY LIKE CONCAT(:prefix, '%') AND COMPLETED = FALSE AND EXPIRES_AT < CURRENT_TIMESTAMP", nativeQuery = true)
+    long countExpired(@Param("prefix") String prefix);
+}
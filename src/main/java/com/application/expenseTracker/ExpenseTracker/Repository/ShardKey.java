@@ -0,0 +1,17 @@
+package com.application.expenseTracker.ExpenseTracker.Repository;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the argument holding the user whose shard runs a {@link CalculationRepositoryCustom}
+ * call. Query methods are routed by their {@code @Param("userEmail")} binding instead.
+ */
+@Documented
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+}
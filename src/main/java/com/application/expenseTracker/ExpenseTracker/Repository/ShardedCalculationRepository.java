@@ -0,0 +1,493 @@
+package com.application.expenseTracker.ExpenseTracker.Repository;
+
+import com.application.expenseTracker.ExpenseTracker.Config.ShardRoutingDataSource;
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpenseQuery;
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Service.ExpenseShardService;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.Param;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Puts {@link CalculationRepository} on top of the expense shards. A call that names a user,
+ * through a {@code @Param("userEmail")} binding, a {@link ShardKey} argument or the query's user,
+ * runs on that user's shard. A save goes to the shard of the expense's user. Anything else runs on
+ * every shard in parallel and the results are merged: lists are concatenated, counts and sums
+ * added, and grouped totals, top categories, daily averages, sorted lists and pages are
+ * recombined the way the single-table query would have computed them. Inside
+ * {@link ShardRoutingDataSource#onShard} every call runs on the pinned shard only, which is how
+ * loaders walk the shards one at a time.
+ *
+ * <p>Each call commits in its own transaction on each shard it touches, so a {@code @Transactional}
+ * service method that makes several expense writes is not atomic once storage is sharded: a
+ * failure part way leaves the earlier writes committed and does not roll them back.
+ *
+ * <p>An expense copied to a new shard by a move can briefly exist on two shards; lists keep only
+ * the copy on the shard its user is assigned to.
+ */
+public final class ShardedCalculationRepository implements InvocationHandler {
+
+    private final CalculationRepository target;
+    private final Supplier<ExpenseShardService> shards;
+    /** Index of the {@code userEmail} argument per method, -1 when it has none. */
+    private final Map<Method, Integer> userArguments = new ConcurrentHashMap<>();
+
+    private ShardedCalculationRepository(CalculationRepository target, Supplier<ExpenseShardService> shards) {
+        this.target = target;
+        this.shards = shards;
+    }
+
+    public static CalculationRepository wrap(CalculationRepository repository, Supplier<ExpenseShardService> shards) {
+        return (CalculationRepository) Proxy.newProxyInstance(CalculationRepository.class.getClassLoader(),
+                new Class<?>[]{CalculationRepository.class}, new ShardedCalculationRepository(repository, shards));
+    }
+
+    public static boolean isSharded(Object repository) {
+        return Proxy.isProxyClass(repository.getClass()) && Proxy.getInvocationHandler(repository) instanceof ShardedCalculationRepository;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return "Sharded" + target;
+            }
+        }
+        ExpenseShardService shards = this.shards.get();
+        boolean write = isWrite(method);
+        Integer pinned = ShardRoutingDataSource.currentShard();
+        if (pinned != null) {
+            return shards.onShard(pinned, !write, () -> call(method, args));
+        }
+        if (write) {
+            return shards.guardWrite(() -> routeWrite(shards, method, args));
+        }
+        return routeRead(shards, method, args);
+    }
+
+    private Object routeWrite(ExpenseShardService shards, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "save":
+                return save(shards, (Expense) args[0]);
+            case "saveAll":
+            case "saveAllAndFlush": {
+                List<Expense> saved = new ArrayList<>();
+                for (Object expense : (Iterable<?>) args[0]) {
+                    saved.add(save(shards, (Expense) expense));
+                }
+                return saved;
+            }
+            case "saveAndFlush":
+                return save(shards, (Expense) args[0]);
+            case "patchExpense": {
+                // The row is on one shard, or on two while a move copies it, where both are patched.
+                int updated = 0;
+                for (Object count : shards.scatter(false, shard -> call(method, args))) {
+                    updated = Math.max(updated, (Integer) count);
+                }
+                return updated;
+            }
+            default:
+                return combine(method, shards, shards.scatter(false, shard -> call(method, args)));
+        }
+    }
+
+    private Expense save(ExpenseShardService shards, Expense expense) {
+        int owner = shards.assign(expense.getUserEmail());
+        if (expense.getId() != null) {
+            Integer holder = locate(shards, expense.getId());
+            if (holder != null && holder != owner) {
+                // The update moved the expense to a user on another shard.
+                Expense saved = shards.onShard(holder, false, () -> target.save(expense));
+                shards.relocate(Collections.singletonList(expense.getId()), holder, owner);
+                return saved;
+            }
+        }
+        return shards.onShard(owner, false, () -> target.save(expense));
+    }
+
+    private Integer locate(ExpenseShardService shards, Long id) {
+        List<Boolean> found = shards.scatter(true, shard -> target.existsById(id));
+        for (int shard = 0; shard < found.size(); shard++) {
+            if (found.get(shard)) {
+                return shard;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object routeRead(ExpenseShardService shards, Method method, Object[] args) {
+        String userEmail = userOf(method, args);
+        if (userEmail != null) {
+            return shards.onShard(shards.shardOf(userEmail), true, () -> call(method, args));
+        }
+        switch (method.getName()) {
+            case "findById":
+                return first(shards, shards.scatter(true, shard -> target.findById((Long) args[0])));
+            case "getTopCategories":
+                return topCategories(shards, method, args);
+            case "getAverageDailyExpense":
+                return averageDailyExpense(shards, args);
+            case "getDailyTotals":
+            case "getDailyTotalsByCategory":
+            case "getDailyTotalsByPaymentMode":
+                return sumByKey(shards.scatter(true, shard -> (List<Object[]>) call(method, args)));
+            case "findIdsForPurge":
+                return firstIds(shards.scatter(true, shard -> (List<Long>) call(method, args)), (Pageable) args[4]);
+            case "queryExpenses":
+                return firstExpenses(shards, (ExpenseQuery) args[0], (Integer) args[1]);
+            case "getById":
+            case "getOne":
+            case "getReferenceById": {
+                Integer holder = locate(shards, (Long) args[0]);
+                return shards.onShard(holder == null ? 0 : holder, true, () -> call(method, args));
+            }
+            default:
+                int paging = argumentOf(method, Pageable.class);
+                if (paging >= 0) {
+                    return firstPage(shards, method, args, paging);
+                }
+                int sorting = argumentOf(method, Sort.class);
+                if (sorting >= 0) {
+                    List<Object> merged = ownedRows(shards, shards.scatter(true, shard -> (List<?>) call(method, args)));
+                    sort(merged, (Sort) args[sorting]);
+                    return merged;
+                }
+                return combine(method, shards, shards.scatter(true, shard -> call(method, args)));
+        }
+    }
+
+    /**
+     * Each shard returns its rows up to the end of the requested page, so the page cut from their
+     * merge in the requested order is the page the single table would have returned.
+     */
+    @SuppressWarnings("unchecked")
+    private Object firstPage(ExpenseShardService shards, Method method, Object[] args, int paging) {
+        Pageable pageable = (Pageable) args[paging];
+        Object[] upToPage = args.clone();
+        if (pageable.isPaged()) {
+            upToPage[paging] = PageRequest.of(0, (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize()), pageable.getSort());
+        }
+        List<List<?>> rows = new ArrayList<>();
+        long total = 0;
+        int read = 0;
+        for (Object result : shards.scatter(true, shard -> call(method, upToPage))) {
+            List<?> content = result instanceof Slice ? ((Slice<?>) result).getContent() : (List<?>) result;
+            rows.add(content);
+            read += content.size();
+            total += result instanceof Page ? ((Page<?>) result).getTotalElements() : content.size();
+        }
+        List<Object> merged = ownedRows(shards, rows);
+        sort(merged, pageable.getSort());
+        // A row read on two shards while it moves is counted once
+        total -= read - merged.size();
+        List<Object> page = merged;
+        if (pageable.isPaged()) {
+            int from = (int) Math.min(merged.size(), pageable.getOffset());
+            page = new ArrayList<>(merged.subList(from, Math.min(merged.size(), from + pageable.getPageSize())));
+        }
+        Class<?> type = method.getReturnType();
+        if (Page.class.isAssignableFrom(type)) {
+            return new PageImpl<>(page, pageable, total);
+        }
+        if (Slice.class.isAssignableFrom(type)) {
+            return new SliceImpl<>(page, pageable, pageable.isPaged() && pageable.getOffset() + page.size() < merged.size());
+        }
+        return page;
+    }
+
+    /** Orders merged expenses the way the database orders a single table: nulls first ascending, last descending. */
+    private static void sort(List<Object> rows, Sort sort) {
+        if (sort.isUnsorted() || rows.isEmpty() || !(rows.get(0) instanceof Expense)) {
+            return;
+        }
+        Comparator<Object> order = null;
+        for (Sort.Order property : sort) {
+            Comparator<Comparable<Object>> values = Comparator.naturalOrder();
+            boolean nullsFirst = property.getNullHandling() == Sort.NullHandling.NATIVE
+                    ? property.isAscending() : property.getNullHandling() == Sort.NullHandling.NULLS_FIRST;
+            values = property.isAscending() ? values : values.reversed();
+            values = nullsFirst ? Comparator.nullsFirst(values) : Comparator.nullsLast(values);
+            Comparator<Object> next = Comparator.comparing(row -> propertyOf(row, property), values);
+            order = order == null ? next : order.thenComparing(next);
+        }
+        rows.sort(order.thenComparing(row -> ((Expense) row).getId(), Comparator.nullsFirst(Comparator.naturalOrder())));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> propertyOf(Object row, Sort.Order property) {
+        Object value = new BeanWrapperImpl(row).getPropertyValue(property.getProperty());
+        if (property.isIgnoreCase() && value instanceof String) {
+            value = ((String) value).toLowerCase(Locale.ROOT);
+        }
+        return (Comparable<Object>) value;
+    }
+
+    private static int argumentOf(Method method, Class<?> type) {
+        Class<?>[] parameters = method.getParameterTypes();
+        for (int i = 0; i < parameters.length; i++) {
+            if (type.isAssignableFrom(parameters[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Merges per-shard results by the method's return type, or by the results' own type when the
+     * method is generic like {@code findBy(Example, Function)}. Only a new method returning
+     * something none of these can merge reaches the exception.
+     */
+    @SuppressWarnings("unchecked")
+    private Object combine(Method method, ExpenseShardService shards, List<?> results) {
+        Class<?> type = method.getReturnType();
+        if (type == void.class) {
+            return null;
+        }
+        if (type == Object.class) {
+            Object any = results.stream().filter(Objects::nonNull).findFirst().orElse(null);
+            type = any == null ? void.class : any instanceof Optional ? Optional.class : any instanceof List ? List.class : any.getClass();
+            if (type == void.class) {
+                return null;
+            }
+        }
+        if (type == Optional.class) {
+            return first(shards, (List<Optional<Expense>>) results);
+        }
+        if (List.class.isAssignableFrom(type)) {
+            return ownedRows(shards, (List<List<?>>) results);
+        }
+        if (type == long.class || type == Long.class) {
+            long sum = 0;
+            for (Object result : results) {
+                sum += ((Number) result).longValue();
+            }
+            return sum;
+        }
+        if (type == int.class || type == Integer.class) {
+            int sum = 0;
+            for (Object result : results) {
+                sum += ((Number) result).intValue();
+            }
+            return sum;
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return results.contains(Boolean.TRUE);
+        }
+        if (type == BigDecimal.class) {
+            BigDecimal sum = null;
+            for (Object result : results) {
+                if (result != null) {
+                    sum = sum == null ? (BigDecimal) result : sum.add((BigDecimal) result);
+                }
+            }
+            return sum;
+        }
+        throw new UnsupportedOperationException(method.getName() + " cannot be combined across shards");
+    }
+
+    /** Concatenates per-shard rows; an expense found on several shards is kept from its user's shard only. */
+    private static List<Object> ownedRows(ExpenseShardService shards, List<List<?>> perShard) {
+        Map<Long, Integer> seen = new HashMap<>();
+        Set<Long> duplicated = new HashSet<>();
+        for (List<?> rows : perShard) {
+            for (Object row : rows) {
+                if (row instanceof Expense && seen.merge(((Expense) row).getId(), 1, Integer::sum) > 1) {
+                    duplicated.add(((Expense) row).getId());
+                }
+            }
+        }
+        List<Object> merged = new ArrayList<>();
+        for (int shard = 0; shard < perShard.size(); shard++) {
+            for (Object row : perShard.get(shard)) {
+                if (duplicated.isEmpty() || !(row instanceof Expense) || !duplicated.contains(((Expense) row).getId())
+                        || Objects.equals(shards.ownerOf(((Expense) row).getUserEmail()), shard)) {
+                    merged.add(row);
+                }
+            }
+        }
+        return merged;
+    }
+
+    private static Optional<Expense> first(ExpenseShardService shards, List<Optional<Expense>> perShard) {
+        Optional<Expense> any = Optional.empty();
+        int copies = 0;
+        for (Optional<Expense> found : perShard) {
+            if (found.isPresent()) {
+                any = found;
+                copies++;
+            }
+        }
+        for (int shard = 0; copies > 1 && shard < perShard.size(); shard++) {
+            Optional<Expense> found = perShard.get(shard);
+            if (found.isPresent() && Objects.equals(shards.ownerOf(found.get().getUserEmail()), shard)) {
+                return found;
+            }
+        }
+        return any;
+    }
+
+    /** Category totals are added up per category before ranking, since each shard only ranks its own users. */
+    @SuppressWarnings("unchecked")
+    private Object topCategories(ExpenseShardService shards, Method method, Object[] args) {
+        Pageable pageable = args != null && args.length == 4 ? (Pageable) args[3] : Pageable.unpaged();
+        Object[] allCategories = args == null ? null : args.clone();
+        if (allCategories != null) {
+            allCategories[3] = Pageable.unpaged();
+        }
+        List<Object[]> totals = sumByKey(shards.scatter(true, shard -> (List<Object[]>) call(method, allCategories)));
+        totals.sort((a, b) -> ((BigDecimal) b[1]).compareTo((BigDecimal) a[1]));
+        if (pageable.isPaged()) {
+            int from = (int) Math.min(totals.size(), pageable.getOffset());
+            return new ArrayList<>(totals.subList(from, Math.min(totals.size(), from + pageable.getPageSize())));
+        }
+        return totals;
+    }
+
+    /** SUM / COUNT(DISTINCT day) over all shards, from the per-day totals, since per-shard averages cannot be combined. */
+    private BigDecimal averageDailyExpense(ExpenseShardService shards, Object[] args) {
+        LocalDate start;
+        LocalDate end;
+        if (args.length == 1) {
+            LocalDate now = (LocalDate) args[0];
+            start = now.withDayOfMonth(1);
+            end = now.withDayOfMonth(now.lengthOfMonth());
+        } else {
+            start = (LocalDate) args[1];
+            end = (LocalDate) args[2];
+        }
+        List<Object[]> days = sumByKey(shards.scatter(true, shard -> target.getDailyTotals(start, end)));
+        if (days.isEmpty()) {
+            return null;
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (Object[] day : days) {
+            total = total.add((BigDecimal) day[day.length - 1]);
+        }
+        return total.divide(BigDecimal.valueOf(days.size()), MathContext.DECIMAL64);
+    }
+
+    /** Adds up the last column of rows whose other columns are equal. */
+    private static List<Object[]> sumByKey(List<List<Object[]>> perShard) {
+        Map<List<Object>, Object[]> totals = new LinkedHashMap<>();
+        for (List<Object[]> rows : perShard) {
+            for (Object[] row : rows) {
+                List<Object> key = Arrays.asList(row).subList(0, row.length - 1);
+                Object[] total = totals.get(key);
+                if (total == null) {
+                    totals.put(key, row.clone());
+                } else if (row[row.length - 1] != null) {
+                    BigDecimal sum = (BigDecimal) total[total.length - 1];
+                    total[total.length - 1] = sum == null ? row[row.length - 1] : sum.add((BigDecimal) row[row.length - 1]);
+                }
+            }
+        }
+        return new ArrayList<>(totals.values());
+    }
+
+    private static List<Long> firstIds(List<List<Long>> perShard, Pageable pageable) {
+        TreeSet<Long> ids = new TreeSet<>();
+        perShard.forEach(ids::addAll);
+        List<Long> page = new ArrayList<>(ids);
+        return pageable.isPaged() && page.size() > pageable.getPageSize() ? page.subList(0, pageable.getPageSize()) : page;
+    }
+
+    /** Each shard returns its first {@code maxResults} rows in the query's order, so the first {@code maxResults} of their merge are the overall first. */
+    @SuppressWarnings("unchecked")
+    private List<Expense> firstExpenses(ExpenseShardService shards, ExpenseQuery query, int maxResults) {
+        List<Expense> merged = (List<Expense>) (List<?>) ownedRows(shards, (List<List<?>>) (List<?>) shards.scatter(true, shard -> target.queryExpenses(query, maxResults)));
+        Comparator<Expense> order = Comparator.comparing(expense -> sortValue(expense, query.getSort()), Comparator.nullsFirst(Comparator.<Comparable<Object>>naturalOrder()));
+        order = order.thenComparing(Expense::getId);
+        merged.sort(query.isDescending() ? order.reversed() : order);
+        return merged.size() > maxResults ? new ArrayList<>(merged.subList(0, maxResults)) : merged;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> sortValue(Expense expense, ExpenseQuery.SortField sort) {
+        Comparable<?> value;
+        switch (sort) {
+            case EXPENSE_DONE:
+                value = expense.getExpenseDone();
+                break;
+            case AMOUNT:
+                value = expense.getAmount();
+                break;
+            default:
+                value = expense.getId();
+        }
+        return (Comparable<Object>) value;
+    }
+
+    /** The user the call is scoped to: its {@code userEmail} argument, or the user of a query. */
+    private String userOf(Method method, Object[] args) {
+        if (args == null) {
+            return null;
+        }
+        if (args.length > 0 && args[0] instanceof ExpenseQuery) {
+            return ((ExpenseQuery) args[0]).getUserEmail();
+        }
+        int index = userArguments.computeIfAbsent(method, ShardedCalculationRepository::userArgument);
+        return index < 0 ? null : (String) args[index];
+    }
+
+    private static int userArgument(Method method) {
+        if (method.getName().startsWith("findByUserEmail")) {
+            return 0;
+        }
+        Annotation[][] annotations = method.getParameterAnnotations();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof ShardKey
+                        || annotation instanceof Param && "userEmail".equals(((Param) annotation).value())) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isWrite(Method method) {
+        String name = method.getName();
+        return name.startsWith("save") || name.startsWith("delete") || name.startsWith("patch");
+    }
+
+    private Object call(Method method, Object[] args) {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
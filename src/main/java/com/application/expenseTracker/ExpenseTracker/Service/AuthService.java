@@ -0,0 +1,192 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Dto.AuthTokens;
+import com.application.expenseTracker.ExpenseTracker.Entity.RefreshToken;
+import com.application.expenseTracker.ExpenseTracker.Entity.User;
+import com.application.expenseTracker.ExpenseTracker.Repository.RefreshTokenRepository;
+import com.application.expenseTracker.ExpenseTracker.Repository.UserRepository;
+import com.application.expenseTracker.ExpenseTracker.Utility.HashUtil;
+import com.application.expenseTracker.ExpenseTracker.Utility.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Issues access and refresh tokens. A login checks the password with BCrypt, which is slow on
+ * purpose, so checks run on a small bounded pool: a burst of logins queues there or is turned
+ * away, instead of taking every request thread. A refresh only hashes the presented token with
+ * SHA-256 and looks it up, so keeping a session alive never costs a BCrypt check.
+ */
+@Service
+public class AuthService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
+
+    private static final int REFRESH_TOKEN_BYTES = 32;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Value("${auth.login.threads:2}")
+    private int threads = 2;
+
+    @Value("${auth.login.queue-capacity:32}")
+    private int queueCapacity = 32;
+
+    @Value("${auth.login.timeout.ms:5000}")
+    private long timeoutMs = 5000;
+
+    @Value("${auth.refresh.ttl.ms:2592000000}")
+    private long refreshTtlMs = 2592000000L;
+
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicLong rejectedLogins = new AtomicLong();
+    private ThreadPoolExecutor executor;
+    /** Checked against when the email is unknown, so a missing user takes as long as a wrong password. */
+    private String unknownUserHash;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "auth-login-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        unknownUserHash = passwordEncoder.encode(newToken());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @throws BadCredentialsException when the email is unknown or the password does not match
+     * @throws RejectedExecutionException when the login pool is saturated or the check timed out
+     */
+    public AuthTokens login(String email, String password) {
+        Future<User> check;
+        try {
+            check = executor.submit(() -> checkPassword(email, password));
+        } catch (RejectedExecutionException e) {
+            rejectedLogins.incrementAndGet();
+            logger.warn("Rejected login for email: {}, {} logins already waiting", email, executor.getQueue().size());
+            throw e;
+        }
+        try {
+            return issue(check.get(timeoutMs, TimeUnit.MILLISECONDS).getEmail());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            check.cancel(true);
+            rejectedLogins.incrementAndGet();
+            throw new RejectedExecutionException("Login was not checked within " + timeoutMs + " ms");
+        } catch (InterruptedException e) {
+            check.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for the login check", e);
+        }
+    }
+
+    /**
+     * Exchanges a refresh token for new access and refresh tokens. The presented token is
+     * consumed, so a stolen token that was already used cannot be used again.
+     *
+     * @throws BadCredentialsException when the token is unknown, used or expired
+     */
+    @Transactional
+    public AuthTokens refresh(String refreshToken) {
+        if (refreshToken == null || refreshToken.isEmpty()) {
+            throw new BadCredentialsException("Refresh token is missing");
+        }
+        String tokenHash = HashUtil.sha256Hex(refreshToken);
+        Optional<RefreshToken> stored = refreshTokenRepository.findById(tokenHash);
+        if (!stored.isPresent() || refreshTokenRepository.consume(tokenHash, LocalDateTime.now()) == 0) {
+            throw new BadCredentialsException("Refresh token is invalid or expired");
+        }
+        String email = stored.get().getUserEmail();
+        if (!userRepository.existsById(email)) {
+            throw new BadCredentialsException("Refresh token is invalid or expired");
+        }
+        return issue(email);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.refresh.purge.interval.ms:3600000}")
+    public void purgeExpiredRefreshTokens() {
+        int purged = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            logger.info("Purged {} expired refresh tokens", purged);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("loginThreads", threads);
+        stats.put("activeLogins", executor.getActiveCount());
+        stats.put("queuedLogins", executor.getQueue().size());
+        stats.put("rejectedLogins", rejectedLogins.get());
+        return stats;
+    }
+
+    /** Runs on the login pool. Stored hashes with a lower BCrypt strength than configured are re-hashed. */
+    private User checkPassword(String email, String password) {
+        Optional<User> user = email == null ? Optional.<User>empty() : userRepository.findByEmail(email);
+        String hash = user.map(User::getPassword).orElse(unknownUserHash);
+        boolean matches = password != null && passwordEncoder.matches(password, hash);
+        if (!user.isPresent() || !matches) {
+            throw new BadCredentialsException("Invalid email or password");
+        }
+        if (passwordEncoder.upgradeEncoding(hash)) {
+            user.get().setPassword(passwordEncoder.encode(password));
+            userRepository.save(user.get());
+            logger.info("Upgraded the password hash of email: {}", email);
+        }
+        return user.get();
+    }
+
+    private AuthTokens issue(String email) {
+        String refreshToken = newToken();
+        LocalDateTime now = LocalDateTime.now();
+        // Refresh tokens are random, so a plain digest is enough; no salt or stretching is needed
+        refreshTokenRepository.save(new RefreshToken(HashUtil.sha256Hex(refreshToken), email, now.plusNanos(refreshTtlMs * 1_000_000), now));
+        return new AuthTokens(jwtUtil.generateToken(email), "Bearer", jwtUtil.getExpirationMs() / 1000, refreshToken, refreshTtlMs / 1000);
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[REFRESH_TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,123 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Config.ReplicaRoutingDataSource;
+import com.application.expenseTracker.ExpenseTracker.Entity.Budget;
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Exception.InvalidBudgetException;
+import com.application.expenseTracker.ExpenseTracker.Repository.BudgetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Monthly budgets per user and optionally per category. Lookups for budget alerts go through a
+ * cache keyed by {@link Budget#key}, which also remembers budgets that do not exist, so checking
+ * an expense costs a map lookup once its user and month have been seen. Writes on this instance
+ * update the cache directly; the cache is dropped every refresh interval to pick up budgets
+ * changed by other instances.
+ */
+@Service
+public class BudgetService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BudgetService.class);
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Value("${expense.budget.cache.max-entries:100000}")
+    private int maxEntries = 100000;
+
+    private final Map<String, Optional<Budget>> cache = new ConcurrentHashMap<>();
+
+    /** @return the budget, or {@code null} when the user has none for that month and category */
+    public Budget find(String userEmail, YearMonth month, Expense.ExpenseCategory category) {
+        String key = Budget.key(userEmail, month, category);
+        Optional<Budget> cached = cache.get(key);
+        if (cached == null) {
+            if (cache.size() >= maxEntries) {
+                logger.debug("Budget cache reached {} entries, clearing it", maxEntries);
+                cache.clear();
+            }
+            // Read from the primary so a budget set a moment ago is seen by the next alert check.
+            cached = ReplicaRoutingDataSource.onPrimary(() -> budgetRepository.findById(key));
+            cache.putIfAbsent(key, cached);
+        }
+        return cached.orElse(null);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Budget> getBudgets(String userEmail, YearMonth month) {
+        return budgetRepository.findByUserEmailAndBudgetMonthOrderByBudgetKey(userEmail, month.toString());
+    }
+
+    /**
+     * Creates or replaces the budget for the user, month and category of {@code budget}.
+     *
+     * @throws InvalidBudgetException when the user, month or amount is missing or invalid
+     */
+    public Budget setBudget(Budget budget) {
+        if (budget.getUserEmail() == null || budget.getUserEmail().isEmpty()) {
+            throw new InvalidBudgetException("A budget needs a userEmail");
+        }
+        if (budget.getAmount() == null || budget.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new InvalidBudgetException("A budget needs an amount above zero");
+        }
+        YearMonth month;
+        try {
+            month = YearMonth.parse(budget.getBudgetMonth());
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new InvalidBudgetException("A budget needs a budgetMonth as YYYY-MM");
+        }
+        budget.setBudgetMonth(month.toString());
+        budget.setBudgetKey(Budget.key(budget.getUserEmail(), month, budget.getCategory()));
+        budget.setUpdatedAt(LocalDateTime.now());
+        Budget saved = budgetRepository.save(budget);
+        cache.put(saved.getBudgetKey(), Optional.of(saved));
+        logger.info("Set budget: {} to {}", saved.getBudgetKey(), saved.getAmount());
+        return saved;
+    }
+
+    /** @return whether a budget was deleted */
+    public boolean deleteBudget(String userEmail, YearMonth month, Expense.ExpenseCategory category) {
+        String key = Budget.key(userEmail, month, category);
+        boolean existed = ReplicaRoutingDataSource.onPrimary(() -> budgetRepository.existsById(key));
+        if (existed) {
+            budgetRepository.deleteById(key);
+        }
+        cache.put(key, Optional.empty());
+        return existed;
+    }
+
+    /** Adds budgets carried over from the old per-expense column, keeping any that already exist. */
+    public int importLegacyBudgets(Collection<Budget> budgets) {
+        int imported = 0;
+        for (Budget budget : budgets) {
+            if (!budgetRepository.existsById(budget.getBudgetKey())) {
+                budget.setUpdatedAt(LocalDateTime.now());
+                budgetRepository.save(budget);
+                imported++;
+            }
+        }
+        cache.clear();
+        return imported;
+    }
+
+    @Scheduled(fixedDelayString = "${expense.budget.cache.refresh.ms:60000}")
+    public void refresh() {
+        cache.clear();
+    }
+}
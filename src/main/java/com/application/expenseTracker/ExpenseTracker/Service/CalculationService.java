@@ -1,20 +1,34 @@
 package com.application.expenseTracker.ExpenseTracker.Service;
 
+import com.application.expenseTracker.ExpenseTracker.Config.ReplicaRoutingDataSource;
 import com.application.expenseTracker.ExpenseTracker.Controller.CalculationController;
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpenseAnomaly;
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpensePatch;
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpenseQuery;
+import com.application.expenseTracker.ExpenseTracker.Entity.Budget;
 import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Exception.ExpenseNotFoundException;
 import com.application.expenseTracker.ExpenseTracker.Repository.CalculationRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class CalculationService {
@@ -27,102 +41,377 @@ public class CalculationService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private ExpenseSearchService expenseSearchService;
+
+    @Autowired
+    private ExpenseSeriesService expenseSeriesService;
+
+    @Autowired
+    private ExpenseJournalService expenseJournalService;
+
+    @Autowired
+    private RecentExpenseService recentExpenseService;
+
+    @Autowired
+    private ExpenseAnomalyService expenseAnomalyService;
+
+    @Autowired
+    private ExpenseSummaryService expenseSummaryService;
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private ExpenseCacheService expenseCacheService;
+
+    @Autowired
+    private ExpenseIngestService expenseIngestService;
+
+    @Autowired
+    private ExpensePercentileService expensePercentileService;
 
+    @Autowired
+    private ExpenseArchiveService expenseArchiveService;
+
+    @PostConstruct
+    public void registerIngestListener() {
+        expenseIngestService.setFlushListener(this::afterIngest);
+    }
+
+    @Transactional(readOnly = true)
     public List<Expense> getAllExpense() {
         return calculationRepository.findAll();
     }
 
     public void updateExpense(Expense expense) {
+        expenseIngestService.awaitFlushed(expense.getId());
+        List<Expense> before = rowsBeforeWrite(expense.getId() == null ? Collections.<Long>emptyList() : Collections.singletonList(expense.getId()));
         calculationRepository.save(expense);
+        before.forEach(expensePercentileService::onRemoved);
+        expensePercentileService.onSaved(expense);
+        expenseCacheService.invalidate(expense.getId());
+        expenseSearchService.index(expense);
+        expenseSeriesService.evictAll();
+        recentExpenseService.onSaved(expense);
+        expenseJournalService.recordUpdated(expense);
     }
 
+    /**
+     * Inserts the expense, or with write-behind ingest on, hands it to {@link ExpenseIngestService}
+     * which assigns the id and inserts it with the next batch. Such an expense gets its anomaly
+     * flag, search entry and budget alerts once the batch is written, see {@link #afterIngest(List)}.
+     * An expense that already has an id, such as a recurring template, is saved over its row and
+     * not counted again as a new one.
+     */
     public void addExpense(Expense expense) {
+        if (expenseIngestService.append(expense)) {
+            return;
+        }
+        boolean inserted = expense.getId() == null;
         calculationRepository.save(expense);
+        if (inserted) {
+            afterInsert(expense);
+        }
+    }
+
+    private void afterInsert(Expense expense) {
+        expenseSearchService.index(expense);
+        expensePercentileService.onSaved(expense);
+        expenseSeriesService.evict(expense.getExpenseDone());
+        recentExpenseService.onSaved(expense);
+        expense.setAnomaly(expenseAnomalyService.observe(expense));
+        expenseJournalService.recordCreated(expense);
+    }
+
+    /** Runs on the ingest flusher after a batch committed, before its expenses stop counting as pending. */
+    private void afterIngest(List<Expense> expenses) {
+        // One budget check per user, category and month covers every expense of the batch in it.
+        Map<String, Expense> alerts = new LinkedHashMap<>();
+        for (Expense expense : expenses) {
+            afterInsert(expense);
+            alerts.put(Budget.key(expense.getUserEmail(), YearMonth.from(dayOf(expense)), expense.getCategory()), expense);
+        }
+        alerts.values().forEach(expense -> sendBudgetAlerts(expense.getUserEmail(), expense.getCategory(), dayOf(expense)));
+    }
+
+    private static LocalDate dayOf(Expense expense) {
+        return expense.getExpenseDone() != null ? expense.getExpenseDone() : LocalDate.now();
+    }
+
+    /**
+     * Applies a partial update with a single UPDATE statement.
+     *
+     * @return the new version of the expense, or {@code null} when the patch was not versioned
+     * @throws ExpenseNotFoundException when no expense has that id
+     * @throws ObjectOptimisticLockingFailureException when the expense no longer has the patch's version
+     */
+    public Long patchExpense(Long id, ExpensePatch patch) {
+        expenseIngestService.awaitFlushed(id);
+        List<Expense> before = rowsBeforeWrite(Collections.singletonList(id));
+        int updated = calculationRepository.patchExpense(id, patch);
+        expenseCacheService.invalidate(id);
+        if (updated == 0) {
+            if (!calculationRepository.existsById(id)) {
+                throw new ExpenseNotFoundException("Expense not found for ID: " + id);
+            }
+            throw new ObjectOptimisticLockingFailureException(Expense.class, id);
+        }
+        expenseSearchService.applyPatch(id, patch.getTitle(), patch.getNotes(), patch.getCategory(), patch.getExpenseDone());
+        before.forEach(expense -> expensePercentileService.onPatched(expense, patch));
+        expenseSeriesService.evictAll();
+        recentExpenseService.onPatched(id, patch);
+        expenseJournalService.recordPatched(id, patch);
+        return patch.getVersion() == null ? null : patch.getVersion() + 1;
+    }
+
+    /** The rows as they are before a write, which the percentile sketches need to move them; empty when those are off. */
+    private List<Expense> rowsBeforeWrite(List<Long> ids) {
+        if (ids.isEmpty() || !expensePercentileService.isEnabled()) {
+            return Collections.emptyList();
+        }
+        return ReplicaRoutingDataSource.onPrimary(() -> calculationRepository.findAllById(ids));
     }
 
+    /**
+     * Not transactional, so a cache hit does not check out a connection. A miss loads from the
+     * primary: the row is cached, and a lagging replica's copy would be served until the TTL.
+     */
     public Optional<Expense> findById(Long id){
-        return calculationRepository.findById(id);
+        expenseIngestService.awaitFlushed(id);
+        return expenseCacheService.findById(id, missing -> ReplicaRoutingDataSource.onPrimary(() -> calculationRepository.findById(missing)));
     }
 
+    @Transactional(readOnly = true)
     public List<Expense> getExpensesByCategory(Expense.ExpenseCategory category) {
         return calculationRepository.findByCategory(category);
     }
 
+    @Transactional(readOnly = true)
     public List<Expense> getExpensesByDateRange(LocalDate startDate, LocalDate endDate){
-        return calculationRepository.findByExpenseDoneBetween(startDate,endDate);
+        if (!expenseArchiveService.isEnabled()) {
+            return calculationRepository.findByExpenseDoneBetween(startDate,endDate);
+        }
+        return expenseArchiveService.read(() -> {
+            List<Expense> expenses = new ArrayList<>(calculationRepository.findByExpenseDoneBetween(startDate, endDate));
+            expenses.addAll(expenseArchiveService.findByDateRange(null, startDate, endDate));
+            return expenses;
+        });
+    }
+
+    public int deleteExpenseById(Long id) {
+        expenseIngestService.awaitFlushed(id);
+        List<Expense> before = rowsBeforeWrite(Collections.singletonList(id));
+        int deleted = calculationRepository.deleteExpenseById(id);
+        expenseCacheService.invalidate(id);
+        if (deleted > 0) {
+            before.forEach(expensePercentileService::onRemoved);
+            expenseSearchService.remove(id);
+            expenseSeriesService.evictAll();
+            recentExpenseService.onDeleted(Collections.singletonList(id));
+            expenseJournalService.recordDeleted(Collections.singletonList(id));
+        }
+        return deleted;
     }
 
-    public void deleteExpenseById(Long id) {
-        calculationRepository.deleteById(id);
+    public int deleteExpensesByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        expenseIngestService.awaitAllFlushed();
+        List<Expense> before = rowsBeforeWrite(ids);
+        int deleted = calculationRepository.deleteExpensesByIds(ids);
+        expenseCacheService.invalidate(ids);
+        before.forEach(expensePercentileService::onRemoved);
+        ids.forEach(expenseSearchService::remove);
+        expenseSeriesService.evictAll();
+        recentExpenseService.onDeleted(ids);
+        expenseJournalService.recordDeleted(ids);
+        return deleted;
     }
 
-    public void deleteAllExpenses() {
-        calculationRepository.deleteAll();
+    public int deleteAllExpenses() {
+        expenseIngestService.awaitAllFlushed();
+        int deleted = calculationRepository.deleteAllExpenses();
+        deleted += expenseArchiveService.delete(null, null, null).size();
+        expenseCacheService.invalidateAll();
+        expensePercentileService.clear();
+        expenseSearchService.clear();
+        expenseSeriesService.evictAll();
+        recentExpenseService.onDeletedAll();
+        expenseJournalService.recordDeletedAll();
+        return deleted;
     }
 
+    /** Deletes archived expenses of the user, or of everyone, in the range; see {@link ExpenseArchiveService#delete}. */
+    public int deleteArchivedExpenses(String userEmail, LocalDate startDate, LocalDate endDate) {
+        List<Expense> deleted = expenseArchiveService.delete(userEmail, startDate, endDate);
+        if (!deleted.isEmpty()) {
+            deleted.forEach(expensePercentileService::onRemoved);
+            expenseSeriesService.evictAll();
+            expenseJournalService.recordDeleted(deleted.stream().map(Expense::getId).collect(Collectors.toList()));
+        }
+        return deleted.size();
+    }
+
+    @Transactional(readOnly = true)
     public List<Expense> getExpensesByPaymentMode(Expense.PaymentMode paymentMode) {
         return calculationRepository.findByPaymentMode(paymentMode);
     }
 
+    @Transactional(readOnly = true)
     public List<Expense> getTotalExpenses(LocalDate now) {
         return calculationRepository.findByExpenseDoneLessThanEqual(now);
     }
 
+    @Transactional(readOnly = true)
     public List<Expense> getRecentExpenses(LocalDate now) {
-        return calculationRepository.findByExpenseDoneBetween(now.minusDays(7),now);
+        return recentExpenseService.getRecent(null, now);
     }
 
-    public Map<String, Object> getExpenseSummary() {
-        LocalDate now = LocalDate.now();
-        Map<String, Object> summary = new LinkedHashMap<>();
-        BigDecimal totalExpensesThisMonth = calculationRepository.getTotalExpensesThisMonth(now);
-        Map<String,String> topCategories = (Map<String, String>) calculationRepository.getTopCategories();
-        BigDecimal avgDailyExpenses = calculationRepository.getAverageDailyExpense(now);
+    @Transactional(readOnly = true)
+    public List<Expense> getRecentExpenses(String userEmail, LocalDate now) {
+        expenseIngestService.awaitFlushed(userEmail);
+        return recentExpenseService.getRecent(userEmail, now);
+    }
 
-        summary.put("totalExpensesThisMonth",totalExpensesThisMonth);
-        summary.put("averageDailyExpenses",avgDailyExpenses);
-        summary.put("top3Categories",topCategories);
+    public List<ExpenseAnomaly> getRecentAnomalies(String userEmail, int limit) {
+        expenseIngestService.awaitFlushed(userEmail);
+        return expenseAnomalyService.getRecentAnomalies(userEmail, limit);
+    }
 
-        return summary;
+    public Map<String, Object> getSpendingPercentiles(String userEmail, Expense.ExpenseCategory category, YearMonth from, YearMonth to, List<Double> quantiles) {
+        expenseIngestService.awaitFlushed(userEmail);
+        return expensePercentileService.getPercentiles(userEmail, category, from, to, quantiles);
     }
 
-    public void checkAndSendBudgetAlerts(String userEmail ,int budget, LocalDate now){
-        try {String subject = "";
+    @Transactional(readOnly = true)
+    public Map<String, Object> getExpenseSummary(String userEmail, YearMonth month) {
+        expenseIngestService.awaitFlushed(userEmail);
+        return expenseSummaryService.getSummary(userEmail, month);
+    }
 
-            BigDecimal calculatedTotalExpense = calculationRepository.getTotalExpensesThisMonth(now);
-            int percentage = calculatedTotalExpense
-                    .divide(BigDecimal.valueOf(budget), 4, RoundingMode.HALF_UP)
-                    .multiply(BigDecimal.valueOf(100))
-                    .intValue();
+    /**
+     * Compares the user's spending in the month of {@code day} against their budget for the month
+     * and, when {@code category} has one, against the category's budget. Budgets come from the
+     * {@link BudgetService} cache; a user without budgets costs no queries. Failures are logged
+     * since a missed alert must not fail the expense that triggered it. While the user has expenses
+     * waiting for write-behind ingest the check is left to {@link #afterIngest(List)}.
+     */
+    public void checkAndSendBudgetAlerts(String userEmail, Expense.ExpenseCategory category, LocalDate day) {
+        if (expenseIngestService.hasPending(userEmail)) {
+            return;
+        }
+        sendBudgetAlerts(userEmail, category, day);
+    }
 
-            if(percentage >= 80 && percentage < 90) {
-                subject = "⚠️ Budget Alert: 80% reached!";
-            }else if(percentage >= 90 && percentage < 100) {
-                subject = "🚨  Budget Alert: 90% reached!";
-            }else if(percentage >= 100 && percentage < 120){
-                subject = "❗Budget Limit Reached!";
-            }else if(percentage >= 120){
-                subject = "🔥 Overspent! 120% of Budget Crossed!";
+    private void sendBudgetAlerts(String userEmail, Expense.ExpenseCategory category, LocalDate day) {
+        try {
+            YearMonth month = YearMonth.from(day);
+            Budget monthly = budgetService.find(userEmail, month, null);
+            if (monthly != null) {
+                // Totals come from the primary so they include the expense that was just added.
+                sendBudgetAlert(monthly, ReplicaRoutingDataSource.onPrimary(() -> calculationRepository.getTotalExpenses(userEmail, month.atDay(1), month.atEndOfMonth())));
             }
-
-            if (!subject.isEmpty()) {
-                String body = String.format(
-                        "Hi User,%n%n" +
-                                "You have spent ₹%.2f out of your ₹%.2f budget (%.0f%%).%n" +
-                                "Please review your expenses.%n%n" +
-                                "— Expense Tracker Team",
-                        calculatedTotalExpense, budget, percentage);
-
-                emailService.sendBudgetAlert(userEmail, subject, body);
+            Budget categoryBudget = category == null ? null : budgetService.find(userEmail, month, category);
+            if (categoryBudget != null) {
+                sendBudgetAlert(categoryBudget, ReplicaRoutingDataSource.onPrimary(() -> calculationRepository.getTotalExpensesByCategory(userEmail, category, month.atDay(1), month.atEndOfMonth())));
             }
         } catch (Exception e) {
-            throw new RuntimeException(e);
+            logger.error("Could not check budget alerts for userEmail: {}: {}", userEmail, e.getMessage(), e);
+        }
+    }
+
+    private void sendBudgetAlert(Budget budget, BigDecimal spent) {
+        String subject = "";
+        int percentage = spent
+                .divide(budget.getAmount(), 4, RoundingMode.HALF_UP)
+                .multiply(BigDecimal.valueOf(100))
+                .intValue();
+
+        if(percentage >= 80 && percentage < 90) {
+            subject = "⚠️ Budget Alert: 80% reached!";
+        }else if(percentage >= 90 && percentage < 100) {
+            subject = "🚨  Budget Alert: 90% reached!";
+        }else if(percentage >= 100 && percentage < 120){
+            subject = "❗Budget Limit Reached!";
+        }else if(percentage >= 120){
+            subject = "🔥 Overspent! 120% of Budget Crossed!";
         }
 
+        if (!subject.isEmpty()) {
+            String scope = budget.getCategory() == null ? "" : budget.getCategory() + " ";
+            String body = String.format(
+                    "Hi User,%n%n" +
+                            "You have spent ₹%.2f out of your ₹%.2f %sbudget for %s (%d%%).%n" +
+                            "Please review your expenses.%n%n" +
+                            "— Expense Tracker Team",
+                    spent, budget.getAmount(), scope, budget.getBudgetMonth(), percentage);
+
+            emailService.sendBudgetAlert(budget.getUserEmail(), subject, body);
+        }
     }
 
+    @Transactional(readOnly = true)
     public List<Expense> getRecurringExpenses() {
         return calculationRepository.getRecurringExpenses();
     }
 
+    @Transactional(readOnly = true)
+    public List<Expense> getExpensesAbove(BigDecimal amount) {
+        return calculationRepository.findByAmountGreaterThan(amount);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Expense> getExpensesBelow(BigDecimal amount) {
+        return calculationRepository.findByAmountLessThan(amount);
+    }
+
+    /**
+     * One page of {@code query}. A row beyond the limit is fetched only to learn whether another
+     * page exists; {@code nextCursor} is {@code null} on the last page.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> queryExpenses(ExpenseQuery query) {
+        expenseIngestService.awaitFlushed(query.getUserEmail());
+        List<Expense> rows = calculationRepository.queryExpenses(query, query.getLimit() + 1);
+        boolean hasMore = rows.size() > query.getLimit();
+        List<Expense> expenses = hasMore ? new ArrayList<>(rows.subList(0, query.getLimit())) : rows;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("expenses", expenses);
+        result.put("limit", query.getLimit());
+        result.put("nextCursor", hasMore ? query.cursorAfter(expenses.get(expenses.size() - 1)) : null);
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getExpenseSeries(ExpenseSeriesService.Bucket bucket, ExpenseSeriesService.GroupBy groupBy, LocalDate from, LocalDate to) {
+        return expenseSeriesService.getSeries(bucket, groupBy, from, to, LocalDate.now());
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> searchExpenses(String query, Expense.ExpenseCategory category, LocalDate startDate, LocalDate endDate, int page, int size) {
+        ExpenseSearchService.SearchHits hits = expenseSearchService.search(query, category, startDate, endDate, page, size);
+
+        Map<Long, Expense> byId = new HashMap<>();
+        if (!hits.getIds().isEmpty()) {
+            calculationRepository.findAllById(hits.getIds()).forEach(expense -> byId.put(expense.getId(), expense));
+        }
+        List<Expense> expenses = new ArrayList<>(hits.getIds().size());
+        for (Long id : hits.getIds()) {
+            Expense expense = byId.get(id);
+            if (expense != null) {
+                expenses.add(expense);
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("total", hits.getTotal());
+        result.put("page", page);
+        result.put("size", size);
+        result.put("expenses", expenses);
+        return result;
+    }
+
 }
@@ -0,0 +1,156 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Config.ReplicaRoutingDataSource;
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpenseAnomaly;
+import com.application.expenseTracker.ExpenseTracker.Entity.CategoryStats;
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Repository.CategoryStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Flags expenses whose amount is unusual for the user and category. Each user/category pair
+ * keeps an exponentially weighted mean and variance, updated in constant time per insert with
+ * weight {@code max(1/n, decay)}: plain Welford averaging for the first {@code 1/decay} expenses,
+ * after which older spending fades out. Statistics live in memory and are written to
+ * EXPENSE_CATEGORY_STATS periodically and on shutdown.
+ */
+@Service
+public class ExpenseAnomalyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseAnomalyService.class);
+
+    private static final int MAX_RECENT_ANOMALIES = 200;
+    /** Keeps a category of identical amounts from flagging every small deviation. */
+    private static final double MIN_RELATIVE_STD_DEV = 0.1;
+
+    @Autowired
+    private CategoryStatsRepository categoryStatsRepository;
+
+    @Value("${expense.anomaly.min-samples:5}")
+    private int minSamples = 5;
+
+    @Value("${expense.anomaly.z-threshold:3.0}")
+    private double zThreshold = 3.0;
+
+    @Value("${expense.anomaly.decay:0.05}")
+    private double decay = 0.05;
+
+    private final Map<String, CategoryStats> stats = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final Deque<ExpenseAnomaly> recentAnomalies = new ArrayDeque<>();
+
+    /** Runs after a snapshot restore; statistics already touched by an early insert are kept. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        ReplicaRoutingDataSource.onPrimary(categoryStatsRepository::findAll).forEach(loaded -> stats.putIfAbsent(loaded.getStatsKey(), loaded));
+        logger.info("Loaded anomaly statistics for {} user categories", stats.size());
+    }
+
+    /**
+     * Scores the expense against the statistics so far, then adds it to them. The score uses
+     * the statistics from before the expense so an outlier cannot hide itself.
+     *
+     * @return whether the expense is an anomaly
+     */
+    public boolean observe(Expense expense) {
+        if (expense.getAmount() == null || expense.getCategory() == null) {
+            return false;
+        }
+        String key = key(expense.getUserEmail(), expense.getCategory());
+        CategoryStats current = stats.computeIfAbsent(key, k -> new CategoryStats(k, expense.getUserEmail(), expense.getCategory(), 0, 0, 0, null));
+        double amount = expense.getAmount().doubleValue();
+        ExpenseAnomaly anomaly = null;
+        synchronized (current) {
+            if (current.getSamples() >= minSamples) {
+                double stdDev = Math.max(Math.sqrt(current.getVariance()), Math.abs(current.getMean()) * MIN_RELATIVE_STD_DEV);
+                double zScore = stdDev == 0 ? 0 : (amount - current.getMean()) / stdDev;
+                if (zScore > zThreshold) {
+                    anomaly = new ExpenseAnomaly(expense.getId(), expense.getUserEmail(), expense.getCategory(), expense.getAmount(),
+                            current.getMean(), stdDev, zScore, LocalDateTime.now());
+                }
+            }
+            long samples = current.getSamples() + 1;
+            double alpha = Math.max(1.0 / samples, decay);
+            double difference = amount - current.getMean();
+            double increment = alpha * difference;
+            current.setMean(current.getMean() + increment);
+            current.setVariance((1 - alpha) * (current.getVariance() + difference * increment));
+            current.setSamples(samples);
+            current.setUpdatedAt(LocalDateTime.now());
+        }
+        dirty.add(key);
+        if (anomaly != null) {
+            logger.info("Expense: {} of {} is an anomaly for userEmail: {} in category: {} (z = {})",
+                    expense.getId(), expense.getAmount(), expense.getUserEmail(), expense.getCategory(), String.format("%.1f", anomaly.getScore()));
+            synchronized (recentAnomalies) {
+                recentAnomalies.addFirst(anomaly);
+                if (recentAnomalies.size() > MAX_RECENT_ANOMALIES) {
+                    recentAnomalies.removeLast();
+                }
+            }
+        }
+        return anomaly != null;
+    }
+
+    /** @return the most recent anomalies, newest first, optionally for one user */
+    public List<ExpenseAnomaly> getRecentAnomalies(String userEmail, int limit) {
+        List<ExpenseAnomaly> result = new ArrayList<>();
+        synchronized (recentAnomalies) {
+            for (ExpenseAnomaly anomaly : recentAnomalies) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                if (userEmail == null || userEmail.equals(anomaly.getUserEmail())) {
+                    result.add(anomaly);
+                }
+            }
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void persistOnShutdown() {
+        persist();
+    }
+
+    @Scheduled(fixedDelayString = "${expense.anomaly.persist.interval.ms:60000}")
+    public void persist() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<CategoryStats> changed = new ArrayList<>();
+        for (Iterator<String> keys = dirty.iterator(); keys.hasNext(); ) {
+            CategoryStats current = stats.get(keys.next());
+            keys.remove();
+            if (current != null) {
+                synchronized (current) {
+                    changed.add(new CategoryStats(current.getStatsKey(), current.getUserEmail(), current.getCategory(),
+                            current.getSamples(), current.getMean(), current.getVariance(), current.getUpdatedAt()));
+                }
+            }
+        }
+        try {
+            categoryStatsRepository.saveAll(changed);
+            logger.debug("Persisted anomaly statistics for {} user categories", changed.size());
+        } catch (Exception e) {
+            changed.forEach(saved -> dirty.add(saved.getStatsKey()));
+            logger.error("Could not persist anomaly statistics: {}", e.getMessage(), e);
+        }
+    }
+
+    private static String key(String userEmail, Expense.ExpenseCategory category) {
+        return userEmail + "|" + category;
+    }
+}
@@ -0,0 +1,513 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Config.ReplicaRoutingDataSource;
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Repository.CalculationRepository;
+import com.application.expenseTracker.ExpenseTracker.Utility.ExpenseArchiveFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Cold tier for old expenses. A daily job moves every expense dated before the horizon
+ * ({@code expense.archive.horizon-months} whole months back) out of USER_EXPENSE into one
+ * {@link ExpenseArchiveFile} per user and month under {@code expense.archive.path}, laid out as
+ * {@code YYYY-MM/u<url-encoded userEmail>.col}. Date-range lists, summaries and series merge the
+ * archive back in; archived expenses are read-only and are not returned by id or by the other
+ * list endpoints.
+ *
+ * <p>Moving a user's month and merging it into a read hold a lock, exclusive for the move, so a
+ * reader never sees a month in both tiers or in neither. The archive directory must be shared by
+ * every instance: the job runs on the instance holding the day's lease and the others pick the
+ * new files up on their next rescan.
+ */
+@Service
+public class ExpenseArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseArchiveService.class);
+
+    private static final String SUFFIX = ".col";
+    private static final String LEASE_PREFIX = "expense-archive-";
+
+    @Autowired
+    private CalculationRepository calculationRepository;
+
+    @Autowired
+    private ExpenseCacheService expenseCacheService;
+
+    @Autowired
+    private ExpenseSearchService expenseSearchService;
+
+    @Autowired
+    private ExpenseJournalService expenseJournalService;
+
+    @Autowired
+    private SchedulerLeaseService schedulerLeaseService;
+
+    @Value("${expense.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${expense.archive.path:./data/archive}")
+    private String path = "./data/archive";
+
+    @Value("${expense.archive.horizon-months:12}")
+    private int horizonMonths = 12;
+
+    /** Archive files by month and user; the user key of expenses without a userEmail is empty. */
+    private volatile NavigableMap<YearMonth, Map<String, Path>> index = new ConcurrentSkipListMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong archivedRows = new AtomicLong();
+    private final AtomicLong archivedMonths = new AtomicLong();
+    private volatile Map<String, Object> lastRun;
+
+    /** Receives the aggregate columns of each archived expense together with its user. */
+    public interface AmountVisitor {
+        void visit(String userEmail, LocalDate day, Expense.ExpenseCategory category, Expense.PaymentMode paymentMode, BigDecimal amount);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path root = Paths.get(path);
+        Files.createDirectories(root);
+        try (DirectoryStream<Path> months = Files.newDirectoryStream(root)) {
+            for (Path month : months) {
+                if (Files.isDirectory(month)) {
+                    try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(month, "*.tmp*")) {
+                        for (Path leftover : leftovers) {
+                            Files.delete(leftover);
+                        }
+                    }
+                }
+            }
+        }
+        rescan();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Rebuilds the file index from the archive directory, picking up months archived by other instances. */
+    @Scheduled(fixedDelayString = "${expense.archive.rescan.ms:300000}", initialDelayString = "${expense.archive.rescan.ms:300000}")
+    public void rescan() {
+        if (!enabled) {
+            return;
+        }
+        // Under the write lock, so a month archived meanwhile cannot be dropped from the index.
+        lock.writeLock().lock();
+        try {
+            NavigableMap<YearMonth, Map<String, Path>> scanned = new ConcurrentSkipListMap<>();
+            try (DirectoryStream<Path> months = Files.newDirectoryStream(Paths.get(path))) {
+                for (Path monthDirectory : months) {
+                    YearMonth month = parseMonth(monthDirectory);
+                    if (month == null) {
+                        continue;
+                    }
+                    try (DirectoryStream<Path> files = Files.newDirectoryStream(monthDirectory, "u*" + SUFFIX)) {
+                        for (Path file : files) {
+                            String name = file.getFileName().toString();
+                            String user = URLDecoder.decode(name.substring(1, name.length() - SUFFIX.length()), "UTF-8");
+                            scanned.computeIfAbsent(month, m -> new ConcurrentHashMap<>()).put(user, file);
+                        }
+                    }
+                }
+            }
+            index = scanned;
+        } catch (IOException e) {
+            logger.error("Could not scan the expense archive at {}: {}", path, e.getMessage(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Archives the months before the horizon once a day, on the instance that takes the day's lease. */
+    @Scheduled(cron = "${expense.archive.cron:0 30 2 * * *}")
+    public void archiveScheduled() {
+        if (!enabled) {
+            return;
+        }
+        String leaseKey = LEASE_PREFIX + LocalDate.now();
+        try {
+            if (schedulerLeaseService.tryAcquire(leaseKey)) {
+                archive(getHorizon());
+                schedulerLeaseService.complete(leaseKey);
+            }
+        } catch (Exception e) {
+            logger.error("An error occurred while archiving old expenses!: {} ", e.getMessage(), e);
+        }
+    }
+
+    /** The first day that stays in USER_EXPENSE. */
+    public LocalDate getHorizon() {
+        return YearMonth.now().minusMonths(horizonMonths).atDay(1);
+    }
+
+    /**
+     * Moves every expense dated before {@code before} into the archive, one user and month at a
+     * time. An expense changed while its month is being written stays in USER_EXPENSE and is
+     * picked up by the next run.
+     */
+    public Map<String, Object> archive(LocalDate before) {
+        if (!enabled) {
+            throw new IllegalStateException("Expense archiving is disabled, set expense.archive.enabled=true");
+        }
+        long start = System.currentTimeMillis();
+        Set<List<Object>> months = new LinkedHashSet<>();
+        for (Object[] row : ReplicaRoutingDataSource.onPrimary(() -> calculationRepository.findMonthsBefore(before))) {
+            months.add(Arrays.asList(row[0], YearMonth.of(((Number) row[1]).intValue(), ((Number) row[2]).intValue())));
+        }
+        int monthCount = 0;
+        long rows = 0;
+        for (List<Object> month : months) {
+            int moved = archiveMonth((String) month.get(0), (YearMonth) month.get(1), before);
+            if (moved > 0) {
+                monthCount++;
+                rows += moved;
+            }
+        }
+        archivedMonths.addAndGet(monthCount);
+        archivedRows.addAndGet(rows);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("before", before);
+        result.put("months", monthCount);
+        result.put("rows", rows);
+        result.put("tookMs", System.currentTimeMillis() - start);
+        result.put("finishedAt", LocalDateTime.now().toString());
+        lastRun = result;
+        logger.info("Archived {} expenses in {} user months dated before {} in {} ms", rows, monthCount, before, result.get("tookMs"));
+        return result;
+    }
+
+    /**
+     * Writes the month's file first, then deletes the rows it holds and publishes the file while
+     * readers are locked out. Rows that changed in between are dropped from the file again.
+     */
+    private int archiveMonth(String userEmail, YearMonth month, LocalDate before) {
+        LocalDate end = month.atEndOfMonth().isBefore(before) ? month.atEndOfMonth() : before.minusDays(1);
+        List<Expense> rows = ReplicaRoutingDataSource.onPrimary(() -> calculationRepository.findByUserEmailAndExpenseDoneBetween(userEmail, month.atDay(1), end));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        Path target = fileFor(userEmail, month);
+        try {
+            Map<Long, Expense> merged = new HashMap<>();
+            if (Files.exists(target)) {
+                read(target).forEach(expense -> merged.put(expense.getId(), expense));
+            }
+            rows.forEach(expense -> merged.put(expense.getId(), expense));
+            Path written = ExpenseArchiveFile.write(target, userEmail, month, merged.values());
+
+            Set<Long> deleted;
+            lock.writeLock().lock();
+            try {
+                deleted = new HashSet<>(calculationRepository.deleteExpensesIfUnchanged(rows));
+                if (deleted.size() < rows.size()) {
+                    for (Expense expense : rows) {
+                        if (!deleted.contains(expense.getId())) {
+                            merged.remove(expense.getId());
+                        }
+                    }
+                    written = rewrite(written, target, userEmail, month, merged.values());
+                }
+                if (merged.isEmpty()) {
+                    Files.deleteIfExists(written);
+                } else {
+                    ExpenseArchiveFile.publish(written, target);
+                    index.computeIfAbsent(month, m -> new ConcurrentHashMap<>()).put(key(userEmail), target);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            expenseCacheService.invalidate(new ArrayList<>(deleted));
+            deleted.forEach(expenseSearchService::remove);
+            if (!deleted.isEmpty()) {
+                expenseJournalService.recordArchived(new ArrayList<>(deleted));
+            }
+            logger.debug("Archived {} expenses of {} for {}", deleted.size(), userEmail, month);
+            return deleted.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not archive " + month + " of " + userEmail, e);
+        }
+    }
+
+    /** Writes the file again without the rows that stayed hot; if that fails the first file is kept, duplicating rather than losing rows. */
+    private Path rewrite(Path written, Path target, String userEmail, YearMonth month, Collection<Expense> expenses) {
+        try {
+            Path first = written.resolveSibling(written.getFileName() + ".first");
+            Files.move(written, first);
+            Path rewritten = ExpenseArchiveFile.write(target, userEmail, month, expenses);
+            Files.delete(first);
+            return rewritten;
+        } catch (IOException e) {
+            logger.error("Could not drop changed expenses from the archive of {} for {}, they stay in both tiers: {}", userEmail, month, e.getMessage(), e);
+            Path first = written.resolveSibling(written.getFileName() + ".first");
+            return Files.exists(first) ? first : written;
+        }
+    }
+
+    /**
+     * Runs {@code work}, which reads USER_EXPENSE and the archive, without an archive run
+     * moving rows between the two in the middle of it.
+     */
+    public <T> T read(Supplier<T> work) {
+        lock.readLock().lock();
+        try {
+            return work.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** @return whether the archive holds any month overlapping the range, for the user or for anyone when {@code userEmail} is {@code null} */
+    public boolean covers(String userEmail, LocalDate start, LocalDate end) {
+        if (!enabled || start.isAfter(end)) {
+            return false;
+        }
+        for (Map<String, Path> users : index.subMap(YearMonth.from(start), true, YearMonth.from(end), true).values()) {
+            if (userEmail == null ? !users.isEmpty() : users.containsKey(userEmail)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return the users with an archive file for {@code month} */
+    public Set<String> getUsers(YearMonth month) {
+        Map<String, Path> users = enabled ? index.get(month) : null;
+        if (users == null) {
+            return Collections.emptySet();
+        }
+        Set<String> emails = new HashSet<>(users.keySet());
+        emails.remove("");
+        return emails;
+    }
+
+    /**
+     * @return a version of the user's archived month that moves whenever rows are archived into it
+     * or deleted from it, empty when none of the month is archived
+     */
+    public String versionOf(String userEmail, YearMonth month) {
+        if (!enabled) {
+            return "";
+        }
+        lock.readLock().lock();
+        try {
+            Map<String, Path> users = index.get(month);
+            Path file = users == null ? null : users.get(key(userEmail));
+            // Every change publishes a newly written file in place of the old one
+            return file == null ? "" : countRows(file) + "@" + Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archive of " + userEmail + " for " + month, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Archived expenses dated in the range, for one user or for everyone when {@code userEmail} is {@code null}. */
+    public List<Expense> findByDateRange(String userEmail, LocalDate start, LocalDate end) {
+        List<Expense> expenses = new ArrayList<>();
+        for (Path file : files(userEmail, start, end)) {
+            for (Expense expense : read(file)) {
+                if (!expense.getExpenseDone().isBefore(start) && !expense.getExpenseDone().isAfter(end)) {
+                    expenses.add(expense);
+                }
+            }
+        }
+        return expenses;
+    }
+
+    /**
+     * Archived daily totals in the shape of {@link CalculationRepository#getDailyTotals} and its
+     * by-category and by-payment-mode variants.
+     */
+    public List<Object[]> getDailyTotals(String userEmail, ExpenseSeriesService.GroupBy groupBy, LocalDate start, LocalDate end) {
+        if (!covers(userEmail, start, end)) {
+            return Collections.emptyList();
+        }
+        Map<List<Object>, BigDecimal> totals = new LinkedHashMap<>();
+        forEachAmount(userEmail, start, end, (user, day, category, paymentMode, amount) -> {
+            List<Object> key;
+            switch (groupBy) {
+                case CATEGORY:
+                    key = Arrays.asList(day, category);
+                    break;
+                case PAYMENT_MODE:
+                    key = Arrays.asList(day, paymentMode);
+                    break;
+                default:
+                    key = Collections.singletonList(day);
+            }
+            totals.merge(key, amount, BigDecimal::add);
+        });
+        List<Object[]> rows = new ArrayList<>(totals.size());
+        totals.forEach((key, total) -> {
+            Object[] row = Arrays.copyOf(key.toArray(), key.size() + 1);
+            row[key.size()] = total;
+            rows.add(row);
+        });
+        return rows;
+    }
+
+    /** Visits every archived expense dated in the range; a {@code null} range visits all of them. */
+    public void forEachAmount(String userEmail, LocalDate start, LocalDate end, AmountVisitor visitor) {
+        for (Path file : files(userEmail, start, end)) {
+            try (ExpenseArchiveFile.Reader reader = ExpenseArchiveFile.open(file)) {
+                String user = reader.getUserEmail();
+                reader.forEachAmount((day, category, paymentMode, amount) -> {
+                    if ((start == null || !day.isBefore(start)) && (end == null || !day.isAfter(end))) {
+                        visitor.visit(user, day, category, paymentMode, amount);
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read archive " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Deletes archived expenses of the user, or of every user when {@code userEmail} is
+     * {@code null}, dated in the range; a {@code null} bound leaves that side open.
+     *
+     * @return the deleted expenses
+     */
+    public List<Expense> delete(String userEmail, LocalDate start, LocalDate end) {
+        if (!enabled) {
+            return Collections.emptyList();
+        }
+        List<Expense> deleted = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            for (Path file : files(userEmail, start, end)) {
+                List<Expense> kept = new ArrayList<>();
+                for (Expense expense : read(file)) {
+                    boolean inRange = (start == null || !expense.getExpenseDone().isBefore(start)) && (end == null || !expense.getExpenseDone().isAfter(end));
+                    (inRange ? deleted : kept).add(expense);
+                }
+                if (kept.isEmpty()) {
+                    Files.delete(file);
+                    removeFromIndex(file);
+                } else if (kept.size() < countRows(file)) {
+                    Expense first = kept.get(0);
+                    ExpenseArchiveFile.publish(ExpenseArchiveFile.write(file, first.getUserEmail(), YearMonth.from(first.getExpenseDone()), kept), file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete archived expenses", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Deleted {} archived expenses for userEmail: {} between {} and {}", deleted.size(), userEmail, start, end);
+        return deleted;
+    }
+
+    public Map<String, Object> getStats() {
+        int files = 0;
+        for (Map<String, Path> users : index.values()) {
+            files += users.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("path", path);
+        stats.put("horizon", enabled ? getHorizon() : null);
+        stats.put("months", index.size());
+        stats.put("files", files);
+        stats.put("oldestMonth", index.isEmpty() ? null : index.firstKey().toString());
+        stats.put("archivedMonths", archivedMonths.get());
+        stats.put("archivedRows", archivedRows.get());
+        stats.put("lastRun", lastRun);
+        return stats;
+    }
+
+    private List<Path> files(String userEmail, LocalDate start, LocalDate end) {
+        if (!enabled || (start != null && end != null && start.isAfter(end))) {
+            return Collections.emptyList();
+        }
+        NavigableMap<YearMonth, Map<String, Path>> months = index;
+        if (start != null) {
+            months = months.tailMap(YearMonth.from(start), true);
+        }
+        if (end != null) {
+            months = months.headMap(YearMonth.from(end), true);
+        }
+        List<Path> files = new ArrayList<>();
+        for (Map<String, Path> users : months.values()) {
+            if (userEmail == null) {
+                files.addAll(users.values());
+            } else if (users.containsKey(userEmail)) {
+                files.add(users.get(userEmail));
+            }
+        }
+        return files;
+    }
+
+    private static List<Expense> read(Path file) {
+        try (ExpenseArchiveFile.Reader reader = ExpenseArchiveFile.open(file)) {
+            return reader.readExpenses();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archive " + file, e);
+        }
+    }
+
+    private static int countRows(Path file) throws IOException {
+        try (ExpenseArchiveFile.Reader reader = ExpenseArchiveFile.open(file)) {
+            return reader.getRowCount();
+        }
+    }
+
+    private void removeFromIndex(Path file) {
+        for (Map<String, Path> users : index.values()) {
+            users.values().remove(file);
+        }
+        index.values().removeIf(Map::isEmpty);
+    }
+
+    private Path fileFor(String userEmail, YearMonth month) {
+        try {
+            return Paths.get(path, month.toString(), "u" + URLEncoder.encode(key(userEmail), "UTF-8") + SUFFIX);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String key(String userEmail) {
+        return userEmail == null ? "" : userEmail;
+    }
+
+    private static YearMonth parseMonth(Path directory) {
+        try {
+            return Files.isDirectory(directory) ? YearMonth.parse(directory.getFileName().toString()) : null;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Utility.OffHeapExpenseCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Serves expenses by id from an {@link OffHeapExpenseCache}. Lookups fill it, and
+ * {@link CalculationService} invalidates an id whenever it updates, patches or deletes the
+ * expense. Writes made by other instances are seen once an entry's TTL runs out.
+ * Without {@link #start()} (or with the cache disabled) every lookup goes to the loader.
+ */
+@Service
+public class ExpenseCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseCacheService.class);
+
+    private static final int SEGMENTS = 16;
+
+    @Value("${expense.cache.offheap.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${expense.cache.offheap.entries:100000}")
+    private int entries = 100000;
+
+    @Value("${expense.cache.offheap.slot-bytes:256}")
+    private int slotBytes = 256;
+
+    @Value("${expense.cache.offheap.ttl.ms:30000}")
+    private long ttlMs = 30000;
+
+    private volatile OffHeapExpenseCache cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            cache = new OffHeapExpenseCache(entries, slotBytes, SEGMENTS, ttlMs);
+            logger.info("Off-heap expense cache holds {} entries in {} MB", cache.getCapacity(), cache.getOffHeapBytes() / (1024 * 1024));
+        }
+    }
+
+    public Optional<Expense> findById(Long id, Function<Long, Optional<Expense>> loader) {
+        OffHeapExpenseCache current = cache;
+        if (current == null || id == null) {
+            return loader.apply(id);
+        }
+        Expense cached = current.get(id);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Optional.of(cached);
+        }
+        misses.incrementAndGet();
+        long stamp = current.stamp(id);
+        Optional<Expense> loaded = loader.apply(id);
+        loaded.ifPresent(expense -> current.put(expense, stamp));
+        return loaded;
+    }
+
+    public void invalidate(Long id) {
+        OffHeapExpenseCache current = cache;
+        if (current != null && id != null) {
+            current.invalidate(id);
+        }
+    }
+
+    public void invalidate(Collection<Long> ids) {
+        ids.forEach(this::invalidate);
+    }
+
+    public void invalidateAll() {
+        OffHeapExpenseCache current = cache;
+        if (current != null) {
+            current.invalidateAll();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        OffHeapExpenseCache current = cache;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", current != null);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        if (current != null) {
+            stats.put("size", current.size());
+            stats.put("capacity", current.getCapacity());
+            stats.put("evictions", current.getEvictions());
+            stats.put("offHeapBytes", current.getOffHeapBytes());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,588 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Utility.SegmentedLog;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind ingest for new expenses, enabled with {@code expense.ingest.write-behind.enabled}.
+ * {@link #append(Expense)} gives the expense an id from a block reserved from HIBERNATE_SEQUENCE,
+ * appends it to a local write-ahead {@link SegmentedLog} and returns once the log is on disk.
+ * A flusher thread inserts pending expenses into USER_EXPENSE in batches, one transaction per
+ * batch, and then stores the log offset it reached as a checkpoint.
+ *
+ * <p>On startup everything after the checkpoint is inserted again before new appends are taken,
+ * skipping ids a batch had already committed when the process stopped. A batch the table rejects
+ * is inserted again one row at a time, and rows that still fail are moved to a dead-letter file
+ * next to the log instead of holding up every expense behind them. Readers that must see
+ * a user's or an expense's own writes call one of the {@code awaitFlushed} methods, which only
+ * wait when something of theirs is still pending.
+ */
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ExpenseIngestService implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseIngestService.class);
+
+    private static final String INSERT_SQL = "INSERT INTO USER_EXPENSE (ID, TITLE, USER_EMAIL, AMOUNT, CATEGORY, PAYMENT_MODE, "
+            + "EXPENSE_DONE, NOTES, IS_RECURRING, CREATED_AT, UPDATED_AT, VERSION) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final long MAX_RETRY_BACKOFF_MS = 30000;
+    /** Length of the VARCHAR columns Hibernate generates for USER_EXPENSE. */
+    static final int MAX_TEXT_LENGTH = 255;
+    /** Integer digits of the NUMERIC(19, 2) AMOUNT column. */
+    private static final int MAX_AMOUNT_INTEGER_DIGITS = 17;
+    static final String DEAD_LETTER_FILE = "dead-letter.jsonl";
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${expense.ingest.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${expense.ingest.wal.path:data/ingest-wal}")
+    private String path;
+
+    @Value("${expense.ingest.wal.segment-bytes:16777216}")
+    private int segmentBytes;
+
+    @Value("${expense.ingest.wal.max-segments:64}")
+    private int maxSegments;
+
+    @Value("${expense.ingest.wal.fsync:true}")
+    private boolean fsync;
+
+    @Value("${expense.ingest.batch-size:500}")
+    private int batchSize;
+
+    @Value("${expense.ingest.flush.interval.ms:20}")
+    private long flushIntervalMs;
+
+    @Value("${expense.ingest.max-pending:50000}")
+    private int maxPending;
+
+    @Value("${expense.ingest.id-block-size:1000}")
+    private int idBlockSize;
+
+    @Value("${expense.ingest.read-wait.ms:5000}")
+    private long readWaitMs;
+
+    private static final class Pending {
+        private final long offset;
+        private final Expense expense;
+
+        private Pending(long offset, Expense expense) {
+            this.offset = offset;
+            this.expense = expense;
+        }
+    }
+
+    /** Guards the queue, the per-user offsets and the flushed offset; waiters for a flush wait on it. */
+    private final Object lock = new Object();
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private final Map<Long, Long> pendingIds = new ConcurrentHashMap<>();
+    private final Map<String, Long> pendingUsers = new HashMap<>();
+    private long flushedOffset;
+    private boolean flushRequested;
+
+    private final Object syncLock = new Object();
+    private long syncedOffset;
+
+    private final Object idLock = new Object();
+    private final ArrayDeque<Long> ids = new ArrayDeque<>();
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+
+    private volatile SegmentedLog wal;
+    private volatile boolean accepting;
+    private volatile boolean running;
+    /** Log offsets below this were written before the last stop and may already be in the table. */
+    private long recoveredUpTo;
+    private Consumer<List<Expense>> flushListener = expenses -> { };
+    private Thread flusher;
+
+    /** Runs after {@link SnapshotService} restored the tables, so replayed rows land on top of the snapshot. */
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        open();
+    }
+
+    public void open() throws IOException {
+        if (!enabled && !Files.isDirectory(Paths.get(path))) {
+            return;
+        }
+        SegmentedLog log = new SegmentedLog(Paths.get(path), segmentBytes, maxSegments);
+        wal = log;
+        flushedOffset = Math.max(readCheckpoint(), log.firstOffset());
+        syncedOffset = log.nextOffset();
+        recoveredUpTo = log.nextOffset();
+        replay(log);
+        if (!enabled) {
+            logger.info("Write-behind ingest is disabled, closing its log at {} after replay", path);
+            log.close();
+            wal = null;
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::runFlusher, "expense-ingest-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        accepting = true;
+        logger.info("Write-behind ingest accepting expenses, log at {} from offset {}", path, log.nextOffset());
+    }
+
+    /** Stops taking appends and writes what is still pending; anything that fails stays in the log for the next start. */
+    @PreDestroy
+    public void close() throws IOException {
+        accepting = false;
+        running = false;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join(10000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flusher = null;
+        }
+        SegmentedLog log = wal;
+        if (log != null) {
+            try {
+                drain();
+            } catch (Exception e) {
+                logger.error("Could not write pending expenses on shutdown, they are replayed on the next start: {}", e.getMessage(), e);
+            }
+            log.close();
+            wal = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return accepting;
+    }
+
+    /** Called with every committed batch, on the flusher thread. */
+    public void setFlushListener(Consumer<List<Expense>> flushListener) {
+        this.flushListener = flushListener;
+    }
+
+    /**
+     * Assigns the expense an id and makes it durable in the log.
+     *
+     * @return {@code false}, leaving the expense untouched, when write-behind is off, the pending
+     * backlog or the log is full, the expense already has an id or it would not fit USER_EXPENSE; the caller
+     * then saves the expense itself and gets the usual error for one that does not fit
+     */
+    public boolean append(Expense expense) {
+        if (!accepting || expense.getId() != null || !fits(expense)) {
+            return false;
+        }
+        synchronized (lock) {
+            if (queue.size() >= maxPending) {
+                rejected.incrementAndGet();
+                return false;
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        expense.setId(nextId());
+        expense.setCreatedAt(now);
+        expense.setUpdatedAt(now);
+        expense.setVersion(0L);
+        long offset;
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(expense);
+            synchronized (lock) {
+                SegmentedLog log = wal;
+                if (log == null) {
+                    throw new IllegalStateException("Write-behind ingest is closed");
+                }
+                // Segments still holding unflushed expenses are never dropped to make room
+                offset = log.append(payload, flushedOffset);
+                if (offset < 0) {
+                    rejected.incrementAndGet();
+                } else {
+                    queue.add(new Pending(offset, expense));
+                    pendingIds.put(expense.getId(), offset);
+                    pendingUsers.put(expense.getUserEmail(), offset);
+                    if (queue.size() >= batchSize) {
+                        lock.notifyAll();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (offset < 0) {
+            expense.setId(null);
+            expense.setCreatedAt(null);
+            expense.setUpdatedAt(null);
+            expense.setVersion(null);
+            return false;
+        }
+        sync(offset);
+        return true;
+    }
+
+    /** Waits until the user's pending expenses are in the table; returns at once when there are none. */
+    public void awaitFlushed(String userEmail) {
+        if (wal == null || userEmail == null) {
+            return;
+        }
+        Long offset;
+        synchronized (lock) {
+            offset = pendingUsers.get(userEmail);
+        }
+        if (offset != null) {
+            awaitOffset(offset);
+        }
+    }
+
+    /** Waits until the expense is in the table if it is still pending. */
+    public void awaitFlushed(Long id) {
+        Long offset = id == null ? null : pendingIds.get(id);
+        if (offset != null) {
+            awaitOffset(offset);
+        }
+    }
+
+    /** Waits until everything appended so far is in the table. */
+    public void awaitAllFlushed() {
+        Long offset = null;
+        synchronized (lock) {
+            if (!queue.isEmpty()) {
+                offset = queue.peekLast().offset;
+            }
+        }
+        if (offset != null) {
+            awaitOffset(offset);
+        }
+    }
+
+    public boolean hasPending(String userEmail) {
+        synchronized (lock) {
+            return pendingUsers.containsKey(userEmail);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", accepting);
+        synchronized (lock) {
+            stats.put("pending", queue.size());
+            stats.put("checkpointOffset", flushedOffset);
+        }
+        stats.put("batches", batches.get());
+        stats.put("flushed", flushed.get());
+        stats.put("rejected", rejected.get());
+        stats.put("deadLettered", deadLettered.get());
+        return stats;
+    }
+
+    /** Writes one batch if anything is pending. */
+    public synchronized int flush() {
+        List<Pending> batch;
+        synchronized (lock) {
+            flushRequested = false;
+            batch = new ArrayList<>(Math.min(queue.size(), batchSize));
+            Iterator<Pending> iterator = queue.iterator();
+            while (batch.size() < batchSize && iterator.hasNext()) {
+                batch.add(iterator.next());
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<Expense> expenses;
+        try {
+            expenses = insert(batch, false);
+        } catch (NonTransientDataAccessException e) {
+            logger.warn("The table rejected a batch of {} expenses, inserting them one at a time: {}", batch.size(), e.getMessage());
+            expenses = insertEach(batch);
+        }
+        long lastOffset = batch.get(batch.size() - 1).offset;
+        try {
+            storeCheckpoint(lastOffset + 1);
+        } catch (IOException e) {
+            logger.warn("Could not store ingest checkpoint {}, the batch is skipped as already written on replay: {}", lastOffset + 1, e.getMessage());
+        }
+        batches.incrementAndGet();
+        flushed.addAndGet(expenses.size());
+        // The listener fills the in-memory views, so the batch only stops being pending after it ran.
+        try {
+            flushListener.accept(expenses);
+        } catch (Exception e) {
+            logger.error("Flush listener failed for {} expenses: {}", expenses.size(), e.getMessage(), e);
+        }
+        synchronized (lock) {
+            for (int i = 0; i < batch.size(); i++) {
+                Pending pending = queue.poll();
+                pendingIds.remove(pending.expense.getId(), pending.offset);
+                pendingUsers.remove(pending.expense.getUserEmail(), pending.offset);
+            }
+            flushedOffset = lastOffset + 1;
+            lock.notifyAll();
+        }
+        return batch.size();
+    }
+
+    private void drain() {
+        while (flush() > 0) {
+            // keep going until the queue is empty
+        }
+    }
+
+    private void runFlusher() {
+        int failures = 0;
+        while (running) {
+            try {
+                synchronized (lock) {
+                    if (queue.size() < batchSize && !flushRequested && running) {
+                        lock.wait(flushIntervalMs);
+                    }
+                }
+                flush();
+                failures = 0;
+            } catch (InterruptedException e) {
+                break;
+            } catch (Exception e) {
+                failures++;
+                long backoff = Math.min(MAX_RETRY_BACKOFF_MS, 100L << Math.min(failures, 16));
+                logger.error("Could not write pending expenses, retrying in {} ms: {}", backoff, e.getMessage(), e);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts the batch in one transaction; replayed expenses that a previous run already wrote are
+     * left out, and with {@code checkAll} so is every other expense already in the table.
+     */
+    private List<Expense> insert(List<Pending> batch, boolean checkAll) {
+        List<Expense> expenses = new ArrayList<>(batch.size());
+        List<Long> replayedIds = new ArrayList<>();
+        for (Pending pending : batch) {
+            expenses.add(pending.expense);
+            if (checkAll || pending.offset < recoveredUpTo) {
+                replayedIds.add(pending.expense.getId());
+            }
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        return transaction.execute(status -> {
+            List<Expense> rows = expenses;
+            if (!replayedIds.isEmpty()) {
+                Set<Long> existing = new HashSet<>(new NamedParameterJdbcTemplate(jdbcTemplate).queryForList(
+                        "SELECT ID FROM USER_EXPENSE WHERE ID IN (:ids)", new MapSqlParameterSource("ids", replayedIds), Long.class));
+                if (!existing.isEmpty()) {
+                    rows = new ArrayList<>();
+                    for (Expense expense : expenses) {
+                        if (!existing.contains(expense.getId())) {
+                            rows.add(expense);
+                        }
+                    }
+                }
+            }
+            List<Object[]> arguments = new ArrayList<>(rows.size());
+            for (Expense expense : rows) {
+                arguments.add(new Object[]{expense.getId(), expense.getTitle(), expense.getUserEmail(), expense.getAmount(),
+                        expense.getCategory() == null ? null : expense.getCategory().name(),
+                        expense.getPaymentMode() == null ? null : expense.getPaymentMode().name(),
+                        expense.getExpenseDone(), expense.getNotes(), expense.isRecurring(),
+                        expense.getCreatedAt(), expense.getUpdatedAt(), expense.getVersion()});
+            }
+            jdbcTemplate.batchUpdate(INSERT_SQL, arguments);
+            return rows;
+        });
+    }
+
+    /**
+     * Inserts a rejected batch one row per transaction. Rows the table rejects are dead-lettered;
+     * a transient failure propagates so the flusher retries, skipping the rows already written.
+     */
+    private List<Expense> insertEach(List<Pending> batch) {
+        List<Expense> expenses = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            try {
+                expenses.addAll(insert(Collections.singletonList(pending), true));
+            } catch (NonTransientDataAccessException e) {
+                deadLetter(pending, e);
+            }
+        }
+        return expenses;
+    }
+
+    /** Appends the expense and the reason to the dead-letter file, so it can be fixed and added again by hand. */
+    private void deadLetter(Pending pending, Exception cause) {
+        deadLettered.incrementAndGet();
+        logger.error("Moving expense {} at ingest log offset {} to {}, the table rejected it: {}",
+                pending.expense.getId(), pending.offset, DEAD_LETTER_FILE, cause.getMessage());
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("offset", pending.offset);
+        entry.put("rejectedAt", LocalDateTime.now().toString());
+        entry.put("error", cause.getMessage());
+        entry.put("expense", pending.expense);
+        try {
+            Files.write(Paths.get(path, DEAD_LETTER_FILE), (objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.error("Could not write expense {} to {}: {}", pending.expense.getId(), DEAD_LETTER_FILE, e.getMessage(), e);
+        }
+    }
+
+    /** Checks the NOT NULL and size constraints of USER_EXPENSE, so an acknowledged expense is never refused later. */
+    private static boolean fits(Expense expense) {
+        return expense.getTitle() != null && expense.getTitle().length() <= MAX_TEXT_LENGTH
+                && (expense.getUserEmail() == null || expense.getUserEmail().length() <= MAX_TEXT_LENGTH)
+                && (expense.getNotes() == null || expense.getNotes().length() <= MAX_TEXT_LENGTH)
+                && expense.getCategory() != null && expense.getExpenseDone() != null
+                && expense.getAmount() != null && expense.getAmount().precision() - expense.getAmount().scale() <= MAX_AMOUNT_INTEGER_DIGITS;
+    }
+
+    /** Forces the log up to {@code offset}; appends that arrive while another thread forces share its next force. */
+    private void sync(long offset) {
+        if (!fsync) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedOffset > offset) {
+                return;
+            }
+            long upTo = wal.nextOffset();
+            wal.force();
+            syncedOffset = upTo;
+        }
+    }
+
+    private void awaitOffset(long offset) {
+        long deadline = System.currentTimeMillis() + readWaitMs;
+        synchronized (lock) {
+            flushRequested = true;
+            lock.notifyAll();
+            while (flushedOffset <= offset) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Timed out after " + readWaitMs + " ms waiting for pending expenses to be written");
+                }
+                try {
+                    lock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for pending expenses to be written", e);
+                }
+            }
+        }
+    }
+
+    private long nextId() {
+        synchronized (idLock) {
+            if (ids.isEmpty()) {
+                ids.addAll(jdbcTemplate.queryForList("SELECT NEXT VALUE FOR HIBERNATE_SEQUENCE FROM SYSTEM_RANGE(1, ?)", Long.class, idBlockSize));
+            }
+            return ids.poll();
+        }
+    }
+
+    /** Queues everything after the checkpoint and writes it before any new append is taken. */
+    private void replay(SegmentedLog log) {
+        long maxId = 0;
+        long offset = flushedOffset;
+        List<SegmentedLog.Record> records;
+        while (!(records = log.read(offset, batchSize)).isEmpty()) {
+            for (SegmentedLog.Record record : records) {
+                try {
+                    Expense expense = objectMapper.readValue(record.getPayload(), Expense.class);
+                    queue.add(new Pending(record.getOffset(), expense));
+                    pendingIds.put(expense.getId(), record.getOffset());
+                    pendingUsers.put(expense.getUserEmail(), record.getOffset());
+                    maxId = Math.max(maxId, expense.getId());
+                } catch (IOException e) {
+                    logger.error("Skipping undecodable ingest log record at offset {}: {}", record.getOffset(), e.getMessage());
+                }
+                offset = record.getOffset() + 1;
+            }
+        }
+        if (queue.isEmpty()) {
+            return;
+        }
+        logger.info("Replaying {} expenses from the ingest log at {}", queue.size(), path);
+        drain();
+        advanceSequence(maxId);
+    }
+
+    /** The database may have been rebuilt since the ids were handed out, so new ids must start above the replayed ones. */
+    private void advanceSequence(long maxId) {
+        Long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR HIBERNATE_SEQUENCE", Long.class);
+        if (next != null && next <= maxId) {
+            jdbcTemplate.execute("ALTER SEQUENCE HIBERNATE_SEQUENCE RESTART WITH " + (maxId + 1));
+        }
+    }
+
+    private Path checkpointFile() {
+        return Paths.get(path, "checkpoint");
+    }
+
+    private long readCheckpoint() {
+        try {
+            if (Files.exists(checkpointFile())) {
+                return Long.parseLong(new String(Files.readAllBytes(checkpointFile()), StandardCharsets.UTF_8).trim());
+            }
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Could not read ingest checkpoint, replaying the whole log: {}", e.getMessage());
+        }
+        return 0L;
+    }
+
+    private void storeCheckpoint(long offset) throws IOException {
+        Path temporary = checkpointFile().resolveSibling("checkpoint.tmp");
+        Files.write(temporary, Long.toString(offset).getBytes(StandardCharsets.UTF_8));
+        Files.move(temporary, checkpointFile(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,284 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpensePatch;
+import com.application.expenseTracker.ExpenseTracker.Dto.JournalEntry;
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Utility.SegmentedLog;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Append-only journal of every committed expense write, kept in a {@link SegmentedLog}.
+ * In-process subscribers tail it on their own thread from an offset stored per subscriber name,
+ * so they resume where they stopped after a restart. Delivery is at-least-once: the stored
+ * offset only moves after the handler returned, and a failing entry is retried with backoff.
+ */
+@Service
+public class ExpenseJournalService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseJournalService.class);
+
+    private static final int BATCH_SIZE = 500;
+    private static final long IDLE_WAIT_MS = 1000;
+    private static final long MAX_RETRY_BACKOFF_MS = 30000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final Object appended = new Object();
+
+    @Value("${expense.journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${expense.journal.path:data/journal}")
+    private String path;
+
+    @Value("${expense.journal.segment-bytes:67108864}")
+    private int segmentBytes;
+
+    @Value("${expense.journal.max-segments:16}")
+    private int maxSegments;
+
+    private SegmentedLog log;
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        log = new SegmentedLog(Paths.get(path), segmentBytes, maxSegments);
+        Files.createDirectories(offsetDirectory());
+        logger.info("Opened expense journal at {} with offsets {} to {}", path, log.firstOffset(), log.nextOffset());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        subscriptions.values().forEach(Subscription::close);
+        subscriptions.clear();
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${expense.journal.flush.interval.ms:1000}")
+    public void flush() {
+        if (log != null) {
+            log.force();
+        }
+    }
+
+    public void recordCreated(Expense expense) {
+        append(new JournalEntry(0, JournalEntry.Type.CREATED, LocalDateTime.now(), Collections.singletonList(expense.getId()), expense, null));
+    }
+
+    public void recordUpdated(Expense expense) {
+        append(new JournalEntry(0, JournalEntry.Type.UPDATED, LocalDateTime.now(), Collections.singletonList(expense.getId()), expense, null));
+    }
+
+    public void recordPatched(Long id, ExpensePatch patch) {
+        append(new JournalEntry(0, JournalEntry.Type.PATCHED, LocalDateTime.now(), Collections.singletonList(id), null, patch));
+    }
+
+    public void recordDeleted(List<Long> ids) {
+        append(new JournalEntry(0, JournalEntry.Type.DELETED, LocalDateTime.now(), new ArrayList<>(ids), null, null));
+    }
+
+    public void recordArchived(List<Long> ids) {
+        append(new JournalEntry(0, JournalEntry.Type.ARCHIVED, LocalDateTime.now(), new ArrayList<>(ids), null, null));
+    }
+
+    public void recordDeletedAll() {
+        append(new JournalEntry(0, JournalEntry.Type.DELETED_ALL, LocalDateTime.now(), Collections.<Long>emptyList(), null, null));
+    }
+
+    /**
+     * Starts delivering entries to {@code handler}, beginning after the last entry this
+     * subscriber name acknowledged, or at the oldest retained entry for a new name.
+     */
+    public Subscription subscribe(String name, Consumer<JournalEntry> handler) {
+        if (!name.matches("[A-Za-z0-9._-]+")) {
+            throw new IllegalArgumentException("Invalid subscriber name: " + name);
+        }
+        Subscription subscription = new Subscription(name, handler);
+        if (subscriptions.putIfAbsent(name, subscription) != null) {
+            throw new IllegalStateException("Subscriber " + name + " is already registered");
+        }
+        if (enabled) {
+            subscription.start();
+        }
+        return subscription;
+    }
+
+    /** @return the offset the next entry will get, or -1 when the journal is disabled */
+    public long nextOffset() {
+        SegmentedLog current = log;
+        return current == null ? -1 : current.nextOffset();
+    }
+
+    /** Journal failures are logged, not thrown: the database write they describe has already committed. */
+    private void append(JournalEntry entry) {
+        SegmentedLog current = log;
+        if (current == null) {
+            return;
+        }
+        try {
+            entry.setOffset(current.append(objectMapper.writeValueAsBytes(entry)));
+        } catch (Exception e) {
+            logger.error("Could not append {} of expenses: {} to the journal: {}", entry.getType(), entry.getExpenseIds(), e.getMessage(), e);
+            return;
+        }
+        synchronized (appended) {
+            appended.notifyAll();
+        }
+    }
+
+    private Path offsetDirectory() {
+        return Paths.get(path, "offsets");
+    }
+
+    public final class Subscription {
+        private final String name;
+        private final Consumer<JournalEntry> handler;
+        private final Path offsetFile;
+        private volatile long offset;
+        private volatile boolean running = true;
+        private Thread thread;
+
+        private Subscription(String name, Consumer<JournalEntry> handler) {
+            this.name = name;
+            this.handler = handler;
+            this.offsetFile = offsetDirectory().resolve(name + ".offset");
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** @return the offset of the next entry this subscriber will receive */
+        public long getOffset() {
+            return offset;
+        }
+
+        public void close() {
+            running = false;
+            subscriptions.remove(name, this);
+            if (thread != null) {
+                thread.interrupt();
+                try {
+                    thread.join(5000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void start() {
+            offset = readStoredOffset();
+            thread = new Thread(this::run, "journal-" + name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void run() {
+            int failures = 0;
+            while (running) {
+                try {
+                    SegmentedLog current = log;
+                    List<SegmentedLog.Record> records = current == null ? Collections.<SegmentedLog.Record>emptyList() : current.read(offset, BATCH_SIZE);
+                    if (records.isEmpty()) {
+                        awaitAppend();
+                        continue;
+                    }
+                    if (records.get(0).getOffset() > offset) {
+                        logger.warn("Subscriber {} fell behind retention, skipping offsets {} to {}", name, offset, records.get(0).getOffset() - 1);
+                    }
+                    for (SegmentedLog.Record record : records) {
+                        JournalEntry entry = decode(record);
+                        if (entry != null) {
+                            handler.accept(entry);
+                        }
+                        offset = record.getOffset() + 1;
+                    }
+                    storeOffset();
+                    failures = 0;
+                } catch (InterruptedException e) {
+                    break;
+                } catch (Exception e) {
+                    failures++;
+                    long backoff = Math.min(MAX_RETRY_BACKOFF_MS, 100L << Math.min(failures, 16));
+                    logger.error("Subscriber {} failed at offset {}, retrying in {} ms: {}", name, offset, backoff, e.getMessage(), e);
+                    try {
+                        storeOffset();
+                        Thread.sleep(backoff);
+                    } catch (InterruptedException interrupted) {
+                        break;
+                    } catch (IOException ignored) {
+                        // the offset is stored again after the next successful batch
+                    }
+                }
+            }
+        }
+
+        /** An entry that cannot be decoded would fail on every retry, so it is logged and skipped. */
+        private JournalEntry decode(SegmentedLog.Record record) {
+            try {
+                JournalEntry entry = objectMapper.readValue(record.getPayload(), JournalEntry.class);
+                entry.setOffset(record.getOffset());
+                return entry;
+            } catch (IOException e) {
+                logger.error("Subscriber {} skipping undecodable journal entry at offset {}: {}", name, record.getOffset(), e.getMessage());
+                return null;
+            }
+        }
+
+        private void awaitAppend() throws InterruptedException {
+            synchronized (appended) {
+                SegmentedLog current = log;
+                if (current == null || current.nextOffset() <= offset) {
+                    appended.wait(IDLE_WAIT_MS);
+                }
+            }
+        }
+
+        private long readStoredOffset() {
+            try {
+                if (Files.exists(offsetFile)) {
+                    return Long.parseLong(new String(Files.readAllBytes(offsetFile), StandardCharsets.UTF_8).trim());
+                }
+            } catch (IOException | NumberFormatException e) {
+                logger.warn("Could not read offset of subscriber {}, starting from the oldest entry: {}", name, e.getMessage());
+            }
+            return 0L;
+        }
+
+        private void storeOffset() throws IOException {
+            Path temporary = offsetFile.resolveSibling(name + ".offset.tmp");
+            Files.write(temporary, Long.toString(offset).getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, offsetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
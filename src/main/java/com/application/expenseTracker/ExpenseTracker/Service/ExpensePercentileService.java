@@ -0,0 +1,298 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpensePatch;
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Utility.QuantileSketch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-user spending percentiles from one {@link QuantileSketch} per user, category and month.
+ * {@link CalculationService} adds every new expense and moves edited or deleted ones out of their
+ * old sketch, so a percentile query only merges the sketches of the requested months and never
+ * touches USER_EXPENSE. The sketches are built from the table and the archive on startup, and
+ * again only on demand through {@code POST /actuator/expensepercentiles}, for instance to pick up
+ * writes made by other instances.
+ *
+ * <p>A rebuild reads USER_EXPENSE in id order, shard by shard. Writes made meanwhile go to the
+ * current sketches as usual, and those to rows the scan has already passed are also kept and
+ * replayed onto the new sketches before they replace the current ones; the scan itself sees the
+ * others.
+ */
+@Service
+public class ExpensePercentileService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpensePercentileService.class);
+
+    private static final int FETCH_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ExpenseShardService expenseShardService;
+
+    @Autowired
+    private ExpenseArchiveService expenseArchiveService;
+
+    @Value("${expense.percentile.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${expense.percentile.relative-accuracy:0.01}")
+    private double relativeAccuracy = 0.01;
+
+    @Value("${expense.percentile.max-buckets:512}")
+    private int maxBuckets = 512;
+
+    private volatile Map<String, QuantileSketch> sketches = new ConcurrentHashMap<>();
+
+    /** Writers hold the read lock, so none lands on the old sketches once the new ones are swapped in. */
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile Rebuild rebuilding;
+    private volatile Map<String, Object> lastRebuild;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        rebuild();
+    }
+
+    /** Reads the sketches again from the table and the archive and swaps them in. */
+    public synchronized Map<String, Object> rebuild() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        if (!enabled) {
+            return stats;
+        }
+        long start = System.currentTimeMillis();
+        Map<String, QuantileSketch> rebuilt = new ConcurrentHashMap<>();
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(FETCH_SIZE);
+        long[] rows = {0};
+        Rebuild rebuild = new Rebuild();
+        rebuilding = rebuild;
+        List<Expense[]> replayed = Collections.emptyList();
+        boolean scanned = false;
+        try {
+            // Archived months are read in the same pass, so an archive run cannot count a month twice or not at all.
+            expenseArchiveService.read(() -> {
+                expenseShardService.forEachShard(shard -> streaming.query("SELECT ID, USER_EMAIL, CATEGORY, EXPENSE_DONE, AMOUNT FROM USER_EXPENSE ORDER BY ID", resultSet -> {
+                    rebuild.advance(shard, resultSet.getLong(1));
+                    String category = resultSet.getString(3);
+                    Date expenseDone = resultSet.getDate(4);
+                    BigDecimal amount = resultSet.getBigDecimal(5);
+                    if (category != null && expenseDone != null && amount != null) {
+                        String key = key(resultSet.getString(2), YearMonth.from(expenseDone.toLocalDate()), Expense.ExpenseCategory.valueOf(category));
+                        rebuilt.computeIfAbsent(key, k -> newSketch()).add(amount.doubleValue());
+                        rows[0]++;
+                    }
+                }));
+                rebuild.advance(Integer.MAX_VALUE, Long.MAX_VALUE);
+                expenseArchiveService.forEachAmount(null, null, null, (userEmail, day, category, paymentMode, amount) -> {
+                    if (category != null) {
+                        rebuilt.computeIfAbsent(key(userEmail, YearMonth.from(day), category), k -> newSketch()).add(amount.doubleValue());
+                        rows[0]++;
+                    }
+                });
+                return null;
+            });
+            scanned = true;
+        } finally {
+            swapLock.writeLock().lock();
+            try {
+                rebuilding = null;
+                if (scanned) {
+                    replayed = rebuild.replay;
+                    for (Expense[] write : replayed) {
+                        if (write == null) {
+                            rebuilt.clear();
+                        } else {
+                            apply(rebuilt, write[0], write[1]);
+                        }
+                    }
+                    sketches = rebuilt;
+                }
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+        }
+        long millis = System.currentTimeMillis() - start;
+        logger.info("Rebuilt {} spending sketches from {} expenses in {} ms, replaying {} writes made meanwhile", rebuilt.size(), rows[0], millis, replayed.size());
+        stats.put("sketches", rebuilt.size());
+        stats.put("expenses", rows[0]);
+        stats.put("replayedWrites", replayed.size());
+        stats.put("millis", millis);
+        lastRebuild = stats;
+        return stats;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("sketches", sketches.size());
+        stats.put("lastRebuild", lastRebuild);
+        return stats;
+    }
+
+    public void onSaved(Expense expense) {
+        write(null, expense);
+    }
+
+    /** @param before the expense as it was before it was updated or deleted */
+    public void onRemoved(Expense before) {
+        write(before, null);
+    }
+
+    public void onPatched(Expense before, ExpensePatch patch) {
+        Expense after = new Expense();
+        after.setId(before.getId());
+        after.setUserEmail(before.getUserEmail());
+        after.setAmount(patch.getAmount() != null ? patch.getAmount() : before.getAmount());
+        after.setCategory(patch.getCategory() != null ? patch.getCategory() : before.getCategory());
+        after.setExpenseDone(patch.getExpenseDone() != null ? patch.getExpenseDone() : before.getExpenseDone());
+        write(before, after);
+    }
+
+    public void clear() {
+        swapLock.readLock().lock();
+        try {
+            Rebuild rebuild = rebuilding;
+            if (rebuild != null) {
+                rebuild.recordClear();
+            }
+            sketches.clear();
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estimates each quantile of the user's expenses between the two months, inclusive, within
+     * {@code relative-accuracy} of an actual amount. A {@code null} category covers all of them.
+     */
+    public Map<String, Object> getPercentiles(String userEmail, Expense.ExpenseCategory category, YearMonth from, YearMonth to, List<Double> quantiles) {
+        QuantileSketch merged = newSketch();
+        List<Expense.ExpenseCategory> categories = category == null ? Arrays.asList(Expense.ExpenseCategory.values()) : Collections.singletonList(category);
+        Map<String, QuantileSketch> current = sketches;
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            for (Expense.ExpenseCategory each : categories) {
+                QuantileSketch sketch = current.get(key(userEmail, month, each));
+                if (sketch != null) {
+                    synchronized (sketch) {
+                        merged.merge(sketch);
+                    }
+                }
+            }
+        }
+
+        Map<String, Object> percentiles = new LinkedHashMap<>();
+        for (Double quantile : quantiles) {
+            String label = "p" + BigDecimal.valueOf(quantile).movePointRight(2).stripTrailingZeros().toPlainString();
+            percentiles.put(label, merged.isEmpty() ? null : BigDecimal.valueOf(merged.quantile(quantile)).setScale(2, RoundingMode.HALF_UP));
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("userEmail", userEmail);
+        result.put("category", category);
+        result.put("from", from.toString());
+        result.put("to", to.toString());
+        result.put("count", merged.getCount());
+        result.put("relativeAccuracy", relativeAccuracy);
+        result.put("percentiles", percentiles);
+        return result;
+    }
+
+    private void write(Expense before, Expense after) {
+        if (!enabled) {
+            return;
+        }
+        swapLock.readLock().lock();
+        try {
+            Rebuild rebuild = rebuilding;
+            if (rebuild != null) {
+                Expense expense = before != null ? before : after;
+                int shard = expenseShardService.isEnabled() ? expenseShardService.shardOf(expense.getUserEmail()) : 0;
+                rebuild.record(shard, expense.getId(), before, after);
+            }
+            apply(sketches, before, after);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private void apply(Map<String, QuantileSketch> target, Expense before, Expense after) {
+        String removed = before == null ? null : key(before);
+        QuantileSketch old = removed == null ? null : target.get(removed);
+        if (old != null) {
+            synchronized (old) {
+                old.remove(before.getAmount().doubleValue());
+            }
+        }
+        String added = after == null ? null : key(after);
+        if (added != null) {
+            QuantileSketch sketch = target.computeIfAbsent(added, k -> newSketch());
+            synchronized (sketch) {
+                sketch.add(after.getAmount().doubleValue());
+            }
+        }
+    }
+
+    /**
+     * How far a rebuild has read USER_EXPENSE, and the writes to rows it had already passed. A
+     * {@code null} entry stands for everything being deleted.
+     */
+    private static final class Rebuild {
+        private final List<Expense[]> replay = new ArrayList<>();
+        private int shard = -1;
+        private long lastId = Long.MIN_VALUE;
+
+        private synchronized void advance(int shard, long id) {
+            this.shard = shard;
+            this.lastId = id;
+        }
+
+        private synchronized void record(int shard, Long id, Expense before, Expense after) {
+            if (shard < this.shard || (shard == this.shard && id != null && id <= lastId)) {
+                replay.add(new Expense[]{before, after});
+            }
+        }
+
+        private synchronized void recordClear() {
+            replay.add(null);
+        }
+    }
+
+    private QuantileSketch newSketch() {
+        return new QuantileSketch(relativeAccuracy, maxBuckets);
+    }
+
+    private static String key(Expense expense) {
+        LocalDate expenseDone = expense.getExpenseDone();
+        if (expense.getAmount() == null || expense.getCategory() == null || expenseDone == null) {
+            return null;
+        }
+        return key(expense.getUserEmail(), YearMonth.from(expenseDone), expense.getCategory());
+    }
+
+    private static String key(String userEmail, YearMonth month, Expense.ExpenseCategory category) {
+        return userEmail + "|" + month + "|" + category;
+    }
+}
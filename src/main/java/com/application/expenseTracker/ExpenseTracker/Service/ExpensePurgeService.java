@@ -0,0 +1,162 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Config.ReplicaRoutingDataSource;
+import com.application.expenseTracker.ExpenseTracker.Repository.CalculationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs large deletes (a user, a date range or both) in the background. Each chunk of ids is
+ * deleted in its own short transaction, so a purge of millions of rows never holds one huge
+ * transaction and can be cancelled between chunks.
+ */
+@Service
+public class ExpensePurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpensePurgeService.class);
+
+    private static final int MAX_RETAINED_JOBS = 100;
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, CANCELLED, FAILED }
+
+    @Autowired
+    private CalculationRepository calculationRepository;
+
+    @Autowired
+    private CalculationService calculationService;
+
+    @Value("${expense.purge.chunk-size:1000}")
+    private int chunkSize;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "expense-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, PurgeJob> jobs = new ConcurrentHashMap<>();
+
+    public PurgeJob startPurge(String userEmail, LocalDate startDate, LocalDate endDate) {
+        PurgeJob job = new PurgeJob(UUID.randomUUID().toString(), userEmail, startDate, endDate);
+        evictFinishedJobs();
+        jobs.put(job.getId(), job);
+        executor.submit(() -> run(job));
+        logger.info("Queued purge job: {} for userEmail: {} between startDate: {} and endDate: {}", job.getId(), userEmail, startDate, endDate);
+        return job;
+    }
+
+    public Optional<PurgeJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public Optional<PurgeJob> cancel(String id) {
+        PurgeJob job = jobs.get(id);
+        if (job != null) {
+            job.cancelRequested = true;
+        }
+        return Optional.ofNullable(job);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(job -> job.cancelRequested = true);
+        executor.shutdown();
+    }
+
+    void run(PurgeJob job) {
+        if (job.cancelRequested) {
+            job.finish(Status.CANCELLED, null);
+            return;
+        }
+        job.status = Status.RUNNING;
+        job.startedAt = LocalDateTime.now();
+        try {
+            long lastId = 0L;
+            while (!job.cancelRequested) {
+                long afterId = lastId;
+                List<Long> ids = ReplicaRoutingDataSource.onPrimary(() ->
+                        calculationRepository.findIdsForPurge(afterId, job.userEmail, job.startDate, job.endDate, PageRequest.of(0, chunkSize)));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                job.deleted.addAndGet(calculationService.deleteExpensesByIds(ids));
+                job.chunks.incrementAndGet();
+                lastId = ids.get(ids.size() - 1);
+                logger.debug("Purge job: {} deleted chunk {} ({} rows so far)", job.getId(), job.chunks.get(), job.deleted.get());
+            }
+            if (!job.cancelRequested) {
+                job.deleted.addAndGet(calculationService.deleteArchivedExpenses(job.userEmail, job.startDate, job.endDate));
+            }
+            job.finish(job.cancelRequested ? Status.CANCELLED : Status.COMPLETED, null);
+            logger.info("Purge job: {} finished as {} after deleting {} expenses", job.getId(), job.status, job.deleted.get());
+        } catch (Exception e) {
+            logger.error("Purge job: {} failed after deleting {} expenses: {}", job.getId(), job.deleted.get(), e.getMessage(), e);
+            job.finish(Status.FAILED, e.getMessage());
+        }
+    }
+
+    private void evictFinishedJobs() {
+        if (jobs.size() < MAX_RETAINED_JOBS) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .sorted(Comparator.comparing(PurgeJob::getFinishedAt))
+                .limit(jobs.size() - MAX_RETAINED_JOBS + 1)
+                .forEach(job -> jobs.remove(job.getId()));
+    }
+
+    public static final class PurgeJob {
+        private final String id;
+        private final String userEmail;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final AtomicLong deleted = new AtomicLong();
+        private final AtomicLong chunks = new AtomicLong();
+        private volatile Status status = Status.QUEUED;
+        private volatile boolean cancelRequested;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        public PurgeJob(String id, String userEmail, LocalDate startDate, LocalDate endDate) {
+            this.id = id;
+            this.userEmail = userEmail;
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+        private void finish(Status status, String error) {
+            this.error = error;
+            this.finishedAt = LocalDateTime.now();
+            this.status = status;
+        }
+
+        public String getId() { return id; }
+        public String getUserEmail() { return userEmail; }
+        public LocalDate getStartDate() { return startDate; }
+        public LocalDate getEndDate() { return endDate; }
+        public Status getStatus() { return status; }
+        public long getDeleted() { return deleted.get(); }
+        public long getChunks() { return chunks.get(); }
+        public boolean isCancelRequested() { return cancelRequested; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public String getError() { return error; }
+    }
+}
@@ -0,0 +1,329 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Config.ReplicaRoutingDataSource;
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Repository.CalculationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over {@link Expense#getTitle()} and {@link Expense#getNotes()}.
+ * Terms are kept in a sorted map so prefix lookups are a range scan, and fuzzy lookups only
+ * visit terms sharing the first character. The index is rebuilt from the database on startup
+ * and kept in sync by the {@link CalculationService} write paths.
+ */
+@Service
+public class ExpenseSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseSearchService.class);
+
+    private static final int REBUILD_PAGE_SIZE = 1000;
+    private static final int EXACT_SCORE = 3;
+    private static final int PREFIX_SCORE = 2;
+    private static final int FUZZY_SCORE = 1;
+
+    @Autowired
+    private CalculationRepository calculationRepository;
+
+    @Autowired
+    private ExpenseShardService expenseShardService;
+
+    private final NavigableMap<String, Set<Long>> postings = new TreeMap<>();
+    private final Map<Long, IndexedExpense> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        clear();
+        expenseShardService.forEachShard(shard -> {
+            int pageNumber = 0;
+            Page<Expense> page;
+            do {
+                PageRequest request = PageRequest.of(pageNumber++, REBUILD_PAGE_SIZE);
+                page = ReplicaRoutingDataSource.onPrimary(() -> calculationRepository.findAll(request));
+                page.getContent().forEach(this::index);
+            } while (page.hasNext());
+        });
+        logger.info("Search index rebuilt with {} expenses in {} ms", size(), System.currentTimeMillis() - start);
+    }
+
+    public void index(Expense expense) {
+        if (expense == null || expense.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            put(new IndexedExpense(expense.getId(), new HashSet<>(tokenize(expense.getTitle())), new HashSet<>(tokenize(expense.getNotes())),
+                    expense.getCategory(), expense.getExpenseDone()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-indexes the supplied fields of an already indexed expense, for partial updates that do
+     * not have the full row at hand. {@code null} arguments keep the indexed value.
+     */
+    public void applyPatch(Long id, String title, String notes, Expense.ExpenseCategory category, LocalDate expenseDone) {
+        lock.writeLock().lock();
+        try {
+            IndexedExpense previous = documents.get(id);
+            if (previous == null) {
+                return;
+            }
+            put(new IndexedExpense(id,
+                    title != null ? new HashSet<>(tokenize(title)) : previous.titleTerms,
+                    notes != null ? new HashSet<>(tokenize(notes)) : previous.notesTerms,
+                    category != null ? category : previous.category,
+                    expenseDone != null ? expenseDone : previous.expenseDone));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Every query term has to match (exactly, as a prefix or within a small edit distance) for a
+     * document to be returned. Hits are ordered by score, then by most recent expense date.
+     */
+    public SearchHits search(String query, Expense.ExpenseCategory category, LocalDate startDate, LocalDate endDate, int page, int size) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return new SearchHits(Collections.<Long>emptyList(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String queryTerm : queryTerms) {
+                Map<Long, Integer> termScores = scoreTerm(queryTerm);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    for (Map.Entry<Long, Integer> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + termScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+
+            List<IndexedExpense> matches = new ArrayList<>();
+            for (Long id : scores.keySet()) {
+                IndexedExpense document = documents.get(id);
+                if (document != null && document.matches(category, startDate, endDate)) {
+                    matches.add(document);
+                }
+            }
+            final Map<Long, Integer> finalScores = scores;
+            matches.sort(Comparator.<IndexedExpense>comparingInt(d -> finalScores.get(d.id)).reversed()
+                    .thenComparing(d -> d.expenseDone, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(d -> d.id, Comparator.reverseOrder()));
+
+            int from = (int) Math.min((long) page * size, matches.size());
+            int to = (int) Math.min((long) from + size, matches.size());
+            List<Long> ids = new ArrayList<>(to - from);
+            for (IndexedExpense document : matches.subList(from, to)) {
+                ids.add(document.id);
+            }
+            return new SearchHits(ids, matches.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Integer> scoreTerm(String queryTerm) {
+        Map<Long, Integer> termScores = new HashMap<>();
+        for (Map.Entry<String, Set<Long>> entry : postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, true).entrySet()) {
+            int score = entry.getKey().equals(queryTerm) ? EXACT_SCORE : PREFIX_SCORE;
+            for (Long id : entry.getValue()) {
+                termScores.merge(id, score, Math::max);
+            }
+        }
+
+        int maxEdits = maxEdits(queryTerm);
+        if (maxEdits > 0) {
+            String first = queryTerm.substring(0, 1);
+            for (Map.Entry<String, Set<Long>> entry : postings.subMap(first, true, first + Character.MAX_VALUE, true).entrySet()) {
+                String term = entry.getKey();
+                if (Math.abs(term.length() - queryTerm.length()) <= maxEdits && editDistance(queryTerm, term, maxEdits) <= maxEdits) {
+                    for (Long id : entry.getValue()) {
+                        termScores.merge(id, FUZZY_SCORE, Math::max);
+                    }
+                }
+            }
+        }
+        return termScores;
+    }
+
+    private void put(IndexedExpense document) {
+        removeInternal(document.id);
+        documents.put(document.id, document);
+        for (String term : document.terms()) {
+            postings.computeIfAbsent(term, t -> new HashSet<>()).add(document.id);
+        }
+    }
+
+    private void removeInternal(Long id) {
+        IndexedExpense previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.terms()) {
+            Set<Long> ids = postings.get(term);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static int maxEdits(String term) {
+        if (term.length() < 4) {
+            return 0;
+        }
+        return term.length() < 8 ? 1 : 2;
+    }
+
+    /**
+     * Edit distance counting adjacent transpositions as one edit (optimal string alignment),
+     * giving up once every cell of a row exceeds {@code limit}.
+     */
+    static int editDistance(String a, String b, int limit) {
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static final class IndexedExpense {
+        private final Long id;
+        private final Set<String> titleTerms;
+        private final Set<String> notesTerms;
+        private final Expense.ExpenseCategory category;
+        private final LocalDate expenseDone;
+
+        private IndexedExpense(Long id, Set<String> titleTerms, Set<String> notesTerms, Expense.ExpenseCategory category, LocalDate expenseDone) {
+            this.id = id;
+            this.titleTerms = titleTerms;
+            this.notesTerms = notesTerms;
+            this.category = category;
+            this.expenseDone = expenseDone;
+        }
+
+        private Set<String> terms() {
+            if (notesTerms.isEmpty()) {
+                return titleTerms;
+            }
+            Set<String> terms = new HashSet<>(titleTerms);
+            terms.addAll(notesTerms);
+            return terms;
+        }
+
+        private boolean matches(Expense.ExpenseCategory category, LocalDate startDate, LocalDate endDate) {
+            if (category != null && category != this.category) {
+                return false;
+            }
+            if (startDate != null && (expenseDone == null || expenseDone.isBefore(startDate))) {
+                return false;
+            }
+            return endDate == null || (expenseDone != null && !expenseDone.isAfter(endDate));
+        }
+    }
+
+    public static final class SearchHits {
+        private final List<Long> ids;
+        private final int total;
+
+        public SearchHits(List<Long> ids, int total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Config.ReplicaRoutingDataSource;
+import com.application.expenseTracker.ExpenseTracker.Repository.CalculationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spending per day/week/month. Daily sums come from a single GROUP BY over a range of
+ * {@code expenseDone} and are rolled up into buckets here. Buckets that ended before today are
+ * cached and only dropped when a write lands in them, so a long-range chart normally only
+ * queries the current open bucket.
+ */
+@Service
+public class ExpenseSeriesService {
+
+    public static final String TOTAL = "TOTAL";
+
+    public enum Bucket {
+        DAY, WEEK, MONTH;
+
+        public LocalDate start(LocalDate date) {
+            switch (this) {
+                case WEEK:
+                    return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH:
+                    return date.withDayOfMonth(1);
+                default:
+                    return date;
+            }
+        }
+
+        public LocalDate next(LocalDate bucketStart) {
+            switch (this) {
+                case WEEK:
+                    return bucketStart.plusWeeks(1);
+                case MONTH:
+                    return bucketStart.plusMonths(1);
+                default:
+                    return bucketStart.plusDays(1);
+            }
+        }
+    }
+
+    public enum GroupBy { NONE, CATEGORY, PAYMENT_MODE }
+
+    @Autowired
+    private CalculationRepository calculationRepository;
+
+    @Autowired
+    private ExpenseArchiveService expenseArchiveService;
+
+    private final Map<String, Map<String, BigDecimal>> closedBuckets = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * {@code from} and {@code to} are widened to whole buckets so that every returned bucket
+     * covers its full period and can be cached once closed.
+     */
+    public List<Map<String, Object>> getSeries(Bucket bucket, GroupBy groupBy, LocalDate from, LocalDate to, LocalDate today) {
+        List<LocalDate> bucketStarts = new ArrayList<>();
+        for (LocalDate start = bucket.start(from); !start.isAfter(to); start = bucket.next(start)) {
+            bucketStarts.add(start);
+        }
+
+        Map<LocalDate, Map<String, BigDecimal>> values = new HashMap<>();
+        LocalDate missingFrom = null;
+        LocalDate missingTo = null;
+        for (LocalDate start : bucketStarts) {
+            Map<String, BigDecimal> cached = closedBuckets.get(cacheKey(bucket, groupBy, start));
+            if (cached != null) {
+                values.put(start, cached);
+            } else {
+                if (missingFrom == null) {
+                    missingFrom = start;
+                }
+                missingTo = bucket.next(start).minusDays(1);
+            }
+        }
+
+        if (missingFrom != null) {
+            // A write evicting while we query must not let this (possibly stale) result back in.
+            long generationBeforeQuery = generation.get();
+            Map<LocalDate, Map<String, BigDecimal>> computed = new HashMap<>();
+            LocalDate queryFrom = missingFrom;
+            LocalDate queryTo = missingTo;
+            // Closed buckets are cached, so they are read from the primary rather than a lagging replica.
+            for (Object[] row : ReplicaRoutingDataSource.onPrimary(() -> queryDailyTotals(groupBy, queryFrom, queryTo))) {
+                LocalDate start = bucket.start((LocalDate) row[0]);
+                String group = groupBy == GroupBy.NONE ? TOTAL : String.valueOf(row[1]);
+                BigDecimal amount = (BigDecimal) row[row.length - 1];
+                computed.computeIfAbsent(start, s -> new TreeMap<>()).merge(group, amount, BigDecimal::add);
+            }
+            for (LocalDate start : bucketStarts) {
+                if (values.containsKey(start)) {
+                    continue;
+                }
+                Map<String, BigDecimal> bucketValues = Collections.unmodifiableMap(computed.getOrDefault(start, new TreeMap<>()));
+                values.put(start, bucketValues);
+                if (!bucket.next(start).isAfter(today) && generation.get() == generationBeforeQuery) {
+                    closedBuckets.put(cacheKey(bucket, groupBy, start), bucketValues);
+                }
+            }
+        }
+
+        List<Map<String, Object>> series = new ArrayList<>(bucketStarts.size());
+        for (LocalDate start : bucketStarts) {
+            Map<String, BigDecimal> bucketValues = values.get(start);
+            BigDecimal total = BigDecimal.ZERO;
+            for (BigDecimal amount : bucketValues.values()) {
+                total = total.add(amount);
+            }
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("bucketStart", start);
+            point.put("bucketEnd", bucket.next(start).minusDays(1));
+            point.put("total", total);
+            if (groupBy != GroupBy.NONE) {
+                point.put("groups", bucketValues);
+            }
+            series.add(point);
+        }
+        return series;
+    }
+
+    /** Drops every cached bucket containing {@code date}, for writes whose expense date is known. */
+    public void evict(LocalDate date) {
+        if (date == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        for (Bucket bucket : Bucket.values()) {
+            for (GroupBy groupBy : GroupBy.values()) {
+                closedBuckets.remove(cacheKey(bucket, groupBy, bucket.start(date)));
+            }
+        }
+    }
+
+    /** Drops every cached bucket, for writes that may have moved an expense out of a closed period. */
+    public void evictAll() {
+        generation.incrementAndGet();
+        closedBuckets.clear();
+    }
+
+    /** Daily totals from USER_EXPENSE plus the archive; the caller adds up rows of the same day and group. */
+    private List<Object[]> queryDailyTotals(GroupBy groupBy, LocalDate start, LocalDate end) {
+        if (!expenseArchiveService.isEnabled()) {
+            return queryHotDailyTotals(groupBy, start, end);
+        }
+        return expenseArchiveService.read(() -> {
+            List<Object[]> rows = new ArrayList<>(queryHotDailyTotals(groupBy, start, end));
+            rows.addAll(expenseArchiveService.getDailyTotals(null, groupBy, start, end));
+            return rows;
+        });
+    }
+
+    private List<Object[]> queryHotDailyTotals(GroupBy groupBy, LocalDate start, LocalDate end) {
+        switch (groupBy) {
+            case CATEGORY:
+                return calculationRepository.getDailyTotalsByCategory(start, end);
+            case PAYMENT_MODE:
+                return calculationRepository.getDailyTotalsByPaymentMode(start, end);
+            default:
+                return calculationRepository.getDailyTotals(start, end);
+        }
+    }
+
+    private static String cacheKey(Bucket bucket, GroupBy groupBy, LocalDate bucketStart) {
+        return bucket + ":" + groupBy + ":" + bucketStart;
+    }
+}
@@ -0,0 +1,546 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Config.ShardRoutingDataSource;
+import com.application.expenseTracker.ExpenseTracker.Entity.ExpenseShardAssignment;
+import com.application.expenseTracker.ExpenseTracker.Repository.ExpenseShardAssignmentRepository;
+import com.application.expenseTracker.ExpenseTracker.Utility.ConsistentHashRing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.ResultSetMetaData;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Places users on expense shards and moves them between shards. Without
+ * {@code expense.shard.urls} there is a single shard and every method runs its work inline.
+ *
+ * <p>A user's shard comes from the EXPENSE_SHARD_ASSIGNMENT directory on shard 0; a user without
+ * an entry is placed by {@link ConsistentHashRing} when their first expense is saved. Rows that
+ * were in USER_EXPENSE before sharding was turned on are adopted by shard 0 on startup, and
+ * {@link #rebalance()} later moves every user whose ring position changed, e.g. after a shard
+ * was added.
+ *
+ * <p>A move copies the user's rows into a staging table on the target shard while writes go on,
+ * then blocks expense writes of this instance for a moment to copy what changed since, publish
+ * the rows on the target, switch the directory and delete the rows on the source. Other instances
+ * keep using their cached directory entry until {@code expense.shard.directory.refresh.ms}, so
+ * resharding is meant to run while one instance takes the writes; rows such an instance still
+ * wrote to the old shard are re-homed by the next {@link #rebalance()}.
+ */
+@Service
+public class ExpenseShardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseShardService.class);
+
+    private static final String TABLE = "USER_EXPENSE";
+    private static final String STAGING_TABLE = "USER_EXPENSE_MOVE";
+    private static final int ASSIGNMENT_PAGE_SIZE = 500;
+
+    @Autowired(required = false)
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    @Autowired
+    private ExpenseShardAssignmentRepository assignmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${expense.shard.virtual-nodes:128}")
+    private int virtualNodes = 128;
+
+    @Value("${expense.shard.scatter.threads:8}")
+    private int scatterThreads = 8;
+
+    @Value("${expense.shard.move.chunk-size:1000}")
+    private int moveChunkSize = 1000;
+
+    @Value("${expense.shard.directory.max-entries:100000}")
+    private int maxDirectoryEntries = 100000;
+
+    private ConsistentHashRing ring;
+    private ThreadPoolExecutor executor;
+    private TransactionTemplate readTransaction;
+    private TransactionTemplate writeTransaction;
+
+    private final Map<String, Integer> directory = new ConcurrentHashMap<>();
+    /** Expense writes hold the read lock; a move holds the write lock while it hands a user over. */
+    private final ReentrantReadWriteLock moveLock = new ReentrantReadWriteLock();
+    private final AtomicLong movedUsers = new AtomicLong();
+    private final AtomicLong movedRows = new AtomicLong();
+    private volatile List<String> columns;
+    private volatile Map<String, Object> lastRebalance;
+
+    @PostConstruct
+    public void start() {
+        ring = new ConsistentHashRing(getShardCount(), virtualNodes);
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readTransaction.setReadOnly(true);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        if (!isEnabled()) {
+            return;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(scatterThreads, scatterThreads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(scatterThreads * 16), runnable -> {
+            Thread thread = new Thread(runnable, "expense-shard-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        int adopted = onShard(0, false, () -> jdbcTemplate.update("INSERT INTO EXPENSE_SHARD_ASSIGNMENT (USER_EMAIL, SHARD, ASSIGNED_AT) "
+                + "SELECT DISTINCT E.USER_EMAIL, 0, CURRENT_TIMESTAMP FROM USER_EXPENSE E WHERE E.USER_EMAIL IS NOT NULL "
+                + "AND NOT EXISTS (SELECT 1 FROM EXPENSE_SHARD_ASSIGNMENT A WHERE A.USER_EMAIL = E.USER_EMAIL)"));
+        logger.info("Expense storage has {} shards, {} users with unassigned expenses were placed on shard 0", getShardCount(), adopted);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return shardRoutingDataSource != null;
+    }
+
+    public int getShardCount() {
+        return shardRoutingDataSource == null ? 1 : shardRoutingDataSource.getShardCount();
+    }
+
+    /** @return the shard holding the user's expenses, or {@code null} when they were never placed */
+    public Integer ownerOf(String userEmail) {
+        if (!isEnabled() || userEmail == null) {
+            return 0;
+        }
+        Integer cached = directory.get(userEmail);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<ExpenseShardAssignment> assignment = onShard(0, true, () -> assignmentRepository.findById(userEmail));
+        assignment.ifPresent(found -> cache(userEmail, found.getShard()));
+        return assignment.map(ExpenseShardAssignment::getShard).orElse(null);
+    }
+
+    /** The shard to read the user's expenses from: their assigned shard, or where the ring would place them. */
+    public int shardOf(String userEmail) {
+        Integer owner = ownerOf(userEmail);
+        return owner != null ? owner : ring.shardFor(userEmail);
+    }
+
+    /** The shard to write the user's expenses to, placing the user by the ring if they have none yet. */
+    public int assign(String userEmail) {
+        Integer owner = ownerOf(userEmail);
+        if (owner != null) {
+            return owner;
+        }
+        int shard = ring.shardFor(userEmail);
+        try {
+            onShard(0, false, () -> assignmentRepository.save(new ExpenseShardAssignment(userEmail, shard, LocalDateTime.now())));
+            cache(userEmail, shard);
+            return shard;
+        } catch (DataIntegrityViolationException e) {
+            // Another instance placed the user first.
+            return shardOf(userEmail);
+        }
+    }
+
+    /**
+     * Runs {@code work} on {@code shard} in a new transaction, so it never joins a transaction
+     * whose connection is already bound to another shard.
+     */
+    public <T> T onShard(int shard, boolean readOnly, Supplier<T> work) {
+        if (!isEnabled()) {
+            return work.get();
+        }
+        TransactionTemplate transaction = readOnly ? readTransaction : writeTransaction;
+        return ShardRoutingDataSource.onShard(shard, () -> transaction.execute(status -> work.get()));
+    }
+
+    /**
+     * Runs {@code work} on every shard in parallel, each in its own transaction.
+     *
+     * @return the results indexed by shard
+     */
+    public <T> List<T> scatter(boolean readOnly, IntFunction<T> work) {
+        if (!isEnabled()) {
+            return Collections.singletonList(work.apply(0));
+        }
+        List<Future<T>> futures = new ArrayList<>(getShardCount());
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            int target = shard;
+            futures.add(executor.submit(() -> onShard(target, readOnly, () -> work.apply(target))));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (Future<T> future : futures) {
+            results.add(await(future));
+        }
+        return results;
+    }
+
+    /**
+     * Runs {@code work} once per shard on the calling thread, outside any transaction, with its
+     * connections on that shard. For loaders that stream USER_EXPENSE with JdbcTemplate or pages.
+     */
+    public void forEachShard(IntConsumer work) {
+        if (!isEnabled()) {
+            work.accept(0);
+            return;
+        }
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            int target = shard;
+            ShardRoutingDataSource.onShard(target, () -> {
+                work.accept(target);
+                return null;
+            });
+        }
+    }
+
+    /** Runs an expense write; a move waits for it, and it waits while a move hands a user over. */
+    public <T> T guardWrite(Supplier<T> write) {
+        moveLock.readLock().lock();
+        try {
+            return write.get();
+        } finally {
+            moveLock.readLock().unlock();
+        }
+    }
+
+    /** Moves rows by id to {@code target}, replacing copies already there. Used when an update changes an expense's user. */
+    public void relocate(List<Long> ids, int source, int target) {
+        guardWrite(() -> {
+            deleteIds(target, TABLE, ids);
+            copyIds(source, TABLE, target, TABLE, ids);
+            deleteIds(source, TABLE, ids);
+            return null;
+        });
+    }
+
+    /**
+     * Moves a user's expenses to {@code target} while the application keeps serving them.
+     *
+     * @throws IllegalArgumentException when there is no such shard
+     */
+    public synchronized Map<String, Object> moveUser(String userEmail, int target) {
+        if (target < 0 || target >= getShardCount()) {
+            throw new IllegalArgumentException("No shard " + target + ", there are " + getShardCount());
+        }
+        if (userEmail == null || userEmail.isEmpty()) {
+            throw new IllegalArgumentException("A move needs a userEmail");
+        }
+        Integer source = ownerOf(userEmail);
+        long start = System.currentTimeMillis();
+        int rows = 0;
+        if (source == null) {
+            setOwner(userEmail, target);
+        } else if (source != target) {
+            ensureStagingTable(target);
+            onShard(target, false, () -> jdbcTemplate.update("DELETE FROM " + STAGING_TABLE + " WHERE USER_EMAIL = ?", userEmail));
+            int copied = copyUser(source, target, userEmail);
+            logger.debug("Copied {} expenses of {} from shard {} to staging on shard {}", copied, userEmail, source, target);
+            rows = handOver(userEmail, source, target);
+            movedUsers.incrementAndGet();
+            movedRows.addAndGet(rows);
+            logger.info("Moved {} expenses of {} from shard {} to shard {} in {} ms", rows, userEmail, source, target, System.currentTimeMillis() - start);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("userEmail", userEmail);
+        result.put("from", source);
+        result.put("to", target);
+        result.put("rows", rows);
+        result.put("tookMs", System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * Re-homes rows found on a shard their user is not assigned to, then moves every user whose
+     * ring position differs from their assigned shard. Run it after adding a shard.
+     */
+    public synchronized Map<String, Object> rebalance() {
+        long start = System.currentTimeMillis();
+        int reconciled = 0;
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            reconciled += reconcile(shard);
+        }
+        int users = 0;
+        long rows = 0;
+        int pageNumber = 0;
+        Page<ExpenseShardAssignment> page;
+        do {
+            PageRequest request = PageRequest.of(pageNumber++, ASSIGNMENT_PAGE_SIZE, Sort.by("userEmail"));
+            page = onShard(0, true, () -> assignmentRepository.findAll(request));
+            for (ExpenseShardAssignment assignment : page.getContent()) {
+                int target = ring.shardFor(assignment.getUserEmail());
+                if (assignment.getShard() != target) {
+                    rows += (Integer) moveUser(assignment.getUserEmail(), target).get("rows");
+                    users++;
+                }
+            }
+        } while (page.hasNext());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("reconciledRows", reconciled);
+        result.put("movedUsers", users);
+        result.put("movedRows", rows);
+        result.put("tookMs", System.currentTimeMillis() - start);
+        result.put("finishedAt", LocalDateTime.now().toString());
+        lastRebalance = result;
+        return result;
+    }
+
+    /** Drops cached assignments so moves made by other instances are picked up. */
+    @Scheduled(fixedDelayString = "${expense.shard.directory.refresh.ms:60000}")
+    public void refreshDirectory() {
+        directory.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("shards", getShardCount());
+        if (isEnabled()) {
+            List<Map<String, Object>> counts = scatter(true, shard -> jdbcTemplate.queryForMap("SELECT COUNT(*) AS EXPENSES, COUNT(DISTINCT USER_EMAIL) AS USERS FROM " + TABLE));
+            List<Map<String, Object>> perShard = new ArrayList<>();
+            for (int shard = 0; shard < counts.size(); shard++) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("shard", shard);
+                entry.put("expenses", counts.get(shard).get("EXPENSES"));
+                entry.put("users", counts.get(shard).get("USERS"));
+                entry.put("connections", shardRoutingDataSource.getConnections(shard));
+                perShard.add(entry);
+            }
+            stats.put("perShard", perShard);
+        }
+        stats.put("cachedAssignments", directory.size());
+        stats.put("movedUsers", movedUsers.get());
+        stats.put("movedRows", movedRows.get());
+        stats.put("lastRebalance", lastRebalance);
+        return stats;
+    }
+
+    /** Catches the staging copy up with the source, then publishes it on the target and switches the directory. */
+    private int handOver(String userEmail, int source, int target) {
+        moveLock.writeLock().lock();
+        try {
+            Map<Long, Object> current = versions(source, TABLE, userEmail);
+            Map<Long, Object> staged = versions(target, STAGING_TABLE, userEmail);
+            List<Long> stale = new ArrayList<>();
+            for (Map.Entry<Long, Object> entry : staged.entrySet()) {
+                if (!current.containsKey(entry.getKey()) || !Objects.equals(current.get(entry.getKey()), entry.getValue())) {
+                    stale.add(entry.getKey());
+                }
+            }
+            List<Long> missing = new ArrayList<>();
+            for (Map.Entry<Long, Object> entry : current.entrySet()) {
+                if (!staged.containsKey(entry.getKey()) || stale.contains(entry.getKey())) {
+                    missing.add(entry.getKey());
+                }
+            }
+            deleteIds(target, STAGING_TABLE, stale);
+            copyIds(source, TABLE, target, STAGING_TABLE, missing);
+
+            String columnList = String.join(", ", columns());
+            int rows = onShard(target, false, () -> {
+                // Copies left on the target by an earlier, interrupted move are replaced.
+                jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE ID IN (SELECT ID FROM " + STAGING_TABLE + " WHERE USER_EMAIL = ?)", userEmail);
+                int inserted = jdbcTemplate.update("INSERT INTO " + TABLE + " (" + columnList + ") SELECT " + columnList + " FROM " + STAGING_TABLE + " WHERE USER_EMAIL = ?", userEmail);
+                jdbcTemplate.update("DELETE FROM " + STAGING_TABLE + " WHERE USER_EMAIL = ?", userEmail);
+                return inserted;
+            });
+            setOwner(userEmail, target);
+            onShard(source, false, () -> jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE USER_EMAIL = ?", userEmail));
+            return rows;
+        } finally {
+            moveLock.writeLock().unlock();
+        }
+    }
+
+    /** Rows on {@code shard} whose user is assigned elsewhere are dropped when the owner has them and moved there when it does not. */
+    private int reconcile(int shard) {
+        List<String> users = onShard(shard, true, () -> jdbcTemplate.queryForList("SELECT DISTINCT USER_EMAIL FROM " + TABLE + " WHERE USER_EMAIL IS NOT NULL", String.class));
+        int rows = 0;
+        for (String userEmail : users) {
+            Integer owner = ownerOf(userEmail);
+            if (owner == null) {
+                setOwner(userEmail, shard);
+            } else if (owner != shard) {
+                rows += guardWrite(() -> {
+                    Set<Long> here = versions(shard, TABLE, userEmail).keySet();
+                    Set<Long> there = versions(owner, TABLE, userEmail).keySet();
+                    List<Long> duplicates = new ArrayList<>();
+                    List<Long> strays = new ArrayList<>();
+                    for (Long id : here) {
+                        (there.contains(id) ? duplicates : strays).add(id);
+                    }
+                    deleteIds(shard, TABLE, duplicates);
+                    copyIds(shard, TABLE, owner, TABLE, strays);
+                    deleteIds(shard, TABLE, strays);
+                    return here.size();
+                });
+            }
+        }
+        if (rows > 0) {
+            logger.warn("Reconciled {} expenses on shard {} that belong to users of other shards", rows, shard);
+        }
+        return rows;
+    }
+
+    private void setOwner(String userEmail, int shard) {
+        onShard(0, false, () -> assignmentRepository.save(new ExpenseShardAssignment(userEmail, shard, LocalDateTime.now())));
+        cache(userEmail, shard);
+    }
+
+    private void cache(String userEmail, int shard) {
+        if (directory.size() >= maxDirectoryEntries) {
+            logger.debug("Shard directory cache reached {} entries, clearing it", maxDirectoryEntries);
+            directory.clear();
+        }
+        directory.put(userEmail, shard);
+    }
+
+    private void ensureStagingTable(int shard) {
+        onShard(shard, false, () -> {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + STAGING_TABLE + " AS SELECT * FROM " + TABLE + " WHERE 1 = 0");
+            return null;
+        });
+    }
+
+    /** Copies the user's rows in chunks by id, each chunk in its own transactions, so writes are never held up. */
+    private int copyUser(int source, int target, String userEmail) {
+        String columnList = String.join(", ", columns());
+        int idColumn = columns().indexOf("ID");
+        long afterId = Long.MIN_VALUE;
+        int copied = 0;
+        while (true) {
+            long after = afterId;
+            List<Object[]> rows = onShard(source, true, () -> jdbcTemplate.query("SELECT " + columnList + " FROM " + TABLE
+                    + " WHERE USER_EMAIL = ? AND ID > ? ORDER BY ID LIMIT ?", this::toRow, userEmail, after, moveChunkSize));
+            if (rows.isEmpty()) {
+                return copied;
+            }
+            insert(target, STAGING_TABLE, rows);
+            copied += rows.size();
+            afterId = ((Number) rows.get(rows.size() - 1)[idColumn]).longValue();
+            if (rows.size() < moveChunkSize) {
+                return copied;
+            }
+        }
+    }
+
+    private void copyIds(int source, String fromTable, int target, String toTable, List<Long> ids) {
+        String columnList = String.join(", ", columns());
+        for (List<Long> chunk : chunks(ids)) {
+            List<Object[]> rows = onShard(source, true, () -> jdbcTemplate.query("SELECT " + columnList + " FROM " + fromTable
+                    + " WHERE ID IN (" + placeholders(chunk.size()) + ")", this::toRow, chunk.toArray()));
+            insert(target, toTable, rows);
+        }
+    }
+
+    private void deleteIds(int shard, String table, List<Long> ids) {
+        for (List<Long> chunk : chunks(ids)) {
+            onShard(shard, false, () -> jdbcTemplate.update("DELETE FROM " + table + " WHERE ID IN (" + placeholders(chunk.size()) + ")", chunk.toArray()));
+        }
+    }
+
+    private void insert(int shard, String table, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns()) + ") VALUES (" + placeholders(columns().size()) + ")";
+        onShard(shard, false, () -> jdbcTemplate.batchUpdate(sql, rows));
+    }
+
+    /** ID to VERSION of the user's rows, which tells which rows changed since they were copied. */
+    private Map<Long, Object> versions(int shard, String table, String userEmail) {
+        Map<Long, Object> versions = new HashMap<>();
+        onShard(shard, true, () -> {
+            jdbcTemplate.query("SELECT ID, VERSION FROM " + table + " WHERE USER_EMAIL = ?",
+                    resultSet -> {
+                        versions.put(resultSet.getLong(1), resultSet.getObject(2));
+                    }, userEmail);
+            return null;
+        });
+        return versions;
+    }
+
+    private Object[] toRow(java.sql.ResultSet resultSet, int rowNumber) throws java.sql.SQLException {
+        Object[] row = new Object[columns().size()];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = resultSet.getObject(i + 1);
+        }
+        return row;
+    }
+
+    /** USER_EXPENSE's columns as created on shard 0; every shard's table comes from the same entity. */
+    private List<String> columns() {
+        List<String> known = columns;
+        if (known == null) {
+            known = onShard(0, true, () -> jdbcTemplate.query("SELECT * FROM " + TABLE + " WHERE 1 = 0", resultSet -> {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                List<String> names = new ArrayList<>();
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    names.add(metaData.getColumnName(i).toUpperCase(Locale.ROOT));
+                }
+                return Collections.unmodifiableList(names);
+            }));
+            columns = known;
+        }
+        return known;
+    }
+
+    private List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += moveChunkSize) {
+            chunks.add(ids.subList(from, Math.min(ids.size(), from + moveChunkSize)));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the shards", e);
+        }
+    }
+}
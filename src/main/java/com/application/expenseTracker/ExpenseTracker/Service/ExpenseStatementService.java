@@ -0,0 +1,304 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Repository.CalculationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Monthly CSV statements, so users download last month's expenses from a file instead of
+ * pulling {@code /expenses/date-range} at month start. On the 1st the instance holding the
+ * month's lease writes one statement per user with expenses in the previous month to
+ * {@code expense.statement.path}, laid out as {@code YYYY-MM/u<url-encoded userEmail>.csv}.
+ *
+ * <p>Users are split into ranges on a fork-join pool of {@code expense.statement.parallelism}
+ * threads, and each user's month is read with one streaming query, so memory stays flat however
+ * many expenses a user has. A statement that is missing, because it was written on another
+ * instance or the user was added later, is written when it is first downloaded.
+ *
+ * <p>Each statement keeps the version of the month it was written from, the count and latest
+ * {@code updatedAt} of the user's expenses in it together with the version of their archived
+ * month, in a {@code .version} file beside it. A download whose month has moved on since, through
+ * an edit, a new date, a back-dated expense or a change to the archive, rewrites it.
+ * Fields that a spreadsheet would run as a formula are prefixed with {@code '}.
+ */
+@Service
+public class ExpenseStatementService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseStatementService.class);
+
+    private static final String SUFFIX = ".csv";
+    private static final String VERSION_SUFFIX = ".version";
+    /** A leading character that makes spreadsheets read a cell as a formula. */
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+    private static final String LEASE_PREFIX = "expense-statement-";
+    static final String HEADER = "Date,Title,Category,Payment Mode,Amount,Recurring,Notes";
+
+    @Autowired
+    private CalculationRepository calculationRepository;
+
+    @Autowired
+    private ExpenseArchiveService expenseArchiveService;
+
+    @Autowired
+    private SchedulerLeaseService schedulerLeaseService;
+
+    @Value("${expense.statement.enabled:false}")
+    private boolean enabled;
+
+    @Value("${expense.statement.path:./data/statements}")
+    private String path = "./data/statements";
+
+    @Value("${expense.statement.parallelism:4}")
+    private int parallelism = 4;
+
+    /** Users per fork-join leaf task. */
+    @Value("${expense.statement.batch-size:16}")
+    private int batchSize = 16;
+
+    /** Serialises writes of the same statement, so a statement and its version file always match. */
+    private final Object[] writeLocks = Stream.generate(Object::new).limit(64).toArray();
+
+    private final AtomicLong writtenStatements = new AtomicLong();
+    private volatile Map<String, Object> lastRun;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Writes last month's statements on the 1st, on the instance that takes the month's lease. */
+    @Scheduled(cron = "${expense.statement.cron:0 0 1 1 * *}")
+    public void generateScheduled() {
+        if (!enabled) {
+            return;
+        }
+        YearMonth month = YearMonth.now().minusMonths(1);
+        String leaseKey = LEASE_PREFIX + month;
+        try {
+            if (schedulerLeaseService.tryAcquire(leaseKey)) {
+                generate(month);
+                schedulerLeaseService.complete(leaseKey);
+            }
+        } catch (Exception e) {
+            logger.error("An error occurred while generating the statements for {}!: {} ", month, e.getMessage(), e);
+        }
+    }
+
+    /** Writes, or rewrites, the statement of every user with expenses in {@code month}. */
+    public Map<String, Object> generate(YearMonth month) {
+        if (!enabled) {
+            throw new IllegalStateException("Monthly statements are disabled, set expense.statement.enabled=true");
+        }
+        long start = System.currentTimeMillis();
+        Set<String> users = new TreeSet<>(calculationRepository.findUserEmailsWithExpensesBetween(month.atDay(1), month.atEndOfMonth()));
+        users.addAll(expenseArchiveService.getUsers(month));
+        List<String> userList = new ArrayList<>(users);
+
+        AtomicInteger failed = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        int written;
+        try {
+            written = pool.invoke(new StatementTask(month, userList, 0, userList.size(), failed));
+        } finally {
+            pool.shutdown();
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("month", month.toString());
+        result.put("users", userList.size());
+        result.put("statements", written);
+        result.put("failed", failed.get());
+        result.put("tookMs", System.currentTimeMillis() - start);
+        result.put("finishedAt", LocalDateTime.now().toString());
+        lastRun = result;
+        logger.info("Wrote {} statements for {} in {} ms, {} failed", written, month, result.get("tookMs"), failed.get());
+        return result;
+    }
+
+    /**
+     * @return the user's statement for a month that has ended, written now if it is missing or
+     * the month's expenses changed since it was written
+     * @throws IllegalArgumentException when the month has not ended yet
+     */
+    public Path getStatement(String userEmail, YearMonth month) throws IOException {
+        if (!month.isBefore(YearMonth.now())) {
+            throw new IllegalArgumentException("The statement for " + month + " is available once the month has ended");
+        }
+        Path target = fileFor(userEmail, month);
+        Path versionFile = versionFileOf(target);
+        if (Files.exists(target) && Files.exists(versionFile)
+                && versionOf(userEmail, month).equals(new String(Files.readAllBytes(versionFile), StandardCharsets.UTF_8))) {
+            return target;
+        }
+        return write(userEmail, month);
+    }
+
+    /** Writes the statement and then its version, each to a temporary file moved into place, so downloads never see half a file. */
+    Path write(String userEmail, YearMonth month) throws IOException {
+        Path target = fileFor(userEmail, month);
+        synchronized (writeLocks[Math.floorMod(target.hashCode(), writeLocks.length)]) {
+            // Read first, so a change made while the statement is written leaves it looking stale
+            String version = versionOf(userEmail, month);
+            writeStatement(target, userEmail, month);
+            Path versionFile = versionFileOf(target);
+            Path temp = Files.createTempFile(target.getParent(), versionFile.getFileName().toString(), ".tmp");
+            Files.write(temp, version.getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, versionFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        writtenStatements.incrementAndGet();
+        logger.debug("Wrote the statement of {} for {}", userEmail, month);
+        return target;
+    }
+
+    private void writeStatement(Path target, String userEmail, YearMonth month) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        LocalDate first = month.atDay(1);
+        LocalDate last = month.atEndOfMonth();
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                out.write(HEADER);
+                out.newLine();
+                BigDecimal total = expenseArchiveService.read(() -> {
+                    BigDecimal[] sum = {BigDecimal.ZERO};
+                    List<Expense> archived = expenseArchiveService.findByDateRange(userEmail, first, last);
+                    archived.sort(Comparator.comparing(Expense::getExpenseDone).thenComparing(Expense::getId));
+                    for (Expense expense : archived) {
+                        sum[0] = sum[0].add(writeRow(out, expense));
+                    }
+                    calculationRepository.forEachExpenseOfUser(userEmail, first, last, expense -> sum[0] = sum[0].add(writeRow(out, expense)));
+                    return sum[0];
+                });
+                out.write(",Total,,," + total.toPlainString() + ",,");
+                out.newLine();
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    private String versionOf(String userEmail, YearMonth month) {
+        List<Object[]> rows = calculationRepository.getVersionOfUser(userEmail, month.atDay(1), month.atEndOfMonth());
+        String table = rows.isEmpty() ? "0," : rows.get(0)[0] + "," + (rows.get(0)[1] == null ? "" : rows.get(0)[1]);
+        return table + "," + expenseArchiveService.versionOf(userEmail, month);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("path", path);
+        stats.put("parallelism", parallelism);
+        stats.put("writtenStatements", writtenStatements.get());
+        stats.put("lastRun", lastRun);
+        return stats;
+    }
+
+    /** Splits a range of users in half until it is small enough to write one statement after another. */
+    private class StatementTask extends RecursiveTask<Integer> {
+
+        private final YearMonth month;
+        private final List<String> users;
+        private final int from;
+        private final int to;
+        private final AtomicInteger failed;
+
+        StatementTask(YearMonth month, List<String> users, int from, int to, AtomicInteger failed) {
+            this.month = month;
+            this.users = users;
+            this.from = from;
+            this.to = to;
+            this.failed = failed;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from > batchSize) {
+                int middle = (from + to) >>> 1;
+                StatementTask left = new StatementTask(month, users, from, middle, failed);
+                left.fork();
+                return new StatementTask(month, users, middle, to, failed).compute() + left.join();
+            }
+            int written = 0;
+            for (int i = from; i < to; i++) {
+                try {
+                    write(users.get(i), month);
+                    written++;
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    logger.error("Could not write the statement of {} for {}: {}", users.get(i), month, e.getMessage(), e);
+                }
+            }
+            return written;
+        }
+    }
+
+    private static BigDecimal writeRow(Writer out, Expense expense) {
+        BigDecimal amount = expense.getAmount() == null ? BigDecimal.ZERO : expense.getAmount();
+        try {
+            out.write(expense.getExpenseDone() + "," + csv(expense.getTitle()) + "," + csv(expense.getCategory()) + ","
+                    + csv(expense.getPaymentMode()) + "," + amount.toPlainString() + "," + expense.isRecurring() + ","
+                    + csv(expense.getNotes()) + System.lineSeparator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return amount;
+    }
+
+    /**
+     * Prefixes a field that starts like a formula with {@code '}, and quotes one holding a comma,
+     * quote or line break, doubling its quotes.
+     */
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (!text.isEmpty() && FORMULA_PREFIXES.indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    private static Path versionFileOf(Path statement) {
+        return statement.resolveSibling(statement.getFileName() + VERSION_SUFFIX);
+    }
+
+    private Path fileFor(String userEmail, YearMonth month) {
+        try {
+            return Paths.get(path, month.toString(), "u" + URLEncoder.encode(userEmail, "UTF-8") + SUFFIX);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Repository.CalculationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Computes the monthly expense summary. The total, top categories and average daily spend are
+ * independent queries and run concurrently on a small bounded pool; when the pool is saturated
+ * the requesting thread runs the query itself. Concurrent requests for the same user and month
+ * share one in-flight computation, so a burst of dashboard refreshes costs one set of queries.
+ * Nothing is cached after the computation finishes, a request arriving later always sees
+ * current data. A month with archived expenses is computed from both tiers in one pass instead.
+ */
+@Service
+public class ExpenseSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseSummaryService.class);
+
+    private static final int TOP_CATEGORIES = 3;
+
+    @Autowired
+    private CalculationRepository calculationRepository;
+
+    @Autowired
+    private ExpenseArchiveService expenseArchiveService;
+
+    @Value("${expense.summary.threads:3}")
+    private int threads = 3;
+
+    @Value("${expense.summary.queue-capacity:64}")
+    private int queueCapacity = 64;
+
+    @Value("${expense.summary.timeout.ms:10000}")
+    private long timeoutMs = 10000;
+
+    private final Map<SummaryKey, CompletableFuture<Map<String, Object>>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "expense-summary-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @param userEmail the user to summarise, or {@code null} for every user
+     * @return the month's total, average daily spend and top 3 categories; the map is shared
+     *         with concurrent callers and cannot be modified
+     */
+    public Map<String, Object> getSummary(String userEmail, YearMonth month) {
+        SummaryKey key = new SummaryKey(userEmail, month);
+        CompletableFuture<Map<String, Object>> mine = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            logger.debug("Joining in-flight summary for userEmail: {} month: {}", userEmail, month);
+            return await(running);
+        }
+        try {
+            Map<String, Object> summary = compute(userEmail, month);
+            mine.complete(summary);
+            return summary;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /** @return how many requests were answered by joining another request's computation */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    private Map<String, Object> compute(String userEmail, YearMonth month) {
+        LocalDate start = month.atDay(1);
+        LocalDate end = month.atEndOfMonth();
+        if (expenseArchiveService.isEnabled()) {
+            return expenseArchiveService.read(() -> expenseArchiveService.covers(userEmail, start, end)
+                    ? computeWithArchive(userEmail, month, start, end)
+                    : computeHot(userEmail, month, start, end));
+        }
+        return computeHot(userEmail, month, start, end);
+    }
+
+    private Map<String, Object> computeHot(String userEmail, YearMonth month, LocalDate start, LocalDate end) {
+        CompletableFuture<BigDecimal> total = CompletableFuture.supplyAsync(
+                () -> calculationRepository.getTotalExpenses(userEmail, start, end), executor);
+        CompletableFuture<Map<String, BigDecimal>> topCategories = CompletableFuture.supplyAsync(
+                () -> topCategories(userEmail, start, end), executor);
+        CompletableFuture<BigDecimal> average = CompletableFuture.supplyAsync(
+                () -> calculationRepository.getAverageDailyExpense(userEmail, start, end), executor);
+
+        await(CompletableFuture.allOf(total, topCategories, average));
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("totalExpensesThisMonth", total.join());
+        summary.put("averageDailyExpenses", average.join());
+        summary.put("top3Categories", topCategories.join());
+        logger.debug("Computed summary for userEmail: {} month: {}", userEmail, month);
+        return Collections.unmodifiableMap(summary);
+    }
+
+    /**
+     * An archived month is summed per day and category from both tiers here, because the
+     * average and the ranking cannot be combined from separately computed ones.
+     */
+    private Map<String, Object> computeWithArchive(String userEmail, YearMonth month, LocalDate start, LocalDate end) {
+        Map<LocalDate, BigDecimal> days = new HashMap<>();
+        Map<String, BigDecimal> categories = new HashMap<>();
+        for (Object[] row : calculationRepository.getDailyTotalsForUser(userEmail, start, end)) {
+            days.merge((LocalDate) row[0], (BigDecimal) row[1], BigDecimal::add);
+        }
+        for (Object[] row : calculationRepository.getTopCategories(userEmail, start, end, Pageable.unpaged())) {
+            categories.merge(String.valueOf(row[0]), (BigDecimal) row[1], BigDecimal::add);
+        }
+        for (Object[] row : expenseArchiveService.getDailyTotals(userEmail, ExpenseSeriesService.GroupBy.CATEGORY, start, end)) {
+            days.merge((LocalDate) row[0], (BigDecimal) row[2], BigDecimal::add);
+            categories.merge(String.valueOf(row[1]), (BigDecimal) row[2], BigDecimal::add);
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : days.values()) {
+            total = total.add(amount);
+        }
+        Map<String, BigDecimal> top = new LinkedHashMap<>();
+        categories.entrySet().stream()
+                .sorted(Map.Entry.<String, BigDecimal>comparingByValue().reversed())
+                .limit(TOP_CATEGORIES)
+                .forEach(category -> top.put(category.getKey(), category.getValue()));
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("totalExpensesThisMonth", total);
+        summary.put("averageDailyExpenses", days.isEmpty() ? null : total.divide(BigDecimal.valueOf(days.size()), MathContext.DECIMAL64));
+        summary.put("top3Categories", top);
+        logger.debug("Computed summary with archived expenses for userEmail: {} month: {}", userEmail, month);
+        return Collections.unmodifiableMap(summary);
+    }
+
+    private Map<String, BigDecimal> topCategories(String userEmail, LocalDate start, LocalDate end) {
+        Map<String, BigDecimal> top = new LinkedHashMap<>();
+        for (Object[] row : calculationRepository.getTopCategories(userEmail, start, end, PageRequest.of(0, TOP_CATEGORIES))) {
+            top.put(String.valueOf(row[0]), (BigDecimal) row[1]);
+        }
+        return top;
+    }
+
+    /** Waits for the future, rethrowing the query's own exception. */
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Expense summary failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Expense summary did not finish within " + timeoutMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the expense summary", e);
+        }
+    }
+
+    private static final class SummaryKey {
+        private final String userEmail;
+        private final YearMonth month;
+
+        SummaryKey(String userEmail, YearMonth month) {
+            this.userEmail = userEmail;
+            this.month = month;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SummaryKey)) {
+                return false;
+            }
+            SummaryKey other = (SummaryKey) o;
+            return Objects.equals(userEmail, other.userEmail) && month.equals(other.month);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userEmail, month);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Config.ReplicaRoutingDataSource;
+import com.application.expenseTracker.ExpenseTracker.Entity.IdempotencyRecord;
+import com.application.expenseTracker.ExpenseTracker.Repository.IdempotencyRecordRepository;
+import com.application.expenseTracker.ExpenseTracker.Utility.HashUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the responses to requests sent with an {@code Idempotency-Key} so retries get the
+ * original response instead of running again. Completed responses sit in a bounded LRU map that
+ * evicts entries after {@code expense.idempotency.ttl.ms}, backed by IDEMPOTENCY_RECORD so they
+ * survive restarts and are shared between instances.
+ *
+ * <p>A key is claimed by inserting its record before the request runs, so of two instances racing
+ * on one key only one runs it. Retries arriving on the same instance while it runs wait for its
+ * response; retries on another instance are told to come back. A claim whose request failed with
+ * a server error is released so the client can retry, and one left behind by a dead instance can
+ * be taken over after {@code expense.idempotency.request-timeout.ms}, the longest a claimed request
+ * is expected to run. Every claim carries a random token, so a request that outlived its claim
+ * cannot complete or release the record of the request that took the key over.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    /** Larger bodies are not kept, only their status; the column holds 64K characters of Base64. */
+    static final int MAX_RESPONSE_LENGTH = 32768;
+
+    public enum Outcome { ACQUIRED, REPLAY, MISMATCH, IN_PROGRESS }
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Value("${expense.idempotency.ttl.ms:86400000}")
+    private long ttlMs = 86400000;
+
+    @Value("${expense.idempotency.request-timeout.ms:60000}")
+    private long requestTimeoutMs = 60000;
+
+    @Value("${expense.idempotency.wait.ms:10000}")
+    private long waitMs = 10000;
+
+    @Value("${expense.idempotency.max-entries:100000}")
+    private int maxEntries = 100000;
+
+    private final Map<String, StoredResponse> responses = new LinkedHashMap<String, StoredResponse>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong replays = new AtomicLong();
+
+    /** A response to replay, with its request's hash and the time it is forgotten. */
+    public static class StoredResponse {
+        private final String requestHash;
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+        private final boolean bodyOmitted;
+        private final long expiresAtMillis;
+
+        StoredResponse(String requestHash, int status, String contentType, byte[] body, boolean bodyOmitted, long expiresAtMillis) {
+            this.requestHash = requestHash;
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+            this.bodyOmitted = bodyOmitted;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        /** @return whether the original body was too large to keep, leaving only the status to replay */
+        public boolean isBodyOmitted() {
+            return bodyOmitted;
+        }
+    }
+
+    private static class InFlight {
+        private final String requestHash;
+        /** Completes with the response, or with {@code null} when the claim is released. */
+        private final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+
+        InFlight(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+
+    /** The result of {@link #claim}; an {@code ACQUIRED} claim must be passed to {@link #complete} or {@link #release}. */
+    public static class Claim {
+        private final Outcome outcome;
+        private final String keyHash;
+        private final String token;
+        private final InFlight inFlight;
+        private final StoredResponse response;
+
+        Claim(Outcome outcome, String keyHash, InFlight inFlight, StoredResponse response) {
+            this(outcome, keyHash, null, inFlight, response);
+        }
+
+        Claim(Outcome outcome, String keyHash, String token, InFlight inFlight, StoredResponse response) {
+            this.outcome = outcome;
+            this.keyHash = keyHash;
+            this.token = token;
+            this.inFlight = inFlight;
+            this.response = response;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        /** @return the response to replay when the outcome is {@code REPLAY} */
+        public StoredResponse getResponse() {
+            return response;
+        }
+    }
+
+    /**
+     * Claims {@code key} for a request by {@code user} to {@code path}. Keys are scoped to the
+     * user and path, and a key reused with a different body is refused rather than replayed.
+     */
+    public Claim claim(String user, String path, String key, byte[] requestBody) throws InterruptedException {
+        String keyHash = HashUtil.sha256Hex(user + '\n' + path + '\n' + key);
+        String requestHash = HashUtil.sha256Hex(requestBody);
+        long deadline = System.currentTimeMillis() + waitMs;
+        while (true) {
+            StoredResponse stored = getStored(keyHash);
+            if (stored != null) {
+                return replay(keyHash, requestHash, stored);
+            }
+            InFlight mine = new InFlight(requestHash);
+            InFlight running = inFlight.putIfAbsent(keyHash, mine);
+            if (running != null) {
+                if (!running.requestHash.equals(requestHash)) {
+                    return new Claim(Outcome.MISMATCH, keyHash, null, null);
+                }
+                StoredResponse response = await(running, deadline);
+                if (response != null) {
+                    return replay(keyHash, requestHash, response);
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    return new Claim(Outcome.IN_PROGRESS, keyHash, null, null);
+                }
+                continue;
+            }
+            String token = UUID.randomUUID().toString();
+            if (claimRecord(keyHash, requestHash, token)) {
+                return new Claim(Outcome.ACQUIRED, keyHash, token, mine, null);
+            }
+            Optional<IdempotencyRecord> record = ReplicaRoutingDataSource.onPrimary(() -> idempotencyRecordRepository.findById(keyHash));
+            if (record.isPresent() && record.get().getStatus() != null) {
+                StoredResponse response = toResponse(record.get());
+                putStored(keyHash, response);
+                finish(keyHash, mine, response);
+                return replay(keyHash, requestHash, response);
+            }
+            // Running on another instance, or just released there; either way the client retries
+            finish(keyHash, mine, null);
+            if (record.isPresent() && !record.get().getRequestHash().equals(requestHash)) {
+                return new Claim(Outcome.MISMATCH, keyHash, null, null);
+            }
+            return new Claim(Outcome.IN_PROGRESS, keyHash, null, null);
+        }
+    }
+
+    /**
+     * Keeps the response for replay, unless it is a server error, in which case the claim is
+     * released. A body over {@link #MAX_RESPONSE_LENGTH} is dropped but the key still replays its
+     * status, since the request has already run and must not run again.
+     */
+    public void complete(Claim claim, int status, String contentType, byte[] body) {
+        if (status >= 500) {
+            release(claim);
+            return;
+        }
+        boolean omitted = body.length > MAX_RESPONSE_LENGTH;
+        if (omitted) {
+            logger.warn("Keeping only the status of the {} byte response for idempotency claim: {}", body.length, claim.keyHash);
+        }
+        LocalDateTime expiresAt = LocalDateTime.now().plus(Duration.ofMillis(ttlMs));
+        StoredResponse response = new StoredResponse(claim.inFlight.requestHash, status, omitted ? null : contentType,
+                omitted ? new byte[0] : body, omitted, System.currentTimeMillis() + ttlMs);
+        try {
+            // A completed record without a body marks an omitted one
+            if (idempotencyRecordRepository.complete(claim.keyHash, claim.token, status, response.contentType,
+                    omitted ? null : Base64.getEncoder().encodeToString(body), expiresAt) == 0) {
+                // The key now belongs to the request that took it over; its response is the one to replay
+                logger.warn("Idempotency claim: {} expired and was taken over before its request completed", claim.keyHash);
+                finish(claim.keyHash, claim.inFlight, null);
+                return;
+            }
+        } catch (RuntimeException e) {
+            logger.error("Could not store the response for idempotency claim: {}", claim.keyHash, e);
+        }
+        putStored(claim.keyHash, response);
+        finish(claim.keyHash, claim.inFlight, response);
+    }
+
+    /** Forgets the claim so the next retry runs the request again. */
+    public void release(Claim claim) {
+        try {
+            idempotencyRecordRepository.release(claim.keyHash, claim.token);
+        } catch (RuntimeException e) {
+            logger.error("Could not release idempotency claim: {}, it expires on its own", claim.keyHash, e);
+        }
+        finish(claim.keyHash, claim.inFlight, null);
+    }
+
+    @Scheduled(fixedDelayString = "${expense.idempotency.purge.interval.ms:3600000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (responses) {
+            Iterator<StoredResponse> iterator = responses.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().expiresAtMillis <= now) {
+                    iterator.remove();
+                }
+            }
+        }
+        int purged = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            logger.info("Purged {} expired idempotency records", purged);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (responses) {
+            stats.put("cachedResponses", responses.size());
+        }
+        stats.put("inFlight", inFlight.size());
+        stats.put("replays", replays.get());
+        return stats;
+    }
+
+    private Claim replay(String keyHash, String requestHash, StoredResponse response) {
+        if (!response.requestHash.equals(requestHash)) {
+            return new Claim(Outcome.MISMATCH, keyHash, null, null);
+        }
+        replays.incrementAndGet();
+        return new Claim(Outcome.REPLAY, keyHash, null, response);
+    }
+
+    /** Inserts the record, or takes over an expired one; {@code false} when another request holds the key. */
+    private boolean claimRecord(String keyHash, String requestHash, String token) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(Duration.ofMillis(requestTimeoutMs));
+        if (idempotencyRecordRepository.takeOver(keyHash, requestHash, token, now, expiresAt) == 1) {
+            return true;
+        }
+        try {
+            idempotencyRecordRepository.claim(keyHash, requestHash, token, now, expiresAt);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Idempotency key: {} is already claimed", keyHash);
+            return false;
+        }
+    }
+
+    private StoredResponse await(InFlight running, long deadline) throws InterruptedException {
+        try {
+            return running.response.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void finish(String keyHash, InFlight mine, StoredResponse response) {
+        inFlight.remove(keyHash, mine);
+        mine.response.complete(response);
+    }
+
+    private StoredResponse getStored(String keyHash) {
+        synchronized (responses) {
+            StoredResponse stored = responses.get(keyHash);
+            if (stored != null && stored.expiresAtMillis <= System.currentTimeMillis()) {
+                responses.remove(keyHash);
+                return null;
+            }
+            return stored;
+        }
+    }
+
+    private void putStored(String keyHash, StoredResponse response) {
+        synchronized (responses) {
+            responses.put(keyHash, response);
+        }
+    }
+
+    private static StoredResponse toResponse(IdempotencyRecord record) {
+        long expiresAtMillis = System.currentTimeMillis() + Duration.between(LocalDateTime.now(), record.getExpiresAt()).toMillis();
+        boolean omitted = record.getResponseBody() == null;
+        return new StoredResponse(record.getRequestHash(), record.getStatus(), record.getContentType(),
+                omitted ? new byte[0] : Base64.getDecoder().decode(record.getResponseBody()), omitted, expiresAtMillis);
+    }
+}
@@ -0,0 +1,245 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Config.ReplicaRoutingDataSource;
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpensePatch;
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Repository.CalculationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-user window of expenses dated from {@link #WINDOW_DAYS} days ago onwards, serving
+ * /expenses/recent/ from memory. A user's window is loaded from the database on first use,
+ * the all-users view loads every window at once, and both are kept current by the
+ * {@link CalculationService} write paths. Expenses dated in the future are kept as well, since
+ * they become recent without any write.
+ */
+@Service
+public class RecentExpenseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecentExpenseService.class);
+
+    public static final int WINDOW_DAYS = 7;
+
+    /** Windows key expenses without a userEmail under this, they only show in the all-users view. */
+    private static final String NO_USER = "";
+
+    @Autowired
+    private CalculationRepository calculationRepository;
+
+    private final Map<String, NavigableMap<LocalDate, Map<Long, Expense>>> windows = new HashMap<>();
+    private final Map<Long, Expense> byId = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /** Bumped by every write so a load that raced with one is served but not cached. */
+    private long generation;
+    private boolean allLoaded;
+
+    /**
+     * @param userEmail the user to return expenses for, or {@code null} for every user
+     * @return expenses dated between {@code today - 7} and {@code today}, newest first
+     */
+    public List<Expense> getRecent(String userEmail, LocalDate today) {
+        LocalDate from = today.minusDays(WINDOW_DAYS);
+        lock.readLock().lock();
+        try {
+            if (allLoaded || (userEmail != null && windows.containsKey(userEmail))) {
+                return collect(userEmail, from, today);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return load(userEmail, from, today);
+    }
+
+    public void onSaved(Expense expense) {
+        if (expense == null || expense.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            generation++;
+            removeLocked(expense.getId());
+            String key = key(expense.getUserEmail());
+            if (expense.getExpenseDone() != null && (allLoaded || windows.containsKey(key))) {
+                insertLocked(key, expense);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * A patched expense cannot be updated in place because only the changed fields are known,
+     * so the owning user's window is dropped and reloaded on the next read. A patch that moves
+     * an unknown expense into the window may belong to any user and drops every window.
+     */
+    public void onPatched(Long id, ExpensePatch patch) {
+        lock.writeLock().lock();
+        try {
+            generation++;
+            Expense cached = byId.get(id);
+            if (cached != null) {
+                dropLocked(key(cached.getUserEmail()));
+            } else if (patch.getExpenseDone() != null) {
+                dropAllLocked();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onDeleted(Collection<Long> ids) {
+        lock.writeLock().lock();
+        try {
+            generation++;
+            ids.forEach(this::removeLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** After a delete of everything the empty window is complete, so nothing needs loading. */
+    public void onDeletedAll() {
+        lock.writeLock().lock();
+        try {
+            generation++;
+            windows.clear();
+            byId.clear();
+            allLoaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Ages out expenses that left the window; reads filter by date anyway, this only frees memory. */
+    @Scheduled(cron = "${expense.recent.sweep.cron:0 5 0 * * *}")
+    public void sweep() {
+        sweep(LocalDate.now());
+    }
+
+    void sweep(LocalDate today) {
+        LocalDate from = today.minusDays(WINDOW_DAYS);
+        int removed = 0;
+        lock.writeLock().lock();
+        try {
+            for (NavigableMap<LocalDate, Map<Long, Expense>> window : windows.values()) {
+                NavigableMap<LocalDate, Map<Long, Expense>> expired = window.headMap(from, false);
+                for (Map<Long, Expense> day : expired.values()) {
+                    byId.keySet().removeAll(day.keySet());
+                    removed += day.size();
+                }
+                expired.clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.debug("Recent expense sweep removed {} expenses older than {}", removed, from);
+    }
+
+    private List<Expense> load(String userEmail, LocalDate from, LocalDate today) {
+        long generationBeforeQuery;
+        lock.readLock().lock();
+        try {
+            generationBeforeQuery = generation;
+        } finally {
+            lock.readLock().unlock();
+        }
+        // Loaded windows are kept, so they must not come from a replica that is missing writes.
+        List<Expense> loaded = ReplicaRoutingDataSource.onPrimary(() -> userEmail == null
+                ? calculationRepository.findByExpenseDoneGreaterThanEqual(from)
+                : calculationRepository.findByUserEmailAndExpenseDoneGreaterThanEqual(userEmail, from));
+
+        lock.writeLock().lock();
+        try {
+            if (generation != generationBeforeQuery) {
+                return filter(loaded, today);
+            }
+            if (userEmail == null) {
+                windows.clear();
+                byId.clear();
+                allLoaded = true;
+            } else {
+                dropLocked(userEmail);
+                windows.put(userEmail, new TreeMap<>());
+            }
+            loaded.forEach(expense -> insertLocked(key(expense.getUserEmail()), expense));
+            logger.debug("Loaded {} recent expenses for {}", loaded.size(), userEmail == null ? "all users" : userEmail);
+            return collect(userEmail, from, today);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Expense> collect(String userEmail, LocalDate from, LocalDate today) {
+        List<Expense> recent = new ArrayList<>();
+        Collection<NavigableMap<LocalDate, Map<Long, Expense>>> selected = userEmail == null
+                ? windows.values()
+                : Collections.singletonList(windows.getOrDefault(userEmail, Collections.<LocalDate, Map<Long, Expense>>emptyNavigableMap()));
+        for (NavigableMap<LocalDate, Map<Long, Expense>> window : selected) {
+            for (Map<Long, Expense> day : window.subMap(from, true, today, true).values()) {
+                recent.addAll(day.values());
+            }
+        }
+        recent.sort(Comparator.comparing(Expense::getExpenseDone).thenComparing(Expense::getId).reversed());
+        return recent;
+    }
+
+    private List<Expense> filter(List<Expense> expenses, LocalDate today) {
+        List<Expense> recent = new ArrayList<>();
+        for (Expense expense : expenses) {
+            if (!expense.getExpenseDone().isAfter(today)) {
+                recent.add(expense);
+            }
+        }
+        recent.sort(Comparator.comparing(Expense::getExpenseDone).thenComparing(Expense::getId).reversed());
+        return recent;
+    }
+
+    private void insertLocked(String key, Expense expense) {
+        windows.computeIfAbsent(key, k -> new TreeMap<>())
+                .computeIfAbsent(expense.getExpenseDone(), d -> new LinkedHashMap<>())
+                .put(expense.getId(), expense);
+        byId.put(expense.getId(), expense);
+    }
+
+    private void removeLocked(Long id) {
+        Expense cached = byId.remove(id);
+        if (cached == null) {
+            return;
+        }
+        NavigableMap<LocalDate, Map<Long, Expense>> window = windows.get(key(cached.getUserEmail()));
+        Map<Long, Expense> day = window == null ? null : window.get(cached.getExpenseDone());
+        if (day != null) {
+            day.remove(id);
+            if (day.isEmpty()) {
+                window.remove(cached.getExpenseDone());
+            }
+        }
+    }
+
+    private void dropLocked(String key) {
+        NavigableMap<LocalDate, Map<Long, Expense>> window = windows.remove(key);
+        if (window != null) {
+            window.values().forEach(day -> byId.keySet().removeAll(day.keySet()));
+        }
+        allLoaded = false;
+    }
+
+    private void dropAllLocked() {
+        windows.clear();
+        byId.clear();
+        allLoaded = false;
+    }
+
+    private static String key(String userEmail) {
+        return userEmail == null ? NO_USER : userEmail;
+    }
+}
@@ -0,0 +1,92 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measures replica lag with a heartbeat row: each tick writes the current time to
+ * REPLICATION_HEARTBEAT on the primary and reads the replicated value back from the replica.
+ * The replica is used for reads only while that value is at most {@code max-lag-ms} old, so the
+ * limit has to be larger than the heartbeat interval. Until the first successful check, and
+ * whenever the replica cannot be queried, reads stay on the primary.
+ */
+public class ReplicaLagMonitor implements HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMs;
+
+    private volatile boolean replicaUsable;
+    private volatile long lagMs = -1;
+    private volatile long checkedAt;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, long maxLagMs) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMs = maxLagMs;
+    }
+
+    @PostConstruct
+    public void createHeartbeatTable() {
+        primary.execute("CREATE TABLE IF NOT EXISTS REPLICATION_HEARTBEAT (ID INT PRIMARY KEY, BEAT_MS BIGINT NOT NULL)");
+    }
+
+    @Scheduled(fixedDelayString = "${expense.datasource.replica.heartbeat.interval.ms:1000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        try {
+            if (primary.update("UPDATE REPLICATION_HEARTBEAT SET BEAT_MS = ? WHERE ID = 1", now) == 0) {
+                primary.update("INSERT INTO REPLICATION_HEARTBEAT (ID, BEAT_MS) VALUES (1, ?)", now);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Could not write the replication heartbeat to the primary: {}", e.getMessage());
+        }
+
+        boolean usable;
+        try {
+            Long replicated = replica.queryForObject("SELECT BEAT_MS FROM REPLICATION_HEARTBEAT WHERE ID = 1", Long.class);
+            lagMs = replicated == null ? -1 : Math.max(0, now - replicated);
+            usable = replicated != null && lagMs <= maxLagMs;
+        } catch (DataAccessException e) {
+            lagMs = -1;
+            usable = false;
+            logger.debug("Replica heartbeat check failed: {}", e.getMessage());
+        }
+        checkedAt = now;
+        if (usable != replicaUsable) {
+            if (usable) {
+                logger.info("Replica caught up (lag: {} ms), routing read-only transactions to it", lagMs);
+            } else {
+                logger.warn("Replica lag: {} ms is over {} ms or unknown, routing reads to the primary", lagMs, maxLagMs);
+            }
+        }
+        replicaUsable = usable;
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    /** Reported as UP either way: while the replica is unusable, reads fall back to the primary. */
+    @Override
+    public Health health() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("replicaUsable", replicaUsable);
+        details.put("lagMs", lagMs);
+        details.put("maxLagMs", maxLagMs);
+        details.put("checkedAt", checkedAt);
+        return Health.up().withDetails(details).build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Config.ReplicaRoutingDataSource;
+import com.application.expenseTracker.ExpenseTracker.Entity.SchedulerLease;
+import com.application.expenseTracker.ExpenseTracker.Repository.SchedulerLeaseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+
+/**
+ * Database leases that let exactly one instance run a scheduled job, or one partition of it.
+ * Acquiring, renewing and completing are single conditional statements, so two instances racing
+ * for the same lease can never both win. A holder that stops renewing loses the lease once it
+ * expires, and another instance can take over from the last checkpoint. Expiry is measured
+ * on the database clock, not on the instances' own.
+ */
+@Service
+public class SchedulerLeaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerLeaseService.class);
+
+    @Autowired
+    private SchedulerLeaseRepository schedulerLeaseRepository;
+
+    @Value("${expense.lease.ttl.ms:120000}")
+    private long ttlMs = 120000;
+
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /** @return whether this instance now holds the lease; a completed lease is never handed out again */
+    public boolean tryAcquire(String leaseKey) {
+        if (schedulerLeaseRepository.takeOver(leaseKey, nodeId, ttlMs) == 1) {
+            logger.info("Took over lease: {} as {}", leaseKey, nodeId);
+            return true;
+        }
+        try {
+            schedulerLeaseRepository.insertLease(leaseKey, nodeId, ttlMs);
+            logger.info("Acquired lease: {} as {}", leaseKey, nodeId);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Lease: {} is held or completed by another instance", leaseKey);
+            return false;
+        }
+    }
+
+    /**
+     * Extends the lease and records how far the holder got.
+     *
+     * @return {@code false} when the lease was lost, in which case the holder must stop
+     */
+    public boolean renew(String leaseKey, Long checkpoint) {
+        return schedulerLeaseRepository.renew(leaseKey, nodeId, ttlMs, checkpoint) == 1;
+    }
+
+    /** @return the checkpoint left by the previous holder, or {@code null} when starting fresh */
+    public Long getCheckpoint(String leaseKey) {
+        return ReplicaRoutingDataSource.onPrimary(() -> schedulerLeaseRepository.findById(leaseKey)).map(SchedulerLease::getCheckpoint).orElse(null);
+    }
+
+    public void complete(String leaseKey) {
+        if (schedulerLeaseRepository.complete(leaseKey, nodeId) == 1) {
+            logger.info("Completed lease: {}", leaseKey);
+        } else {
+            logger.warn("Lease: {} was lost before it could be completed", leaseKey);
+        }
+    }
+
+    /**
+     * @return whether a run with {@code partitions} leases under {@code prefix} started and has a
+     * partition no instance is working on: one nobody took yet, or one whose lease expired
+     */
+    public boolean isPending(String prefix, int partitions) {
+        return ReplicaRoutingDataSource.onPrimary(() -> {
+            long started = schedulerLeaseRepository.countByLeaseKeyStartingWith(prefix);
+            return started > 0 && (started < partitions || schedulerLeaseRepository.countExpired(prefix) > 0);
+        });
+    }
+}
@@ -0,0 +1,298 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Config.ReplicaRoutingDataSource;
+import com.application.expenseTracker.ExpenseTracker.Entity.Budget;
+import com.application.expenseTracker.ExpenseTracker.Utility.SnapshotFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.ResultSetMetaData;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Periodically snapshots USER_EXPENSE, APP_USER, EXPENSE_CATEGORY_STATS and USER_BUDGET into a
+ * {@link SnapshotFile} and bulk-restores it on startup, so the in-memory store survives
+ * restarts without replaying every write.
+ * The restore runs as an {@link ApplicationRunner}, i.e. before the application reports ready.
+ */
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SnapshotService implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotService.class);
+
+    private static final List<String> TABLES = Arrays.asList("APP_USER", "USER_EXPENSE", "EXPENSE_CATEGORY_STATS", "USER_BUDGET", "REFRESH_TOKEN", "IDEMPOTENCY_RECORD");
+    private static final int FETCH_SIZE = 1000;
+    private static final int RESTORE_BATCH_SIZE = 5000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Value("${expense.snapshot.enabled:false}")
+    private boolean enabled;
+
+    @Value("${expense.snapshot.path:data/expense-store.snap}")
+    private String path;
+
+    private volatile Map<String, Object> lastSnapshot = Collections.emptyMap();
+    private volatile Map<String, Object> lastRestore = Collections.emptyMap();
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled && Files.exists(snapshotPath())) {
+            try {
+                restore();
+            } catch (Exception e) {
+                logger.error("Could not restore snapshot from {}, starting empty: {}", snapshotPath(), e.getMessage(), e);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${expense.snapshot.interval.ms:300000}", initialDelayString = "${expense.snapshot.interval.ms:300000}")
+    public void scheduledSnapshot() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (Exception e) {
+            logger.error("Scheduled snapshot failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        scheduledSnapshot();
+    }
+
+    /** Writes both tables inside one repeatable-read transaction so they are consistent with each other. */
+    public synchronized Map<String, Object> snapshot() {
+        long start = System.currentTimeMillis();
+        Map<String, Long> rows = new LinkedHashMap<>();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+
+        long checksum = ReplicaRoutingDataSource.onPrimary(() -> transaction.execute(status -> {
+            try (SnapshotFile.Writer writer = SnapshotFile.create(snapshotPath())) {
+                for (String table : TABLES) {
+                    rows.put(table, writeTable(writer, table));
+                }
+                return writer.commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("path", snapshotPath().toAbsolutePath().toString());
+        result.put("createdAt", Instant.ofEpochMilli(start).toString());
+        result.put("durationMs", System.currentTimeMillis() - start);
+        result.put("sizeBytes", snapshotPath().toFile().length());
+        result.put("checksum", Long.toHexString(checksum));
+        result.put("rows", rows);
+        lastSnapshot = result;
+        logger.info("Snapshot written to {} with rows: {} in {} ms", snapshotPath(), rows, result.get("durationMs"));
+        return result;
+    }
+
+    /**
+     * Loads the snapshot into empty tables with batched inserts. Columns that no longer exist in
+     * the current schema are skipped, so older snapshots stay restorable. Snapshots from before
+     * USER_BUDGET get monthly budgets derived from their per-expense BUDGET column.
+     */
+    public synchronized Map<String, Object> restore() throws IOException {
+        long start = System.currentTimeMillis();
+        Map<String, Long> rows = new LinkedHashMap<>();
+        long createdAt;
+        Map<String, Budget> legacyBudgets = new LinkedHashMap<>();
+        try (SnapshotFile.Reader reader = SnapshotFile.open(snapshotPath())) {
+            createdAt = reader.getCreatedAt();
+            String table;
+            while ((table = reader.nextTable()) != null) {
+                rows.put(table, restoreTable(reader, table, legacyBudgets));
+            }
+        }
+        advanceSequence();
+        if (!legacyBudgets.isEmpty()) {
+            logger.info("Migrated {} monthly budgets from the old USER_EXPENSE.BUDGET column", budgetService.importLegacyBudgets(legacyBudgets.values()));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("path", snapshotPath().toAbsolutePath().toString());
+        result.put("snapshotCreatedAt", Instant.ofEpochMilli(createdAt).toString());
+        result.put("durationMs", System.currentTimeMillis() - start);
+        result.put("rows", rows);
+        lastRestore = result;
+        logger.info("Snapshot restored from {} with rows: {} in {} ms", snapshotPath(), rows, result.get("durationMs"));
+        return result;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("path", snapshotPath().toAbsolutePath().toString());
+        status.put("exists", Files.exists(snapshotPath()));
+        status.put("lastSnapshot", lastSnapshot);
+        status.put("lastRestore", lastRestore);
+        return status;
+    }
+
+    private long writeTable(SnapshotFile.Writer writer, String table) {
+        long[] count = {0};
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(FETCH_SIZE);
+        streaming.query("SELECT * FROM " + table, resultSet -> {
+            try {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                if (count[0] == 0) {
+                    List<SnapshotFile.Column> columns = new ArrayList<>();
+                    for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                        columns.add(new SnapshotFile.Column(metaData.getColumnName(i), SnapshotFile.ColumnType.fromJdbcType(metaData.getColumnType(i))));
+                    }
+                    writer.beginTable(table, columns);
+                }
+                Object[] values = new Object[metaData.getColumnCount()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = resultSet.getObject(i + 1);
+                }
+                writer.writeRow(values);
+                count[0]++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        try {
+            if (count[0] == 0) {
+                writer.beginTable(table, Collections.<SnapshotFile.Column>emptyList());
+            }
+            writer.endTable();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count[0];
+    }
+
+    private long restoreTable(SnapshotFile.Reader reader, String table, Map<String, Budget> legacyBudgets) throws IOException {
+        Set<String> currentColumns = new HashSet<>();
+        jdbcTemplate.query("SELECT * FROM " + table + " WHERE 1 = 0", resultSet -> {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                currentColumns.add(metaData.getColumnName(i).toUpperCase(Locale.ROOT));
+            }
+            return null;
+        });
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+        if (existing != null && existing > 0) {
+            throw new IllegalStateException("Table " + table + " already has " + existing + " rows, refusing to restore over it");
+        }
+
+        List<Integer> positions = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<SnapshotFile.Column> columns = reader.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            if (currentColumns.contains(columns.get(i).getName().toUpperCase(Locale.ROOT))) {
+                positions.add(i);
+                names.add(columns.get(i).getName());
+            } else {
+                logger.warn("Skipping column {}.{} which no longer exists", table, columns.get(i).getName());
+            }
+        }
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", names) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(names.size(), "?")) + ")";
+        int budgetColumn = indexOf(columns, "BUDGET");
+        int userEmailColumn = indexOf(columns, "USER_EMAIL");
+        int expenseDoneColumn = indexOf(columns, "EXPENSE_DONE");
+        boolean legacyBudget = "USER_EXPENSE".equals(table) && !currentColumns.contains("BUDGET")
+                && budgetColumn >= 0 && userEmailColumn >= 0 && expenseDoneColumn >= 0;
+
+        long restored = 0;
+        List<Object[]> batch = new ArrayList<>(RESTORE_BATCH_SIZE);
+        Object[] row;
+        while ((row = reader.nextRow()) != null) {
+            if (legacyBudget) {
+                collectLegacyBudget(legacyBudgets, row[userEmailColumn], row[expenseDoneColumn], row[budgetColumn]);
+            }
+            Object[] values = new Object[positions.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = row[positions.get(i)];
+            }
+            batch.add(values);
+            if (batch.size() == RESTORE_BATCH_SIZE) {
+                restored += insertBatch(sql, batch);
+            }
+        }
+        if (!batch.isEmpty()) {
+            restored += insertBatch(sql, batch);
+        }
+        return restored;
+    }
+
+    /**
+     * Every expense used to carry the budget sent with it, so the latest expense of a user's
+     * month holds the budget that was in force; rows are read in insertion order and later ones win.
+     */
+    private static void collectLegacyBudget(Map<String, Budget> budgets, Object userEmail, Object expenseDone, Object budget) {
+        if (!(userEmail instanceof String) || !(expenseDone instanceof LocalDate) || !(budget instanceof Integer) || (Integer) budget <= 0) {
+            return;
+        }
+        YearMonth month = YearMonth.from((LocalDate) expenseDone);
+        String key = Budget.key((String) userEmail, month, null);
+        budgets.put(key, new Budget(key, (String) userEmail, month.toString(), null, BigDecimal.valueOf((Integer) budget), null));
+    }
+
+    private static int indexOf(List<SnapshotFile.Column> columns, String name) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getName().equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int insertBatch(String sql, List<Object[]> batch) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, batch));
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+
+    /** Moves the id sequence past the restored ids so new expenses do not collide with them. */
+    private void advanceSequence() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(ID), 0) FROM USER_EXPENSE", Long.class);
+        jdbcTemplate.execute("ALTER SEQUENCE HIBERNATE_SEQUENCE RESTART WITH " + (maxId + 1));
+    }
+
+    private Path snapshotPath() {
+        return Paths.get(path);
+    }
+}
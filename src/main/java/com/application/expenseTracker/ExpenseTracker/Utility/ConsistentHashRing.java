@@ -0,0 +1,61 @@
+package com.application.expenseTracker.ExpenseTracker.Utility;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maps keys to shards {@code 0..shards-1} by consistent hashing. Each shard owns
+ * {@code virtualNodes} points on a 64-bit ring and a key belongs to the first point at or after
+ * its own hash, so adding a shard only takes keys away from the others (about {@code 1/shards}
+ * of them) and never moves a key between two existing shards. Immutable and thread-safe.
+ */
+public final class ConsistentHashRing {
+
+    private final TreeMap<Long, Integer> ring = new TreeMap<>();
+    private final int shards;
+
+    public ConsistentHashRing(int shards, int virtualNodes) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("A ring needs at least one shard: " + shards);
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("A shard needs at least one virtual node: " + virtualNodes);
+        }
+        this.shards = shards;
+        for (int shard = 0; shard < shards; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                // A point taken by an earlier shard stays with it, so rings of any size agree on it.
+                ring.putIfAbsent(hash("shard-" + shard + "#" + node), shard);
+            }
+        }
+    }
+
+    public int shardFor(String key) {
+        if (shards == 1) {
+            return 0;
+        }
+        Map.Entry<Long, Integer> point = ring.ceilingEntry(hash(key));
+        return (point != null ? point : ring.firstEntry()).getValue();
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    /** The first 8 bytes of the key's MD5, which spreads similar emails evenly around the ring. */
+    static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+}
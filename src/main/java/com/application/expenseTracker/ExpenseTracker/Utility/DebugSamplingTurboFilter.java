@@ -0,0 +1,84 @@
+package com.application.expenseTracker.ExpenseTracker.Utility;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Samples repetitive DEBUG and TRACE output. Events are grouped by message template, so this
+ * relies on parameterised messages: within each window the first {@code burst} events of a
+ * template are logged, then one in every {@code sampleEvery}. The decision is made before the
+ * message is formatted, so a dropped event costs a map lookup and an increment. Other levels
+ * and loggers not enabled for DEBUG are left to the normal level check.
+ */
+public class DebugSamplingTurboFilter extends TurboFilter {
+
+    private int burst = 20;
+    private int sampleEvery = 100;
+    private long windowMs = 1000;
+    private int maxTemplates = 10000;
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (!isStarted() || format == null || level.toInt() > Level.DEBUG_INT || level.toInt() < logger.getEffectiveLevel().toInt()) {
+            return FilterReply.NEUTRAL;
+        }
+        Window window = windows.get(format);
+        if (window == null) {
+            if (windows.size() >= maxTemplates) {
+                windows.clear();
+            }
+            window = windows.computeIfAbsent(format, key -> new Window());
+        }
+        long seen = window.next(System.currentTimeMillis(), windowMs);
+        if (seen <= burst || (seen - burst) % sampleEvery == 0) {
+            return FilterReply.NEUTRAL;
+        }
+        dropped.incrementAndGet();
+        return FilterReply.DENY;
+    }
+
+    /** @return how many events were dropped since start */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public void setBurst(int burst) {
+        this.burst = burst;
+    }
+
+    public void setSampleEvery(int sampleEvery) {
+        this.sampleEvery = Math.max(1, sampleEvery);
+    }
+
+    public void setWindowMs(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    public void setMaxTemplates(int maxTemplates) {
+        this.maxTemplates = maxTemplates;
+    }
+
+    private static final class Window {
+        private volatile long startedAt;
+        private final AtomicLong count = new AtomicLong();
+
+        /** Racing resets may let a few extra events through, which is fine for sampling. */
+        long next(long now, long windowMs) {
+            if (now - startedAt >= windowMs) {
+                startedAt = now;
+                count.set(0);
+            }
+            return count.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,446 @@
+package com.application.expenseTracker.ExpenseTracker.Utility;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Immutable, compressed, column-oriented file holding one user's expenses of one month.
+ *
+ * <pre>
+ * magic "EXPARCH1" | int formatVersion | userEmail | int year | int month | int rowCount | int columnCount
+ * per column: byte column | int rawLength | int compressedLength
+ * the deflated column blocks, in the same order
+ * long crc32 of everything before the checksum
+ * </pre>
+ *
+ * Rows are stored in id order, ids as deltas and every other value in its own column, so each
+ * column compresses well on its own and aggregates only inflate the day, amount, category and
+ * payment mode columns. Nullable values are prefixed by a presence byte, numbers are variable
+ * length. Files are read through a memory-mapped view of the whole file, which is small since it
+ * only covers one user and month.
+ */
+public final class ExpenseArchiveFile {
+
+    private static final byte[] MAGIC = "EXPARCH1".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 1;
+
+    private enum Column { ID, DAY, AMOUNT, CATEGORY, PAYMENT_MODE, RECURRING, TITLE, NOTES, CREATED_AT, UPDATED_AT, VERSION }
+
+    /** Receives the aggregate columns of each archived expense. */
+    public interface AmountVisitor {
+        void visit(LocalDate day, Expense.ExpenseCategory category, Expense.PaymentMode paymentMode, BigDecimal amount);
+    }
+
+    private ExpenseArchiveFile() {
+    }
+
+    /**
+     * Writes {@code expenses} to a temporary sibling of {@code target} and forces it to disk.
+     * Nothing is visible at {@code target} until the caller passes the result to {@link #publish}.
+     *
+     * @return the temporary file
+     */
+    public static Path write(Path target, String userEmail, YearMonth month, Collection<Expense> expenses) throws IOException {
+        List<Expense> rows = new ArrayList<>(expenses);
+        rows.sort(Comparator.comparing(Expense::getId));
+        Map<Column, byte[]> columns = encode(rows);
+
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = parent.resolve(target.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileOutputStream fileOut = new FileOutputStream(temporary.toFile())) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(body);
+            out.write(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            writeString(out, userEmail);
+            out.writeInt(month.getYear());
+            out.writeInt(month.getMonthValue());
+            out.writeInt(rows.size());
+            out.writeInt(columns.size());
+            List<byte[]> blocks = new ArrayList<>(columns.size());
+            for (Map.Entry<Column, byte[]> column : columns.entrySet()) {
+                byte[] block = deflate(column.getValue());
+                out.writeByte(column.getKey().ordinal());
+                out.writeInt(column.getValue().length);
+                out.writeInt(block.length);
+                blocks.add(block);
+            }
+            for (byte[] block : blocks) {
+                out.write(block);
+            }
+            out.flush();
+            byte[] bytes = body.toByteArray();
+            crc.update(bytes);
+            fileOut.write(bytes);
+            new DataOutputStream(fileOut).writeLong(crc.getValue());
+            fileOut.getChannel().force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        return temporary;
+    }
+
+    /** Atomically replaces {@code target} with a file returned by {@link #write}. */
+    public static void publish(Path temporary, Path target) throws IOException {
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static Reader open(Path path) throws IOException {
+        return new Reader(path);
+    }
+
+    public static final class Reader implements Closeable {
+        private final Path path;
+        private final String userEmail;
+        private final YearMonth month;
+        private final int rowCount;
+        private final Map<Column, int[]> directory = new EnumMap<>(Column.class);
+        private MappedByteBuffer file;
+
+        private Reader(Path path) throws IOException {
+            this.path = path;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < MAGIC.length + 6 * Integer.BYTES + Long.BYTES) {
+                    throw new IOException("Archive " + path + " is truncated");
+                }
+                // The mapping stays valid after the channel is closed.
+                file = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            int bodyLength = file.capacity() - Long.BYTES;
+            CRC32 crc = new CRC32();
+            ByteBuffer body = file.duplicate();
+            ((Buffer) body).limit(bodyLength);
+            crc.update(body);
+            if (file.getLong(bodyLength) != crc.getValue()) {
+                throw new IOException("Archive " + path + " failed its checksum");
+            }
+            byte[] magic = new byte[MAGIC.length];
+            file.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Archive " + path + " is not an expense archive");
+            }
+            int version = file.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Archive " + path + " has unsupported format version " + version);
+            }
+            this.userEmail = readString(file);
+            this.month = YearMonth.of(file.getInt(), file.getInt());
+            this.rowCount = file.getInt();
+            int columnCount = file.getInt();
+            int[][] entries = new int[columnCount][];
+            Column[] names = new Column[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                names[i] = Column.values()[file.get()];
+                entries[i] = new int[]{0, file.getInt(), file.getInt()};
+            }
+            int offset = file.position();
+            for (int i = 0; i < columnCount; i++) {
+                entries[i][0] = offset;
+                offset += entries[i][2];
+                directory.put(names[i], entries[i]);
+            }
+            if (offset != bodyLength) {
+                throw new IOException("Archive " + path + " has a corrupt column directory");
+            }
+        }
+
+        public String getUserEmail() {
+            return userEmail;
+        }
+
+        public YearMonth getMonth() {
+            return month;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        /** Decodes every column into whole expenses, in id order. */
+        public List<Expense> readExpenses() throws IOException {
+            DataInputStream ids = column(Column.ID);
+            DataInputStream days = column(Column.DAY);
+            DataInputStream amounts = column(Column.AMOUNT);
+            DataInputStream categories = column(Column.CATEGORY);
+            DataInputStream paymentModes = column(Column.PAYMENT_MODE);
+            DataInputStream recurring = column(Column.RECURRING);
+            DataInputStream titles = column(Column.TITLE);
+            DataInputStream notes = column(Column.NOTES);
+            DataInputStream createdAt = column(Column.CREATED_AT);
+            DataInputStream updatedAt = column(Column.UPDATED_AT);
+            DataInputStream versions = column(Column.VERSION);
+
+            List<Expense> expenses = new ArrayList<>(rowCount);
+            long id = 0;
+            for (int row = 0; row < rowCount; row++) {
+                id += readVarLong(ids);
+                Expense expense = new Expense();
+                expense.setId(id);
+                expense.setUserEmail(userEmail);
+                expense.setExpenseDone(month.atDay(days.readUnsignedByte()));
+                // The setters of these reject null, which rows loaded by JPA can still hold.
+                BigDecimal amount = readDecimal(amounts);
+                if (amount != null) {
+                    expense.setAmount(amount);
+                }
+                Expense.ExpenseCategory category = readEnum(categories, Expense.ExpenseCategory.values());
+                if (category != null) {
+                    expense.setCategory(category);
+                }
+                expense.setPaymentMode(readEnum(paymentModes, Expense.PaymentMode.values()));
+                expense.setRecurring(recurring.readBoolean());
+                String title = readNullableString(titles);
+                if (title != null) {
+                    expense.setTitle(title);
+                }
+                expense.setNotes(readNullableString(notes));
+                expense.setCreatedAt(readTimestamp(createdAt));
+                expense.setUpdatedAt(readTimestamp(updatedAt));
+                expense.setVersion(versions.readBoolean() ? readVarLong(versions) : null);
+                expenses.add(expense);
+            }
+            return expenses;
+        }
+
+        /** Visits each expense's day, category, payment mode and amount without decoding the other columns. */
+        public void forEachAmount(AmountVisitor visitor) throws IOException {
+            DataInputStream days = column(Column.DAY);
+            DataInputStream amounts = column(Column.AMOUNT);
+            DataInputStream categories = column(Column.CATEGORY);
+            DataInputStream paymentModes = column(Column.PAYMENT_MODE);
+            for (int row = 0; row < rowCount; row++) {
+                LocalDate day = month.atDay(days.readUnsignedByte());
+                BigDecimal amount = readDecimal(amounts);
+                Expense.ExpenseCategory category = readEnum(categories, Expense.ExpenseCategory.values());
+                Expense.PaymentMode paymentMode = readEnum(paymentModes, Expense.PaymentMode.values());
+                if (amount != null) {
+                    visitor.visit(day, category, paymentMode, amount);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            file = null;
+        }
+
+        /** Copies a column block out of the mapping and inflates it. */
+        private DataInputStream column(Column column) throws IOException {
+            int[] entry = directory.get(column);
+            if (entry == null) {
+                throw new IOException("Archive " + path + " has no " + column + " column");
+            }
+            byte[] compressed = new byte[entry[2]];
+            ByteBuffer block = file.duplicate();
+            ((Buffer) block).position(entry[0]);
+            block.get(compressed);
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed);
+                byte[] raw = new byte[entry[1]];
+                int length = 0;
+                while (length < raw.length && !inflater.finished()) {
+                    int read = inflater.inflate(raw, length, raw.length - length);
+                    if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    length += read;
+                }
+                if (length != raw.length) {
+                    throw new IOException("Archive " + path + " has a truncated " + column + " column");
+                }
+                return new DataInputStream(new ByteArrayInputStream(raw));
+            } catch (DataFormatException e) {
+                throw new IOException("Archive " + path + " has a corrupt " + column + " column", e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    private static Map<Column, byte[]> encode(List<Expense> rows) throws IOException {
+        Map<Column, ByteArrayOutputStream> buffers = new EnumMap<>(Column.class);
+        Map<Column, DataOutputStream> outs = new EnumMap<>(Column.class);
+        for (Column column : Column.values()) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            buffers.put(column, buffer);
+            outs.put(column, new DataOutputStream(buffer));
+        }
+        long previousId = 0;
+        for (Expense expense : rows) {
+            writeVarLong(outs.get(Column.ID), expense.getId() - previousId);
+            previousId = expense.getId();
+            outs.get(Column.DAY).writeByte(expense.getExpenseDone().getDayOfMonth());
+            writeDecimal(outs.get(Column.AMOUNT), expense.getAmount());
+            writeEnum(outs.get(Column.CATEGORY), expense.getCategory());
+            writeEnum(outs.get(Column.PAYMENT_MODE), expense.getPaymentMode());
+            outs.get(Column.RECURRING).writeBoolean(expense.isRecurring());
+            writeNullableString(outs.get(Column.TITLE), expense.getTitle());
+            writeNullableString(outs.get(Column.NOTES), expense.getNotes());
+            writeTimestamp(outs.get(Column.CREATED_AT), expense.getCreatedAt());
+            writeTimestamp(outs.get(Column.UPDATED_AT), expense.getUpdatedAt());
+            DataOutputStream versions = outs.get(Column.VERSION);
+            versions.writeBoolean(expense.getVersion() != null);
+            if (expense.getVersion() != null) {
+                writeVarLong(versions, expense.getVersion());
+            }
+        }
+        Map<Column, byte[]> columns = new EnumMap<>(Column.class);
+        for (Column column : Column.values()) {
+            outs.get(column).flush();
+            columns.put(column, buffers.get(column).toByteArray());
+        }
+        return columns;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /** Amounts as scale and zig-zag unscaled value; values too large for a long never occur for money. */
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            BigInteger unscaled = value.unscaledValue();
+            if (unscaled.bitLength() > 63) {
+                throw new IllegalArgumentException("Amount " + value + " is too large to archive");
+            }
+            writeVarLong(out, zigZag(value.scale()));
+            writeVarLong(out, zigZag(unscaled.longValue()));
+        }
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        int scale = (int) unZigZag(readVarLong(in));
+        return BigDecimal.valueOf(unZigZag(readVarLong(in)), scale);
+    }
+
+    private static void writeEnum(DataOutputStream out, Enum<?> value) throws IOException {
+        out.writeByte(value == null ? 0 : value.ordinal() + 1);
+    }
+
+    private static <E extends Enum<E>> E readEnum(DataInputStream in, E[] values) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        return ordinal == 0 ? null : values[ordinal - 1];
+    }
+
+    private static void writeTimestamp(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeVarLong(out, zigZag(value.toEpochSecond(ZoneOffset.UTC)));
+            writeVarLong(out, value.getNano());
+        }
+    }
+
+    private static LocalDateTime readTimestamp(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long seconds = unZigZag(readVarLong(in));
+        return LocalDateTime.ofEpochSecond(seconds, (int) readVarLong(in), ZoneOffset.UTC);
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        if (in.get() == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length number");
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,70 @@
+package com.application.expenseTracker.ExpenseTracker.Utility;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.encoder.EncoderBase;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Writes each log event as one line of JSON: timestamp, level, thread, logger, the formatted
+ * message, the message template, MDC entries and the stack trace when there is one. Keeping the
+ * template lets log tooling group events that only differ in their arguments.
+ */
+public class JsonLogEncoder extends EncoderBase<ILoggingEvent> {
+
+    private static final byte[] NO_BYTES = new byte[0];
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Override
+    public byte[] headerBytes() {
+        return NO_BYTES;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+            json.writeStartObject();
+            json.writeStringField("timestamp", Instant.ofEpochMilli(event.getTimeStamp()).toString());
+            json.writeStringField("level", event.getLevel().toString());
+            json.writeStringField("thread", event.getThreadName());
+            json.writeStringField("logger", event.getLoggerName());
+            json.writeStringField("message", event.getFormattedMessage());
+            if (event.getArgumentArray() != null && event.getArgumentArray().length > 0) {
+                json.writeStringField("template", event.getMessage());
+            }
+            Map<String, String> mdc = event.getMDCPropertyMap();
+            if (mdc != null && !mdc.isEmpty()) {
+                json.writeObjectFieldStart("mdc");
+                for (Map.Entry<String, String> entry : mdc.entrySet()) {
+                    json.writeStringField(entry.getKey(), entry.getValue());
+                }
+                json.writeEndObject();
+            }
+            IThrowableProxy throwable = event.getThrowableProxy();
+            if (throwable != null) {
+                json.writeStringField("exception", throwable.getClassName());
+                json.writeStringField("stackTrace", ThrowableProxyUtil.asString(throwable));
+            }
+            json.writeEndObject();
+        } catch (IOException e) {
+            addError("Could not encode log event as JSON", e);
+            return NO_BYTES;
+        }
+        out.write('\n');
+        return out.toByteArray();
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return NO_BYTES;
+    }
+}
@@ -63,6 +63,14 @@ public class JwtUtil {
         return createToken(claims, userDetails.getUsername());
     }
 
+    public String generateToken(String username) {
+        return createToken(new HashMap<>(), username);
+    }
+
+    public long getExpirationMs() {
+        return EXPIRATION_TIME;
+    }
+
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
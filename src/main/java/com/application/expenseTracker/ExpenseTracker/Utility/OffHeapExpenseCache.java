@@ -0,0 +1,459 @@
+package com.application.expenseTracker.ExpenseTracker.Utility;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Cache of {@link Expense} records by id, stored outside the Java heap in direct buffers.
+ *
+ * <pre>
+ * slot:    long id | long expiresAtMillis | int length | payload, slotBytes in total
+ * payload: short presence bits | title | userEmail | amount | category | paymentMode
+ *          | expenseDone | notes | createdAt | updatedAt | version   (absent fields are skipped)
+ * </pre>
+ *
+ * Ids are split over segments, each with its own lock, buffer of fixed-size slots and a
+ * primitive open-addressing index from id to slot. All memory is allocated up front, so the
+ * cache costs {@code slotBytes} off-heap plus 30 to 50 bytes of primitive arrays per entry and
+ * never grows or adds objects for the garbage collector to trace.
+ * When a segment is full the clock hand evicts the first slot not read since its last pass.
+ * Records that do not fit a slot are not cached.
+ */
+public final class OffHeapExpenseCache {
+
+    private static final int HEADER_BYTES = 2 * Long.BYTES + Integer.BYTES;
+    /** Amounts longer than this are left uncached rather than truncated. */
+    static final int MAX_UNSCALED_BYTES = 0xFFFF;
+
+    private static final int TITLE = 1;
+    private static final int USER_EMAIL = 1 << 1;
+    private static final int AMOUNT = 1 << 2;
+    private static final int CATEGORY = 1 << 3;
+    private static final int PAYMENT_MODE = 1 << 4;
+    private static final int EXPENSE_DONE = 1 << 5;
+    private static final int NOTES = 1 << 6;
+    private static final int CREATED_AT = 1 << 7;
+    private static final int UPDATED_AT = 1 << 8;
+    private static final int VERSION = 1 << 9;
+    private static final int RECURRING = 1 << 10;
+
+    private final Segment[] segments;
+    private final int slotBytes;
+    private final long ttlMs;
+
+    /**
+     * @param capacity  total number of entries, spread evenly over the segments
+     * @param slotBytes bytes per entry including the 20 byte header
+     * @param ttlMs     how long an entry is served before it is reloaded
+     */
+    public OffHeapExpenseCache(int capacity, int slotBytes, int segmentCount, long ttlMs) {
+        if (slotBytes <= HEADER_BYTES || capacity < segmentCount || segmentCount <= 0) {
+            throw new IllegalArgumentException("Need slotBytes > " + HEADER_BYTES + " and at least one entry per segment");
+        }
+        int slotsPerSegment = capacity / segmentCount;
+        if ((long) slotsPerSegment * slotBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A segment cannot exceed 2 GB, use more segments");
+        }
+        this.slotBytes = slotBytes;
+        this.ttlMs = ttlMs;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(slotsPerSegment);
+        }
+    }
+
+    /** @return a fresh copy of the cached expense, or {@code null} on a miss */
+    public Expense get(long id) {
+        byte[] payload = segmentFor(id).read(id);
+        return payload == null ? null : decode(id, payload);
+    }
+
+    /**
+     * Loaders take a stamp before reading the database and pass it to {@link #put}; the put is
+     * dropped if the id's segment saw an invalidation in between, so a slow load can never
+     * overwrite a newer write with the value it read before it.
+     */
+    public long stamp(long id) {
+        return segmentFor(id).generation();
+    }
+
+    /** @return whether the expense was cached */
+    public boolean put(Expense expense, long stamp) {
+        if (expense.getId() == null || expense.getId() == 0) {
+            return false;
+        }
+        byte[] payload = encode(expense);
+        if (payload == null || HEADER_BYTES + payload.length > slotBytes) {
+            return false;
+        }
+        return segmentFor(expense.getId()).write(expense.getId(), payload, System.currentTimeMillis() + ttlMs, stamp);
+    }
+
+    public void invalidate(long id) {
+        segmentFor(id).remove(id);
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long getEvictions() {
+        long evictions = 0;
+        for (Segment segment : segments) {
+            evictions += segment.evictions();
+        }
+        return evictions;
+    }
+
+    public long getCapacity() {
+        return (long) segments.length * segments[0].slotCount;
+    }
+
+    public long getOffHeapBytes() {
+        return getCapacity() * slotBytes;
+    }
+
+    /** Mean distance of an entry from its home bucket, over all segments. */
+    double meanProbe() {
+        long distance = 0;
+        long entries = 0;
+        for (Segment segment : segments) {
+            long[] probe = segment.probe();
+            distance += probe[0];
+            entries += probe[1];
+        }
+        return entries == 0 ? 0 : (double) distance / entries;
+    }
+
+    /**
+     * Picks the segment from the high bits of the hash, since the buckets within a segment are
+     * picked from its low bits; sharing bits would leave most buckets of a segment never home.
+     */
+    private Segment segmentFor(long id) {
+        return segments[(int) (((mix(id) & 0xFFFFFFFFL) * segments.length) >>> 32)];
+    }
+
+    /** Two multiply-xorshift rounds, so sequential ids spread over both the high and the low bits. */
+    private static int mix(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h *= 0xD6E8FEB86659FD93L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private final class Segment {
+
+        private final int slotCount;
+        private final ByteBuffer slots;
+        private final ByteBuffer view;
+        /** Index from id to slot, 0 marks an empty bucket. Linear probing with backward-shift deletion. */
+        private final long[] keys;
+        private final int[] slotOf;
+        private final int mask;
+        private final boolean[] referenced;
+        private final int[] free;
+        private int freeCount;
+        private int hand;
+        private int size;
+        private long evictions;
+        private volatile long generation;
+
+        Segment(int slotCount) {
+            this.slotCount = slotCount;
+            this.slots = ByteBuffer.allocateDirect(slotCount * slotBytes);
+            this.view = slots.duplicate();
+            int buckets = Integer.highestOneBit(Math.max(2, slotCount * 2 - 1)) << 1;
+            this.keys = new long[buckets];
+            this.slotOf = new int[buckets];
+            this.mask = buckets - 1;
+            this.referenced = new boolean[slotCount];
+            this.free = new int[slotCount];
+            for (int i = 0; i < slotCount; i++) {
+                free[i] = slotCount - 1 - i;
+            }
+            this.freeCount = slotCount;
+        }
+
+        long generation() {
+            return generation;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long evictions() {
+            return evictions;
+        }
+
+        synchronized byte[] read(long id) {
+            int bucket = find(id);
+            if (bucket < 0) {
+                return null;
+            }
+            int slot = slotOf[bucket];
+            int offset = slot * slotBytes;
+            if (slots.getLong(offset + Long.BYTES) < System.currentTimeMillis()) {
+                release(bucket, slot);
+                return null;
+            }
+            byte[] payload = new byte[slots.getInt(offset + 2 * Long.BYTES)];
+            ((Buffer) view).position(offset + HEADER_BYTES);
+            view.get(payload);
+            referenced[slot] = true;
+            return payload;
+        }
+
+        synchronized boolean write(long id, byte[] payload, long expiresAt, long stamp) {
+            if (generation != stamp) {
+                return false;
+            }
+            int bucket = find(id);
+            int slot;
+            if (bucket >= 0) {
+                slot = slotOf[bucket];
+            } else {
+                slot = freeCount > 0 ? free[--freeCount] : evict();
+                insert(id, slot);
+                size++;
+            }
+            int offset = slot * slotBytes;
+            slots.putLong(offset, id);
+            slots.putLong(offset + Long.BYTES, expiresAt);
+            slots.putInt(offset + 2 * Long.BYTES, payload.length);
+            ((Buffer) view).position(offset + HEADER_BYTES);
+            view.put(payload);
+            referenced[slot] = true;
+            return true;
+        }
+
+        synchronized void remove(long id) {
+            generation++;
+            int bucket = find(id);
+            if (bucket >= 0) {
+                release(bucket, slotOf[bucket]);
+            }
+        }
+
+        synchronized void clear() {
+            generation++;
+            Arrays.fill(keys, 0L);
+            Arrays.fill(referenced, false);
+            for (int i = 0; i < slotCount; i++) {
+                free[i] = slotCount - 1 - i;
+            }
+            freeCount = slotCount;
+            size = 0;
+        }
+
+        /** @return the summed distance of the entries from their home buckets, and the number of entries */
+        synchronized long[] probe() {
+            long distance = 0;
+            long entries = 0;
+            for (int bucket = 0; bucket <= mask; bucket++) {
+                if (keys[bucket] != 0) {
+                    distance += (bucket - mix(keys[bucket])) & mask;
+                    entries++;
+                }
+            }
+            return new long[]{distance, entries};
+        }
+
+        /** Clock sweep; only called when every slot is in use, so each slot maps back to an id. */
+        private int evict() {
+            while (true) {
+                int slot = hand;
+                hand = hand + 1 == slotCount ? 0 : hand + 1;
+                if (referenced[slot]) {
+                    referenced[slot] = false;
+                } else {
+                    deleteBucket(find(slots.getLong(slot * slotBytes)));
+                    size--;
+                    evictions++;
+                    return slot;
+                }
+            }
+        }
+
+        private void release(int bucket, int slot) {
+            deleteBucket(bucket);
+            referenced[slot] = false;
+            free[freeCount++] = slot;
+            size--;
+        }
+
+        private int find(long id) {
+            for (int bucket = mix(id) & mask; keys[bucket] != 0; bucket = (bucket + 1) & mask) {
+                if (keys[bucket] == id) {
+                    return bucket;
+                }
+            }
+            return -1;
+        }
+
+        private void insert(long id, int slot) {
+            int bucket = mix(id) & mask;
+            while (keys[bucket] != 0) {
+                bucket = (bucket + 1) & mask;
+            }
+            keys[bucket] = id;
+            slotOf[bucket] = slot;
+        }
+
+        /** Shifts later members of the probe run back so lookups never stop at the hole. */
+        private void deleteBucket(int hole) {
+            int next = hole;
+            while (true) {
+                next = (next + 1) & mask;
+                if (keys[next] == 0) {
+                    break;
+                }
+                int home = mix(keys[next]) & mask;
+                boolean reachableWithoutHole = hole <= next ? hole < home && home <= next : hole < home || home <= next;
+                if (!reachableWithoutHole) {
+                    keys[hole] = keys[next];
+                    slotOf[hole] = slotOf[next];
+                    hole = next;
+                }
+            }
+            keys[hole] = 0;
+        }
+    }
+
+    /** @return the payload, or {@code null} when a field is too large for the encoding */
+    static byte[] encode(Expense expense) {
+        int presence = 0;
+        presence |= expense.getTitle() != null ? TITLE : 0;
+        presence |= expense.getUserEmail() != null ? USER_EMAIL : 0;
+        presence |= expense.getAmount() != null ? AMOUNT : 0;
+        presence |= expense.getCategory() != null ? CATEGORY : 0;
+        presence |= expense.getPaymentMode() != null ? PAYMENT_MODE : 0;
+        presence |= expense.getExpenseDone() != null ? EXPENSE_DONE : 0;
+        presence |= expense.getNotes() != null ? NOTES : 0;
+        presence |= expense.getCreatedAt() != null ? CREATED_AT : 0;
+        presence |= expense.getUpdatedAt() != null ? UPDATED_AT : 0;
+        presence |= expense.getVersion() != null ? VERSION : 0;
+        presence |= expense.isRecurring() ? RECURRING : 0;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeShort(presence);
+            if (expense.getTitle() != null) {
+                out.writeUTF(expense.getTitle());
+            }
+            if (expense.getUserEmail() != null) {
+                out.writeUTF(expense.getUserEmail());
+            }
+            if (expense.getAmount() != null) {
+                byte[] unscaled = expense.getAmount().unscaledValue().toByteArray();
+                int scale = expense.getAmount().scale();
+                if (unscaled.length > MAX_UNSCALED_BYTES || scale < Short.MIN_VALUE || scale > Short.MAX_VALUE) {
+                    return null;
+                }
+                out.writeShort(scale);
+                out.writeShort(unscaled.length);
+                out.write(unscaled);
+            }
+            if (expense.getCategory() != null) {
+                out.writeByte(expense.getCategory().ordinal());
+            }
+            if (expense.getPaymentMode() != null) {
+                out.writeByte(expense.getPaymentMode().ordinal());
+            }
+            if (expense.getExpenseDone() != null) {
+                out.writeInt((int) expense.getExpenseDone().toEpochDay());
+            }
+            if (expense.getNotes() != null) {
+                out.writeUTF(expense.getNotes());
+            }
+            if (expense.getCreatedAt() != null) {
+                writeDateTime(out, expense.getCreatedAt());
+            }
+            if (expense.getUpdatedAt() != null) {
+                writeDateTime(out, expense.getUpdatedAt());
+            }
+            if (expense.getVersion() != null) {
+                out.writeLong(expense.getVersion());
+            }
+        } catch (UTFDataFormatException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Expense decode(long id, byte[] payload) {
+        Expense expense = new Expense();
+        expense.setId(id);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int presence = in.readShort();
+            if ((presence & TITLE) != 0) {
+                expense.setTitle(in.readUTF());
+            }
+            if ((presence & USER_EMAIL) != 0) {
+                expense.setUserEmail(in.readUTF());
+            }
+            if ((presence & AMOUNT) != 0) {
+                int scale = in.readShort();
+                byte[] unscaled = new byte[in.readUnsignedShort()];
+                in.readFully(unscaled);
+                expense.setAmount(new BigDecimal(new BigInteger(unscaled), scale));
+            }
+            if ((presence & CATEGORY) != 0) {
+                expense.setCategory(Expense.ExpenseCategory.values()[in.readByte()]);
+            }
+            if ((presence & PAYMENT_MODE) != 0) {
+                expense.setPaymentMode(Expense.PaymentMode.values()[in.readByte()]);
+            }
+            if ((presence & EXPENSE_DONE) != 0) {
+                expense.setExpenseDone(LocalDate.ofEpochDay(in.readInt()));
+            }
+            if ((presence & NOTES) != 0) {
+                expense.setNotes(in.readUTF());
+            }
+            if ((presence & CREATED_AT) != 0) {
+                expense.setCreatedAt(readDateTime(in));
+            }
+            if ((presence & UPDATED_AT) != 0) {
+                expense.setUpdatedAt(readDateTime(in));
+            }
+            if ((presence & VERSION) != 0) {
+                expense.setVersion(in.readLong());
+            }
+            expense.setRecurring((presence & RECURRING) != 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return expense;
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime dateTime) throws IOException {
+        out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(dateTime.getNano());
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        long seconds = in.readLong();
+        return LocalDateTime.ofEpochSecond(seconds, in.readInt(), ZoneOffset.UTC);
+    }
+}
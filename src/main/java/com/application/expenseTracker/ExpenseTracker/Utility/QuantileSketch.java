@@ -0,0 +1,179 @@
+package com.application.expenseTracker.ExpenseTracker.Utility;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch over positive amounts with relative error, in the style of DDSketch.
+ * An amount {@code x} is counted in bucket {@code ceil(log(x) / log(gamma))} with
+ * {@code gamma = (1 + accuracy) / (1 - accuracy)}, so any quantile comes back within
+ * {@code accuracy} of a value that was added. Zero and negative amounts share one bucket below all others.
+ *
+ * <p>Unlike t-digest, buckets are plain counts: {@link #remove(double)} undoes an {@link #add(double)}
+ * exactly and {@link #merge(QuantileSketch)} is lossless, so sketches can follow edits and deletes
+ * and be combined across months in any order. Memory is at most {@code maxBuckets} ints; beyond
+ * that the lowest buckets are folded together, which only costs accuracy at the bottom of the range.
+ * Not thread-safe.
+ */
+public final class QuantileSketch {
+
+    private final double accuracy;
+    private final double gamma;
+    private final double logGamma;
+    private final int maxBuckets;
+
+    /** counts[i] holds bucket offset + i; empty until the first positive amount. */
+    private int[] counts = new int[0];
+    private int offset;
+    private long zeroCount;
+    private long count;
+
+    public QuantileSketch(double accuracy, int maxBuckets) {
+        if (accuracy <= 0 || accuracy >= 1) {
+            throw new IllegalArgumentException("Accuracy must be between 0 and 1: " + accuracy);
+        }
+        if (maxBuckets < 2) {
+            throw new IllegalArgumentException("A sketch needs at least 2 buckets: " + maxBuckets);
+        }
+        this.accuracy = accuracy;
+        this.gamma = (1 + accuracy) / (1 - accuracy);
+        this.logGamma = Math.log(gamma);
+        this.maxBuckets = maxBuckets;
+    }
+
+    public void add(double amount) {
+        adjust(amount, 1);
+    }
+
+    /** Takes back one earlier {@link #add(double)} of the same amount; a count never drops below zero. */
+    public void remove(double amount) {
+        adjust(amount, -1);
+    }
+
+    /** Adds every amount counted in {@code other}, which must have the same accuracy. */
+    public void merge(QuantileSketch other) {
+        if (other.accuracy != accuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches of accuracy " + accuracy + " and " + other.accuracy);
+        }
+        zeroCount += other.zeroCount;
+        count += other.zeroCount;
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] > 0) {
+                adjustBucket(other.offset + i, other.counts[i]);
+            }
+        }
+    }
+
+    /**
+     * @param quantile between 0 and 1
+     * @return the estimated amount, or {@code NaN} when the sketch is empty
+     */
+    public double quantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + quantile);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (quantile * (count - 1));
+        if (rank < zeroCount) {
+            return 0;
+        }
+        long seen = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return value(offset + i);
+            }
+        }
+        return value(offset + counts.length - 1);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public double getAccuracy() {
+        return accuracy;
+    }
+
+    /** @return the buckets currently allocated, at most {@code maxBuckets} */
+    public int getBucketCount() {
+        return counts.length;
+    }
+
+    private void adjust(double amount, int delta) {
+        if (Double.isNaN(amount)) {
+            return;
+        }
+        if (amount <= 0) {
+            if (delta > 0 || zeroCount > 0) {
+                zeroCount += delta;
+                count += delta;
+            }
+            return;
+        }
+        adjustBucket((int) Math.ceil(Math.log(amount) / logGamma), delta);
+    }
+
+    private void adjustBucket(int index, int delta) {
+        if (counts.length == 0) {
+            if (delta <= 0) {
+                return;
+            }
+            counts = new int[1];
+            offset = index;
+        } else if (index < offset) {
+            if (delta <= 0) {
+                // Below every bucket: either never added or folded into the lowest one.
+                index = offset;
+            } else {
+                grow(index, offset + counts.length - 1);
+            }
+        } else if (index >= offset + counts.length) {
+            if (delta <= 0) {
+                return;
+            }
+            grow(offset, index);
+        }
+        // Folding may have moved the index's bucket up into the lowest remaining one.
+        int slot = Math.max(index, offset) - offset;
+        int applied = delta < 0 ? -Math.min(-delta, counts[slot]) : delta;
+        counts[slot] += applied;
+        count += applied;
+    }
+
+    /** Widens the dense range to cover low..high, folding the lowest buckets when that exceeds maxBuckets. */
+    private void grow(int low, int high) {
+        if (high - low + 1 > maxBuckets) {
+            int foldedLow = high - maxBuckets + 1;
+            int[] resized = new int[maxBuckets];
+            for (int i = 0; i < counts.length; i++) {
+                int index = Math.max(offset + i, foldedLow);
+                if (index - foldedLow < maxBuckets) {
+                    resized[index - foldedLow] += counts[i];
+                }
+            }
+            counts = resized;
+            offset = foldedLow;
+            return;
+        }
+        int[] resized = new int[high - low + 1];
+        System.arraycopy(counts, 0, resized, offset - low, counts.length);
+        counts = resized;
+        offset = low;
+    }
+
+    /** The midpoint of bucket {@code index} in relative terms, within {@code accuracy} of every amount in it. */
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "QuantileSketch{count=" + count + ", zeroCount=" + zeroCount + ", offset=" + offset + ", counts=" + Arrays.toString(counts) + "}";
+    }
+}
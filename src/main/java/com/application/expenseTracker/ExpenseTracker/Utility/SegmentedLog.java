@@ -0,0 +1,294 @@
+package com.application.expenseTracker.ExpenseTracker.Utility;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of byte records split over fixed-size, memory-mapped segment files.
+ *
+ * <pre>
+ * segment file: {baseOffset, 20 digits}.log, preallocated to segmentBytes
+ * record:       int length | int crc32(payload) | payload
+ * </pre>
+ *
+ * Every record gets the next logical offset. A zero length marks the end of the written data,
+ * and one is written after every record, so on reopen the last segment is scanned up to the
+ * first marker, torn write or checksum mismatch and appends continue from there.
+ */
+public final class SegmentedLog implements Closeable {
+
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int INDEX_INTERVAL = 64;
+    private static final String SUFFIX = ".log";
+
+    public static final class Record {
+        private final long offset;
+        private final byte[] payload;
+
+        Record(long offset, byte[] payload) {
+            this.offset = offset;
+            this.payload = payload;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final List<Segment> segments = new ArrayList<>();
+
+    /**
+     * @param maxSegments segments kept on disk; the oldest is deleted when a new one would exceed it
+     */
+    public SegmentedLog(Path directory, int segmentBytes, int maxSegments) throws IOException {
+        if (segmentBytes <= 2 * HEADER_BYTES) {
+            throw new IllegalArgumentException("Segment size is too small: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = Math.max(1, maxSegments);
+        Files.createDirectories(directory);
+
+        List<Long> baseOffsets = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                baseOffsets.add(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())));
+            }
+        }
+        Collections.sort(baseOffsets);
+        for (long baseOffset : baseOffsets) {
+            Segment segment = new Segment(baseOffset);
+            segment.recover();
+            segments.add(segment);
+        }
+        if (segments.isEmpty()) {
+            segments.add(new Segment(0L));
+        }
+    }
+
+    /** @return the offset assigned to the record */
+    public synchronized long append(byte[] payload) throws IOException {
+        return append(payload, Long.MAX_VALUE);
+    }
+
+    /**
+     * Appends the record unless starting a new segment would delete one holding records at or
+     * after {@code retainFrom}, such as records a reader has not consumed yet.
+     *
+     * @return the offset assigned to the record, or -1 when the log is full up to {@code retainFrom}
+     */
+    public synchronized long append(byte[] payload, long retainFrom) throws IOException {
+        if (payload.length > segmentBytes - 2 * HEADER_BYTES) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes does not fit in a segment");
+        }
+        Segment active = activeSegment();
+        if (!active.fits(payload.length)) {
+            if (segments.size() >= maxSegments && segments.get(segments.size() - maxSegments).nextOffset() > retainFrom) {
+                return -1;
+            }
+            active.force();
+            active = new Segment(active.nextOffset());
+            segments.add(active);
+            while (segments.size() > maxSegments) {
+                segments.remove(0).delete();
+            }
+        }
+        return active.append(payload);
+    }
+
+    /**
+     * Reads up to {@code maxRecords} records starting at {@code fromOffset}. An offset older than
+     * the oldest retained record starts at the oldest one, which callers can see from the offset
+     * of the first returned record.
+     */
+    public synchronized List<Record> read(long fromOffset, int maxRecords) {
+        List<Record> records = new ArrayList<>();
+        long offset = Math.max(fromOffset, firstOffset());
+        for (Segment segment : segments) {
+            if (records.size() >= maxRecords) {
+                break;
+            }
+            if (offset < segment.nextOffset()) {
+                offset = segment.read(offset, maxRecords - records.size(), records);
+            }
+        }
+        return records;
+    }
+
+    public synchronized long firstOffset() {
+        return segments.get(0).baseOffset;
+    }
+
+    /** @return the offset the next appended record will get */
+    public synchronized long nextOffset() {
+        return activeSegment().nextOffset();
+    }
+
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    /** Flushes written records from the page cache to disk. */
+    public synchronized void force() {
+        activeSegment().force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments) {
+            segment.force();
+            segment.channel.close();
+        }
+        segments.clear();
+    }
+
+    private Segment activeSegment() {
+        if (segments.isEmpty()) {
+            throw new IllegalStateException("Log " + directory + " is closed");
+        }
+        return segments.get(segments.size() - 1);
+    }
+
+    private final class Segment {
+        private final long baseOffset;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        /** Byte position of every INDEX_INTERVAL-th record, so reads do not scan from the start. */
+        private int[] index = new int[16];
+        private int records;
+        private int writePosition;
+
+        private Segment(long baseOffset) throws IOException {
+            this.baseOffset = baseOffset;
+            this.path = directory.resolve(String.format("%020d%s", baseOffset, SUFFIX));
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+
+        private void recover() {
+            int position = 0;
+            while (position + HEADER_BYTES <= segmentBytes) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || length > segmentBytes - position - HEADER_BYTES
+                        || crc(position + HEADER_BYTES, length) != buffer.getInt(position + Integer.BYTES)) {
+                    break;
+                }
+                addToIndex(position);
+                position += HEADER_BYTES + length;
+            }
+            writePosition = position;
+            writeEndMarker();
+        }
+
+        private boolean fits(int length) {
+            return writePosition + HEADER_BYTES + length + Integer.BYTES <= segmentBytes;
+        }
+
+        private long append(byte[] payload) {
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            int position = writePosition;
+            buffer.putInt(position + Integer.BYTES, (int) crc.getValue());
+            putBytes(buffer, position + HEADER_BYTES, payload);
+            writePosition = position + HEADER_BYTES + payload.length;
+            writeEndMarker();
+            // The length goes in last so a torn write never looks like a complete record.
+            buffer.putInt(position, payload.length);
+            long offset = nextOffset();
+            addToIndex(position);
+            return offset;
+        }
+
+        private long read(long fromOffset, int maxRecords, List<Record> target) {
+            int relative = (int) (fromOffset - baseOffset);
+            int position = index[relative / INDEX_INTERVAL];
+            for (int skip = relative % INDEX_INTERVAL; skip > 0; skip--) {
+                position += HEADER_BYTES + buffer.getInt(position);
+            }
+            long offset = fromOffset;
+            for (int read = 0; read < maxRecords && offset < nextOffset(); read++) {
+                byte[] payload = new byte[buffer.getInt(position)];
+                getBytes(buffer, position + HEADER_BYTES, payload);
+                target.add(new Record(offset++, payload));
+                position += HEADER_BYTES + payload.length;
+            }
+            return offset;
+        }
+
+        private long nextOffset() {
+            return baseOffset + records;
+        }
+
+        private void addToIndex(int position) {
+            if (records % INDEX_INTERVAL == 0) {
+                int slot = records / INDEX_INTERVAL;
+                if (slot == index.length) {
+                    index = Arrays.copyOf(index, index.length * 2);
+                }
+                index[slot] = position;
+            }
+            records++;
+        }
+
+        private void writeEndMarker() {
+            if (writePosition + Integer.BYTES <= segmentBytes) {
+                buffer.putInt(writePosition, 0);
+            }
+        }
+
+        private int crc(int position, int length) {
+            byte[] payload = new byte[length];
+            getBytes(buffer, position, payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            return (int) crc.getValue();
+        }
+
+        private void force() {
+            buffer.force();
+        }
+
+        private void delete() throws IOException {
+            channel.close();
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Absolute bulk put/get, which {@link ByteBuffer} only gained in Java 13. Positions are set
+     * through {@link Buffer}, as the ByteBuffer overrides do not exist on Java 8.
+     */
+    private static void putBytes(ByteBuffer buffer, int position, byte[] source) {
+        ByteBuffer view = buffer.duplicate();
+        ((Buffer) view).position(position);
+        view.put(source);
+    }
+
+    private static void getBytes(ByteBuffer buffer, int position, byte[] target) {
+        ByteBuffer view = buffer.duplicate();
+        ((Buffer) view).position(position);
+        view.get(target);
+    }
+}
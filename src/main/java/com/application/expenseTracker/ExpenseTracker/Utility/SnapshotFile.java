@@ -0,0 +1,393 @@
+package com.application.expenseTracker.ExpenseTracker.Utility;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary snapshot of whole tables.
+ *
+ * <pre>
+ * magic "EXPSNAP1" | int formatVersion | long createdAtMillis
+ * per table: byte 1 | name | int columnCount | (column name, byte type)* | (byte 1 | value*)* | byte 0
+ * byte 0 | long crc32 of everything before the checksum
+ * </pre>
+ *
+ * Names and strings are length-prefixed UTF-8 and every value is prefixed by a presence byte,
+ * so nulls cost one byte. Decimals are an int scale and an int-length unscaled value; version 1
+ * files gave that length a single byte and are still read. Files are written to a temporary sibling and moved into place once
+ * complete, and read back through memory-mapped windows after the checksum has been verified.
+ */
+public final class SnapshotFile {
+
+    private static final byte[] MAGIC = "EXPSNAP1".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 2;
+    private static final int BYTE_DECIMAL_LENGTH_VERSION = 1;
+    private static final int MAX_WINDOW = 256 * 1024 * 1024;
+
+    public enum ColumnType {
+        LONG, INT, BOOLEAN, DECIMAL, DOUBLE, STRING, DATE, TIMESTAMP;
+
+        public static ColumnType fromJdbcType(int jdbcType) {
+            switch (jdbcType) {
+                case Types.BIGINT:
+                    return LONG;
+                case Types.INTEGER:
+                case Types.SMALLINT:
+                case Types.TINYINT:
+                    return INT;
+                case Types.BOOLEAN:
+                case Types.BIT:
+                    return BOOLEAN;
+                case Types.NUMERIC:
+                case Types.DECIMAL:
+                    return DECIMAL;
+                case Types.DOUBLE:
+                case Types.FLOAT:
+                case Types.REAL:
+                    return DOUBLE;
+                case Types.CHAR:
+                case Types.VARCHAR:
+                case Types.LONGVARCHAR:
+                case Types.NCHAR:
+                case Types.NVARCHAR:
+                case Types.CLOB:
+                    return STRING;
+                case Types.DATE:
+                    return DATE;
+                case Types.TIMESTAMP:
+                    return TIMESTAMP;
+                default:
+                    throw new IllegalArgumentException("Unsupported JDBC type for snapshots: " + jdbcType);
+            }
+        }
+    }
+
+    public static final class Column {
+        private final String name;
+        private final ColumnType type;
+
+        public Column(String name, ColumnType type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public ColumnType getType() {
+            return type;
+        }
+    }
+
+    private SnapshotFile() {
+    }
+
+    public static Writer create(Path path) throws IOException {
+        return new Writer(path);
+    }
+
+    public static Reader open(Path path) throws IOException {
+        return new Reader(path);
+    }
+
+    public static final class Writer implements Closeable {
+        private final Path target;
+        private final Path temporary;
+        private final CRC32 crc = new CRC32();
+        private final FileOutputStream fileOut;
+        private final DataOutputStream out;
+        private List<Column> columns;
+        private boolean committed;
+
+        private Writer(Path target) throws IOException {
+            this.target = target;
+            Path parent = target.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            this.temporary = parent.resolve(target.getFileName() + ".tmp");
+            this.fileOut = new FileOutputStream(temporary.toFile());
+            this.out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fileOut, crc), 1 << 16));
+            out.write(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(System.currentTimeMillis());
+        }
+
+        public void beginTable(String name, List<Column> columns) throws IOException {
+            this.columns = columns;
+            out.writeByte(1);
+            writeString(name);
+            out.writeInt(columns.size());
+            for (Column column : columns) {
+                writeString(column.getName());
+                out.writeByte(column.getType().ordinal());
+            }
+        }
+
+        public void writeRow(Object[] values) throws IOException {
+            out.writeByte(1);
+            for (int i = 0; i < columns.size(); i++) {
+                writeValue(columns.get(i).getType(), values[i]);
+            }
+        }
+
+        public void endTable() throws IOException {
+            out.writeByte(0);
+            columns = null;
+        }
+
+        /** Writes the checksum, forces the file to disk and atomically replaces the target. */
+        public long commit() throws IOException {
+            out.writeByte(0);
+            out.flush();
+            long checksum = crc.getValue();
+            DataOutputStream trailer = new DataOutputStream(fileOut);
+            trailer.writeLong(checksum);
+            fileOut.getChannel().force(true);
+            fileOut.close();
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+            return checksum;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                fileOut.close();
+                Files.deleteIfExists(temporary);
+            }
+        }
+
+        private void writeValue(ColumnType type, Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(0);
+                return;
+            }
+            out.writeByte(1);
+            switch (type) {
+                case LONG:
+                    out.writeLong(((Number) value).longValue());
+                    break;
+                case INT:
+                    out.writeInt(((Number) value).intValue());
+                    break;
+                case BOOLEAN:
+                    out.writeBoolean((Boolean) value);
+                    break;
+                case DECIMAL:
+                    BigDecimal decimal = (BigDecimal) value;
+                    byte[] unscaled = decimal.unscaledValue().toByteArray();
+                    out.writeInt(decimal.scale());
+                    out.writeInt(unscaled.length);
+                    out.write(unscaled);
+                    break;
+                case DOUBLE:
+                    out.writeDouble(((Number) value).doubleValue());
+                    break;
+                case STRING:
+                    writeString(value.toString());
+                    break;
+                case DATE:
+                    LocalDate date = value instanceof java.sql.Date ? ((java.sql.Date) value).toLocalDate() : (LocalDate) value;
+                    out.writeLong(date.toEpochDay());
+                    break;
+                case TIMESTAMP:
+                    Timestamp timestamp = value instanceof LocalDateTime ? Timestamp.valueOf((LocalDateTime) value) : (Timestamp) value;
+                    out.writeLong(timestamp.getTime());
+                    out.writeInt(timestamp.getNanos());
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown column type " + type);
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    public static final class Reader implements Closeable {
+        private final FileChannel channel;
+        private final long bodyLength;
+        private final long createdAt;
+        private final int formatVersion;
+        private MappedByteBuffer window;
+        private long windowStart;
+        private List<Column> columns;
+
+        private Reader(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                this.bodyLength = channel.size() - Long.BYTES;
+                if (bodyLength < MAGIC.length + Integer.BYTES + Long.BYTES) {
+                    throw new IOException("Snapshot " + path + " is truncated");
+                }
+                verifyChecksum(path);
+                byte[] magic = new byte[MAGIC.length];
+                read(magic);
+                if (!Arrays.equals(magic, MAGIC)) {
+                    throw new IOException("Snapshot " + path + " is not an expense snapshot");
+                }
+                this.formatVersion = readInt();
+                if (formatVersion != FORMAT_VERSION && formatVersion != BYTE_DECIMAL_LENGTH_VERSION) {
+                    throw new IOException("Snapshot " + path + " has unsupported format version " + formatVersion);
+                }
+                this.createdAt = readLong();
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        /** @return the name of the next table, or {@code null} once every table has been read */
+        public String nextTable() throws IOException {
+            if (readByte() == 0) {
+                return null;
+            }
+            String name = readString();
+            int columnCount = readInt();
+            List<Column> tableColumns = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                tableColumns.add(new Column(readString(), ColumnType.values()[readByte()]));
+            }
+            this.columns = Collections.unmodifiableList(tableColumns);
+            return name;
+        }
+
+        public List<Column> getColumns() {
+            return columns;
+        }
+
+        /** @return the next row of the current table, or {@code null} at the end of the table */
+        public Object[] nextRow() throws IOException {
+            if (readByte() == 0) {
+                return null;
+            }
+            Object[] row = new Object[columns.size()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = readValue(columns.get(i).getType());
+            }
+            return row;
+        }
+
+        @Override
+        public void close() throws IOException {
+            window = null;
+            channel.close();
+        }
+
+        private void verifyChecksum(Path path) throws IOException {
+            CRC32 crc = new CRC32();
+            for (long position = 0; position < bodyLength; position += MAX_WINDOW) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAX_WINDOW, bodyLength - position)));
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(Long.BYTES);
+            channel.read(trailer, bodyLength);
+            // Through Buffer, so Java 8 runtimes find the method; ByteBuffer only overrides it from Java 9
+            ((Buffer) trailer).flip();
+            if (trailer.getLong() != crc.getValue()) {
+                throw new IOException("Snapshot " + path + " failed its checksum");
+            }
+        }
+
+        private Object readValue(ColumnType type) throws IOException {
+            if (readByte() == 0) {
+                return null;
+            }
+            switch (type) {
+                case LONG:
+                    return readLong();
+                case INT:
+                    return readInt();
+                case BOOLEAN:
+                    return readByte() != 0;
+                case DECIMAL:
+                    int scale = readInt();
+                    int length = formatVersion == BYTE_DECIMAL_LENGTH_VERSION ? readByte() & 0xFF : readInt();
+                    if (length <= 0) {
+                        throw new IOException("Snapshot has a decimal of invalid length " + length);
+                    }
+                    byte[] unscaled = new byte[length];
+                    read(unscaled);
+                    return new BigDecimal(new BigInteger(unscaled), scale);
+                case DOUBLE:
+                    return Double.longBitsToDouble(readLong());
+                case STRING:
+                    return readString();
+                case DATE:
+                    return LocalDate.ofEpochDay(readLong());
+                case TIMESTAMP:
+                    Timestamp timestamp = new Timestamp(readLong());
+                    timestamp.setNanos(readInt());
+                    return timestamp;
+                default:
+                    throw new IllegalStateException("Unknown column type " + type);
+            }
+        }
+
+        private String readString() throws IOException {
+            byte[] bytes = new byte[readInt()];
+            read(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private byte readByte() throws IOException {
+            ensure(1);
+            return window.get();
+        }
+
+        private int readInt() throws IOException {
+            ensure(Integer.BYTES);
+            return window.getInt();
+        }
+
+        private long readLong() throws IOException {
+            ensure(Long.BYTES);
+            return window.getLong();
+        }
+
+        private void read(byte[] target) throws IOException {
+            ensure(target.length);
+            window.get(target);
+        }
+
+        /** Slides the mapped window forward so that the next {@code length} bytes are readable. */
+        private void ensure(int length) throws IOException {
+            if (window != null && window.remaining() >= length) {
+                return;
+            }
+            long position = window == null ? 0 : windowStart + window.position();
+            if (position + length > bodyLength) {
+                throw new EOFException("Snapshot ended unexpectedly");
+            }
+            long size = Math.min(Math.max(MAX_WINDOW, length), bodyLength - position);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            windowStart = position;
+        }
+    }
+}
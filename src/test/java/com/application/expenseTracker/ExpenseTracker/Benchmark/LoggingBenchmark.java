@@ -0,0 +1,148 @@
+package com.application.expenseTracker.ExpenseTracker.Benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import com.application.expenseTracker.ExpenseTracker.Utility.DebugSamplingTurboFilter;
+import com.application.expenseTracker.ExpenseTracker.Utility.JsonLogEncoder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+/**
+ * Compares request-path logging throughput of the development setup (synchronous pattern
+ * layout into a file, every DEBUG line written) with the structured-logging profile: JSON
+ * through a bounded async queue at the profile's INFO level, then with DEBUG raised for
+ * diagnosis, first without and then with DEBUG sampling. Without sampling the queue overflows
+ * and the async appender drops DEBUG/INFO lines itself. Each simulated request logs what
+ * a controller and service log on the way: one INFO line and a handful of DEBUG lines.
+ * <pre>
+ *   java -cp "target/test-classes:target/classes:target/lib/*" \
+ *       com.application.expenseTracker.ExpenseTracker.Benchmark.LoggingBenchmark [threads] [requestsPerThread]
+ * </pre>
+ */
+public class LoggingBenchmark {
+
+    private static final String FILE_PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} %5p ${PID:- } --- [%t] %-40.40logger{39} : %m%n";
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 50000;
+        Path directory = Files.createTempDirectory("logging-benchmark");
+
+        for (int round = 0; round < 2; round++) {
+            boolean warmUp = round == 0;
+            int perThread = warmUp ? requests / 10 : requests;
+            report("synchronous", 5, warmUp, threads, perThread, run(synchronous(directory.resolve("sync.log")), threads, perThread), directory.resolve("sync.log"));
+            report("async-info", 1, warmUp, threads, perThread, run(asyncJson(directory.resolve("info.json"), Level.INFO, false), threads, perThread), directory.resolve("info.json"));
+            report("async-debug", 5, warmUp, threads, perThread, run(asyncJson(directory.resolve("async.json"), Level.DEBUG, false), threads, perThread), directory.resolve("async.json"));
+            report("+ sampling", 5, warmUp, threads, perThread, run(asyncJson(directory.resolve("sampled.json"), Level.DEBUG, true), threads, perThread), directory.resolve("sampled.json"));
+        }
+    }
+
+    private static LoggerContext synchronous(Path file) throws IOException {
+        LoggerContext context = new LoggerContext();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setPattern(FILE_PATTERN);
+        attach(context, fileAppender(context, file, encoder), Level.DEBUG);
+        return context;
+    }
+
+    private static LoggerContext asyncJson(Path file, Level level, boolean sampled) throws IOException {
+        LoggerContext context = new LoggerContext();
+        if (sampled) {
+            DebugSamplingTurboFilter sampling = new DebugSamplingTurboFilter();
+            sampling.setContext(context);
+            sampling.start();
+            context.addTurboFilter(sampling);
+        }
+
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(context);
+        async.setQueueSize(8192);
+        async.setNeverBlock(true);
+        async.setMaxFlushTime(60000);
+        async.addAppender(fileAppender(context, file, new JsonLogEncoder()));
+        async.start();
+        attach(context, async, level);
+        return context;
+    }
+
+    private static FileAppender<ILoggingEvent> fileAppender(LoggerContext context, Path file, Encoder<ILoggingEvent> encoder) throws IOException {
+        Files.deleteIfExists(file);
+        encoder.setContext(context);
+        encoder.start();
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setFile(file.toString());
+        appender.setEncoder(encoder);
+        appender.start();
+        return appender;
+    }
+
+    private static void attach(LoggerContext context, Appender<ILoggingEvent> appender, Level level) {
+        Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.setLevel(level);
+        root.addAppender(appender);
+    }
+
+    /** @return nanoseconds spent by the request threads, and nanoseconds until everything was written */
+    private static long[] run(LoggerContext context, int threads, int perThread) throws InterruptedException {
+        Logger controller = context.getLogger("com.application.expenseTracker.ExpenseTracker.Controller.CalculationController");
+        Logger service = context.getLogger("com.application.expenseTracker.ExpenseTracker.Service.CalculationService");
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        controller.debug("Entered getAllExpense");
+                        service.debug("Fetching expenses for userEmail: {}", "user" + (i % 50) + "@example.com");
+                        service.debug("Loaded {} recent expenses for {}", i % 20, "all users");
+                        service.debug("Expense: {} matched category: {}", i, "FOOD");
+                        controller.info("Fetched expenses of size: {}", i % 20);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "request-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        done.await();
+        long requestThreads = System.nanoTime() - started;
+        context.stop();
+        long written = System.nanoTime() - started;
+        return new long[]{requestThreads, written};
+    }
+
+    private static void report(String name, int linesPerRequest, boolean warmUp, int threads, int perThread, long[] nanos, Path file) throws IOException {
+        if (warmUp) {
+            return;
+        }
+        long requests = (long) threads * perThread;
+        long lines;
+        try (Stream<String> stream = Files.lines(file)) {
+            lines = stream.count();
+        }
+        System.out.printf("%-12s %,10.0f requests/s on request threads, %,10.0f requests/s until written, %,d of %,d lines written%n",
+                name, requests / (nanos[0] / 1e9), requests / (nanos[1] / 1e9), lines, requests * linesPerRequest);
+    }
+}
@@ -0,0 +1,90 @@
+package com.application.expenseTracker.ExpenseTracker.Benchmark;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures what one core can sustain for each way of getting a new access token: a login, which
+ * checks a BCrypt hash at each strength from 8 to 12, and a refresh, which only takes the SHA-256
+ * of the refresh token. Multiply the per-core login rate by {@code auth.login.threads} to get the
+ * ceiling of the login pool; logins beyond it queue and then get a 503.
+ * <pre>
+ *   java -cp "target/test-classes:target/classes:target/lib/*" \
+ *       com.application.expenseTracker.ExpenseTracker.Benchmark.LoginBenchmark [threads] [seconds]
+ * </pre>
+ */
+public class LoginBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+    private static final String REFRESH_TOKEN = "qL9n3xV0pT4cYbW2sK7mR1dF8hJ5gA6eZuOiNlMwQv";
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+
+        for (int round = 0; round < 2; round++) {
+            boolean warmUp = round == 0;
+            double duration = warmUp ? seconds / 4 : seconds;
+            for (int strength = 8; strength <= 12; strength++) {
+                BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+                String hash = encoder.encode(PASSWORD);
+                report("bcrypt-" + strength, warmUp, threads, run(() -> encoder.matches(PASSWORD, hash), threads, duration), duration);
+            }
+            report("sha-256", warmUp, threads, run(() -> {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                return digest.digest(REFRESH_TOKEN.getBytes(StandardCharsets.UTF_8)).length > 0;
+            }, threads, duration), duration);
+        }
+    }
+
+    private interface Check {
+        boolean run() throws Exception;
+    }
+
+    /** @return checks completed by all threads within the duration */
+    private static long run(Check check, int threads, double seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + (long) (seconds * 1e9);
+        long[] completed = new long[threads];
+        CountDownLatch done = new CountDownLatch(threads);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        if (!check.run()) {
+                            throw new IllegalStateException("Check failed");
+                        }
+                        completed[worker]++;
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    done.countDown();
+                }
+            }, "login-" + t);
+            workers.add(thread);
+            thread.start();
+        }
+        done.await();
+        long total = 0;
+        for (long each : completed) {
+            total += each;
+        }
+        return total;
+    }
+
+    private static void report(String name, boolean warmUp, int threads, long completed, double seconds) {
+        if (warmUp) {
+            return;
+        }
+        double perSecond = completed / seconds;
+        System.out.printf("%-10s %,14.1f checks/s, %,14.1f checks/s per core, %,12.1f us each%n",
+                name, perSecond, perSecond / threads, 1e6 * threads / perSecond);
+    }
+}
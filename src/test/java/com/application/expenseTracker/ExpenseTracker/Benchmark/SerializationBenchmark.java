@@ -0,0 +1,108 @@
+package com.application.expenseTracker.ExpenseTracker.Benchmark;
+
+import com.application.expenseTracker.ExpenseTracker.Config.BinaryContentConfig;
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the payload size and encode time of a list of expenses, about a month for a heavy
+ * user, as JSON, gzipped JSON (what {@code server.compression.enabled=true} sends) and the CBOR
+ * and Smile formats served for {@code Accept: application/cbor} and
+ * {@code application/x-jackson-smile}. Every format uses the mapper settings the application
+ * uses for it.
+ * <pre>
+ *   java -cp "target/test-classes:target/classes:target/lib/*" \
+ *       com.application.expenseTracker.ExpenseTracker.Benchmark.SerializationBenchmark [expenses] [seconds]
+ * </pre>
+ */
+public class SerializationBenchmark {
+
+    private static final Expense.ExpenseCategory[] CATEGORIES = Expense.ExpenseCategory.values();
+    private static final Expense.PaymentMode[] PAYMENT_MODES = Expense.PaymentMode.values();
+    private static final String[] TITLES = {"Groceries", "Metro card top-up", "Lunch with team", "Electricity bill", "Coffee"};
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+        List<Expense> expenses = expenses(count);
+
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+        ObjectMapper cbor = BinaryContentConfig.binaryMapper(Jackson2ObjectMapperBuilder.json(), new CBORFactory());
+        ObjectMapper smile = BinaryContentConfig.binaryMapper(Jackson2ObjectMapperBuilder.json(), BinaryContentConfig.smileFactory());
+
+        for (int round = 0; round < 2; round++) {
+            boolean warmUp = round == 0;
+            double duration = warmUp ? seconds / 4 : seconds;
+            report("json", warmUp, count, run(() -> json.writeValueAsBytes(expenses), duration));
+            report("json+gzip", warmUp, count, run(() -> gzip(json.writeValueAsBytes(expenses)), duration));
+            report("cbor", warmUp, count, run(() -> cbor.writeValueAsBytes(expenses), duration));
+            report("smile", warmUp, count, run(() -> smile.writeValueAsBytes(expenses), duration));
+        }
+    }
+
+    private interface Encoding {
+        byte[] encode() throws Exception;
+    }
+
+    /** @return the payload size in bytes and the mean encode time in nanoseconds */
+    private static long[] run(Encoding encoding, double seconds) throws Exception {
+        long started = System.nanoTime();
+        long deadline = started + (long) (seconds * 1e9);
+        long size = 0;
+        long completed = 0;
+        while (completed == 0 || System.nanoTime() < deadline) {
+            size = encoding.encode().length;
+            completed++;
+        }
+        return new long[]{size, (System.nanoTime() - started) / completed};
+    }
+
+    private static void report(String name, boolean warmUp, int count, long[] result) {
+        if (warmUp) {
+            return;
+        }
+        System.out.printf("%-10s %,10d bytes, %,7.1f bytes per expense, %,10.1f us per list%n",
+                name, result[0], (double) result[0] / count, result[1] / 1e3);
+    }
+
+    private static byte[] gzip(byte[] payload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(payload);
+        }
+        return out.toByteArray();
+    }
+
+    private static List<Expense> expenses(int count) {
+        List<Expense> expenses = new ArrayList<>(count);
+        LocalDate start = LocalDate.of(2024, 3, 1);
+        for (int i = 0; i < count; i++) {
+            Expense expense = new Expense();
+            expense.setId(1_000_000L + i);
+            expense.setTitle(TITLES[i % TITLES.length]);
+            expense.setUserEmail("heavy.user@example.com");
+            expense.setAmount(BigDecimal.valueOf(150 + (i * 7919L) % 250_000, 2));
+            expense.setCategory(CATEGORIES[i % CATEGORIES.length]);
+            expense.setPaymentMode(PAYMENT_MODES[i % PAYMENT_MODES.length]);
+            expense.setExpenseDone(start.plusDays(i % 31));
+            expense.setNotes(i % 3 == 0 ? "Split with Sam" : null);
+            expense.setRecurring(i % 10 == 0);
+            expense.setCreatedAt(LocalDateTime.of(2024, 3, 1, 9, 0).plusMinutes(i * 37L));
+            expense.setUpdatedAt(expense.getCreatedAt());
+            expense.setVersion(0L);
+            expenses.add(expense);
+        }
+        return expenses;
+    }
+}
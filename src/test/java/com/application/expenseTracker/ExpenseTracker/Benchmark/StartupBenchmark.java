@@ -0,0 +1,157 @@
+package com.application.expenseTracker.ExpenseTracker.Benchmark;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time-to-first-successful-request: from launching the JVM until an authenticated
+ * GET /api/v1/expenses answers 2xx. Compares a plain start with the fast-start profile and its
+ * AppCDS archive. Build first with {@code mvn -Pfast-start package}, then run this class from
+ * the project directory with the test class path:
+ * <pre>
+ *   java -cp target/test-classes:target/classes:target/lib/* \
+ *       com.application.expenseTracker.ExpenseTracker.Benchmark.StartupBenchmark [runs] [jar]
+ * </pre>
+ * Each start gets an empty working directory and one seeded user the token is issued for.
+ */
+public class StartupBenchmark {
+
+    private static final String USER_EMAIL = "startup-benchmark@example.com";
+    private static final long START_TIMEOUT_MS = 120000;
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        Path jar = Paths.get(args.length > 1 ? args[1] : "target/ExpenseTracker-0.0.1-SNAPSHOT.jar").toAbsolutePath();
+        Path archive = jar.resolveSibling("app-cds.jsa");
+        if (!Files.exists(jar)) {
+            throw new IllegalStateException("No jar at " + jar + ", build it with mvn -Pfast-start package");
+        }
+
+        Path workRoot = Files.createTempDirectory("startup-benchmark");
+        Path seed = workRoot.resolve("seed.sql");
+        Files.write(seed, ("INSERT INTO APP_USER (EMAIL, PASSWORD, ROLE) VALUES ('" + USER_EMAIL + "', 'unused', 'USER');\n")
+                .getBytes(StandardCharsets.UTF_8));
+        String token = issueToken();
+
+        List<String> fastStartOptions = new ArrayList<>();
+        if (Files.exists(archive)) {
+            fastStartOptions.add("-XX:SharedArchiveFile=" + archive);
+        } else {
+            System.out.println("No AppCDS archive at " + archive + ", fast-start runs without class-data sharing");
+        }
+
+        Map<String, List<Long>> results = new LinkedHashMap<>();
+        results.put("default", new ArrayList<>());
+        results.put("fast-start", new ArrayList<>());
+        for (int run = 1; run <= runs; run++) {
+            results.get("default").add(measure(jar, Collections.<String>emptyList(), null, seed, token, workRoot.resolve("default-" + run)));
+            results.get("fast-start").add(measure(jar, fastStartOptions, "fast-start", seed, token, workRoot.resolve("fast-start-" + run)));
+        }
+
+        System.out.println("time-to-first-successful-request for GET /api/v1/expenses over " + runs + " runs");
+        for (Map.Entry<String, List<Long>> result : results.entrySet()) {
+            List<Long> times = result.getValue();
+            Collections.sort(times);
+            System.out.printf("  %-10s min %6d ms  median %6d ms  max %6d ms%n",
+                    result.getKey(), times.get(0), times.get(times.size() / 2), times.get(times.size() - 1));
+        }
+    }
+
+    private static long measure(Path jar, List<String> jvmOptions, String profile, Path seed, String token, Path workDir)
+            throws IOException, InterruptedException {
+        Files.createDirectories(workDir);
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-jar");
+        command.add(jar.toString());
+        command.add("--server.port=" + port);
+        command.add("--spring.sql.init.mode=always");
+        command.add("--spring.sql.init.data-locations=file:" + seed);
+        command.add("--spring.jpa.defer-datasource-initialization=true");
+        if (profile != null) {
+            command.add("--spring.profiles.active=" + profile);
+        }
+
+        URL url = new URL("http://localhost:" + port + "/api/v1/expenses");
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(workDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(workDir.resolve("console.log").toFile())
+                .start();
+        try {
+            while (process.isAlive()) {
+                if (requestSucceeds(url, token)) {
+                    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                    System.out.println((profile == null ? "default" : profile) + " start answered in " + elapsedMs + " ms");
+                    return elapsedMs;
+                }
+                if (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) > START_TIMEOUT_MS) {
+                    break;
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException("Application did not answer, see " + workDir.resolve("console.log"));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static boolean requestSucceeds(URL url, String token) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(200);
+            connection.setReadTimeout(30000);
+            connection.setRequestProperty("Authorization", "Bearer " + token);
+            int status = connection.getResponseCode();
+            return status >= 200 && status < 300;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    private static String issueToken() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = StartupBenchmark.class.getResourceAsStream("/application.properties")) {
+            properties.load(in);
+        }
+        byte[] key = Decoders.BASE64.decode(properties.getProperty("jwt.secret"));
+        return Jwts.builder()
+                .setSubject(USER_EMAIL)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(Keys.hmacShaKeyFor(key), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.application.expenseTracker.ExpenseTracker.Config;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Service.CalculationService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:binarycontent;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "expense.journal.enabled=false"
+})
+@AutoConfigureMockMvc(addFilters = false)
+class BinaryContentConfigTest {
+
+    private static final String USER = "binary@example.com";
+
+    @Autowired
+    private HttpMessageConverters httpMessageConverters;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jsonConverter;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    @Autowired
+    private CalculationService calculationService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("📦 Binary Content - Should keep JSON first and pick the application's CBOR and Smile converters")
+    void testConverters_Order() {
+        List<HttpMessageConverter<?>> converters = httpMessageConverters.getConverters();
+        int json = converters.indexOf(jsonConverter);
+        int cbor = converters.indexOf(cborConverter);
+        int smile = converters.indexOf(smileConverter);
+
+        assertTrue(json >= 0 && json < cbor && json < smile, () -> "Converters in order: " + converters);
+        // Spring Boot keeps its own default after a replacement, so ours must be the first one it meets
+        assertSame(cborConverter, converters.stream().filter(MappingJackson2CborHttpMessageConverter.class::isInstance).findFirst().orElse(null));
+        assertSame(smileConverter, converters.stream().filter(MappingJackson2SmileHttpMessageConverter.class::isInstance).findFirst().orElse(null));
+    }
+
+    @Test
+    @DisplayName("📦 Binary Content - Should round-trip expenses through CBOR and Smile in fewer bytes than JSON")
+    void testBinaryFormats_RoundTrip() throws Exception {
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Expense expense = new Expense();
+            expense.setId((long) i);
+            expense.setTitle(i % 2 == 0 ? "Groceries" : "Taxi");
+            expense.setAmount(new BigDecimal("12.50").add(BigDecimal.valueOf(i)));
+            expense.setCategory(i % 2 == 0 ? Expense.ExpenseCategory.FOOD : Expense.ExpenseCategory.TRAVEL);
+            expense.setPaymentMode(Expense.PaymentMode.UPI);
+            expense.setExpenseDone(LocalDate.of(2024, 3, 1).plusDays(i % 31));
+            expense.setUserEmail("binary@example.com");
+            expenses.add(expense);
+        }
+        int jsonSize = jsonConverter.getObjectMapper().writeValueAsBytes(expenses).length;
+
+        for (ObjectMapper mapper : new ObjectMapper[]{cborConverter.getObjectMapper(), smileConverter.getObjectMapper()}) {
+            byte[] payload = mapper.writeValueAsBytes(expenses);
+            List<Expense> decoded = mapper.readValue(payload, new TypeReference<List<Expense>>() { });
+
+            assertTrue(payload.length < jsonSize, mapper.getFactory().getFormatName() + " took " + payload.length + " of " + jsonSize + " bytes");
+            assertEquals(expenses.size(), decoded.size());
+            assertEquals(expenses.get(7).getAmount(), decoded.get(7).getAmount());
+            assertEquals(expenses.get(7).getExpenseDone(), decoded.get(7).getExpenseDone());
+            assertEquals(Expense.ExpenseCategory.TRAVEL, decoded.get(7).getCategory());
+        }
+    }
+
+    @Test
+    @DisplayName("📦 Binary Content - Should answer a list endpoint in the format the client accepts")
+    void testListEndpoint_BinaryAccept() throws Exception {
+        Expense expense = new Expense();
+        expense.setTitle("Groceries");
+        expense.setAmount(new BigDecimal("42.50"));
+        expense.setCategory(Expense.ExpenseCategory.FOOD);
+        expense.setPaymentMode(Expense.PaymentMode.UPI);
+        expense.setExpenseDone(LocalDate.now());
+        expense.setUserEmail(USER);
+        calculationService.addExpense(expense);
+        try {
+            assertListDecodes(MediaType.APPLICATION_CBOR, cborConverter.getObjectMapper(), expense);
+            assertListDecodes(BinaryContentConfig.APPLICATION_SMILE, smileConverter.getObjectMapper(), expense);
+            MockHttpServletResponse json = mockMvc.perform(get("/api/v1/expenses")).andReturn().getResponse();
+            assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(json.getContentType())), json.getContentType());
+        } finally {
+            calculationService.deleteExpenseById(expense.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("🚫 Binary Content - Should encode string error messages as an error object, never as raw text")
+    void testErrorPath_BinaryAccept() throws Exception {
+        for (MediaType mediaType : new MediaType[]{MediaType.APPLICATION_CBOR, BinaryContentConfig.APPLICATION_SMILE}) {
+            ObjectMapper mapper = MediaType.APPLICATION_CBOR.equals(mediaType) ? cborConverter.getObjectMapper() : smileConverter.getObjectMapper();
+            MockHttpServletResponse notFound = mockMvc.perform(get("/api/v1/expenses/987654321").header(HttpHeaders.ACCEPT, mediaType.toString()))
+                    .andReturn().getResponse();
+            MockHttpServletResponse badRequest = mockMvc.perform(get("/api/v1/expenses/statements/2024-01").header(HttpHeaders.ACCEPT, mediaType.toString()))
+                    .andReturn().getResponse();
+
+            assertEquals(404, notFound.getStatus());
+            assertEquals(mediaType, MediaType.parseMediaType(notFound.getContentType()));
+            Map<String, Object> error = mapper.readValue(notFound.getContentAsByteArray(), new TypeReference<Map<String, Object>>() { });
+            assertEquals("Expense not found for ID: 987654321", error.get("error"));
+            assertEquals(404, error.get("status"));
+
+            assertEquals(400, badRequest.getStatus());
+            assertEquals(mediaType, MediaType.parseMediaType(badRequest.getContentType()));
+            assertEquals("Please share the Email-Id!", mapper.readValue(badRequest.getContentAsByteArray(), Map.class).get("error"));
+        }
+
+        // Text and JSON clients still get the message as it was
+        MockHttpServletResponse text = mockMvc.perform(get("/api/v1/expenses/987654321")).andReturn().getResponse();
+        assertEquals(404, text.getStatus());
+        assertEquals("Expense not found for ID: 987654321", text.getContentAsString());
+    }
+
+    private void assertListDecodes(MediaType mediaType, ObjectMapper mapper, Expense saved) throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/api/v1/expenses").header(HttpHeaders.ACCEPT, mediaType.toString()))
+                .andReturn().getResponse();
+
+        assertEquals(200, response.getStatus());
+        assertEquals(mediaType, MediaType.parseMediaType(response.getContentType()));
+        List<Expense> decoded = mapper.readValue(response.getContentAsByteArray(), new TypeReference<List<Expense>>() { });
+        Expense found = decoded.stream().filter(e -> saved.getId().equals(e.getId())).findFirst().orElse(null);
+        assertNotNull(found, () -> "decoded " + decoded.size() + " expenses without id " + saved.getId());
+        assertEquals(0, saved.getAmount().compareTo(found.getAmount()));
+        assertEquals(saved.getExpenseDone(), found.getExpenseDone());
+    }
+}
@@ -0,0 +1,36 @@
+package com.application.expenseTracker.ExpenseTracker.Config;
+
+import com.application.expenseTracker.ExpenseTracker.Controller.CalculationController;
+import com.application.expenseTracker.ExpenseTracker.Service.CalculationService;
+import com.application.expenseTracker.ExpenseTracker.Service.ExpenseAnomalyService;
+import com.application.expenseTracker.ExpenseTracker.Service.RecentExpenseService;
+import com.application.expenseTracker.ExpenseTracker.Service.SchedulerLeaseService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LazyInitializationConfigTest {
+
+    private final LazyInitializationExcludeFilter filter = LazyInitializationConfig.scheduledBeansExcludeFilter();
+
+    @Test
+    void testScheduledBeansAreCreatedEagerly() {
+        assertTrue(excluded(CalculationController.class));
+        assertTrue(excluded(RecentExpenseService.class));
+        assertTrue(excluded(ExpenseAnomalyService.class));
+    }
+
+    @Test
+    void testOtherBeansStayLazy() {
+        assertFalse(excluded(CalculationService.class));
+        assertFalse(excluded(SchedulerLeaseService.class));
+        assertFalse(excluded(null));
+    }
+
+    private boolean excluded(Class<?> beanType) {
+        return filter.isExcluded("bean", new RootBeanDefinition(), beanType);
+    }
+}
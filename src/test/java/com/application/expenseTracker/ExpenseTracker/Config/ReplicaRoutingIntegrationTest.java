@@ -0,0 +1,176 @@
+package com.application.expenseTracker.ExpenseTracker.Config;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Service.CalculationService;
+import com.application.expenseTracker.ExpenseTracker.Service.ReplicaLagMonitor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the application against two in-memory H2 databases. H2 has no replication, so
+ * {@link #replicate()} plays the replica's part by copying the primary over with SCRIPT/RUNSCRIPT.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "expense.datasource.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "expense.datasource.replica.username=root",
+        "expense.datasource.replica.heartbeat.interval.ms=3600000",
+        "expense.datasource.replica.max-lag-ms=60000",
+        "expense.journal.enabled=false"
+})
+class ReplicaRoutingIntegrationTest {
+
+    @Autowired
+    private CalculationService calculationService;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Autowired
+    @Qualifier("primaryPool")
+    private DataSource primaryPool;
+
+    @Autowired
+    @Qualifier("replicaPool")
+    private DataSource replicaPool;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private File script;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        primary = new JdbcTemplate(primaryPool);
+        replica = new JdbcTemplate(replicaPool);
+        script = Files.createTempFile("replica", ".sql").toFile();
+        calculationService.deleteAllExpenses();
+        replicate();
+        replicaLagMonitor.heartbeat();
+    }
+
+    @AfterEach
+    void tearDown() {
+        calculationService.deleteAllExpenses();
+        script.delete();
+    }
+
+    @Test
+    @DisplayName("🔀 Routing - Should write to the primary and serve read-only transactions from the replica")
+    void testWritesGoToPrimaryAndReadsToReplica() {
+        assertTrue(replicaLagMonitor.isReplicaUsable());
+
+        calculationService.addExpense(expense("Lunch"));
+        assertEquals(1, count(primary));
+        assertEquals(0, count(replica));
+
+        long replicaConnections = replicaRoutingDataSource.getReplicaConnections();
+        assertEquals(0, calculationService.getAllExpense().size(), "not replicated yet, so the replica has nothing");
+        assertTrue(replicaRoutingDataSource.getReplicaConnections() > replicaConnections);
+
+        replicate();
+        assertEquals(1, calculationService.getAllExpense().size());
+        assertEquals("Lunch", calculationService.getExpensesByDateRange(LocalDate.now(), LocalDate.now()).get(0).getTitle());
+    }
+
+    @Test
+    @DisplayName("🔀 Routing - Should fall back to the primary while the replica lags")
+    void testLaggingReplicaFallsBackToPrimary() {
+        calculationService.addExpense(expense("Taxi"));
+        replica.update("UPDATE REPLICATION_HEARTBEAT SET BEAT_MS = ? WHERE ID = 1", System.currentTimeMillis() - 120000);
+        replicaLagMonitor.heartbeat();
+
+        assertFalse(replicaLagMonitor.isReplicaUsable());
+        assertEquals(1, calculationService.getAllExpense().size());
+
+        replicate();
+        replicaLagMonitor.heartbeat();
+        assertTrue(replicaLagMonitor.isReplicaUsable());
+    }
+
+    @Test
+    @DisplayName("🔀 Routing - Should fall back to the primary when the replica cannot be queried")
+    void testUnreachableReplicaFallsBackToPrimary() {
+        calculationService.addExpense(expense("Coffee"));
+        replica.execute("DROP ALL OBJECTS");
+        replicaLagMonitor.heartbeat();
+
+        assertFalse(replicaLagMonitor.isReplicaUsable());
+        assertEquals(1, calculationService.getAllExpense().size());
+    }
+
+    @Test
+    @DisplayName("🔀 Routing - Should read pinned lookups from the primary even inside read-only transactions")
+    void testPinnedReadsUseThePrimary() {
+        calculationService.addExpense(expense("Groceries"));
+
+        assertEquals(0, calculationService.getAllExpense().size());
+        assertEquals(1, ReplicaRoutingDataSource.onPrimary(() -> calculationService.getAllExpense()).size());
+        assertEquals(1, calculationService.getRecentExpenses(LocalDate.now()).size(), "the recent window loads from the primary");
+    }
+
+    @Test
+    @DisplayName("🔀 Routing - Should fill the expense cache from the primary, not from a lagging replica")
+    void testCacheMissReadsThePrimary() {
+        Expense expense = expense("Lunch");
+        calculationService.addExpense(expense);
+        replicate();
+        expense.setTitle("Team lunch");
+        calculationService.updateExpense(expense);
+
+        assertEquals("Lunch", replica.queryForObject("SELECT TITLE FROM USER_EXPENSE WHERE ID = ?", String.class, expense.getId()));
+        assertEquals("Team lunch", calculationService.findById(expense.getId()).get().getTitle());
+        // Now a cache hit, which must not have kept the replica's copy
+        assertEquals("Team lunch", calculationService.findById(expense.getId()).get().getTitle());
+    }
+
+    @Test
+    @DisplayName("🔀 Routing - Should refuse to start together with write-behind ingest")
+    void testRefusesWriteBehindIngest() {
+        MockEnvironment environment = new MockEnvironment().withProperty("expense.ingest.write-behind.enabled", "true");
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> new ReplicaRoutingConfig().primaryPool(new DataSourceProperties(), environment));
+
+        assertTrue(thrown.getMessage().contains("expense.ingest.write-behind.enabled"));
+    }
+
+    private void replicate() {
+        primary.execute("SCRIPT TO '" + script.getAbsolutePath() + "'");
+        replica.execute("DROP ALL OBJECTS");
+        replica.execute("RUNSCRIPT FROM '" + script.getAbsolutePath() + "'");
+    }
+
+    private static int count(JdbcTemplate database) {
+        return database.queryForObject("SELECT COUNT(*) FROM USER_EXPENSE", Integer.class);
+    }
+
+    private static Expense expense(String title) {
+        Expense expense = new Expense();
+        expense.setTitle(title);
+        expense.setAmount(new BigDecimal("120.00"));
+        expense.setCategory(Expense.ExpenseCategory.FOOD);
+        expense.setPaymentMode(Expense.PaymentMode.UPI);
+        expense.setExpenseDone(LocalDate.now());
+        expense.setUserEmail("replica@example.com");
+        return expense;
+    }
+}
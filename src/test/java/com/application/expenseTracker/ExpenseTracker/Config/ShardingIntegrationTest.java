@@ -0,0 +1,215 @@
+package com.application.expenseTracker.ExpenseTracker.Config;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Repository.CalculationRepository;
+import com.application.expenseTracker.ExpenseTracker.Repository.ExpenseShardAssignmentRepository;
+import com.application.expenseTracker.ExpenseTracker.Service.CalculationService;
+import com.application.expenseTracker.ExpenseTracker.Service.ExpenseArchiveService;
+import com.application.expenseTracker.ExpenseTracker.Service.ExpenseShardService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Runs the application over three shards: the in-memory default database and two H2 files. */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard-0;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "expense.shard.urls=jdbc:h2:file:./target/shards/shard-1,jdbc:h2:file:./target/shards/shard-2",
+        "expense.shard.move.chunk-size=2",
+        "expense.archive.enabled=true",
+        "expense.archive.path=./target/shards/archive",
+        "expense.journal.enabled=false"
+})
+class ShardingIntegrationTest {
+
+    @Autowired
+    private CalculationService calculationService;
+
+    @Autowired
+    private ExpenseShardService expenseShardService;
+
+    @Autowired
+    private ExpenseShardAssignmentRepository assignmentRepository;
+
+    @Autowired
+    private ExpenseArchiveService expenseArchiveService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CalculationRepository calculationRepository;
+
+    @BeforeEach
+    void setUp() {
+        calculationService.deleteAllExpenses();
+        assignmentRepository.deleteAll();
+        expenseShardService.refreshDirectory();
+    }
+
+    @AfterEach
+    void tearDown() {
+        calculationService.deleteAllExpenses();
+    }
+
+    @Test
+    @DisplayName("🧩 Shards - Should store each user's expenses on the shard the ring gives them")
+    void testRoutesByUser() {
+        assertEquals(3, expenseShardService.getShardCount());
+        String alice = userOn(1);
+        String bob = userOn(2);
+
+        calculationService.addExpense(expense(alice, "Lunch", "100.00", Expense.ExpenseCategory.FOOD));
+        calculationService.addExpense(expense(bob, "Taxi", "40.00", Expense.ExpenseCategory.TRAVEL));
+
+        assertEquals(1, count(1, alice));
+        assertEquals(1, count(2, bob));
+        assertEquals(0, count(0, null));
+        assertEquals(1, calculationService.getRecentExpenses(alice, LocalDate.now()).size());
+    }
+
+    @Test
+    @DisplayName("🔭 Shards - Should gather lists and aggregates from every shard")
+    void testScatterGather() {
+        String alice = userOn(1);
+        String bob = userOn(2);
+        calculationService.addExpense(expense(alice, "Lunch", "100.00", Expense.ExpenseCategory.FOOD));
+        calculationService.addExpense(expense(alice, "Dinner", "50.00", Expense.ExpenseCategory.FOOD));
+        calculationService.addExpense(expense(bob, "Taxi", "40.00", Expense.ExpenseCategory.TRAVEL));
+        Expense saved = calculationService.getExpensesByCategory(Expense.ExpenseCategory.TRAVEL).get(0);
+
+        assertEquals(3, calculationService.getAllExpense().size());
+        assertEquals(2, calculationService.getExpensesAbove(new BigDecimal("45")).size());
+        assertEquals("Taxi", calculationService.findById(saved.getId()).get().getTitle());
+        assertTrue(saved.getId() >= 2 * 1_000_000_000_000L, "ids come from the shard's own range");
+
+        Map<String, Object> summary = calculationService.getExpenseSummary(alice, YearMonth.now());
+        assertEquals(0, new BigDecimal("150.00").compareTo((BigDecimal) summary.get("totalExpensesThisMonth")));
+
+        assertEquals(3, calculationService.deleteAllExpenses());
+        assertEquals(0, calculationService.getAllExpense().size());
+    }
+
+    @Test
+    @DisplayName("📑 Shards - Should sort and page over every shard as one table would")
+    void testPagesAndSorts() {
+        String alice = userOn(1);
+        String bob = userOn(2);
+        calculationService.addExpense(expense(alice, "Lunch", "100.00", Expense.ExpenseCategory.FOOD));
+        calculationService.addExpense(expense(alice, "Dinner", "50.00", Expense.ExpenseCategory.FOOD));
+        calculationService.addExpense(expense(bob, "Taxi", "40.00", Expense.ExpenseCategory.TRAVEL));
+        calculationService.addExpense(expense(bob, "Groceries", "70.00", Expense.ExpenseCategory.FOOD));
+
+        Page<Expense> page = calculationRepository.findAll(PageRequest.of(1, 2, Sort.by("amount")));
+        assertEquals(4, page.getTotalElements());
+        assertEquals(Arrays.asList("Groceries", "Lunch"), titles(page.getContent()));
+        assertEquals(Arrays.asList("Lunch", "Groceries", "Dinner", "Taxi"), titles(calculationRepository.findAll(Sort.by(Sort.Direction.DESC, "amount"))));
+
+        Expense food = new Expense();
+        food.setCategory(Expense.ExpenseCategory.FOOD);
+        Page<Expense> foodPage = calculationRepository.findAll(Example.of(food), PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "amount")));
+        assertEquals(3, foodPage.getTotalElements());
+        assertEquals(Arrays.asList("Lunch", "Groceries"), titles(foodPage.getContent()));
+        assertEquals(3L, calculationRepository.count(Example.of(food)));
+
+        Expense taxi = new Expense();
+        taxi.setTitle("Taxi");
+        assertEquals(bob, calculationRepository.findOne(Example.of(taxi)).get().getUserEmail());
+    }
+
+    @Test
+    @DisplayName("🚚 Shards - Should move a user online and rebalance them back")
+    void testMoveAndRebalance() {
+        String alice = userOn(1);
+        for (int i = 0; i < 5; i++) {
+            calculationService.addExpense(expense(alice, "Lunch " + i, "10.00", Expense.ExpenseCategory.FOOD));
+        }
+
+        Map<String, Object> moved = expenseShardService.moveUser(alice, 2);
+        assertEquals(5, moved.get("rows"));
+        assertEquals(0, count(1, alice));
+        assertEquals(5, count(2, alice));
+        assertEquals(2, expenseShardService.shardOf(alice));
+
+        calculationService.addExpense(expense(alice, "Coffee", "3.00", Expense.ExpenseCategory.FOOD));
+        assertEquals(6, count(2, alice));
+        assertEquals(6, calculationService.getRecentExpenses(alice, LocalDate.now()).size());
+
+        Map<String, Object> rebalanced = expenseShardService.rebalance();
+        assertEquals(1, rebalanced.get("movedUsers"));
+        assertEquals(6, count(1, alice));
+        assertEquals(0, count(2, alice));
+    }
+
+    @Test
+    @DisplayName("🧊 Shards - Should archive old months from every shard and merge them back")
+    void testArchiveAcrossShards() {
+        String alice = userOn(1);
+        String bob = userOn(2);
+        LocalDate old = LocalDate.now().minusYears(3);
+        Expense lunch = expense(alice, "Lunch", "100.00", Expense.ExpenseCategory.FOOD);
+        lunch.setExpenseDone(old);
+        Expense taxi = expense(bob, "Taxi", "40.00", Expense.ExpenseCategory.TRAVEL);
+        taxi.setExpenseDone(old);
+        calculationService.addExpense(lunch);
+        calculationService.addExpense(taxi);
+        calculationService.addExpense(expense(alice, "Coffee", "3.00", Expense.ExpenseCategory.FOOD));
+
+        assertEquals(2L, expenseArchiveService.archive(expenseArchiveService.getHorizon()).get("rows"));
+        assertEquals(1, count(1, alice));
+        assertEquals(0, count(2, bob));
+
+        assertEquals(2, calculationService.getExpensesByDateRange(old, old).size());
+        Map<String, Object> summary = calculationService.getExpenseSummary(null, YearMonth.from(old));
+        assertEquals(0, new BigDecimal("140.00").compareTo((BigDecimal) summary.get("totalExpensesThisMonth")));
+        assertEquals(3, calculationService.deleteAllExpenses());
+    }
+
+    private static List<String> titles(List<Expense> expenses) {
+        return expenses.stream().map(Expense::getTitle).collect(Collectors.toList());
+    }
+
+    private int count(int shard, String userEmail) {
+        return expenseShardService.onShard(shard, true, () -> userEmail == null
+                ? jdbcTemplate.queryForObject("SELECT COUNT(*) FROM USER_EXPENSE", Integer.class)
+                : jdbcTemplate.queryForObject("SELECT COUNT(*) FROM USER_EXPENSE WHERE USER_EMAIL = ?", Integer.class, userEmail));
+    }
+
+    /** The first generated user the ring places on {@code shard}. */
+    private String userOn(int shard) {
+        for (int i = 0; ; i++) {
+            String user = "shard" + shard + "-user" + i + "@example.com";
+            if (expenseShardService.shardOf(user) == shard) {
+                return user;
+            }
+        }
+    }
+
+    private static Expense expense(String userEmail, String title, String amount, Expense.ExpenseCategory category) {
+        Expense expense = new Expense();
+        expense.setTitle(title);
+        expense.setAmount(new BigDecimal(amount));
+        expense.setCategory(category);
+        expense.setPaymentMode(Expense.PaymentMode.UPI);
+        expense.setExpenseDone(LocalDate.now());
+        expense.setUserEmail(userEmail);
+        return expense;
+    }
+}
@@ -0,0 +1,73 @@
+package com.application.expenseTracker.ExpenseTracker.Controller;
+
+import com.application.expenseTracker.ExpenseTracker.Dto.AuthTokens;
+import com.application.expenseTracker.ExpenseTracker.Dto.LoginRequest;
+import com.application.expenseTracker.ExpenseTracker.Dto.RefreshRequest;
+import com.application.expenseTracker.ExpenseTracker.Service.AuthService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class AuthControllerTest {
+
+    @InjectMocks
+    private AuthController authController;
+
+    @Mock
+    private AuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    @DisplayName("🔑 Login - Should return the tokens, 401 for bad credentials and 400 without a password")
+    void testLogin() {
+        AuthTokens tokens = new AuthTokens("jwt", "Bearer", 900, "refresh", 2592000);
+        when(authService.login("testuser@gmail.com", "secret")).thenReturn(tokens);
+        when(authService.login("testuser@gmail.com", "wrong")).thenThrow(new BadCredentialsException("Invalid email or password"));
+
+        ResponseEntity<?> entity = authController.login(new LoginRequest("testuser@gmail.com", "secret"));
+        assertEquals(200, entity.getStatusCodeValue());
+        assertSame(tokens, entity.getBody());
+
+        assertEquals(401, authController.login(new LoginRequest("testuser@gmail.com", "wrong")).getStatusCodeValue());
+        assertEquals(400, authController.login(new LoginRequest("testuser@gmail.com", " ")).getStatusCodeValue());
+        verify(authService, times(2)).login(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("⏳ Login - Should return 503 with Retry-After when the login pool is full")
+    void testLogin_Saturated() {
+        when(authService.login(anyString(), anyString())).thenThrow(new RejectedExecutionException("full"));
+
+        ResponseEntity<?> entity = authController.login(new LoginRequest("testuser@gmail.com", "secret"));
+
+        assertEquals(503, entity.getStatusCodeValue());
+        assertEquals("1", entity.getHeaders().getFirst("Retry-After"));
+    }
+
+    @Test
+    @DisplayName("🔄 Refresh - Should return new tokens and 401 for a used or expired token")
+    void testRefresh() {
+        AuthTokens tokens = new AuthTokens("jwt", "Bearer", 900, "next", 2592000);
+        when(authService.refresh("current")).thenReturn(tokens);
+        when(authService.refresh("used")).thenThrow(new BadCredentialsException("Refresh token is invalid or expired"));
+
+        assertSame(tokens, authController.refresh(new RefreshRequest("current")).getBody());
+        assertEquals(401, authController.refresh(new RefreshRequest("used")).getStatusCodeValue());
+        assertEquals(400, authController.refresh(new RefreshRequest(null)).getStatusCodeValue());
+    }
+}
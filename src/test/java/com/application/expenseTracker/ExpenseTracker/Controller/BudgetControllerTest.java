@@ -0,0 +1,81 @@
+package com.application.expenseTracker.ExpenseTracker.Controller;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Budget;
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Exception.InvalidBudgetException;
+import com.application.expenseTracker.ExpenseTracker.Service.BudgetService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class BudgetControllerTest {
+
+    private static final YearMonth MARCH = YearMonth.of(2024, 3);
+
+    @InjectMocks
+    private BudgetController budgetController;
+
+    @Mock
+    private BudgetService budgetService;
+
+    private Budget testBudget;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        testBudget = new Budget(null, "testuser@gmail.com", "2024-03", null, new BigDecimal("1000"), null);
+    }
+
+    @Test
+    @DisplayName("✅ Set Budget - Should return the saved budget")
+    void testSetBudget_Success() {
+        when(budgetService.setBudget(testBudget)).thenReturn(testBudget);
+
+        ResponseEntity<?> entity = budgetController.setBudget(testBudget);
+
+        assertEquals(200, entity.getStatusCodeValue());
+        assertSame(testBudget, entity.getBody());
+    }
+
+    @Test
+    @DisplayName("🚫 Set Budget - Should return 400 for an invalid budget")
+    void testSetBudget_Invalid() {
+        when(budgetService.setBudget(testBudget)).thenThrow(new InvalidBudgetException("A budget needs an amount above zero"));
+
+        ResponseEntity<?> entity = budgetController.setBudget(testBudget);
+
+        assertEquals(400, entity.getStatusCodeValue());
+        assertTrue(entity.getBody().toString().contains("amount above zero"));
+    }
+
+    @Test
+    @DisplayName("📋 Get Budgets - Should return the month's budgets or 204 when there are none")
+    void testGetBudgets() {
+        when(budgetService.getBudgets("testuser@gmail.com", MARCH)).thenReturn(Collections.singletonList(testBudget));
+
+        assertEquals(200, budgetController.getBudgets("testuser@gmail.com", "2024-03").getStatusCodeValue());
+        assertEquals(204, budgetController.getBudgets("other@gmail.com", "2024-03").getStatusCodeValue());
+        assertEquals(400, budgetController.getBudgets("testuser@gmail.com", "March").getStatusCodeValue());
+    }
+
+    @Test
+    @DisplayName("🗑️ Delete Budget - Should return 204 when deleted and 404 when missing")
+    void testDeleteBudget() {
+        when(budgetService.deleteBudget("testuser@gmail.com", MARCH, Expense.ExpenseCategory.FOOD)).thenReturn(true);
+
+        assertEquals(204, budgetController.deleteBudget("testuser@gmail.com", "2024-03", Expense.ExpenseCategory.FOOD).getStatusCodeValue());
+        assertEquals(404, budgetController.deleteBudget("testuser@gmail.com", "2024-03", null).getStatusCodeValue());
+        assertEquals(400, budgetController.deleteBudget("testuser@gmail.com", "2024-3", null).getStatusCodeValue());
+    }
+}
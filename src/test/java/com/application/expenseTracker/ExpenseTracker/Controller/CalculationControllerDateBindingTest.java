@@ -0,0 +1,61 @@
+package com.application.expenseTracker.ExpenseTracker.Controller;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Service.CalculationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/** Binds date request parameters through the MVC stack, in the YYYY-MM-DD form the endpoints document. */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:datebinding;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "expense.journal.enabled=false"
+})
+@AutoConfigureMockMvc(addFilters = false)
+@DisplayName("📅 Calculation Controller Date Binding Tests")
+class CalculationControllerDateBindingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CalculationService calculationService;
+
+    @AfterEach
+    void tearDown() {
+        calculationService.deleteAllExpenses();
+    }
+
+    @Test
+    @DisplayName("📅 Date Range - Should accept ISO dates and return the expenses between them")
+    void testGetExpensesByDateRange_IsoDates() throws Exception {
+        Expense expense = new Expense();
+        expense.setTitle("Groceries");
+        expense.setAmount(new BigDecimal("42.00"));
+        expense.setCategory(Expense.ExpenseCategory.FOOD);
+        expense.setPaymentMode(Expense.PaymentMode.UPI);
+        expense.setExpenseDone(LocalDate.of(2024, 3, 15));
+        expense.setUserEmail("dates@example.com");
+        calculationService.addExpense(expense);
+
+        MockHttpServletResponse inRange = mockMvc.perform(get("/api/v1/expenses/date-range")
+                .param("startDate", "2024-03-01").param("endDate", "2024-03-31")).andReturn().getResponse();
+        MockHttpServletResponse outOfRange = mockMvc.perform(get("/api/v1/expenses/date-range")
+                .param("startDate", "2024-04-01").param("endDate", "2024-04-30")).andReturn().getResponse();
+
+        assertEquals(200, inRange.getStatus(), inRange.getContentAsString());
+        assertTrue(inRange.getContentAsString().contains("Groceries"));
+        assertEquals(204, outOfRange.getStatus());
+    }
+}
@@ -0,0 +1,199 @@
+package com.application.expenseTracker.ExpenseTracker.Controller;
+
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpensePatch;
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Service.CalculationService;
+import com.application.expenseTracker.ExpenseTracker.Service.ExpensePurgeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Pins how many SQL statements and entity loads each {@link CalculationController} endpoint
+ * costs, so a change that adds a round trip or an N+1 to a hot path fails the build. When a
+ * count changes on purpose, update it here together with the change. Reads go through MockMvc,
+ * so anything loaded while the response is serialized is counted too; security filters are
+ * left out as they only parse the token.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statementcount;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.application.expenseTracker.ExpenseTracker.Controller.SqlStatementCounter",
+        "spring.jpa.properties.hibernate.session_factory.interceptor=com.application.expenseTracker.ExpenseTracker.Controller.SqlStatementCounter",
+        "expense.journal.enabled=false",
+        "expense.statement.enabled=true",
+        "expense.statement.path=target/statementcount"
+})
+@AutoConfigureMockMvc(addFilters = false)
+@DisplayName("🧮 Calculation Controller Statement Counts")
+class CalculationControllerStatementCountTest {
+
+    private static final String USER = "counted@example.com";
+
+    @Autowired
+    private CalculationController calculationController;
+
+    @Autowired
+    private CalculationService calculationService;
+
+    @Autowired
+    private ExpensePurgeService expensePurgeService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Expense first;
+    private Expense second;
+
+    @BeforeEach
+    void setUp() {
+        calculationService.deleteAllExpenses();
+        first = expense(USER, LocalDate.now(), "120.00", Expense.ExpenseCategory.FOOD, "Groceries");
+        second = expense(USER, LocalDate.now(), "30.00", Expense.ExpenseCategory.TRAVEL, "Taxi");
+        calculationService.addExpense(first);
+        calculationService.addExpense(second);
+        calculationService.addExpense(expense("other@example.com", LocalDate.now().minusDays(1), "8.00", Expense.ExpenseCategory.FOOD, "Coffee"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        calculationService.deleteAllExpenses();
+    }
+
+    @Test
+    @DisplayName("✍️ Writes - Add, update, patch, new date and delete")
+    void testWrites() {
+        // Sequence, insert, and the category and overall budget lookups of the alert check
+        assertQueries("addExpense", 4, 0, () -> calculationController.addExpense(expense(USER, LocalDate.now(), "10.00", Expense.ExpenseCategory.OTHER, "Stamps")));
+        // The primary read, the percentile before-image and the merge select before the update
+        assertQueries("updateExpense", 4, 3, () -> calculationController.updateExpense(expense(USER, LocalDate.now(), "125.00", Expense.ExpenseCategory.FOOD, "Groceries"), first.getId()));
+        ExpensePatch patch = new ExpensePatch();
+        patch.setTitle("Cab");
+        // The percentile before-image, then a single UPDATE
+        assertQueries("patchExpense", 2, 1, () -> calculationController.patchExpense(second.getId(), patch, "\"" + second.getVersion() + "\""));
+        // The percentile before-image, a single UPDATE, and the row read back for the response
+        assertQueries("updateExpenseDone", 3, 2, () -> calculationController.updateExpenseDone(second.getId(), LocalDate.now().minusDays(2)));
+        assertQueries("deleteExpenseById", 2, 1, () -> calculationController.deleteExpenseById(second.getId()));
+    }
+
+    @Test
+    @DisplayName("🔍 Reads - By id, lists and filters")
+    void testReads() throws Exception {
+        String week = "startDate=" + LocalDate.now().minusDays(7) + "&endDate=" + LocalDate.now();
+        assertRequest("getExpenseById miss", 1, 1, get("/api/v1/expenses/" + first.getId()));
+        // Served from the expense cache
+        assertRequest("getExpenseById hit", 0, 0, get("/api/v1/expenses/" + first.getId()));
+        assertRequest("getAllExpense", 1, 3, get("/api/v1/expenses"));
+        assertRequest("getExpensesByCategory", 1, 2, get("/api/v1/list/category/FOOD"));
+        assertRequest("getExpensesByPaymentMode", 1, 3, get("/api/v1/expenses/payment/UPI"));
+        assertRequest("getExpensesByDateRange", 1, 3, get("/api/v1/expenses/date-range?" + week));
+        assertRequest("getTotalExpenses", 1, 3, get("/api/v1/expenses/total/"));
+        // Served from the in-memory recent window
+        assertRequest("getRecentExpenses", 0, 0, get("/api/v1/expenses/recent/?userEmail=" + USER));
+        assertRequest("getRecurringExpenses", 1, 0, get("/api/v1/expenses/recurring/"));
+        assertRequest("getExpensesAbove", 1, 2, get("/api/v1/expenses/amount-above/10/"));
+        assertRequest("getExpensesBelow", 1, 2, get("/api/v1/expenses/amount-below/100/"));
+        assertRequest("queryExpenses", 1, 2, get("/api/v1/expenses/query?userEmail=" + USER));
+        // The search index finds the ids, one IN query loads them
+        assertRequest("searchExpenses", 1, 1, get("/api/v1/expenses/search?q=taxi"));
+    }
+
+    @Test
+    @DisplayName("📊 Aggregates - Summary, series, percentiles and anomalies")
+    void testAggregates() {
+        // Total, top categories and daily average, run in parallel
+        assertQueries("getExpenseSummary", 3, 0, () -> calculationController.getExpenseSummary(USER, YearMonth.now().toString()));
+        assertQueries("getExpenseSeries", 1, 0, () -> calculationController.getExpenseSeries("day", LocalDate.now().minusDays(7), LocalDate.now(), null));
+        // Answered from the quantile sketches
+        assertQueries("getSpendingPercentiles", 0, 0, () -> calculationController.getSpendingPercentiles(USER, null, null, null, Arrays.asList(0.5, 0.9)));
+        assertQueries("getAnomalies", 0, 0, () -> calculationController.getAnomalies(USER, 50));
+    }
+
+    @Test
+    @DisplayName("🗑️ Purges - Delete all, and a purge job from start to finish")
+    void testPurges() {
+        // The job's own lookups and deletes count against the request that queued it
+        assertQueries("startPurge", 4, 2, () -> {
+            ResponseEntity<?> started = calculationController.startPurge(USER, null, null);
+            awaitFinished(((ExpensePurgeService.PurgeJob) started.getBody()).getId());
+            return started;
+        });
+        // Finished first, so its lookup cannot land in the counts below
+        String jobId = expensePurgeService.startPurge("nobody@example.com", null, null).getId();
+        awaitFinished(jobId);
+        assertQueries("getPurge", 0, 0, () -> calculationController.getPurge(jobId));
+        assertQueries("cancelPurge", 0, 0, () -> calculationController.cancelPurge(jobId));
+        assertQueries("deleteAllExpenses", 1, 0, () -> calculationController.deleteAllExpenses());
+    }
+
+    @Test
+    @DisplayName("🧾 Statements - Served as written, rewritten after a change")
+    void testMonthlyStatement() {
+        YearMonth month = YearMonth.now().minusMonths(1);
+        calculationService.addExpense(expense(USER, month.atDay(10), "42.00", Expense.ExpenseCategory.UTILITIES, "Power"));
+        // Brings a statement left by an earlier run up to date
+        calculationController.getMonthlyStatement(month.toString(), USER);
+        // Only the version check
+        assertQueries("getMonthlyStatement fresh", 1, 0, () -> calculationController.getMonthlyStatement(month.toString(), USER));
+        calculationService.addExpense(expense(USER, month.atDay(12), "18.00", Expense.ExpenseCategory.UTILITIES, "Water"));
+        // The version check, the version read before writing and the streaming read
+        assertQueries("getMonthlyStatement stale", 3, 2, () -> calculationController.getMonthlyStatement(month.toString(), USER));
+    }
+
+    private void awaitFinished(String jobId) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (expensePurgeService.getJob(jobId).get().getFinishedAt() == null) {
+            assertTrue(System.nanoTime() < deadline, "purge job did not finish");
+            Thread.yield();
+        }
+    }
+
+    private void assertRequest(String endpoint, long statements, long entityLoads, RequestBuilder request) throws Exception {
+        SqlStatementCounter.reset();
+        MvcResult result = mockMvc.perform(request).andReturn();
+        int status = result.getResponse().getStatus();
+        assertTrue(status >= 200 && status < 300, endpoint + " answered " + status + ": " + result.getResponse().getContentAsString());
+        assertCounted(endpoint, statements, entityLoads);
+    }
+
+    private static void assertQueries(String endpoint, long statements, long entityLoads, Supplier<ResponseEntity<?>> request) {
+        SqlStatementCounter.reset();
+        ResponseEntity<?> response = request.get();
+        assertTrue(response.getStatusCode().is2xxSuccessful(), endpoint + " answered " + response.getStatusCodeValue() + ": " + response.getBody());
+        assertCounted(endpoint, statements, entityLoads);
+    }
+
+    private static void assertCounted(String endpoint, long statements, long entityLoads) {
+        String issued = endpoint + " issued:\n  " + String.join("\n  ", SqlStatementCounter.getLog());
+        assertEquals(statements, SqlStatementCounter.getStatements(), () -> "Statements of " + issued);
+        assertEquals(entityLoads, SqlStatementCounter.getEntityLoads(), () -> "Entity loads of " + issued);
+    }
+
+    private static Expense expense(String userEmail, LocalDate day, String amount, Expense.ExpenseCategory category, String title) {
+        Expense expense = new Expense();
+        expense.setTitle(title);
+        expense.setAmount(new BigDecimal(amount));
+        expense.setCategory(category);
+        expense.setPaymentMode(Expense.PaymentMode.UPI);
+        expense.setExpenseDone(day);
+        expense.setUserEmail(userEmail);
+        return expense;
+    }
+}
@@ -1,28 +1,35 @@
 package com.application.expenseTracker.ExpenseTracker.Controller;
 
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpenseAnomaly;
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpensePatch;
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpenseQuery;
 import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
 import com.application.expenseTracker.ExpenseTracker.Exception.ExpenseNotFoundException;
 import com.application.expenseTracker.ExpenseTracker.Exception.GlobalExceptionHandler;
-import com.application.expenseTracker.ExpenseTracker.Exception.InvalidBudgetException;
 import com.application.expenseTracker.ExpenseTracker.Repository.CalculationRepository;
 import com.application.expenseTracker.ExpenseTracker.Service.CalculationService;
 import com.application.expenseTracker.ExpenseTracker.Service.EmailService;
+import com.application.expenseTracker.ExpenseTracker.Service.ExpensePurgeService;
+import com.application.expenseTracker.ExpenseTracker.Service.ExpenseSeriesService;
+import com.application.expenseTracker.ExpenseTracker.Service.ExpenseStatementService;
+import com.application.expenseTracker.ExpenseTracker.Service.SchedulerLeaseService;
 
 import java.util.*;
 
-import org.hibernate.Session;
-import org.hibernate.SessionFactory;
-import org.hibernate.query.Query;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.math.BigDecimal;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.YearMonth;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -43,7 +50,13 @@ public class CalculationControllerTest {
     private CalculationRepository calculationRepository;
 
     @Mock
-    private SessionFactory sessionFactory;
+    private ExpensePurgeService expensePurgeService;
+
+    @Mock
+    private SchedulerLeaseService schedulerLeaseService;
+
+    @Mock
+    private ExpenseStatementService expenseStatementService;
 
     private Expense testExpense;
 
@@ -57,8 +70,10 @@ public class CalculationControllerTest {
         testExpense.setCategory(Expense.ExpenseCategory.FOOD);
         testExpense.setPaymentMode(Expense.PaymentMode.UPI);
         testExpense.setExpenseDone(LocalDate.now());
-        testExpense.setBudget(1000);
         testExpense.setUserEmail("testuser@gmail.com");
+        when(schedulerLeaseService.getNodeId()).thenReturn("node-a");
+        when(schedulerLeaseService.tryAcquire(anyString())).thenReturn(true);
+        when(schedulerLeaseService.renew(anyString(), any())).thenReturn(true);
     }
 
     /* TEST CASES REGARDING ADDED EXPENSES */
@@ -66,12 +81,12 @@ public class CalculationControllerTest {
     @DisplayName("✅ Add Expense - Success Scenario")
     public void testAddExpense_Success() {
         doNothing().when(calculationService).addExpense(testExpense);
-        doNothing().when(calculationService).checkAndSendBudgetAlerts(anyString(), anyInt(), any());
+        doNothing().when(calculationService).checkAndSendBudgetAlerts(anyString(), any(), any());
 
         ResponseEntity<?> entity = calculationController.addExpense(testExpense);
 
         assertEquals(200, entity.getStatusCodeValue());
-        verify(calculationService, times(1)).checkAndSendBudgetAlerts(anyString(), anyInt(), any());
+        verify(calculationService, times(1)).checkAndSendBudgetAlerts("testuser@gmail.com", testExpense.getCategory(), testExpense.getExpenseDone());
         verify(calculationService, times(1)).addExpense(testExpense);
     }
 
@@ -86,17 +101,6 @@ public class CalculationControllerTest {
         verify(calculationService, times(0)).addExpense(testExpense);
     }
 
-    @Test
-    @DisplayName("🚫 Add Expense - Invalid Budget")
-    public void testAddExpense_InvalidBudget() {
-        testExpense.setBudget(0);
-        ResponseEntity<?> entity = calculationController.addExpense(testExpense);
-
-        assertEquals(400, entity.getStatusCodeValue());
-        assertTrue(entity.getBody().toString().contains("Budget"));
-        verify(calculationService, times(0)).addExpense(testExpense);
-    }
-
     @Test
     @DisplayName("💥 Add Expense - Exception Handling")
     void testAddExpense_ExceptionHandling() {
@@ -189,47 +193,203 @@ public class CalculationControllerTest {
         verify(calculationService,times(1)).updateExpense(testExpense);
     }
 
+    /* TEST CASES REGARDING ANOMALIES */
+    @Test
+    @DisplayName("🚨 Get Anomalies - Should return the recent anomalies of a user")
+    void testGetAnomalies_Success() {
+        ExpenseAnomaly anomaly = new ExpenseAnomaly(1L, "testuser@gmail.com", Expense.ExpenseCategory.FOOD, new BigDecimal("2500.00"), 250, 25, 90, null);
+        when(calculationService.getRecentAnomalies("testuser@gmail.com", 50)).thenReturn(Arrays.asList(anomaly));
+
+        ResponseEntity<?> entity = calculationController.getAnomalies("testuser@gmail.com", 50);
+
+        assertEquals(200, entity.getStatusCodeValue());
+        assertEquals(Arrays.asList(anomaly), entity.getBody());
+    }
+
+    @Test
+    @DisplayName("🚫 Get Anomalies - Should reject a limit above the page size")
+    void testGetAnomalies_InvalidLimit() {
+        ResponseEntity<?> entity = calculationController.getAnomalies(null, 500);
+
+        assertEquals(400, entity.getStatusCodeValue());
+        verify(calculationService, never()).getRecentAnomalies(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("📐 Get Percentiles - Should answer for a month range and reject bad input")
+    void testGetSpendingPercentiles() {
+        Map<String, Object> result = new HashMap<>();
+        List<Double> quantiles = Arrays.asList(0.5, 0.9);
+        when(calculationService.getSpendingPercentiles("testuser@gmail.com", Expense.ExpenseCategory.FOOD, YearMonth.of(2024, 1), YearMonth.of(2024, 3), quantiles)).thenReturn(result);
+
+        ResponseEntity<?> entity = calculationController.getSpendingPercentiles("testuser@gmail.com", Expense.ExpenseCategory.FOOD, "2024-01", "2024-03", quantiles);
+
+        assertEquals(200, entity.getStatusCodeValue());
+        assertSame(result, entity.getBody());
+        assertEquals(400, calculationController.getSpendingPercentiles(null, null, null, null, quantiles).getStatusCodeValue());
+        assertEquals(400, calculationController.getSpendingPercentiles("testuser@gmail.com", null, "2024-04", "2024-03", quantiles).getStatusCodeValue());
+        assertEquals(400, calculationController.getSpendingPercentiles("testuser@gmail.com", null, "2014-03", "2024-03", quantiles).getStatusCodeValue());
+        assertEquals(400, calculationController.getSpendingPercentiles("testuser@gmail.com", null, "Jan", null, quantiles).getStatusCodeValue());
+        assertEquals(400, calculationController.getSpendingPercentiles("testuser@gmail.com", null, null, null, Arrays.asList(1.5)).getStatusCodeValue());
+        verify(calculationService, times(1)).getSpendingPercentiles(any(), any(), any(), any(), any());
+    }
+
+    /* TEST CASES REGARDING MONTHLY STATEMENTS */
+    @Test
+    @DisplayName("🧾 Monthly Statement - Should serve the statement file of an ended month")
+    void testGetMonthlyStatement_Success() throws Exception {
+        when(expenseStatementService.isEnabled()).thenReturn(true);
+        when(expenseStatementService.getStatement("testuser@gmail.com", YearMonth.of(2024, 1))).thenReturn(Paths.get("statement.csv"));
+
+        ResponseEntity<?> entity = calculationController.getMonthlyStatement("2024-01", "testuser@gmail.com");
+
+        assertEquals(200, entity.getStatusCodeValue());
+        assertEquals("statement.csv", ((FileSystemResource) entity.getBody()).getFilename());
+        assertEquals("text/csv", String.valueOf(entity.getHeaders().getContentType()));
+    }
+
+    @Test
+    @DisplayName("❌ Monthly Statement - Should reject a missing user, a bad month or a month not yet ended")
+    void testGetMonthlyStatement_Invalid() throws Exception {
+        when(expenseStatementService.isEnabled()).thenReturn(true);
+
+        assertEquals(400, calculationController.getMonthlyStatement("2024-01", null).getStatusCodeValue());
+        assertEquals(400, calculationController.getMonthlyStatement("Jan", "testuser@gmail.com").getStatusCodeValue());
+        assertEquals(400, calculationController.getMonthlyStatement(YearMonth.now().toString(), "testuser@gmail.com").getStatusCodeValue());
+        when(expenseStatementService.isEnabled()).thenReturn(false);
+        assertEquals(404, calculationController.getMonthlyStatement("2024-01", "testuser@gmail.com").getStatusCodeValue());
+        verify(expenseStatementService, never()).getStatement(any(), any());
+    }
+
+    /* TEST CASES REGARDING SEARCHING EXPENSES */
+    @Test
+    @DisplayName("🔎 Search Expenses - Should return matching expenses")
+    void testSearchExpenses_Success() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("total", 1);
+        result.put("expenses", Arrays.asList(testExpense));
+        when(calculationService.searchExpenses("food", null, null, null, 0, 20)).thenReturn(result);
+
+        ResponseEntity<?> entity = calculationController.searchExpenses("food", null, null, null, 0, 20);
+
+        assertEquals(200, entity.getStatusCodeValue());
+        verify(calculationService, times(1)).searchExpenses("food", null, null, null, 0, 20);
+    }
+
+    @Test
+    @DisplayName("🔎 Search Expenses - Should return 204 when nothing matches")
+    void testSearchExpenses_Empty() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("total", 0);
+        when(calculationService.searchExpenses(anyString(), any(), any(), any(), anyInt(), anyInt())).thenReturn(result);
+
+        ResponseEntity<?> entity = calculationController.searchExpenses("food", null, null, null, 0, 20);
+
+        assertEquals(204, entity.getStatusCodeValue());
+    }
+
+    @Test
+    @DisplayName("🚫 Search Expenses - Should reject a blank query")
+    void testSearchExpenses_BlankQuery() {
+        ResponseEntity<?> entity = calculationController.searchExpenses(" ", null, null, null, 0, 20);
+
+        assertEquals(400, entity.getStatusCodeValue());
+        verify(calculationService, times(0)).searchExpenses(anyString(), any(), any(), any(), anyInt(), anyInt());
+    }
+
+    /* TEST CASES REGARDING SPENDING SERIES */
+    @Test
+    @DisplayName("📈 Get Expense Series - Should return bucketed spending")
+    void testGetExpenseSeries_Success() {
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 12, 31);
+        when(calculationService.getExpenseSeries(ExpenseSeriesService.Bucket.MONTH, ExpenseSeriesService.GroupBy.CATEGORY, from, to))
+                .thenReturn(Collections.<Map<String, Object>>emptyList());
+
+        ResponseEntity<?> entity = calculationController.getExpenseSeries("month", from, to, "category");
+
+        assertEquals(200, entity.getStatusCodeValue());
+        verify(calculationService, times(1)).getExpenseSeries(ExpenseSeriesService.Bucket.MONTH, ExpenseSeriesService.GroupBy.CATEGORY, from, to);
+    }
+
+    @Test
+    @DisplayName("🚫 Get Expense Series - Should reject an unknown bucket")
+    void testGetExpenseSeries_InvalidBucket() {
+        ResponseEntity<?> entity = calculationController.getExpenseSeries("year", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), null);
+
+        assertEquals(400, entity.getStatusCodeValue());
+        verify(calculationService, times(0)).getExpenseSeries(any(), any(), any(), any());
+    }
+
     /* TEST CASES REGARDING DELETING EXPENSES */
     @Test
     @DisplayName("🗑️ Delete Expense - Should delete expense successfully by ID")
     void testDeleteExpenseById_Success(){
-        when(calculationService.findById(anyLong())).thenReturn(Optional.of(testExpense));
-        doNothing().when(calculationService).deleteExpenseById(testExpense.getId());
+        when(calculationService.deleteExpenseById(testExpense.getId())).thenReturn(1);
 
         ResponseEntity<?> entity = calculationController.deleteExpenseById(testExpense.getId());
 
         assertEquals(204,entity.getStatusCodeValue());
-        verify(calculationService,times(1)).findById(testExpense.getId());
+        verify(calculationService,times(0)).findById(anyLong());
         verify(calculationService,times(1)).deleteExpenseById(testExpense.getId());
     }
 
     @Test
     @DisplayName("🚫 Delete Expense - Should return error when expense not found")
     void testDeleteExpenseById_NotFound(){
-        when(calculationService.findById(anyLong())).thenReturn(Optional.empty());
+        when(calculationService.deleteExpenseById(anyLong())).thenReturn(0);
 
-        ResponseEntity<?> entity = calculationController.deleteExpenseById(anyLong());
+        ResponseEntity<?> entity = calculationController.deleteExpenseById(1L);
 
         assertEquals(500,entity.getStatusCodeValue());
         assertTrue(entity.getBody().toString().contains("Expense not found"));
 
-        verify(calculationService, times(1)).findById(anyLong());
-        verify(calculationService,times(0)).deleteExpenseById(anyLong());
+        verify(calculationService,times(1)).deleteExpenseById(1L);
     }
 
     @Test
     @DisplayName("💥 Delete Expense - Should handle exception during deletion")
     void testDeleteExpenseById_ExceptionHandling(){
-        when(calculationService.findById(anyLong())).thenReturn(Optional.of(testExpense));
         doThrow(new RuntimeException()).when(calculationService).deleteExpenseById(anyLong());
 
-        ResponseEntity<?> entity = calculationController.deleteExpenseById(anyLong());
+        ResponseEntity<?> entity = calculationController.deleteExpenseById(1L);
 
         assertEquals(500, entity.getStatusCodeValue());
         assertTrue(entity.getBody().toString().contains("An error occurred"));
 
-        verify(calculationService, times(1)).findById(anyLong());
-        verify(calculationService, times(1)).deleteExpenseById(anyLong());
+        verify(calculationService, times(1)).deleteExpenseById(1L);
+    }
+
+    @Test
+    @DisplayName("🗑️ Delete All Expenses - Should report the deleted count")
+    void testDeleteAllExpenses_Success(){
+        when(calculationService.deleteAllExpenses()).thenReturn(3);
+
+        ResponseEntity<?> entity = calculationController.deleteAllExpenses();
+
+        assertEquals(200, entity.getStatusCodeValue());
+        assertEquals(3, ((Map<?, ?>) entity.getBody()).get("deleted"));
+    }
+
+    @Test
+    @DisplayName("🧹 Purge Expenses - Should queue a background purge job")
+    void testStartPurge_Accepted(){
+        ExpensePurgeService.PurgeJob job = new ExpensePurgeService.PurgeJob("job-1", "testuser@gmail.com", null, null);
+        when(expensePurgeService.startPurge("testuser@gmail.com", null, null)).thenReturn(job);
+
+        ResponseEntity<?> entity = calculationController.startPurge("testuser@gmail.com", null, null);
+
+        assertEquals(202, entity.getStatusCodeValue());
+        verify(expensePurgeService, times(1)).startPurge("testuser@gmail.com", null, null);
+    }
+
+    @Test
+    @DisplayName("🚫 Purge Expenses - Should reject a purge without criteria")
+    void testStartPurge_NoCriteria(){
+        ResponseEntity<?> entity = calculationController.startPurge(null, null, null);
+
+        assertEquals(400, entity.getStatusCodeValue());
+        verify(expensePurgeService, times(0)).startPurge(any(), any(), any());
     }
 
     /* TEST CASES REGARDING FETCHING CATEGORY / PAYMENT MODE / DATE RANGE EXPENSES */
@@ -327,111 +487,268 @@ public class CalculationControllerTest {
     @Test
     @DisplayName("🕓 Get Recent Expenses - Should return latest expenses successfully")
     void testGetRecentExpenses_Success(){
-        when(calculationService.getRecentExpenses(LocalDate.now())).thenReturn(Arrays.asList(testExpense));
+        when(calculationService.getRecentExpenses(null, LocalDate.now())).thenReturn(Arrays.asList(testExpense));
 
-        ResponseEntity<?> entity = calculationController.getRecentExpenses();
+        ResponseEntity<?> entity = calculationController.getRecentExpenses(null);
 
         assertEquals(200,entity.getStatusCodeValue());
-        verify(calculationService,times(1)).getRecentExpenses(any());
+        verify(calculationService,times(1)).getRecentExpenses(isNull(), any());
     }
 
     @Test
-    @DisplayName("♻️ Get Recurring Expenses - Should return recurring expenses successfully")
-    void testGetRecurringExpenses_Success() {
-        Session mockSession = mock(Session.class);
-        Query<Expense> mockQuery = mock(Query.class);
+    @DisplayName("🕓 Get Recent Expenses - Should return only the requested user's window")
+    void testGetRecentExpenses_ForUser(){
+        when(calculationService.getRecentExpenses("testuser@gmail.com", LocalDate.now())).thenReturn(Collections.emptyList());
+
+        ResponseEntity<?> entity = calculationController.getRecentExpenses("testuser@gmail.com");
+
+        assertEquals(204,entity.getStatusCodeValue());
+        verify(calculationService,times(1)).getRecentExpenses("testuser@gmail.com", LocalDate.now());
+    }
+
+    @Test
+    @DisplayName("🔍 Get Expense By Id - Should return the expense or 404")
+    void testGetExpenseById() {
+        when(calculationService.findById(1L)).thenReturn(Optional.of(testExpense));
+        when(calculationService.findById(2L)).thenReturn(Optional.empty());
+
+        ResponseEntity<?> found = calculationController.getExpenseById(1L);
+        ResponseEntity<?> missing = calculationController.getExpenseById(2L);
 
-        when(sessionFactory.getCurrentSession()).thenReturn(mockSession);
-        when(mockSession.createQuery("FROM Expense E WHERE E.isRecurring = true", Expense.class))
-                .thenReturn(mockQuery);
+        assertEquals(200, found.getStatusCodeValue());
+        assertSame(testExpense, found.getBody());
+        assertEquals(404, missing.getStatusCodeValue());
+    }
 
-        when(mockQuery.list()).thenReturn(Arrays.asList(testExpense));
+    @Test
+    @DisplayName("♻️ Get Recurring Expenses - Should return recurring expenses successfully")
+    void testGetRecurringExpenses_Success() {
+        when(calculationService.getRecurringExpenses()).thenReturn(Arrays.asList(testExpense));
 
         ResponseEntity<?> entity = calculationController.getRecurringExpenses();
 
         assertEquals(200, entity.getStatusCodeValue());
-        verify(mockQuery, times(1)).list();
+        verify(calculationService, times(1)).getRecurringExpenses();
     }
 
     @Test
     @DisplayName("💸 Get Expenses Above Amount - Should return matching expenses")
     void testGetExpensesAbove_Success(){
-        Session mockSession = mock(Session.class);
-        Query<Expense> mockQuery = mock(Query.class);
-
-        when(sessionFactory.getCurrentSession()).thenReturn(mockSession);
-        when(mockSession.createQuery("FROM Expense E WHERE E.amount > :myAmount",Expense.class)).thenReturn(mockQuery);
-
-        when(mockQuery.setParameter(eq("myAmount"), any(BigDecimal.class))).thenReturn(mockQuery);
-        when(mockQuery.list()).thenReturn(Arrays.asList(testExpense));
+        when(calculationService.getExpensesAbove(new BigDecimal("500.00"))).thenReturn(Arrays.asList(testExpense));
 
         ResponseEntity<?> entity = calculationController.getExpensesAbove(new BigDecimal("500.00"));
 
         assertEquals(200,entity.getStatusCodeValue());
-        verify(mockQuery, times(1)).setParameter(eq("myAmount"), any(BigDecimal.class));
-        verify(mockQuery, times(1)).list();
+        verify(calculationService, times(1)).getExpensesAbove(new BigDecimal("500.00"));
     }
 
     @Test
     @DisplayName("💸 Get Expenses Below Amount - Should return matching expenses")
     void testGetExpensesBelow_Success(){
-        Session mockSession = mock(Session.class);
-        Query<Expense> mockQuery = mock(Query.class);
+        when(calculationService.getExpensesBelow(new BigDecimal("500.00"))).thenReturn(Arrays.asList(testExpense));
+
+        ResponseEntity<?> entity = calculationController.getExpensesBelow(new BigDecimal("500.00"));
 
-        when(sessionFactory.getCurrentSession()).thenReturn(mockSession);
-        when(mockSession.createQuery("FROM Expense E WHERE E.amount < :myAmount",Expense.class)).thenReturn(mockQuery);
+        assertEquals(200,entity.getStatusCodeValue());
+        assertEquals(Arrays.asList(testExpense), entity.getBody());
+        verify(calculationService, times(1)).getExpensesBelow(new BigDecimal("500.00"));
+    }
 
-        when(mockQuery.setParameter(eq("myAmount"), any(BigDecimal.class))).thenReturn(mockQuery);
-        when(mockQuery.list()).thenReturn(Arrays.asList(testExpense));
+    @Test
+    @DisplayName("💸 Get Expenses Below Amount - Should return no content when nothing matches")
+    void testGetExpensesBelow_NoContent(){
+        when(calculationService.getExpensesBelow(new BigDecimal("500.00"))).thenReturn(Collections.emptyList());
 
         ResponseEntity<?> entity = calculationController.getExpensesBelow(new BigDecimal("500.00"));
 
-        assertEquals(200,entity.getStatusCodeValue());
-        verify(mockQuery, times(1)).setParameter(eq("myAmount"), any(BigDecimal.class));
-        verify(mockQuery, times(1)).list();
+        assertEquals(204,entity.getStatusCodeValue());
+        verify(calculationService, times(1)).getExpensesBelow(new BigDecimal("500.00"));
+    }
+
+    @Test
+    @DisplayName("🔎 Query Expenses - Should combine every supplied filter into one query")
+    void testQueryExpenses_Success() {
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("expenses", Arrays.asList(testExpense));
+        when(calculationService.queryExpenses(any(ExpenseQuery.class))).thenReturn(page);
+
+        ResponseEntity<?> entity = calculationController.queryExpenses("testuser@gmail.com", Arrays.asList(Expense.ExpenseCategory.FOOD),
+                null, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), new BigDecimal("100"), null, true,
+                "amount", "asc", null, 50);
+
+        assertEquals(200, entity.getStatusCodeValue());
+        assertSame(page, entity.getBody());
+        verify(calculationService).queryExpenses(argThat(query -> "testuser@gmail.com".equals(query.getUserEmail())
+                && query.getCategories().equals(Arrays.asList(Expense.ExpenseCategory.FOOD))
+                && query.getPaymentModes() == null
+                && new BigDecimal("100").equals(query.getMinAmount())
+                && Boolean.TRUE.equals(query.getRecurring())
+                && query.getSort() == ExpenseQuery.SortField.AMOUNT
+                && !query.isDescending()
+                && query.getLimit() == 50
+                && query.getAfterId() == null));
+    }
+
+    @Test
+    @DisplayName("🔎 Query Expenses - Should continue after the row the cursor points at")
+    void testQueryExpenses_Cursor() {
+        ExpenseQuery issuer = new ExpenseQuery();
+        testExpense.setId(42L);
+        String cursor = issuer.cursorAfter(testExpense);
+        when(calculationService.queryExpenses(any(ExpenseQuery.class))).thenReturn(new LinkedHashMap<>());
+
+        ResponseEntity<?> entity = calculationController.queryExpenses(null, null, null, null, null, null, null, null,
+                "expenseDone", "desc", cursor, 20);
+
+        assertEquals(200, entity.getStatusCodeValue());
+        verify(calculationService).queryExpenses(argThat(query -> Long.valueOf(42L).equals(query.getAfterId())
+                && testExpense.getExpenseDone().equals(query.getAfterValue())));
+    }
+
+    @Test
+    @DisplayName("🚫 Query Expenses - Should reject an invalid sort, range, limit or cursor")
+    void testQueryExpenses_BadRequest() {
+        String dateCursor = new ExpenseQuery().cursorAfter(testExpense);
+
+        assertEquals(400, calculationController.queryExpenses(null, null, null, null, null, null, null, null, "title", "desc", null, 20).getStatusCodeValue());
+        assertEquals(400, calculationController.queryExpenses(null, null, null, null, null, null, null, null, "amount", "sideways", null, 20).getStatusCodeValue());
+        assertEquals(400, calculationController.queryExpenses(null, null, null, null, null, null, null, null, "amount", "desc", null, 0).getStatusCodeValue());
+        assertEquals(400, calculationController.queryExpenses(null, null, null, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1), null, null, null, "amount", "desc", null, 20).getStatusCodeValue());
+        assertEquals(400, calculationController.queryExpenses(null, null, null, null, null, BigDecimal.TEN, BigDecimal.ONE, null, "amount", "desc", null, 20).getStatusCodeValue());
+        assertEquals(400, calculationController.queryExpenses(null, null, null, null, null, null, null, null, "amount", "desc", "not-a-cursor", 20).getStatusCodeValue());
+        assertEquals(400, calculationController.queryExpenses(null, null, null, null, null, null, null, null, "amount", "desc", dateCursor, 20).getStatusCodeValue());
+        verify(calculationService, never()).queryExpenses(any());
     }
 
     @Test
     @DisplayName("📊 Get Expense Summary - Should return calculated summary successfully")
     void testGetExpenseSummary_Success(){
         Map<String, Object> mockSummary = new HashMap<>();
-        when(calculationService.getExpenseSummary()).thenReturn(mockSummary);
+        when(calculationService.getExpenseSummary(isNull(), eq(YearMonth.now()))).thenReturn(mockSummary);
+
+        ResponseEntity<?> entity = calculationController.getExpenseSummary(null, null);
+
+        assertEquals(200,entity.getStatusCodeValue());
+        verify(calculationService,times(1)).getExpenseSummary(isNull(), eq(YearMonth.now()));
+    }
+
+    @Test
+    @DisplayName("📊 Get Expense Summary - Should summarise the requested user and month")
+    void testGetExpenseSummary_ForUserAndMonth(){
+        Map<String, Object> mockSummary = new HashMap<>();
+        when(calculationService.getExpenseSummary("testuser@gmail.com", YearMonth.of(2024, 3))).thenReturn(mockSummary);
 
-        ResponseEntity<?> entity = calculationController.getExpenseSummary();
+        ResponseEntity<?> entity = calculationController.getExpenseSummary("testuser@gmail.com", "2024-03");
 
         assertEquals(200,entity.getStatusCodeValue());
-        verify(calculationService,times(1)).getExpenseSummary();
+        assertSame(mockSummary, entity.getBody());
+    }
+
+    @Test
+    @DisplayName("🚫 Get Expense Summary - Should return 400 for an invalid month")
+    void testGetExpenseSummary_InvalidMonth(){
+        ResponseEntity<?> entity = calculationController.getExpenseSummary(null, "March");
+
+        assertEquals(400,entity.getStatusCodeValue());
+        verify(calculationService,times(0)).getExpenseSummary(any(), any());
     }
 
     @Test
     @DisplayName("🗓️ Update Expense Date - Should update 'expenseDone' successfully")
     void testUpdateExpenseDone_Success(){
-        when(calculationService.findById(anyLong())).thenReturn(Optional.of(testExpense));
-        testExpense.setExpenseDone(LocalDate.now());
-        doNothing().when(calculationService).updateExpense(testExpense);
+        when(calculationService.patchExpense(eq(1L), any(ExpensePatch.class))).thenReturn(null);
+        when(calculationService.findById(1L)).thenReturn(Optional.of(testExpense));
 
-        ResponseEntity<?> entity = calculationController.updateExpenseDone(anyLong(),LocalDate.now());
+        ResponseEntity<?> entity = calculationController.updateExpenseDone(1L, LocalDate.now());
 
         assertEquals(200,entity.getStatusCodeValue());
-        verify(calculationService,times(1)).findById(anyLong());
-        verify(calculationService,times(1)).updateExpense(testExpense);
+        assertSame(testExpense, entity.getBody());
+        verify(calculationService,times(0)).updateExpense(any());
+        verify(calculationService,times(1)).patchExpense(eq(1L), argThat(patch -> LocalDate.now().equals(patch.getExpenseDone()) && patch.getVersion() == null));
     }
 
     @Test
     @DisplayName("🚫 Update Expense Date - Should return 500 when expense not found")
     void testUpdateExpenseDone_NotFound(){
-        when(calculationService.findById(anyLong())).thenThrow(new RuntimeException());
-        ResponseEntity<?> entity = calculationController.updateExpenseDone(anyLong(), LocalDate.now());
+        when(calculationService.patchExpense(anyLong(), any(ExpensePatch.class))).thenThrow(new ExpenseNotFoundException("Expense not found for ID: 1"));
+        ResponseEntity<?> entity = calculationController.updateExpenseDone(1L, LocalDate.now());
 
         assertEquals(500,entity.getStatusCodeValue());
         assertTrue(entity.getBody().toString().contains("An error occurred"));
-        verify(calculationService,times(1)).findById(anyLong());
-        verify(calculationService,times(0)).updateExpense(testExpense);
+        verify(calculationService,times(1)).patchExpense(anyLong(), any(ExpensePatch.class));
+    }
+
+    /* TEST CASES REGARDING PATCHING EXPENSES */
+    @Test
+    @DisplayName("🩹 Patch Expense - Should apply the patch and return the new version")
+    void testPatchExpense_Success(){
+        ExpensePatch patch = new ExpensePatch();
+        patch.setAmount(new BigDecimal("300.00"));
+        patch.setVersion(3L);
+        when(calculationService.patchExpense(1L, patch)).thenReturn(4L);
+
+        ResponseEntity<?> entity = calculationController.patchExpense(1L, patch, null);
+
+        assertEquals(200, entity.getStatusCodeValue());
+        assertEquals("\"4\"", entity.getHeaders().getETag());
+        assertEquals(4L, ((Map<?, ?>) entity.getBody()).get("version"));
+    }
+
+    @Test
+    @DisplayName("🩹 Patch Expense - Should take the version from If-Match")
+    void testPatchExpense_IfMatch(){
+        ExpensePatch patch = new ExpensePatch();
+        patch.setTitle("Dinner");
+        when(calculationService.patchExpense(eq(1L), any(ExpensePatch.class))).thenReturn(8L);
+
+        ResponseEntity<?> entity = calculationController.patchExpense(1L, patch, "\"7\"");
+
+        assertEquals(200, entity.getStatusCodeValue());
+        assertEquals(7L, patch.getVersion());
+    }
+
+    @Test
+    @DisplayName("🚫 Patch Expense - Should require a version")
+    void testPatchExpense_MissingVersion(){
+        ExpensePatch patch = new ExpensePatch();
+        patch.setTitle("Dinner");
+
+        ResponseEntity<?> entity = calculationController.patchExpense(1L, patch, null);
+
+        assertEquals(400, entity.getStatusCodeValue());
+        verify(calculationService, times(0)).patchExpense(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("⚔️ Patch Expense - Should return 409 on a concurrent update")
+    void testPatchExpense_Conflict(){
+        ExpensePatch patch = new ExpensePatch();
+        patch.setTitle("Dinner");
+        patch.setVersion(1L);
+        when(calculationService.patchExpense(1L, patch)).thenThrow(new ObjectOptimisticLockingFailureException(Expense.class, 1L));
+
+        ResponseEntity<?> entity = calculationController.patchExpense(1L, patch, null);
+
+        assertEquals(409, entity.getStatusCodeValue());
+    }
+
+    @Test
+    @DisplayName("🚫 Patch Expense - Should return 404 when expense not found")
+    void testPatchExpense_NotFound(){
+        ExpensePatch patch = new ExpensePatch();
+        patch.setTitle("Dinner");
+        patch.setVersion(1L);
+        when(calculationService.patchExpense(1L, patch)).thenThrow(new ExpenseNotFoundException("Expense not found for ID: 1"));
+
+        ResponseEntity<?> entity = calculationController.patchExpense(1L, patch, null);
+
+        assertEquals(404, entity.getStatusCodeValue());
     }
 
     @Test
     @DisplayName("🔁 Scheduled Task - Should create recurring entries successfully")
     void testCreateRecurringEntries_WithExpenses() {
+        testExpense.setExpenseDone(LocalDate.now().minusMonths(1));
         when(calculationService.getRecurringExpenses()).thenReturn(Arrays.asList(testExpense));
         doNothing().when(calculationService).addExpense(testExpense);
         doNothing().when(calculationService).updateExpense(testExpense);
@@ -471,5 +788,55 @@ public class CalculationControllerTest {
         verify(calculationService, times(0)).updateExpense(testExpense);
     }
 
+
+    @Test
+    @DisplayName("🔒 Scheduled Task - Should skip partitions whose lease another instance holds")
+    void testCreateRecurringEntries_LeaseHeldElsewhere() {
+        when(schedulerLeaseService.tryAcquire(anyString())).thenReturn(false);
+
+        calculationController.createRecurringEntries();
+
+        verify(schedulerLeaseService, times(4)).tryAcquire(startsWith("recurring-expenses:" + YearMonth.now() + ":"));
+        verify(calculationService, times(0)).getRecurringExpenses();
+        verify(calculationService, times(0)).addExpense(any());
+    }
+
+    @Test
+    @DisplayName("🔒 Scheduled Task - Should resume after the checkpoint and stop when the lease is lost")
+    void testCreateRecurringEntries_ResumeAndLoseLease() {
+        Expense done = new Expense();
+        done.setId(1L);
+        done.setUserEmail("testuser@gmail.com");
+        Expense next = new Expense();
+        next.setId(2L);
+        next.setUserEmail("testuser@gmail.com");
+        Expense last = new Expense();
+        last.setId(3L);
+        last.setUserEmail("testuser@gmail.com");
+        when(calculationService.getRecurringExpenses()).thenReturn(Arrays.asList(last, next, done));
+        when(schedulerLeaseService.getCheckpoint(anyString())).thenReturn(1L);
+        when(schedulerLeaseService.renew(anyString(), eq(2L))).thenReturn(false);
+
+        calculationController.createRecurringEntries();
+
+        verify(calculationService, times(1)).getRecurringExpenses();
+        verify(calculationService, times(0)).addExpense(done);
+        verify(calculationService, times(1)).addExpense(next);
+        verify(calculationService, times(0)).addExpense(last);
+        verify(schedulerLeaseService, times(3)).complete(anyString());
+    }
+
+    @Test
+    @DisplayName("🔒 Scheduled Task - Should only catch up when this month's run is unfinished")
+    void testResumeRecurringEntries() {
+        when(schedulerLeaseService.isPending(anyString(), anyInt())).thenReturn(false);
+        calculationController.resumeRecurringEntries();
+        verify(schedulerLeaseService, times(0)).tryAcquire(anyString());
+
+        when(schedulerLeaseService.isPending(anyString(), anyInt())).thenReturn(true);
+        when(calculationService.getRecurringExpenses()).thenReturn(Collections.emptyList());
+        calculationController.resumeRecurringEntries();
+        verify(schedulerLeaseService, times(4)).complete(anyString());
+    }
 }
 
@@ -0,0 +1,170 @@
+package com.application.expenseTracker.ExpenseTracker.Controller;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Repository.CalculationRepository;
+import com.application.expenseTracker.ExpenseTracker.Service.CalculationService;
+import com.application.expenseTracker.ExpenseTracker.Service.ExpenseJournalService;
+import com.application.expenseTracker.ExpenseTracker.Service.ExpensePercentileService;
+import com.application.expenseTracker.ExpenseTracker.Service.SchedulerLeaseService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the recurring-expense job against H2, kills it part way through a partition and lets a
+ * second instance pick the partition up once the lease expired.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:recurring;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "expense.journal.path=target/recurring-journal",
+        "expense.recurring.partitions=1",
+        "expense.recurring.catch-up.interval.ms=3600000",
+        "expense.lease.ttl.ms=500"
+})
+@DisplayName("🔁 Recurring Expenses Integration Tests")
+class RecurringExpensesIntegrationTest {
+
+    @Autowired
+    private CalculationController calculationController;
+
+    @SpyBean
+    private CalculationService calculationService;
+
+    @Autowired
+    private CalculationRepository calculationRepository;
+
+    @Autowired
+    private SchedulerLeaseService schedulerLeaseService;
+
+    @Autowired
+    private ExpensePercentileService expensePercentileService;
+
+    @Autowired
+    private ExpenseJournalService expenseJournalService;
+
+    @AfterEach
+    void tearDown() {
+        calculationService.deleteAllExpenses();
+    }
+
+    @Test
+    @DisplayName("🔁 Catch-up - Should resume an interrupted run after its checkpoint without processing a template twice")
+    void testInterruptedRun_ResumesFromCheckpoint() throws Exception {
+        List<Long> templates = new ArrayList<>();
+        for (String title : new String[]{"Rent", "Internet", "Gym"}) {
+            Expense expense = new Expense();
+            expense.setTitle(title);
+            expense.setAmount(new BigDecimal("100.00"));
+            expense.setCategory(Expense.ExpenseCategory.RENT);
+            expense.setPaymentMode(Expense.PaymentMode.NETBANKING);
+            expense.setExpenseDone(LocalDate.now().minusMonths(1));
+            expense.setUserEmail("recurring@example.com");
+            expense.setRecurring(true);
+            calculationService.addExpense(expense);
+            templates.add(expense.getId());
+        }
+        // The instance dies while copying the second template
+        AtomicBoolean crashed = new AtomicBoolean();
+        doAnswer(invocation -> {
+            Expense expense = invocation.getArgument(0);
+            if (templates.get(1).equals(expense.getId()) && crashed.compareAndSet(false, true)) {
+                throw new IllegalStateException("instance stopped");
+            }
+            return invocation.callRealMethod();
+        }).when(calculationService).addExpense(any(Expense.class));
+        String leasePrefix = "recurring-expenses:" + YearMonth.now() + ":";
+
+        calculationController.createRecurringEntries();
+
+        assertTrue(crashed.get());
+        assertEquals(templates.get(0), schedulerLeaseService.getCheckpoint(leasePrefix + 0));
+        // Still held until the lease runs out
+        assertFalse(schedulerLeaseService.isPending(leasePrefix, 1));
+
+        // Another instance takes the partition over once the dead one's lease has expired
+        ReflectionTestUtils.setField(schedulerLeaseService, "nodeId", "second-instance");
+        Thread.sleep(600);
+        assertTrue(schedulerLeaseService.isPending(leasePrefix, 1));
+        calculationController.resumeRecurringEntries();
+        calculationController.resumeRecurringEntries();
+
+        assertFalse(schedulerLeaseService.isPending(leasePrefix, 1));
+        for (Long id : templates) {
+            verify(calculationService, times(1)).updateExpense(argThat(expense -> id.equals(expense.getId())));
+            assertEquals(LocalDate.now(), calculationRepository.findById(id).get().getExpenseDone());
+        }
+        assertEquals(templates.size(), calculationRepository.count());
+    }
+
+    @Test
+    @DisplayName("🔁 Re-run - Should move a template to the new month without counting or journaling it as a new expense")
+    void testRepeatedRuns_DoNotCountTheTemplateAgain() {
+        Expense template = new Expense();
+        template.setTitle("Streaming");
+        template.setAmount(new BigDecimal("15.00"));
+        template.setCategory(Expense.ExpenseCategory.UTILITIES);
+        template.setPaymentMode(Expense.PaymentMode.CARD);
+        template.setExpenseDone(LocalDate.now().minusMonths(1));
+        template.setUserEmail("rerun@example.com");
+        template.setRecurring(true);
+        calculationService.addExpense(template);
+
+        for (int run = 1; run <= 2; run++) {
+            long journalBefore = expenseJournalService.nextOffset();
+            // Months no other test has a lease for
+            ReflectionTestUtils.invokeMethod(calculationController, "runRecurringEntries", YearMonth.now().plusMonths(run));
+
+            Map<String, Object> percentiles = expensePercentileService.getPercentiles("rerun@example.com", null,
+                    YearMonth.now().minusMonths(1), YearMonth.now(), Collections.singletonList(0.5));
+            assertEquals(1L, percentiles.get("count"));
+            // Only the update that moves the template, no second CREATED
+            assertEquals(journalBefore + 1, expenseJournalService.nextOffset());
+        }
+        assertEquals(1, calculationRepository.count());
+    }
+
+    @Test
+    @DisplayName("🔁 Catch-up - Should skip a template written before the previous holder could checkpoint it")
+    void testTemplateWrittenBeforeCheckpoint_IsNotWrittenAgain() {
+        YearMonth month = YearMonth.now().plusMonths(3);
+        List<Long> templates = new ArrayList<>();
+        for (LocalDate expenseDone : new LocalDate[]{LocalDate.now().minusMonths(1), month.atDay(1)}) {
+            Expense expense = new Expense();
+            expense.setTitle("Insurance");
+            expense.setAmount(new BigDecimal("40.00"));
+            expense.setCategory(Expense.ExpenseCategory.OTHER);
+            expense.setPaymentMode(Expense.PaymentMode.CARD);
+            expense.setExpenseDone(expenseDone);
+            expense.setUserEmail("checkpoint@example.com");
+            expense.setRecurring(true);
+            calculationService.addExpense(expense);
+            templates.add(expense.getId());
+        }
+
+        // The second template is already dated in the month, as a holder that stopped before renewing leaves it
+        ReflectionTestUtils.invokeMethod(calculationController, "runRecurringEntries", month);
+
+        verify(calculationService, times(1)).updateExpense(argThat(expense -> templates.get(0).equals(expense.getId())));
+        verify(calculationService, never()).updateExpense(argThat(expense -> templates.get(1).equals(expense.getId())));
+        assertEquals(month.atDay(1), calculationRepository.findById(templates.get(1)).get().getExpenseDone());
+        assertFalse(schedulerLeaseService.isPending("recurring-expenses:" + month + ":", 1));
+    }
+}
@@ -0,0 +1,68 @@
+package com.application.expenseTracker.ExpenseTracker.Controller;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the SQL statements Hibernate prepares and the entities it loads, registered through
+ * {@code hibernate.session_factory.statement_inspector} and {@code hibernate.session_factory.interceptor}.
+ * Unlike the session factory statistics it leaves out the {@code scheduling-} threads, so a
+ * background job firing mid-test cannot change a count, while work a request hands to other
+ * pools is still included. Statements sent through JdbcTemplate bypass Hibernate and are not seen.
+ */
+public class SqlStatementCounter extends EmptyInterceptor implements StatementInspector {
+
+    private static final AtomicLong statements = new AtomicLong();
+    private static final AtomicLong entityLoads = new AtomicLong();
+    private static final List<String> log = Collections.synchronizedList(new ArrayList<>());
+
+    public static void reset() {
+        statements.set(0);
+        entityLoads.set(0);
+        log.clear();
+    }
+
+    public static long getStatements() {
+        return statements.get();
+    }
+
+    public static long getEntityLoads() {
+        return entityLoads.get();
+    }
+
+    /** @return the statements and loads since the last reset, in order, for failure messages */
+    public static List<String> getLog() {
+        synchronized (log) {
+            return new ArrayList<>(log);
+        }
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (counted()) {
+            statements.incrementAndGet();
+            log.add(sql.replaceAll("\\s+", " ").trim());
+        }
+        return sql;
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        if (counted()) {
+            entityLoads.incrementAndGet();
+            log.add("load " + entity.getClass().getSimpleName() + "#" + id);
+        }
+        return false;
+    }
+
+    private static boolean counted() {
+        return !Thread.currentThread().getName().startsWith("scheduling-");
+    }
+}
@@ -0,0 +1,175 @@
+package com.application.expenseTracker.ExpenseTracker.Filter;
+
+import com.application.expenseTracker.ExpenseTracker.Service.IdempotencyService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("🔁 Idempotency Filter Tests")
+public class IdempotencyFilterTest {
+
+    private static final byte[] BODY = "{\"title\":\"Lunch\",\"amount\":12.5}".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private FilterChain chain;
+
+    @InjectMocks
+    private IdempotencyFilter idempotencyFilter;
+
+    private IdempotencyService.Claim claim;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        claim = mock(IdempotencyService.Claim.class);
+        when(idempotencyService.claim(anyString(), anyString(), anyString(), any())).thenReturn(claim);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("alice@gmail.com", null, Collections.emptyList()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("✅ Acquired - Should hand the body to the controller and store the response it wrote")
+    void testAcquired_StoresResponse() throws Exception {
+        when(claim.getOutcome()).thenReturn(IdempotencyService.Outcome.ACQUIRED);
+        AtomicReference<String> seen = new AtomicReference<>();
+        doAnswer(invocation -> {
+            ServletRequest request = invocation.getArgument(0);
+            seen.set(StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8));
+            HttpServletResponse response = invocation.getArgument(1);
+            response.setStatus(201);
+            response.setContentType("application/json");
+            response.getOutputStream().write("{\"id\":7}".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(chain).doFilter(any(), any());
+
+        MockHttpServletResponse response = post("key-1");
+
+        assertEquals(new String(BODY, StandardCharsets.UTF_8), seen.get());
+        assertEquals(201, response.getStatus());
+        assertEquals("{\"id\":7}", response.getContentAsString());
+        assertNull(response.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        verify(idempotencyService).claim("alice@gmail.com", "/api/v1/expenses", "key-1", BODY);
+        verify(idempotencyService).complete(claim, 201, "application/json", "{\"id\":7}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("🔁 Replay - Should send the stored response byte for byte without running the controller")
+    void testReplay_SendsStoredResponse() throws Exception {
+        byte[] cbor = {(byte) 0xA1, 0x62, 0x69, 0x64, 0x07};
+        IdempotencyService.StoredResponse stored = mock(IdempotencyService.StoredResponse.class);
+        when(stored.getStatus()).thenReturn(201);
+        when(stored.getContentType()).thenReturn("application/cbor");
+        when(stored.getBody()).thenReturn(cbor);
+        when(claim.getOutcome()).thenReturn(IdempotencyService.Outcome.REPLAY);
+        when(claim.getResponse()).thenReturn(stored);
+
+        MockHttpServletResponse response = post("key-1");
+
+        assertEquals(201, response.getStatus());
+        assertEquals("application/cbor", response.getContentType());
+        assertArrayEquals(cbor, response.getContentAsByteArray());
+        assertEquals("true", response.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertNull(response.getHeader(IdempotencyFilter.BODY_OMITTED_HEADER));
+        verifyNoInteractions(chain);
+        verify(idempotencyService, never()).complete(any(), anyInt(), any(), any());
+    }
+
+    @Test
+    @DisplayName("🚫 Mismatch and in progress - Should answer 422 and 409 without running the controller")
+    void testMismatchAndInProgress() throws Exception {
+        when(claim.getOutcome()).thenReturn(IdempotencyService.Outcome.MISMATCH);
+        MockHttpServletResponse mismatch = post("key-1");
+
+        when(claim.getOutcome()).thenReturn(IdempotencyService.Outcome.IN_PROGRESS);
+        MockHttpServletResponse inProgress = post("key-1");
+
+        assertEquals(422, mismatch.getStatus());
+        assertEquals("Please use a new Idempotency-Key for a different request!", mismatch.getContentAsString());
+        assertEquals(409, inProgress.getStatus());
+        assertEquals("1", inProgress.getHeader("Retry-After"));
+        verifyNoInteractions(chain);
+        verify(idempotencyService, never()).complete(any(), anyInt(), any(), any());
+        verify(idempotencyService, never()).release(any());
+    }
+
+    @Test
+    @DisplayName("📦 Too large - Should answer 413 before buffering or claiming an oversized body")
+    void testOversizedBody_Refused() throws Exception {
+        ReflectionTestUtils.setField(idempotencyFilter, "maxBodyBytes", BODY.length - 1);
+
+        MockHttpServletResponse response = post("key-1");
+
+        assertEquals(413, response.getStatus());
+        assertEquals("Please keep requests with an Idempotency-Key under " + (BODY.length - 1) + " bytes!", response.getContentAsString());
+        verifyNoInteractions(chain, idempotencyService);
+    }
+
+    @Test
+    @DisplayName("💥 Failure - Should release the claim when the controller throws")
+    void testException_ReleasesClaim() throws Exception {
+        when(claim.getOutcome()).thenReturn(IdempotencyService.Outcome.ACQUIRED);
+        doThrow(new ServletException("boom")).when(chain).doFilter(any(), any());
+
+        assertThrows(ServletException.class, () -> post("key-1"));
+
+        verify(idempotencyService).release(claim);
+        verify(idempotencyService, never()).complete(any(), anyInt(), any(), any());
+    }
+
+    @Test
+    @DisplayName("⏭️ Skipped - Should pass requests without a key, other methods and other paths straight through")
+    void testShouldNotFilter() throws Exception {
+        post(null);
+        MockHttpServletRequest get = new MockHttpServletRequest("GET", "/api/v1/expenses");
+        get.addHeader(IdempotencyFilter.KEY_HEADER, "key-1");
+        idempotencyFilter.doFilter(get, new MockHttpServletResponse(), chain);
+        MockHttpServletRequest other = new MockHttpServletRequest("POST", "/auth/login");
+        other.addHeader(IdempotencyFilter.KEY_HEADER, "key-1");
+        idempotencyFilter.doFilter(other, new MockHttpServletResponse(), chain);
+
+        verify(chain, times(3)).doFilter(any(), any());
+        verifyNoInteractions(idempotencyService);
+        assertEquals(400, post(" ").getStatus());
+    }
+
+    private MockHttpServletResponse post(String key) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/expenses");
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.KEY_HEADER, key);
+        }
+        request.setContentType("application/json");
+        request.setContent(BODY);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        idempotencyFilter.doFilter(request, response, chain);
+        return response;
+    }
+}
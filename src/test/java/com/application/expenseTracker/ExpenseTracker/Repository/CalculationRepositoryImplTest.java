@@ -0,0 +1,146 @@
+package com.application.expenseTracker.ExpenseTracker.Repository;
+
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpenseQuery;
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class CalculationRepositoryImplTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @Autowired
+    private CalculationRepository calculationRepository;
+
+    private List<Expense> all;
+
+    @BeforeEach
+    void setUp() {
+        calculationRepository.deleteAll();
+        Expense.ExpenseCategory[] categories = Expense.ExpenseCategory.values();
+        Expense.PaymentMode[] paymentModes = Expense.PaymentMode.values();
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            Expense expense = new Expense();
+            expense.setTitle("Expense " + i);
+            expense.setUserEmail(i % 3 == 0 ? "other@gmail.com" : "testuser@gmail.com");
+            // Few distinct amounts and dates so pages have to break ties on id
+            expense.setAmount(new BigDecimal(100 + (i % 7) * 50).setScale(2));
+            expense.setCategory(categories[i % categories.length]);
+            expense.setPaymentMode(paymentModes[i % paymentModes.length]);
+            expense.setExpenseDone(START.plusDays(i % 10));
+            expense.setRecurring(i % 4 == 0);
+            expenses.add(expense);
+        }
+        all = calculationRepository.saveAll(expenses);
+    }
+
+    @Test
+    @DisplayName("🔎 Query - Should apply every filter together")
+    void testQueryExpenses_CombinedFilters() {
+        ExpenseQuery query = new ExpenseQuery();
+        query.setUserEmail("testuser@gmail.com");
+        query.setCategories(Arrays.asList(Expense.ExpenseCategory.FOOD, Expense.ExpenseCategory.RENT));
+        query.setPaymentModes(Arrays.asList(Expense.PaymentMode.CARD, Expense.PaymentMode.UPI, Expense.PaymentMode.CASH));
+        query.setStartDate(START.plusDays(2));
+        query.setEndDate(START.plusDays(8));
+        query.setMinAmount(new BigDecimal("150"));
+        query.setMaxAmount(new BigDecimal("350"));
+        query.setRecurring(false);
+        query.setSort(ExpenseQuery.SortField.ID);
+        query.setDescending(false);
+
+        List<Long> expected = ids(all.stream().filter(expense -> expense.getUserEmail().equals("testuser@gmail.com")
+                && query.getCategories().contains(expense.getCategory())
+                && query.getPaymentModes().contains(expense.getPaymentMode())
+                && !expense.getExpenseDone().isBefore(query.getStartDate())
+                && !expense.getExpenseDone().isAfter(query.getEndDate())
+                && expense.getAmount().compareTo(query.getMinAmount()) >= 0
+                && expense.getAmount().compareTo(query.getMaxAmount()) <= 0
+                && !expense.isRecurring()).collect(Collectors.toList()));
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, ids(calculationRepository.queryExpenses(query, 100)));
+    }
+
+    @Test
+    @DisplayName("🔎 Query - Should page through every match exactly once in sort order")
+    void testQueryExpenses_KeysetPagination() {
+        for (ExpenseQuery.SortField sort : ExpenseQuery.SortField.values()) {
+            for (boolean descending : new boolean[]{true, false}) {
+                Comparator<Expense> order = comparator(sort);
+                if (descending) {
+                    order = order.reversed();
+                }
+                Predicate<Expense> filter = expense -> expense.getUserEmail().equals("testuser@gmail.com");
+                List<Long> expected = ids(all.stream().filter(filter).sorted(order).collect(Collectors.toList()));
+
+                List<Long> paged = new ArrayList<>();
+                String cursor = null;
+                do {
+                    ExpenseQuery query = new ExpenseQuery();
+                    query.setUserEmail("testuser@gmail.com");
+                    query.setSort(sort);
+                    query.setDescending(descending);
+                    query.setLimit(7);
+                    if (cursor != null) {
+                        query.applyCursor(cursor);
+                    }
+                    List<Expense> rows = calculationRepository.queryExpenses(query, query.getLimit() + 1);
+                    List<Expense> page = rows.subList(0, Math.min(rows.size(), query.getLimit()));
+                    paged.addAll(ids(page));
+                    cursor = rows.size() > query.getLimit() ? query.cursorAfter(page.get(page.size() - 1)) : null;
+                } while (cursor != null);
+
+                assertEquals(expected, paged, sort + (descending ? " DESC" : " ASC"));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("🔎 Query - Should compile one statement per filter shape regardless of values")
+    void testCompile_SameShapeSameStatement() {
+        ExpenseQuery first = new ExpenseQuery();
+        first.setCategories(Collections.singletonList(Expense.ExpenseCategory.FOOD));
+        first.setMinAmount(BigDecimal.ONE);
+        ExpenseQuery second = new ExpenseQuery();
+        second.setCategories(Arrays.asList(Expense.ExpenseCategory.TRAVEL, Expense.ExpenseCategory.RENT));
+        second.setMinAmount(BigDecimal.TEN);
+
+        assertEquals(first.getShape(), second.getShape());
+        assertEquals(CalculationRepositoryImpl.compile(first), CalculationRepositoryImpl.compile(second));
+
+        second.setRecurring(true);
+        assertNotEquals(first.getShape(), second.getShape());
+        assertEquals("SELECT E FROM Expense E WHERE 1 = 1 AND E.category IN :categories AND E.isRecurring = :recurring"
+                        + " AND E.amount >= :minAmount ORDER BY E.expenseDone DESC, E.id DESC",
+                CalculationRepositoryImpl.compile(second));
+    }
+
+    private static Comparator<Expense> comparator(ExpenseQuery.SortField sort) {
+        switch (sort) {
+            case EXPENSE_DONE:
+                return Comparator.comparing(Expense::getExpenseDone).thenComparing(Expense::getId);
+            case AMOUNT:
+                return Comparator.comparing(Expense::getAmount).thenComparing(Expense::getId);
+            default:
+                return Comparator.comparing(Expense::getId);
+        }
+    }
+
+    private static List<Long> ids(List<Expense> expenses) {
+        return expenses.stream().map(Expense::getId).collect(Collectors.toList());
+    }
+}
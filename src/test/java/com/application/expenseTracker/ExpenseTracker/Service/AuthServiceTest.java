@@ -0,0 +1,163 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Dto.AuthTokens;
+import com.application.expenseTracker.ExpenseTracker.Entity.RefreshToken;
+import com.application.expenseTracker.ExpenseTracker.Entity.User;
+import com.application.expenseTracker.ExpenseTracker.Repository.RefreshTokenRepository;
+import com.application.expenseTracker.ExpenseTracker.Repository.UserRepository;
+import com.application.expenseTracker.ExpenseTracker.Utility.HashUtil;
+import com.application.expenseTracker.ExpenseTracker.Utility.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class AuthServiceTest {
+
+    private static final String EMAIL = "testuser@gmail.com";
+    private static final String PASSWORD = "s3cret-Pass";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @InjectMocks
+    private AuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(jwtUtil.generateToken(anyString())).thenAnswer(invocation -> "jwt-for-" + invocation.getArgument(0));
+        when(jwtUtil.getExpirationMs()).thenReturn(900000L);
+        when(userRepository.existsById(EMAIL)).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        authService.shutdown();
+    }
+
+    @Test
+    @DisplayName("🔑 Login - Should issue an access token and store only the hash of the refresh token")
+    void testLogin_Success() {
+        start(new BCryptPasswordEncoder(4));
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(new User(EMAIL, new BCryptPasswordEncoder(4).encode(PASSWORD), "USER")));
+
+        AuthTokens tokens = authService.login(EMAIL, PASSWORD);
+
+        assertEquals("jwt-for-" + EMAIL, tokens.getAccessToken());
+        assertEquals("Bearer", tokens.getTokenType());
+        assertEquals(900, tokens.getExpiresIn());
+        ArgumentCaptor<RefreshToken> stored = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(stored.capture());
+        assertEquals(HashUtil.sha256Hex(tokens.getRefreshToken()), stored.getValue().getTokenHash());
+        assertNotEquals(tokens.getRefreshToken(), stored.getValue().getTokenHash());
+        assertEquals(EMAIL, stored.getValue().getUserEmail());
+        assertTrue(stored.getValue().getExpiresAt().isAfter(LocalDateTime.now().plusDays(29)));
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("🚫 Login - Should reject a wrong password and an unknown email alike")
+    void testLogin_BadCredentials() {
+        start(new BCryptPasswordEncoder(4));
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(new User(EMAIL, new BCryptPasswordEncoder(4).encode(PASSWORD), "USER")));
+        when(userRepository.findByEmail("nobody@gmail.com")).thenReturn(Optional.empty());
+
+        assertThrows(BadCredentialsException.class, () -> authService.login(EMAIL, "wrong"));
+        assertThrows(BadCredentialsException.class, () -> authService.login("nobody@gmail.com", PASSWORD));
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("⬆️ Login - Should re-hash a password stored with a lower BCrypt strength")
+    void testLogin_UpgradesHash() {
+        start(new BCryptPasswordEncoder(5));
+        User user = new User(EMAIL, new BCryptPasswordEncoder(4).encode(PASSWORD), "USER");
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+
+        authService.login(EMAIL, PASSWORD);
+
+        verify(userRepository).save(user);
+        assertTrue(user.getPassword().startsWith("$2a$05$"));
+    }
+
+    @Test
+    @DisplayName("⏳ Login - Should turn logins away once the pool and its queue are full")
+    void testLogin_PoolSaturated() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch checking = new CountDownLatch(1);
+        PasswordEncoder slow = mock(PasswordEncoder.class);
+        when(slow.encode(anyString())).thenReturn("hash");
+        when(slow.matches(anyString(), anyString())).thenAnswer(invocation -> {
+            checking.countDown();
+            release.await();
+            return false;
+        });
+        ReflectionTestUtils.setField(authService, "threads", 1);
+        ReflectionTestUtils.setField(authService, "queueCapacity", 1);
+        start(slow);
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
+
+        Thread first = new Thread(() -> assertThrows(BadCredentialsException.class, () -> authService.login("a@gmail.com", PASSWORD)));
+        first.start();
+        assertTrue(checking.await(5, TimeUnit.SECONDS));
+        Thread second = new Thread(() -> assertThrows(BadCredentialsException.class, () -> authService.login("b@gmail.com", PASSWORD)));
+        second.start();
+        while (((Number) authService.getStats().get("queuedLogins")).intValue() < 1) {
+            Thread.sleep(5);
+        }
+
+        assertThrows(RejectedExecutionException.class, () -> authService.login("c@gmail.com", PASSWORD));
+        assertEquals(1L, authService.getStats().get("rejectedLogins"));
+        release.countDown();
+        first.join();
+        second.join();
+    }
+
+    @Test
+    @DisplayName("🔄 Refresh - Should consume the token once and hand out a new one without BCrypt")
+    void testRefresh_Rotates() {
+        PasswordEncoder encoder = spy(new BCryptPasswordEncoder(4));
+        start(encoder);
+        String hash = HashUtil.sha256Hex("old-token");
+        when(refreshTokenRepository.findById(hash)).thenReturn(Optional.of(new RefreshToken(hash, EMAIL, LocalDateTime.now().plusDays(1), LocalDateTime.now())));
+        when(refreshTokenRepository.consume(eq(hash), any(LocalDateTime.class))).thenReturn(1, 0);
+
+        AuthTokens tokens = authService.refresh("old-token");
+
+        assertEquals("jwt-for-" + EMAIL, tokens.getAccessToken());
+        assertNotEquals("old-token", tokens.getRefreshToken());
+        assertThrows(BadCredentialsException.class, () -> authService.refresh("old-token"));
+        assertThrows(BadCredentialsException.class, () -> authService.refresh("unknown-token"));
+        verify(encoder, never()).matches(anyString(), anyString());
+    }
+
+    private void start(PasswordEncoder passwordEncoder) {
+        ReflectionTestUtils.setField(authService, "passwordEncoder", passwordEncoder);
+        authService.start();
+    }
+}
@@ -0,0 +1,112 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Budget;
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Exception.InvalidBudgetException;
+import com.application.expenseTracker.ExpenseTracker.Repository.BudgetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BudgetServiceTest {
+
+    private static final YearMonth MARCH = YearMonth.of(2024, 3);
+    private static final String MONTHLY_KEY = "testuser@gmail.com|2024-03|*";
+    private static final String FOOD_KEY = "testuser@gmail.com|2024-03|FOOD";
+
+    @Mock
+    private BudgetRepository budgetRepository;
+
+    @InjectMocks
+    private BudgetService budgetService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(budgetRepository.findById(any())).thenReturn(Optional.empty());
+        when(budgetRepository.save(any(Budget.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    @DisplayName("💰 Find Budget - Should hit the database once per key, including for missing budgets")
+    void testFind_CachesHitsAndMisses() {
+        Budget monthly = new Budget(MONTHLY_KEY, "testuser@gmail.com", "2024-03", null, new BigDecimal("1000"), null);
+        when(budgetRepository.findById(MONTHLY_KEY)).thenReturn(Optional.of(monthly));
+
+        for (int i = 0; i < 3; i++) {
+            assertSame(monthly, budgetService.find("testuser@gmail.com", MARCH, null));
+            assertNull(budgetService.find("testuser@gmail.com", MARCH, Expense.ExpenseCategory.FOOD));
+        }
+
+        verify(budgetRepository, times(1)).findById(MONTHLY_KEY);
+        verify(budgetRepository, times(1)).findById(FOOD_KEY);
+    }
+
+    @Test
+    @DisplayName("💰 Set Budget - Should normalise the key and replace a cached miss")
+    void testSetBudget_UpdatesCache() {
+        assertNull(budgetService.find("testuser@gmail.com", MARCH, Expense.ExpenseCategory.FOOD));
+
+        Budget budget = new Budget();
+        budget.setUserEmail("testuser@gmail.com");
+        budget.setBudgetMonth("2024-03");
+        budget.setCategory(Expense.ExpenseCategory.FOOD);
+        budget.setAmount(new BigDecimal("300"));
+        Budget saved = budgetService.setBudget(budget);
+
+        assertEquals(FOOD_KEY, saved.getBudgetKey());
+        assertNotNull(saved.getUpdatedAt());
+        assertSame(saved, budgetService.find("testuser@gmail.com", MARCH, Expense.ExpenseCategory.FOOD));
+        verify(budgetRepository, times(1)).findById(FOOD_KEY);
+    }
+
+    @Test
+    @DisplayName("🚫 Set Budget - Should reject a missing user, a bad month or a non-positive amount")
+    void testSetBudget_Invalid() {
+        assertThrows(InvalidBudgetException.class, () -> budgetService.setBudget(new Budget(null, "", "2024-03", null, BigDecimal.TEN, null)));
+        assertThrows(InvalidBudgetException.class, () -> budgetService.setBudget(new Budget(null, "testuser@gmail.com", "March", null, BigDecimal.TEN, null)));
+        assertThrows(InvalidBudgetException.class, () -> budgetService.setBudget(new Budget(null, "testuser@gmail.com", null, null, BigDecimal.TEN, null)));
+        assertThrows(InvalidBudgetException.class, () -> budgetService.setBudget(new Budget(null, "testuser@gmail.com", "2024-03", null, BigDecimal.ZERO, null)));
+        verify(budgetRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("🗑️ Delete Budget - Should delete and remember the budget is gone")
+    void testDeleteBudget() {
+        Budget monthly = new Budget(MONTHLY_KEY, "testuser@gmail.com", "2024-03", null, new BigDecimal("1000"), null);
+        when(budgetRepository.findById(MONTHLY_KEY)).thenReturn(Optional.of(monthly));
+        when(budgetRepository.existsById(MONTHLY_KEY)).thenReturn(true);
+        assertNotNull(budgetService.find("testuser@gmail.com", MARCH, null));
+
+        assertTrue(budgetService.deleteBudget("testuser@gmail.com", MARCH, null));
+
+        verify(budgetRepository).deleteById(MONTHLY_KEY);
+        assertNull(budgetService.find("testuser@gmail.com", MARCH, null));
+        assertFalse(budgetService.deleteBudget("testuser@gmail.com", MARCH, Expense.ExpenseCategory.RENT));
+    }
+
+    @Test
+    @DisplayName("📦 Legacy Budgets - Should import only budgets that do not exist yet")
+    void testImportLegacyBudgets() {
+        Budget existing = new Budget(MONTHLY_KEY, "testuser@gmail.com", "2024-03", null, new BigDecimal("1000"), null);
+        Budget missing = new Budget("other@gmail.com|2024-03|*", "other@gmail.com", "2024-03", null, new BigDecimal("500"), null);
+        when(budgetRepository.existsById(MONTHLY_KEY)).thenReturn(true);
+
+        assertEquals(1, budgetService.importLegacyBudgets(Arrays.asList(existing, missing)));
+        verify(budgetRepository, times(1)).save(missing);
+        assertEquals(0, budgetService.importLegacyBudgets(Collections.<Budget>emptyList()));
+    }
+}
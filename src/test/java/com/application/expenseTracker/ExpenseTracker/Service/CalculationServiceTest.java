@@ -1,5 +1,8 @@
 package com.application.expenseTracker.ExpenseTracker.Service;
 
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpensePatch;
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpenseQuery;
+import com.application.expenseTracker.ExpenseTracker.Entity.Budget;
 import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
 import com.application.expenseTracker.ExpenseTracker.Exception.ExpenseNotFoundException;
 import com.application.expenseTracker.ExpenseTracker.Exception.GlobalExceptionHandler;
@@ -8,27 +11,77 @@ import com.application.expenseTracker.ExpenseTracker.Repository.CalculationRepos
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.times;
 
 public class CalculationServiceTest {
 
+    private static final YearMonth MARCH = YearMonth.of(2024, 3);
+
     @Mock
     private CalculationRepository calculationRepository;
 
+    @Mock
+    private ExpenseSearchService expenseSearchService;
+
+    @Mock
+    private ExpenseSeriesService expenseSeriesService;
+
+    @Mock
+    private ExpenseJournalService expenseJournalService;
+
+    @Mock
+    private RecentExpenseService recentExpenseService;
+
+    @Mock
+    private ExpenseAnomalyService expenseAnomalyService;
+
+    @Mock
+    private ExpenseSummaryService expenseSummaryService;
+
+    @Mock
+    private BudgetService budgetService;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private ExpenseIngestService expenseIngestService;
+
+    @Mock
+    private ExpensePercentileService expensePercentileService;
+
+    @Mock
+    private ExpenseArchiveService expenseArchiveService;
+
+    /** Not started, so lookups go straight to the repository unless a test starts it. */
+    @Spy
+    private ExpenseCacheService expenseCacheService = new ExpenseCacheService();
+
     @InjectMocks
     private CalculationService calculationService;
 
@@ -45,7 +98,6 @@ public class CalculationServiceTest {
         testExpense.setCategory(Expense.ExpenseCategory.FOOD);
         testExpense.setPaymentMode(Expense.PaymentMode.UPI);
         testExpense.setExpenseDone(LocalDate.now());
-        testExpense.setBudget(1000);
         testExpense.setUserEmail("testuser@gmail.com");
     }
 
@@ -60,57 +112,245 @@ public class CalculationServiceTest {
         verify(calculationRepository, times(1)).findById(1L);
     }
 
+    @Test
+    @DisplayName("⚡ Find Expense - Should serve repeated lookups from the cache until the expense changes")
+    void testFindById_CachedUntilWritten() {
+        ReflectionTestUtils.setField(expenseCacheService, "entries", 64);
+        expenseCacheService.start();
+        testExpense.setVersion(3L);
+        when(calculationRepository.findById(1L)).thenReturn(Optional.of(testExpense));
+
+        Expense first = calculationService.findById(1L).get();
+        Expense second = calculationService.findById(1L).get();
+
+        assertNotSame(first, second);
+        assertEquals("Food", second.getTitle());
+        assertEquals(3L, second.getVersion());
+        verify(calculationRepository, times(1)).findById(1L);
+
+        calculationService.updateExpense(second);
+        calculationService.findById(1L);
+        when(calculationRepository.patchExpense(eq(1L), any())).thenReturn(1);
+        calculationService.patchExpense(1L, new ExpensePatch());
+        calculationService.findById(1L);
+        when(calculationRepository.deleteExpenseById(1L)).thenReturn(1);
+        calculationService.deleteExpenseById(1L);
+        calculationService.findById(1L);
+
+        verify(calculationRepository, times(4)).findById(1L);
+    }
+
     @Test
     @DisplayName("🗑️ Delete Expense - Should successfully remove expense by ID")
     void testDeleteAllExpenses_Success() {
-        doNothing().when(calculationRepository).deleteById(1L);
+        when(calculationRepository.deleteExpenseById(1L)).thenReturn(1);
 
+        assertEquals(1, calculationService.deleteExpenseById(1L));
+
+        verify(calculationRepository, times(1)).deleteExpenseById(1L);
+        verify(calculationRepository, times(0)).findById(1L);
+        verify(expenseSearchService, times(1)).remove(1L);
+        verify(expenseJournalService, times(1)).recordDeleted(Collections.singletonList(1L));
+    }
+
+    @Test
+    @DisplayName("🗑️ Delete Expenses - Should delete a chunk of ids in one statement")
+    void testDeleteExpensesByIds_Success() {
+        when(calculationRepository.deleteExpensesByIds(Arrays.asList(1L, 2L))).thenReturn(2);
+
+        assertEquals(2, calculationService.deleteExpensesByIds(Arrays.asList(1L, 2L)));
+
+        verify(calculationRepository, times(1)).deleteExpensesByIds(Arrays.asList(1L, 2L));
+        verify(expenseSearchService, times(1)).remove(2L);
+    }
+
+    @Test
+    @DisplayName("🩹 Patch Expense - Should update with one statement and return the next version")
+    void testPatchExpense_Success() {
+        ExpensePatch patch = new ExpensePatch();
+        patch.setTitle("Dinner");
+        patch.setVersion(2L);
+        when(calculationRepository.patchExpense(1L, patch)).thenReturn(1);
+
+        assertEquals(3L, calculationService.patchExpense(1L, patch));
+
+        verify(calculationRepository, times(0)).findById(anyLong());
+        verify(expenseSearchService, times(1)).applyPatch(1L, "Dinner", null, null, null);
+        verify(expenseJournalService, times(1)).recordPatched(1L, patch);
+    }
+
+    @Test
+    @DisplayName("📐 Patch Expense - Should move the expense between percentile sketches")
+    void testPatchExpense_MovesPercentiles() {
+        ExpensePatch patch = new ExpensePatch();
+        patch.setAmount(new BigDecimal("400.00"));
+        when(expensePercentileService.isEnabled()).thenReturn(true);
+        when(calculationRepository.findAllById(Collections.singletonList(1L))).thenReturn(Collections.singletonList(testExpense));
+        when(calculationRepository.patchExpense(1L, patch)).thenReturn(1);
+        when(calculationRepository.deleteExpenseById(1L)).thenReturn(1);
+
+        calculationService.patchExpense(1L, patch);
         calculationService.deleteExpenseById(1L);
 
-        verify(calculationRepository, times(1)).deleteById(1L);
+        verify(expensePercentileService, times(1)).onPatched(testExpense, patch);
+        verify(expensePercentileService, times(1)).onRemoved(testExpense);
+    }
+
+    @Test
+    @DisplayName("⚔️ Patch Expense - Should report a conflict when the version moved on")
+    void testPatchExpense_Conflict() {
+        ExpensePatch patch = new ExpensePatch();
+        patch.setTitle("Dinner");
+        patch.setVersion(2L);
+        when(calculationRepository.patchExpense(1L, patch)).thenReturn(0);
+        when(calculationRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> calculationService.patchExpense(1L, patch));
+        verify(expenseJournalService, never()).recordPatched(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("🔎 Query Expenses - Should fetch one extra row to decide whether another page follows")
+    void testQueryExpenses_NextCursor() {
+        Expense other = new Expense();
+        other.setId(2L);
+        other.setExpenseDone(LocalDate.of(2024, 1, 1));
+        ExpenseQuery query = new ExpenseQuery();
+        query.setLimit(1);
+        when(calculationRepository.queryExpenses(query, 2)).thenReturn(Arrays.asList(testExpense, other));
+
+        Map<String, Object> result = calculationService.queryExpenses(query);
+
+        assertEquals(Collections.singletonList(testExpense), result.get("expenses"));
+        ExpenseQuery next = new ExpenseQuery();
+        next.applyCursor((String) result.get("nextCursor"));
+        assertEquals(1L, next.getAfterId());
+        assertEquals(testExpense.getExpenseDone(), next.getAfterValue());
+
+        when(calculationRepository.queryExpenses(query, 2)).thenReturn(Collections.singletonList(other));
+        assertNull(calculationService.queryExpenses(query).get("nextCursor"));
+    }
+
+    @Test
+    @DisplayName("🔎 Search Expenses - Should load matched expenses in ranked order")
+    void testSearchExpenses_RankedOrder() {
+        Expense other = new Expense();
+        other.setId(2L);
+        when(expenseSearchService.search("uber", null, null, null, 0, 20))
+                .thenReturn(new ExpenseSearchService.SearchHits(Arrays.asList(2L, 1L), 2));
+        when(calculationRepository.findAllById(Arrays.asList(2L, 1L))).thenReturn(Arrays.asList(testExpense, other));
+
+        Map<String, Object> result = calculationService.searchExpenses("uber", null, null, null, 0, 20);
+
+        assertEquals(2, result.get("total"));
+        List<Expense> expenses = (List<Expense>) result.get("expenses");
+        assertEquals(2L, expenses.get(0).getId());
+        assertEquals(1L, expenses.get(1).getId());
     }
 
     @Test
     @DisplayName("⚠️ Budget Alert - Should trigger alert at 80% budget usage")
     void testCheckAndSendBudgetAlerts_At80Percent() {
-        when(calculationRepository.getTotalExpensesThisMonth(any())).thenReturn(BigDecimal.valueOf(80));
+        when(budgetService.find("testuser@gmail.com", MARCH, null)).thenReturn(budget(null, "1000"));
+        when(calculationRepository.getTotalExpenses("testuser@gmail.com", MARCH.atDay(1), MARCH.atEndOfMonth())).thenReturn(BigDecimal.valueOf(800));
 
-        calculationService.checkAndSendBudgetAlerts("testuser@gmail.com", 1000, LocalDate.now());
+        calculationService.checkAndSendBudgetAlerts("testuser@gmail.com", Expense.ExpenseCategory.FOOD, MARCH.atDay(15));
 
-        verify(calculationRepository, times(1)).getTotalExpensesThisMonth(any());
+        verify(emailService, times(1)).sendBudgetAlert(eq("testuser@gmail.com"), eq("⚠️ Budget Alert: 80% reached!"), contains("₹800.00 out of your ₹1000.00 budget for 2024-03 (80%)"));
     }
 
     @Test
     @DisplayName("🚨 Budget Alert - Should trigger alert at 100% budget usage")
     void testCheckAndSendBudgetAlerts_At100Percent() {
-        when(calculationRepository.getTotalExpensesThisMonth(any())).thenReturn(BigDecimal.valueOf(100));
+        when(budgetService.find("testuser@gmail.com", MARCH, null)).thenReturn(budget(null, "1000"));
+        when(calculationRepository.getTotalExpenses("testuser@gmail.com", MARCH.atDay(1), MARCH.atEndOfMonth())).thenReturn(BigDecimal.valueOf(1000));
+
+        calculationService.checkAndSendBudgetAlerts("testuser@gmail.com", Expense.ExpenseCategory.FOOD, MARCH.atDay(15));
+
+        verify(emailService, times(1)).sendBudgetAlert(eq("testuser@gmail.com"), eq("❗Budget Limit Reached!"), anyString());
+    }
+
+    @Test
+    @DisplayName("🍔 Budget Alert - Should check the category budget against the category's spending")
+    void testCheckAndSendBudgetAlerts_CategoryBudget() {
+        when(budgetService.find("testuser@gmail.com", MARCH, Expense.ExpenseCategory.FOOD)).thenReturn(budget(Expense.ExpenseCategory.FOOD, "200"));
+        when(calculationRepository.getTotalExpensesByCategory("testuser@gmail.com", Expense.ExpenseCategory.FOOD, MARCH.atDay(1), MARCH.atEndOfMonth()))
+                .thenReturn(BigDecimal.valueOf(250));
 
-        calculationService.checkAndSendBudgetAlerts("testuser@gmail.com", 1000, LocalDate.now());
+        calculationService.checkAndSendBudgetAlerts("testuser@gmail.com", Expense.ExpenseCategory.FOOD, MARCH.atDay(15));
 
-        verify(calculationRepository, times(1)).getTotalExpensesThisMonth(any());
+        verify(emailService, times(1)).sendBudgetAlert(eq("testuser@gmail.com"), eq("🔥 Overspent! 120% of Budget Crossed!"), contains("FOOD budget"));
+        verify(calculationRepository, never()).getTotalExpenses(any(), any(), any());
     }
 
     @Test
     @DisplayName("✅ Budget Alert - Should not trigger below 80% threshold")
     void testCheckAndSendBudgetAlerts_NoAlert() {
-        when(calculationRepository.getTotalExpensesThisMonth(any()))
-                .thenReturn(BigDecimal.valueOf(70));
+        when(budgetService.find("testuser@gmail.com", MARCH, null)).thenReturn(budget(null, "1000"));
+        when(calculationRepository.getTotalExpenses("testuser@gmail.com", MARCH.atDay(1), MARCH.atEndOfMonth())).thenReturn(BigDecimal.valueOf(700));
 
-        calculationService.checkAndSendBudgetAlerts("testuser@gmail.com", 1000, LocalDate.now());
+        calculationService.checkAndSendBudgetAlerts("testuser@gmail.com", Expense.ExpenseCategory.FOOD, MARCH.atDay(15));
 
-        verify(calculationRepository, times(1)).getTotalExpensesThisMonth(any());
+        verify(calculationRepository, times(1)).getTotalExpenses("testuser@gmail.com", MARCH.atDay(1), MARCH.atEndOfMonth());
+        verifyNoInteractions(emailService);
     }
 
+    @Test
+    @DisplayName("✅ Budget Alert - Should not query spending when the user has no budget")
+    void testCheckAndSendBudgetAlerts_NoBudget() {
+        calculationService.checkAndSendBudgetAlerts("testuser@gmail.com", Expense.ExpenseCategory.FOOD, MARCH.atDay(15));
+
+        verify(budgetService, times(2)).find(eq("testuser@gmail.com"), eq(MARCH), any());
+        verifyNoInteractions(calculationRepository, emailService);
+    }
 
     @Test
     @DisplayName("💥 Budget Alert - Should handle exception gracefully during alert check")
     void testCheckAndSendBudgetAlerts_Exception() {
-        when(calculationRepository.getTotalExpensesThisMonth(LocalDate.now())).thenThrow(new RuntimeException());
+        when(budgetService.find("testuser@gmail.com", MARCH, null)).thenReturn(budget(null, "1000"));
+        when(calculationRepository.getTotalExpenses("testuser@gmail.com", MARCH.atDay(1), MARCH.atEndOfMonth())).thenThrow(new RuntimeException());
 
         assertDoesNotThrow(() ->
-                calculationService.checkAndSendBudgetAlerts("testuser@gmail.com", 1000, LocalDate.now())
+                calculationService.checkAndSendBudgetAlerts("testuser@gmail.com", Expense.ExpenseCategory.FOOD, MARCH.atDay(15))
         );
-        verify(calculationRepository, times(1)).getTotalExpensesThisMonth(LocalDate.now());
+        verify(calculationRepository, times(1)).getTotalExpenses("testuser@gmail.com", MARCH.atDay(1), MARCH.atEndOfMonth());
+    }
+
+    @Test
+    @DisplayName("📥 Write-behind - Should leave inserts and budget alerts to the flushed batch")
+    @SuppressWarnings("unchecked")
+    void testAddExpense_WriteBehind() {
+        ArgumentCaptor<Consumer<List<Expense>>> listener = ArgumentCaptor.forClass(Consumer.class);
+        calculationService.registerIngestListener();
+        verify(expenseIngestService).setFlushListener(listener.capture());
+        when(expenseIngestService.append(testExpense)).thenReturn(true);
+        when(expenseIngestService.hasPending("testuser@gmail.com")).thenReturn(true);
+        when(budgetService.find("testuser@gmail.com", MARCH, null)).thenReturn(budget(null, "1000"));
+        when(calculationRepository.getTotalExpenses("testuser@gmail.com", MARCH.atDay(1), MARCH.atEndOfMonth())).thenReturn(BigDecimal.valueOf(900));
+        testExpense.setExpenseDone(MARCH.atDay(15));
+        Expense sameMonth = new Expense();
+        sameMonth.setId(2L);
+        sameMonth.setUserEmail("testuser@gmail.com");
+        sameMonth.setCategory(Expense.ExpenseCategory.FOOD);
+        sameMonth.setExpenseDone(MARCH.atDay(16));
+
+        calculationService.addExpense(testExpense);
+        calculationService.checkAndSendBudgetAlerts("testuser@gmail.com", Expense.ExpenseCategory.FOOD, MARCH.atDay(15));
+
+        verify(calculationRepository, never()).save(any());
+        verifyNoInteractions(expenseSearchService, emailService);
+
+        listener.getValue().accept(Arrays.asList(testExpense, sameMonth));
+
+        verify(expenseSearchService).index(testExpense);
+        verify(expenseSearchService).index(sameMonth);
+        verify(expenseJournalService, times(2)).recordCreated(any());
+        verify(calculationRepository, times(1)).getTotalExpenses("testuser@gmail.com", MARCH.atDay(1), MARCH.atEndOfMonth());
+        verify(emailService, times(1)).sendBudgetAlert(eq("testuser@gmail.com"), eq("🚨  Budget Alert: 90% reached!"), anyString());
+    }
+
+    private static Budget budget(Expense.ExpenseCategory category, String amount) {
+        return new Budget(Budget.key("testuser@gmail.com", MARCH, category), "testuser@gmail.com", MARCH.toString(), category, new BigDecimal(amount), null);
     }
 
     @Test
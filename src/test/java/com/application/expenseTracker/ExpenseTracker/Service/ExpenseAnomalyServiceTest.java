@@ -0,0 +1,109 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpenseAnomaly;
+import com.application.expenseTracker.ExpenseTracker.Entity.CategoryStats;
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Repository.CategoryStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ExpenseAnomalyServiceTest {
+
+    private static final String USER = "testuser@gmail.com";
+
+    @Mock
+    private CategoryStatsRepository categoryStatsRepository;
+
+    @InjectMocks
+    private ExpenseAnomalyService expenseAnomalyService;
+
+    private long nextId = 1;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    @DisplayName("🚨 Anomaly - Should flag a bill ten times the usual amount for the category")
+    void testObserve_FlagsOutlier() {
+        for (String amount : new String[]{"240", "260", "250", "230", "270", "255"}) {
+            assertFalse(expenseAnomalyService.observe(expense(USER, Expense.ExpenseCategory.FOOD, amount)));
+        }
+
+        assertTrue(expenseAnomalyService.observe(expense(USER, Expense.ExpenseCategory.FOOD, "2500")));
+        assertFalse(expenseAnomalyService.observe(expense(USER, Expense.ExpenseCategory.RENT, "2500")));
+
+        List<ExpenseAnomaly> anomalies = expenseAnomalyService.getRecentAnomalies(USER, 10);
+        assertEquals(1, anomalies.size());
+        assertEquals(Expense.ExpenseCategory.FOOD, anomalies.get(0).getCategory());
+        assertTrue(anomalies.get(0).getScore() > 3);
+        assertTrue(expenseAnomalyService.getRecentAnomalies("other@gmail.com", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("🚨 Anomaly - Should not flag anything before enough history and not small deviations of a constant amount")
+    void testObserve_NeedsHistory() {
+        assertFalse(expenseAnomalyService.observe(expense(USER, Expense.ExpenseCategory.TRAVEL, "10")));
+        assertFalse(expenseAnomalyService.observe(expense(USER, Expense.ExpenseCategory.TRAVEL, "1000")));
+        for (int i = 0; i < 10; i++) {
+            expenseAnomalyService.observe(expense(USER, Expense.ExpenseCategory.UTILITIES, "100"));
+        }
+
+        assertFalse(expenseAnomalyService.observe(expense(USER, Expense.ExpenseCategory.UTILITIES, "110")));
+        assertTrue(expenseAnomalyService.observe(expense(USER, Expense.ExpenseCategory.UTILITIES, "200")));
+    }
+
+    @Test
+    @DisplayName("🚨 Anomaly - Should match Welford mean and variance while fewer expenses than 1/decay were seen")
+    void testPersist_WritesRunningStats() {
+        for (String amount : new String[]{"2", "4", "4", "4", "5", "5", "7", "9"}) {
+            expenseAnomalyService.observe(expense(USER, Expense.ExpenseCategory.OTHER, amount));
+        }
+
+        expenseAnomalyService.persist();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CategoryStats>> saved = ArgumentCaptor.forClass(List.class);
+        verify(categoryStatsRepository, times(1)).saveAll(saved.capture());
+        CategoryStats stats = saved.getValue().get(0);
+        assertEquals(8, stats.getSamples());
+        assertEquals(5.0, stats.getMean(), 1e-9);
+        assertEquals(4.0, stats.getVariance(), 1e-9);
+
+        expenseAnomalyService.persist();
+        verify(categoryStatsRepository, times(1)).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("🚨 Anomaly - Should continue from persisted statistics after a restart")
+    void testLoad_ResumesStats() {
+        when(categoryStatsRepository.findAll()).thenReturn(Collections.singletonList(
+                new CategoryStats(USER + "|FOOD", USER, Expense.ExpenseCategory.FOOD, 50, 250, 400, null)));
+
+        expenseAnomalyService.load();
+
+        assertTrue(expenseAnomalyService.observe(expense(USER, Expense.ExpenseCategory.FOOD, "2500")));
+    }
+
+    private Expense expense(String userEmail, Expense.ExpenseCategory category, String amount) {
+        Expense expense = new Expense();
+        expense.setId(nextId++);
+        expense.setUserEmail(userEmail);
+        expense.setCategory(category);
+        expense.setAmount(new BigDecimal(amount));
+        return expense;
+    }
+}
@@ -0,0 +1,133 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/** Archives into files under target/ and checks that reads merge both tiers. */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:archive;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "expense.archive.enabled=true",
+        "expense.archive.path=./target/archive-test",
+        "expense.journal.enabled=false"
+})
+class ExpenseArchiveServiceTest {
+
+    private static final YearMonth OLD = YearMonth.of(2022, 5);
+    private static final LocalDate HORIZON = LocalDate.of(2023, 1, 1);
+
+    @Autowired
+    private CalculationService calculationService;
+
+    @Autowired
+    private ExpenseArchiveService expenseArchiveService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @SpyBean
+    private ExpenseJournalService expenseJournalService;
+
+    @BeforeEach
+    void setUp() {
+        calculationService.deleteAllExpenses();
+    }
+
+    @AfterEach
+    void tearDown() {
+        calculationService.deleteAllExpenses();
+    }
+
+    @Test
+    @DisplayName("🧊 Archive - Should move old months out of the table and still serve them by date range")
+    void testArchiveAndDateRange() {
+        Expense lunch = expense("alice@example.com", OLD.atDay(3), "100.00", Expense.ExpenseCategory.FOOD);
+        calculationService.addExpense(lunch);
+        Expense rent = expense("alice@example.com", OLD.atDay(20), "50.00", Expense.ExpenseCategory.RENT);
+        calculationService.addExpense(rent);
+        calculationService.addExpense(expense("bob@example.com", OLD.atDay(3), "10.00", Expense.ExpenseCategory.FOOD));
+        calculationService.addExpense(expense("alice@example.com", HORIZON.plusDays(1), "5.00", Expense.ExpenseCategory.FOOD));
+
+        Map<String, Object> run = expenseArchiveService.archive(HORIZON);
+        assertEquals(2, run.get("months"));
+        assertEquals(3L, run.get("rows"));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM USER_EXPENSE", Integer.class));
+        // Journal readers learn the rows left the table
+        verify(expenseJournalService).recordArchived(argThat(ids -> new HashSet<>(ids).equals(new HashSet<>(Arrays.asList(lunch.getId(), rent.getId())))));
+        verify(expenseJournalService, times(2)).recordArchived(anyList());
+
+        List<Expense> range = calculationService.getExpensesByDateRange(OLD.atDay(1), HORIZON.plusDays(1));
+        assertEquals(4, range.size());
+        assertEquals(2, calculationService.getExpensesByDateRange(OLD.atDay(1), OLD.atDay(3)).size());
+        assertEquals(1, calculationService.getAllExpense().size(), "other lists only read the table");
+    }
+
+    @Test
+    @DisplayName("📊 Archive - Should merge archived months into summaries and series")
+    void testAggregatesMergeBothTiers() {
+        calculationService.addExpense(expense("alice@example.com", OLD.atDay(3), "100.00", Expense.ExpenseCategory.FOOD));
+        calculationService.addExpense(expense("alice@example.com", OLD.atDay(20), "50.00", Expense.ExpenseCategory.RENT));
+        expenseArchiveService.archive(HORIZON);
+        // Backfilled after the run, so the month is split over both tiers.
+        calculationService.addExpense(expense("alice@example.com", OLD.atDay(20), "30.00", Expense.ExpenseCategory.FOOD));
+
+        Map<String, Object> summary = calculationService.getExpenseSummary("alice@example.com", OLD);
+        assertEquals(0, new BigDecimal("180.00").compareTo((BigDecimal) summary.get("totalExpensesThisMonth")));
+        assertEquals(0, new BigDecimal("90").compareTo((BigDecimal) summary.get("averageDailyExpenses")));
+        @SuppressWarnings("unchecked")
+        Map<String, BigDecimal> top = (Map<String, BigDecimal>) summary.get("top3Categories");
+        assertEquals("FOOD", top.keySet().iterator().next());
+        assertEquals(0, new BigDecimal("130.00").compareTo(top.get("FOOD")));
+
+        List<Map<String, Object>> series = calculationService.getExpenseSeries(ExpenseSeriesService.Bucket.MONTH, ExpenseSeriesService.GroupBy.CATEGORY, OLD.atDay(1), OLD.atEndOfMonth());
+        assertEquals(0, new BigDecimal("180.00").compareTo((BigDecimal) series.get(0).get("total")));
+    }
+
+    @Test
+    @DisplayName("🗑️ Archive - Should delete archived expenses with purges and delete-all")
+    void testDeletesReachTheArchive() {
+        Expense lunch = expense("alice@example.com", OLD.atDay(3), "100.00", Expense.ExpenseCategory.FOOD);
+        calculationService.addExpense(lunch);
+        calculationService.addExpense(expense("alice@example.com", OLD.atDay(25), "20.00", Expense.ExpenseCategory.FOOD));
+        calculationService.addExpense(expense("bob@example.com", OLD.atDay(3), "10.00", Expense.ExpenseCategory.FOOD));
+        expenseArchiveService.archive(HORIZON);
+
+        assertEquals(1, calculationService.deleteArchivedExpenses("alice@example.com", null, OLD.atDay(10)));
+        verify(expenseJournalService).recordDeleted(Collections.singletonList(lunch.getId()));
+        assertEquals(2, calculationService.getExpensesByDateRange(OLD.atDay(1), OLD.atEndOfMonth()).size());
+        assertEquals(2, calculationService.deleteAllExpenses());
+        assertFalse(expenseArchiveService.covers(null, OLD.atDay(1), OLD.atEndOfMonth()));
+    }
+
+    private static Expense expense(String userEmail, LocalDate day, String amount, Expense.ExpenseCategory category) {
+        Expense expense = new Expense();
+        expense.setTitle("Archived " + category);
+        expense.setAmount(new BigDecimal(amount));
+        expense.setCategory(category);
+        expense.setPaymentMode(Expense.PaymentMode.UPI);
+        expense.setExpenseDone(day);
+        expense.setUserEmail(userEmail);
+        return expense;
+    }
+}
@@ -0,0 +1,238 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Runs against H2 so batches, id blocks and replay go through real inserts and the real sequence. */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ExpenseIngestServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<ExpenseIngestService> services = new ArrayList<>();
+
+    private int segmentBytes = 1 << 20;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM USER_EXPENSE");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (ExpenseIngestService service : services) {
+            service.close();
+        }
+    }
+
+    @Test
+    @DisplayName("📥 Write-behind - Should acknowledge with an id and make the user's reads wait for the batch")
+    void testAppend_ReadYourWrites() throws IOException {
+        ExpenseIngestService service = open(directory.resolve("wal"));
+        List<Expense> flushed = new CopyOnWriteArrayList<>();
+        service.setFlushListener(flushed::addAll);
+
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            Expense expense = expense("testuser@gmail.com", "Lunch " + i);
+            assertTrue(service.append(expense));
+            ids.add(expense.getId());
+            assertEquals(0L, expense.getVersion());
+        }
+
+        assertEquals(3, ids.size());
+        assertTrue(service.hasPending("testuser@gmail.com"));
+        assertFalse(service.hasPending("other@gmail.com"));
+        service.awaitFlushed("other@gmail.com");
+
+        service.awaitFlushed("testuser@gmail.com");
+
+        assertFalse(service.hasPending("testuser@gmail.com"));
+        assertEquals(3, flushed.size());
+        assertEquals(3, count());
+        assertEquals("Lunch 2", jdbcTemplate.queryForObject("SELECT TITLE FROM USER_EXPENSE WHERE ID = ?", String.class, flushed.get(2).getId()));
+    }
+
+    @Test
+    @DisplayName("♻️ Write-behind - Should replay the log after a crash without inserting an expense twice")
+    void testReplay_AfterCrash() throws IOException {
+        Path wal = directory.resolve("wal");
+        ExpenseIngestService before = open(wal);
+        Expense first = expense("testuser@gmail.com", "Taxi");
+        Expense second = expense("testuser@gmail.com", "Coffee");
+        before.append(first);
+        before.awaitAllFlushed();
+        before.append(second);
+
+        // The copy is the disk as a crash would leave it: "second" is only in the log and the
+        // checkpoint is lost, as if the process died between committing "first" and storing it.
+        Path crashed = directory.resolve("crashed");
+        Files.createDirectories(crashed);
+        try (Stream<Path> files = Files.list(wal)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.copy(file, crashed.resolve(file.getFileName()));
+            }
+        }
+        Files.deleteIfExists(crashed.resolve("checkpoint"));
+        before.close();
+        jdbcTemplate.update("DELETE FROM USER_EXPENSE WHERE ID = ?", second.getId());
+
+        ExpenseIngestService after = open(crashed);
+
+        assertEquals(2, count());
+        assertEquals("Coffee", jdbcTemplate.queryForObject("SELECT TITLE FROM USER_EXPENSE WHERE ID = ?", String.class, second.getId()));
+        Expense next = expense("testuser@gmail.com", "Dinner");
+        after.append(next);
+        assertTrue(next.getId() > second.getId());
+    }
+
+    @Test
+    @DisplayName("🚧 Write-behind - Should hand the expense back untouched when the backlog is full")
+    void testAppend_BacklogFull() throws IOException {
+        ExpenseIngestService service = open(directory.resolve("wal"));
+        ReflectionTestUtils.setField(service, "maxPending", 1);
+        assertTrue(service.append(expense("testuser@gmail.com", "Rent")));
+
+        Expense rejected = expense("testuser@gmail.com", "Power bill");
+        assertFalse(service.append(rejected));
+
+        assertNull(rejected.getId());
+        assertNull(rejected.getVersion());
+        assertEquals(1L, service.getStats().get("rejected"));
+    }
+
+    @Test
+    @DisplayName("🚧 Write-behind - Should hand the expense back rather than drop a segment that is not written yet")
+    void testAppend_LogFull() throws IOException {
+        segmentBytes = 1024;
+        ExpenseIngestService service = open(directory.resolve("wal"));
+        int appended = 0;
+        Expense rejected;
+        do {
+            rejected = expense("testuser@gmail.com", "Coffee " + appended++);
+        } while (service.append(rejected));
+
+        assertNull(rejected.getId());
+        assertNull(rejected.getVersion());
+        assertEquals(1L, service.getStats().get("rejected"));
+        service.awaitAllFlushed();
+        assertEquals(appended - 1, count());
+        assertTrue(service.append(expense("testuser@gmail.com", "Tea")));
+    }
+
+    @Test
+    @DisplayName("🚧 Write-behind - Should hand back an expense that has an id or would not fit the table")
+    void testAppend_HandsBackWhatDoesNotFit() throws IOException {
+        ExpenseIngestService service = open(directory.resolve("wal"));
+        Expense tooLong = expense("testuser@gmail.com", String.join("", Collections.nCopies(ExpenseIngestService.MAX_TEXT_LENGTH + 1, "x")));
+        Expense existing = expense("testuser@gmail.com", "Gym");
+        existing.setId(42L);
+
+        assertFalse(service.append(tooLong));
+        assertFalse(service.append(existing));
+
+        assertNull(tooLong.getId());
+        assertEquals(42L, existing.getId());
+        assertFalse(service.hasPending("testuser@gmail.com"));
+    }
+
+    @Test
+    @DisplayName("☠️ Write-behind - Should write the rest of a batch and dead-letter the row the table rejects")
+    void testFlush_DeadLettersRejectedRow() throws IOException {
+        Path wal = directory.resolve("wal");
+        ExpenseIngestService service = open(wal);
+        List<Expense> flushed = new CopyOnWriteArrayList<>();
+        service.setFlushListener(flushed::addAll);
+        Expense before = expense("testuser@gmail.com", "Taxi");
+        Expense rejected = expense("testuser@gmail.com", "Coffee");
+        Expense after = expense("testuser@gmail.com", "Dinner");
+        service.append(before);
+        service.append(rejected);
+        service.append(after);
+        // Stands in for any constraint the checks in append do not know about
+        rejected.setTitle(String.join("", Collections.nCopies(ExpenseIngestService.MAX_TEXT_LENGTH + 1, "x")));
+
+        service.awaitAllFlushed();
+
+        assertEquals(2, count());
+        assertEquals(Arrays.asList(before, after), flushed);
+        assertEquals(1L, service.getStats().get("deadLettered"));
+        List<String> deadLetters = Files.readAllLines(wal.resolve(ExpenseIngestService.DEAD_LETTER_FILE));
+        assertEquals(1, deadLetters.size());
+        assertTrue(deadLetters.get(0).contains("\"id\":" + rejected.getId()));
+        // Later appends are not held up by the rejected row
+        service.append(expense("testuser@gmail.com", "Lunch"));
+        service.awaitAllFlushed();
+        assertEquals(3, count());
+    }
+
+    private ExpenseIngestService open(Path path) throws IOException {
+        ExpenseIngestService service = new ExpenseIngestService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "path", path.toString());
+        ReflectionTestUtils.setField(service, "segmentBytes", segmentBytes);
+        ReflectionTestUtils.setField(service, "maxSegments", 4);
+        ReflectionTestUtils.setField(service, "fsync", true);
+        ReflectionTestUtils.setField(service, "batchSize", 50);
+        // Batches are only written when a reader asks, so the tests decide when they happen.
+        ReflectionTestUtils.setField(service, "flushIntervalMs", 3600000L);
+        ReflectionTestUtils.setField(service, "maxPending", 1000);
+        ReflectionTestUtils.setField(service, "idBlockSize", 10);
+        ReflectionTestUtils.setField(service, "readWaitMs", 5000L);
+        service.open();
+        services.add(service);
+        return service;
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM USER_EXPENSE", Integer.class);
+    }
+
+    private static Expense expense(String userEmail, String title) {
+        Expense expense = new Expense();
+        expense.setTitle(title);
+        expense.setUserEmail(userEmail);
+        expense.setAmount(new BigDecimal("120.00"));
+        expense.setCategory(Expense.ExpenseCategory.FOOD);
+        expense.setPaymentMode(Expense.PaymentMode.CARD);
+        expense.setExpenseDone(LocalDate.of(2024, 3, 1));
+        return expense;
+    }
+}
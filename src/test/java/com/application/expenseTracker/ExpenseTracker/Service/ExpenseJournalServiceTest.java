@@ -0,0 +1,112 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpensePatch;
+import com.application.expenseTracker.ExpenseTracker.Dto.JournalEntry;
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpenseJournalServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private ExpenseJournalService expenseJournalService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        expenseJournalService = newJournal();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        expenseJournalService.close();
+    }
+
+    @Test
+    @DisplayName("📓 Journal - Should deliver every write to a subscriber in order")
+    void testSubscriberReceivesEntries() throws Exception {
+        Expense expense = new Expense();
+        expense.setId(7L);
+        expense.setTitle("Groceries");
+        expense.setAmount(new BigDecimal("42.10"));
+        expense.setCategory(Expense.ExpenseCategory.FOOD);
+        expense.setExpenseDone(LocalDate.of(2024, 3, 1));
+        ExpensePatch patch = new ExpensePatch();
+        patch.setTitle("Weekly groceries");
+        List<JournalEntry> received = new CopyOnWriteArrayList<>();
+
+        expenseJournalService.recordCreated(expense);
+        expenseJournalService.subscribe("test", received::add);
+        expenseJournalService.recordPatched(7L, patch);
+        expenseJournalService.recordDeleted(Arrays.asList(7L, 8L));
+
+        awaitSize(received, 3);
+        assertEquals(JournalEntry.Type.CREATED, received.get(0).getType());
+        assertEquals(0, received.get(0).getOffset());
+        assertEquals("Groceries", received.get(0).getExpense().getTitle());
+        assertEquals(LocalDate.of(2024, 3, 1), received.get(0).getExpense().getExpenseDone());
+        assertEquals("Weekly groceries", received.get(1).getPatch().getTitle());
+        assertEquals(Arrays.asList(7L, 8L), received.get(2).getExpenseIds());
+    }
+
+    @Test
+    @DisplayName("📓 Journal - Should redeliver a failed entry and resume from the stored offset after a restart")
+    void testAtLeastOnceAndResume() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        List<Long> received = new CopyOnWriteArrayList<>();
+        expenseJournalService.subscribe("rollup", entry -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("boom");
+            }
+            received.add(entry.getOffset());
+        });
+        expenseJournalService.recordDeleted(Arrays.asList(1L));
+        expenseJournalService.recordDeleted(Arrays.asList(2L));
+
+        awaitSize(received, 2);
+        assertEquals(Arrays.asList(0L, 1L), received);
+        expenseJournalService.close();
+
+        expenseJournalService = newJournal();
+        expenseJournalService.recordDeletedAll();
+        List<Long> afterRestart = new CopyOnWriteArrayList<>();
+        expenseJournalService.subscribe("rollup", entry -> afterRestart.add(entry.getOffset()));
+
+        awaitSize(afterRestart, 1);
+        assertEquals(Arrays.asList(2L), afterRestart);
+    }
+
+    private ExpenseJournalService newJournal() throws IOException {
+        ExpenseJournalService journal = new ExpenseJournalService();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "path", directory.toString());
+        ReflectionTestUtils.setField(journal, "segmentBytes", 4096);
+        ReflectionTestUtils.setField(journal, "maxSegments", 4);
+        journal.open();
+        return journal;
+    }
+
+    private static void awaitSize(List<?> list, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (list.size() < size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(size, list.size());
+    }
+}
@@ -0,0 +1,123 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Repository.CalculationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/** Runs the rebuild against H2 and writes to USER_EXPENSE while it is reading. */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ExpensePercentileServiceTest {
+
+    private static final String USER = "testuser@gmail.com";
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CalculationRepository calculationRepository;
+
+    private ExpenseShardService expenseShardService;
+    private ExpenseArchiveService expenseArchiveService;
+    private ExpensePercentileService expensePercentileService;
+
+    @BeforeEach
+    void setUp() {
+        calculationRepository.deleteAll();
+        expenseShardService = mock(ExpenseShardService.class);
+        expenseArchiveService = mock(ExpenseArchiveService.class);
+        when(expenseArchiveService.read(any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+        expensePercentileService = new ExpensePercentileService();
+        ReflectionTestUtils.setField(expensePercentileService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(expensePercentileService, "expenseShardService", expenseShardService);
+        ReflectionTestUtils.setField(expensePercentileService, "expenseArchiveService", expenseArchiveService);
+    }
+
+    @Test
+    @DisplayName("📐 Rebuild - Should replay writes to rows already read and leave the rest to the scan")
+    void testRebuild_ReplaysWritesMadeMeanwhile() {
+        Expense edited = calculationRepository.save(expense("100.00"));
+        Expense deleted = calculationRepository.save(expense("200.00"));
+        Expense added = expense("50.00");
+        // Before the scan reaches it: the scan reads the new row itself
+        doAnswer(invocation -> {
+            write(null, calculationRepository.save(added));
+            ((IntConsumer) invocation.getArgument(0)).accept(0);
+            return null;
+        }).when(expenseShardService).forEachShard(any());
+        // After the table was read: only the replay brings these in
+        doAnswer(invocation -> {
+            Expense before = calculationRepository.findById(edited.getId()).get();
+            edited.setAmount(new BigDecimal("300.00"));
+            write(before, calculationRepository.save(edited));
+            calculationRepository.deleteById(deleted.getId());
+            write(deleted, null);
+            return null;
+        }).when(expenseArchiveService).forEachAmount(any(), any(), any(), any());
+
+        Map<String, Object> stats = expensePercentileService.rebuild();
+
+        assertEquals(3, stats.get("replayedWrites"));
+        Map<String, Object> percentiles = expensePercentileService.getPercentiles(USER, null, YearMonth.from(DAY), YearMonth.from(DAY), Arrays.asList(0.0, 1.0));
+        assertEquals(2L, percentiles.get("count"));
+        Map<?, ?> values = (Map<?, ?>) percentiles.get("percentiles");
+        assertEquals(50.0, ((BigDecimal) values.get("p0")).doubleValue(), 0.5);
+        assertEquals(300.0, ((BigDecimal) values.get("p100")).doubleValue(), 3.0);
+    }
+
+    @Test
+    @DisplayName("📐 Rebuild - Should keep the current sketches when the scan fails")
+    void testRebuild_KeepsSketchesOnFailure() {
+        expensePercentileService.onSaved(calculationRepository.save(expense("100.00")));
+        doThrow(new IllegalStateException("shard down")).when(expenseShardService).forEachShard(any());
+
+        assertThrows(IllegalStateException.class, () -> expensePercentileService.rebuild());
+
+        assertEquals(1L, expensePercentileService.getPercentiles(USER, null, YearMonth.from(DAY), YearMonth.from(DAY), Arrays.asList(0.5)).get("count"));
+        // Writes after the failed rebuild are not held back for a replay
+        expensePercentileService.onSaved(calculationRepository.save(expense("120.00")));
+        assertEquals(2L, expensePercentileService.getPercentiles(USER, null, YearMonth.from(DAY), YearMonth.from(DAY), Arrays.asList(0.5)).get("count"));
+    }
+
+    /** What {@link CalculationService} reports after each committed write. */
+    private void write(Expense before, Expense after) {
+        if (before != null) {
+            expensePercentileService.onRemoved(before);
+        }
+        if (after != null) {
+            expensePercentileService.onSaved(after);
+        }
+    }
+
+    private static Expense expense(String amount) {
+        Expense expense = new Expense();
+        expense.setTitle("Groceries");
+        expense.setUserEmail(USER);
+        expense.setAmount(new BigDecimal(amount));
+        expense.setCategory(Expense.ExpenseCategory.FOOD);
+        expense.setPaymentMode(Expense.PaymentMode.CARD);
+        expense.setExpenseDone(DAY);
+        return expense;
+    }
+}
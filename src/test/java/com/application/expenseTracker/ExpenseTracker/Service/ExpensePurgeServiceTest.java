@@ -0,0 +1,67 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Repository.CalculationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ExpensePurgeServiceTest {
+
+    @Mock
+    private CalculationRepository calculationRepository;
+
+    @Mock
+    private CalculationService calculationService;
+
+    @InjectMocks
+    private ExpensePurgeService expensePurgeService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(expensePurgeService, "chunkSize", 2);
+    }
+
+    @Test
+    @DisplayName("🧹 Purge - Should delete chunk by chunk until nothing matches")
+    void testRun_DeletesInChunks() {
+        LocalDate end = LocalDate.of(2023, 12, 31);
+        when(calculationRepository.findIdsForPurge(0L, "testuser@gmail.com", null, end, PageRequest.of(0, 2))).thenReturn(Arrays.asList(1L, 2L));
+        when(calculationRepository.findIdsForPurge(2L, "testuser@gmail.com", null, end, PageRequest.of(0, 2))).thenReturn(Collections.singletonList(5L));
+        when(calculationRepository.findIdsForPurge(5L, "testuser@gmail.com", null, end, PageRequest.of(0, 2))).thenReturn(Collections.<Long>emptyList());
+        when(calculationService.deleteExpensesByIds(anyList())).thenAnswer(invocation -> ((java.util.List<?>) invocation.getArgument(0)).size());
+
+        ExpensePurgeService.PurgeJob job = new ExpensePurgeService.PurgeJob("job-1", "testuser@gmail.com", null, end);
+        expensePurgeService.run(job);
+
+        assertEquals(ExpensePurgeService.Status.COMPLETED, job.getStatus());
+        assertEquals(3, job.getDeleted());
+        assertEquals(2, job.getChunks());
+        verify(calculationService, times(2)).deleteExpensesByIds(anyList());
+    }
+
+    @Test
+    @DisplayName("🧹 Purge - Should stop without deleting when cancelled before it starts")
+    void testRun_Cancelled() {
+        ExpensePurgeService.PurgeJob job = new ExpensePurgeService.PurgeJob("job-2", "testuser@gmail.com", null, null);
+        ReflectionTestUtils.setField(job, "cancelRequested", true);
+
+        expensePurgeService.run(job);
+
+        assertEquals(ExpensePurgeService.Status.CANCELLED, job.getStatus());
+        verify(calculationService, times(0)).deleteExpensesByIds(anyList());
+    }
+}
@@ -0,0 +1,81 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpenseSearchServiceTest {
+
+    private ExpenseSearchService expenseSearchService;
+
+    @BeforeEach
+    void setUp() {
+        expenseSearchService = new ExpenseSearchService();
+        expenseSearchService.index(expense(1L, "Uber ride to airport", "late night", Expense.ExpenseCategory.TRAVEL, LocalDate.of(2024, 4, 2)));
+        expenseSearchService.index(expense(2L, "Groceries", "weekly uber eats order", Expense.ExpenseCategory.FOOD, LocalDate.of(2024, 5, 10)));
+        expenseSearchService.index(expense(3L, "Electricity bill", null, Expense.ExpenseCategory.UTILITIES, LocalDate.of(2024, 6, 1)));
+    }
+
+    @Test
+    @DisplayName("🔎 Search - Should match title and notes, most recent first")
+    void testSearch_TitleAndNotes() {
+        ExpenseSearchService.SearchHits hits = expenseSearchService.search("uber", null, null, null, 0, 10);
+
+        assertEquals(2, hits.getTotal());
+        assertEquals(Arrays.asList(2L, 1L), hits.getIds());
+    }
+
+    @Test
+    @DisplayName("🔎 Search - Should support prefix and fuzzy matching")
+    void testSearch_PrefixAndFuzzy() {
+        assertEquals(Collections.singletonList(3L), expenseSearchService.search("electr", null, null, null, 0, 10).getIds());
+        assertEquals(Collections.singletonList(1L), expenseSearchService.search("airprot", null, null, null, 0, 10).getIds());
+    }
+
+    @Test
+    @DisplayName("🔎 Search - Should apply category and date filters")
+    void testSearch_Filters() {
+        assertEquals(Collections.singletonList(1L), expenseSearchService.search("uber", Expense.ExpenseCategory.TRAVEL, null, null, 0, 10).getIds());
+        assertEquals(Collections.singletonList(2L), expenseSearchService.search("uber", null, LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31), 0, 10).getIds());
+    }
+
+    @Test
+    @DisplayName("🔎 Search - Should paginate and reflect removals")
+    void testSearch_PaginationAndRemoval() {
+        ExpenseSearchService.SearchHits secondPage = expenseSearchService.search("uber", null, null, null, 1, 1);
+        assertEquals(2, secondPage.getTotal());
+        assertEquals(Collections.singletonList(1L), secondPage.getIds());
+
+        expenseSearchService.remove(1L);
+
+        assertEquals(Collections.singletonList(2L), expenseSearchService.search("uber", null, null, null, 0, 10).getIds());
+    }
+
+    @Test
+    @DisplayName("🔎 Search - Should return an empty page past the end, even when page * size overflows an int")
+    void testSearch_PageBeyondIntRange() {
+        ExpenseSearchService.SearchHits hits = expenseSearchService.search("uber", null, null, null, Integer.MAX_VALUE / 2, 100);
+        assertEquals(2, hits.getTotal());
+        assertTrue(hits.getIds().isEmpty());
+        assertTrue(expenseSearchService.search("uber", null, null, null, 1, Integer.MAX_VALUE).getIds().isEmpty());
+    }
+
+    private static Expense expense(Long id, String title, String notes, Expense.ExpenseCategory category, LocalDate expenseDone) {
+        Expense expense = new Expense();
+        expense.setId(id);
+        expense.setTitle(title);
+        expense.setNotes(notes);
+        expense.setCategory(category);
+        expense.setExpenseDone(expenseDone);
+        expense.setAmount(BigDecimal.TEN);
+        return expense;
+    }
+}
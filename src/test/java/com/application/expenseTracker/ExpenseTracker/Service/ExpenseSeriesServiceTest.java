@@ -0,0 +1,81 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Repository.CalculationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ExpenseSeriesServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 15);
+
+    @Mock
+    private CalculationRepository calculationRepository;
+
+    @Mock
+    private ExpenseArchiveService expenseArchiveService;
+
+    @InjectMocks
+    private ExpenseSeriesService expenseSeriesService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    @DisplayName("📈 Series - Should roll daily sums up into monthly buckets per category")
+    void testGetSeries_MonthlyByCategory() {
+        when(calculationRepository.getDailyTotalsByCategory(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 29))).thenReturn(Arrays.asList(
+                new Object[]{LocalDate.of(2024, 1, 3), Expense.ExpenseCategory.FOOD, new BigDecimal("10.00")},
+                new Object[]{LocalDate.of(2024, 1, 20), Expense.ExpenseCategory.FOOD, new BigDecimal("5.00")},
+                new Object[]{LocalDate.of(2024, 2, 1), Expense.ExpenseCategory.RENT, new BigDecimal("100.00")}));
+
+        List<Map<String, Object>> series = expenseSeriesService.getSeries(ExpenseSeriesService.Bucket.MONTH,
+                ExpenseSeriesService.GroupBy.CATEGORY, LocalDate.of(2024, 1, 10), LocalDate.of(2024, 2, 10), TODAY);
+
+        assertEquals(2, series.size());
+        assertEquals(LocalDate.of(2024, 1, 1), series.get(0).get("bucketStart"));
+        assertEquals(new BigDecimal("15.00"), series.get(0).get("total"));
+        assertEquals(new BigDecimal("100.00"), ((Map<?, ?>) series.get(1).get("groups")).get("RENT"));
+    }
+
+    @Test
+    @DisplayName("📈 Series - Should only recompute the open bucket once closed buckets are cached")
+    void testGetSeries_ClosedBucketsCached() {
+        when(calculationRepository.getDailyTotals(any(), any())).thenReturn(Collections.<Object[]>emptyList());
+
+        expenseSeriesService.getSeries(ExpenseSeriesService.Bucket.MONTH, ExpenseSeriesService.GroupBy.NONE, LocalDate.of(2023, 1, 1), TODAY, TODAY);
+        expenseSeriesService.getSeries(ExpenseSeriesService.Bucket.MONTH, ExpenseSeriesService.GroupBy.NONE, LocalDate.of(2023, 1, 1), TODAY, TODAY);
+
+        verify(calculationRepository, times(1)).getDailyTotals(LocalDate.of(2023, 1, 1), LocalDate.of(2024, 3, 31));
+        verify(calculationRepository, times(1)).getDailyTotals(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31));
+    }
+
+    @Test
+    @DisplayName("📈 Series - Should recompute a closed bucket after a write lands in it")
+    void testGetSeries_EvictedOnWrite() {
+        when(calculationRepository.getDailyTotals(any(), any())).thenReturn(Collections.<Object[]>emptyList());
+
+        expenseSeriesService.getSeries(ExpenseSeriesService.Bucket.MONTH, ExpenseSeriesService.GroupBy.NONE, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 29), TODAY);
+        expenseSeriesService.evict(LocalDate.of(2024, 2, 14));
+        expenseSeriesService.getSeries(ExpenseSeriesService.Bucket.MONTH, ExpenseSeriesService.GroupBy.NONE, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 29), TODAY);
+
+        verify(calculationRepository, times(1)).getDailyTotals(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29));
+    }
+}
@@ -0,0 +1,152 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Writes statements into files under target/ with one user per fork-join leaf, so the pool really splits the work. */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statement;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "expense.statement.enabled=true",
+        "expense.statement.path=./target/statement-test",
+        "expense.statement.parallelism=2",
+        "expense.statement.batch-size=1",
+        "expense.archive.enabled=true",
+        "expense.archive.path=./target/statement-test-archive",
+        "expense.journal.enabled=false"
+})
+class ExpenseStatementServiceTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2024, 3);
+
+    @Autowired
+    private CalculationService calculationService;
+
+    @Autowired
+    private ExpenseStatementService expenseStatementService;
+
+    @Autowired
+    private ExpenseArchiveService expenseArchiveService;
+
+    @BeforeEach
+    void setUp() {
+        calculationService.deleteAllExpenses();
+    }
+
+    @AfterEach
+    void tearDown() {
+        calculationService.deleteAllExpenses();
+    }
+
+    @Test
+    @DisplayName("🧾 Statement - Should write one CSV per user with the month's expenses in date order and a total")
+    void testGenerate() throws Exception {
+        calculationService.addExpense(expense("alice@example.com", MONTH.atDay(20), "50.00", "Rent, March"));
+        calculationService.addExpense(expense("alice@example.com", MONTH.atDay(3), "12.50", "Lunch"));
+        calculationService.addExpense(expense("alice@example.com", MONTH.plusMonths(1).atDay(1), "99.00", "Next month"));
+        for (String user : Arrays.asList("bob@example.com", "carol@example.com", "dave@example.com")) {
+            calculationService.addExpense(expense(user, MONTH.atDay(10), "10.00", "Coffee"));
+        }
+
+        Map<String, Object> run = expenseStatementService.generate(MONTH);
+
+        assertEquals(4, run.get("users"));
+        assertEquals(4, run.get("statements"));
+        assertEquals(0, run.get("failed"));
+        List<String> lines = Files.readAllLines(expenseStatementService.getStatement("alice@example.com", MONTH), StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList(
+                ExpenseStatementService.HEADER,
+                "2024-03-03,Lunch,FOOD,UPI,12.50,false,",
+                "2024-03-20,\"Rent, March\",FOOD,UPI,50.00,false,",
+                ",Total,,,62.50,,"), lines);
+    }
+
+    @Test
+    @DisplayName("🧾 Statement - Should write a missing statement on download and refuse a month that has not ended")
+    void testGetStatement_OnDemand() throws Exception {
+        calculationService.addExpense(expense("erin@example.com", MONTH.atDay(5), "7.00", "Bus"));
+
+        Path statement = expenseStatementService.getStatement("erin@example.com", MONTH);
+
+        assertTrue(Files.readAllLines(statement, StandardCharsets.UTF_8).contains(",Total,,,7.00,,"));
+        assertThrows(IllegalArgumentException.class, () -> expenseStatementService.getStatement("erin@example.com", YearMonth.now()));
+    }
+
+    @Test
+    @DisplayName("🧾 Statement - Should rewrite a downloaded statement once its month changes")
+    void testGetStatement_RewrittenAfterChange() throws Exception {
+        Expense bus = expense("frank@example.com", MONTH.atDay(5), "7.00", "Bus");
+        Expense lunch = expense("frank@example.com", MONTH.atDay(6), "12.00", "Lunch");
+        calculationService.addExpense(bus);
+        calculationService.addExpense(lunch);
+        Path statement = expenseStatementService.getStatement("frank@example.com", MONTH);
+        assertTrue(Files.readAllLines(statement, StandardCharsets.UTF_8).contains(",Total,,,19.00,,"));
+
+        bus.setTitle("Night bus");
+        calculationService.updateExpense(bus);
+        assertTrue(Files.readAllLines(expenseStatementService.getStatement("frank@example.com", MONTH), StandardCharsets.UTF_8)
+                .contains("2024-03-05,Night bus,FOOD,UPI,7.00,false,"));
+
+        calculationService.deleteExpenseById(lunch.getId());
+        calculationService.addExpense(expense("frank@example.com", MONTH.atDay(28), "3.00", "Back-dated coffee"));
+        List<String> lines = Files.readAllLines(expenseStatementService.getStatement("frank@example.com", MONTH), StandardCharsets.UTF_8);
+        assertFalse(lines.stream().anyMatch(line -> line.contains("Lunch")));
+        assertTrue(lines.contains(",Total,,,10.00,,"));
+    }
+
+    @Test
+    @DisplayName("🧾 Statement - Should rewrite a statement when its archived expenses change")
+    void testGetStatement_RewrittenAfterArchiveChange() throws Exception {
+        calculationService.addExpense(expense("heidi@example.com", MONTH.atDay(5), "7.00", "Bus"));
+        calculationService.addExpense(expense("heidi@example.com", MONTH.atDay(6), "12.00", "Lunch"));
+        expenseArchiveService.archive(MONTH.plusMonths(1).atDay(1));
+        assertTrue(Files.readAllLines(expenseStatementService.getStatement("heidi@example.com", MONTH), StandardCharsets.UTF_8).contains(",Total,,,19.00,,"));
+
+        assertEquals(1, calculationService.deleteArchivedExpenses("heidi@example.com", MONTH.atDay(5), MONTH.atDay(5)));
+
+        List<String> lines = Files.readAllLines(expenseStatementService.getStatement("heidi@example.com", MONTH), StandardCharsets.UTF_8);
+        assertFalse(lines.stream().anyMatch(line -> line.contains("Bus")));
+        assertTrue(lines.contains(",Total,,,12.00,,"));
+    }
+
+    @Test
+    @DisplayName("🧾 Statement - Should keep spreadsheets from running titles and notes as formulas")
+    void testGenerate_EscapesFormulas() throws Exception {
+        Expense expense = expense("grace@example.com", MONTH.atDay(9), "5.00", "=HYPERLINK(\"http://evil\",\"x\")");
+        expense.setNotes("@SUM(A1)");
+        calculationService.addExpense(expense);
+        calculationService.addExpense(expense("grace@example.com", MONTH.atDay(10), "6.00", "-Refund"));
+
+        List<String> lines = Files.readAllLines(expenseStatementService.getStatement("grace@example.com", MONTH), StandardCharsets.UTF_8);
+
+        assertEquals("2024-03-09,\"'=HYPERLINK(\"\"http://evil\"\",\"\"x\"\")\",FOOD,UPI,5.00,false,'@SUM(A1)", lines.get(1));
+        assertEquals("2024-03-10,'-Refund,FOOD,UPI,6.00,false,", lines.get(2));
+    }
+
+    private static Expense expense(String userEmail, LocalDate day, String amount, String title) {
+        Expense expense = new Expense();
+        expense.setTitle(title);
+        expense.setAmount(new BigDecimal(amount));
+        expense.setCategory(Expense.ExpenseCategory.FOOD);
+        expense.setPaymentMode(Expense.PaymentMode.UPI);
+        expense.setExpenseDone(day);
+        expense.setUserEmail(userEmail);
+        return expense;
+    }
+}
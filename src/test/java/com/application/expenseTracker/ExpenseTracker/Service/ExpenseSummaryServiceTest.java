@@ -0,0 +1,163 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Repository.CalculationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ExpenseSummaryServiceTest {
+
+    private static final YearMonth MARCH = YearMonth.of(2024, 3);
+    private static final LocalDate START = LocalDate.of(2024, 3, 1);
+    private static final LocalDate END = LocalDate.of(2024, 3, 31);
+
+    @Mock
+    private CalculationRepository calculationRepository;
+
+    @Mock
+    private ExpenseArchiveService expenseArchiveService;
+
+    @InjectMocks
+    private ExpenseSummaryService expenseSummaryService;
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        expenseSummaryService.start();
+        when(calculationRepository.getTotalExpenses(any(), any(), any())).thenReturn(new BigDecimal("900.00"));
+        when(calculationRepository.getAverageDailyExpense(any(), any(), any())).thenReturn(new BigDecimal("30.00"));
+        when(calculationRepository.getTopCategories(any(), any(), any(), any())).thenReturn(Arrays.asList(
+                new Object[]{Expense.ExpenseCategory.FOOD, new BigDecimal("500.00")},
+                new Object[]{Expense.ExpenseCategory.TRAVEL, new BigDecimal("400.00")}));
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        expenseSummaryService.shutdown();
+    }
+
+    @Test
+    @DisplayName("📊 Summary - Should combine the month's total, average and top categories")
+    void testGetSummary() {
+        Map<String, Object> summary = expenseSummaryService.getSummary("testuser@gmail.com", MARCH);
+
+        assertEquals(new BigDecimal("900.00"), summary.get("totalExpensesThisMonth"));
+        assertEquals(new BigDecimal("30.00"), summary.get("averageDailyExpenses"));
+        Map<?, ?> top = (Map<?, ?>) summary.get("top3Categories");
+        assertEquals(Arrays.asList("FOOD", "TRAVEL"), new ArrayList<>(top.keySet()));
+        verify(calculationRepository).getTotalExpenses("testuser@gmail.com", START, END);
+        verify(calculationRepository).getAverageDailyExpense("testuser@gmail.com", START, END);
+        verify(calculationRepository).getTopCategories("testuser@gmail.com", START, END, PageRequest.of(0, 3));
+    }
+
+    @Test
+    @DisplayName("📊 Summary - Should run the three queries at the same time")
+    void testGetSummary_QueriesRunConcurrently() {
+        CyclicBarrier allStarted = new CyclicBarrier(3);
+        when(calculationRepository.getTotalExpenses(any(), any(), any())).thenAnswer(invocation -> {
+            allStarted.await(5, TimeUnit.SECONDS);
+            return BigDecimal.ONE;
+        });
+        when(calculationRepository.getAverageDailyExpense(any(), any(), any())).thenAnswer(invocation -> {
+            allStarted.await(5, TimeUnit.SECONDS);
+            return BigDecimal.ONE;
+        });
+        when(calculationRepository.getTopCategories(any(), any(), any(), any())).thenAnswer(invocation -> {
+            allStarted.await(5, TimeUnit.SECONDS);
+            return Collections.emptyList();
+        });
+
+        Map<String, Object> summary = expenseSummaryService.getSummary(null, MARCH);
+
+        assertEquals(BigDecimal.ONE, summary.get("totalExpensesThisMonth"));
+    }
+
+    @Test
+    @DisplayName("📊 Summary - Should share one computation between concurrent requests for the same user and month")
+    void testGetSummary_CoalescesConcurrentRequests() throws Exception {
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(calculationRepository.getTotalExpenses(any(), any(), any())).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new BigDecimal("900.00");
+        });
+
+        Future<Map<String, Object>> leader = callers.submit(() -> expenseSummaryService.getSummary("testuser@gmail.com", MARCH));
+        assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+        List<Future<Map<String, Object>>> followers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            followers.add(callers.submit(() -> expenseSummaryService.getSummary("testuser@gmail.com", MARCH)));
+        }
+        while (expenseSummaryService.getCoalescedCount() < 5) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        Map<String, Object> shared = leader.get(5, TimeUnit.SECONDS);
+        for (Future<Map<String, Object>> follower : followers) {
+            assertSame(shared, follower.get(5, TimeUnit.SECONDS));
+        }
+        verify(calculationRepository, times(1)).getTotalExpenses(any(), any(), any());
+        verify(calculationRepository, times(1)).getAverageDailyExpense(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("📊 Summary - Should not share computations between users or months, nor once finished")
+    void testGetSummary_DistinctKeysAndSequentialCallsRecompute() {
+        expenseSummaryService.getSummary("testuser@gmail.com", MARCH);
+        expenseSummaryService.getSummary("other@gmail.com", MARCH);
+        expenseSummaryService.getSummary("testuser@gmail.com", MARCH.plusMonths(1));
+        expenseSummaryService.getSummary("testuser@gmail.com", MARCH);
+
+        verify(calculationRepository, times(4)).getTotalExpenses(any(), any(), any());
+        assertEquals(0, expenseSummaryService.getCoalescedCount());
+    }
+
+    @Test
+    @DisplayName("💥 Summary - Should give every waiter the failure and compute afresh afterwards")
+    void testGetSummary_FailureIsSharedNotCached() throws Exception {
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(calculationRepository.getTotalExpenses(any(), any(), any())).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            throw new IllegalStateException("database down");
+        });
+
+        Future<Map<String, Object>> leader = callers.submit(() -> expenseSummaryService.getSummary(null, MARCH));
+        assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+        Future<Map<String, Object>> follower = callers.submit(() -> expenseSummaryService.getSummary(null, MARCH));
+        while (expenseSummaryService.getCoalescedCount() < 1) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        ExecutionException leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException followerFailure = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertEquals("database down", leaderFailure.getCause().getMessage());
+        assertEquals("database down", followerFailure.getCause().getMessage());
+
+        doReturn(BigDecimal.TEN).when(calculationRepository).getTotalExpenses(any(), any(), any());
+        assertEquals(BigDecimal.TEN, expenseSummaryService.getSummary(null, MARCH).get("totalExpensesThisMonth"));
+    }
+}
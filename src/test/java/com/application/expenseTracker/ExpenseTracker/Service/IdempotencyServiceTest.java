@@ -0,0 +1,154 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Filter.IdempotencyFilter;
+import com.application.expenseTracker.ExpenseTracker.Repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.FilterChain;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Runs against H2 so claims race through the real IDEMPOTENCY_RECORD table, as two instances would. */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class IdempotencyServiceTest {
+
+    private static final byte[] BODY = "{\"title\":\"Lunch\",\"amount\":12.5}".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private IdempotencyService nodeA;
+    private IdempotencyService nodeB;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyRecordRepository.deleteAll();
+        nodeA = node();
+        nodeB = node();
+    }
+
+    @Test
+    @DisplayName("🔁 Idempotency - Should run a keyed POST once and replay its response to retries")
+    void testFilter_ReplaysRetry() throws Exception {
+        IdempotencyFilter filter = new IdempotencyFilter();
+        ReflectionTestUtils.setField(filter, "idempotencyService", nodeA);
+        AtomicInteger runs = new AtomicInteger();
+        FilterChain chain = (request, response) -> {
+            String body = StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8);
+            response.setContentType("application/json");
+            response.getWriter().write("{\"id\":" + runs.incrementAndGet() + "," + body.substring(1));
+        };
+
+        MockHttpServletResponse first = post(filter, chain, "key-1", BODY);
+        MockHttpServletResponse retry = post(filter, chain, "key-1", BODY);
+        MockHttpServletResponse other = post(filter, chain, "key-1", "{\"title\":\"Dinner\"}".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse unkeyed = post(filter, chain, null, BODY);
+
+        assertEquals(2, runs.get());
+        assertEquals(200, first.getStatus());
+        assertEquals("{\"id\":1,\"title\":\"Lunch\",\"amount\":12.5}", first.getContentAsString());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(422, other.getStatus());
+        assertNull(unkeyed.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(400, post(filter, chain, " ", BODY).getStatus());
+    }
+
+    @Test
+    @DisplayName("🔁 Idempotency - Should make another instance wait for a running key and then replay it")
+    void testClaim_AcrossInstances() throws Exception {
+        ReflectionTestUtils.setField(nodeB, "waitMs", 0L);
+        IdempotencyService.Claim claim = nodeA.claim("alice", "/api/v1/expenses", "key-1", BODY);
+        assertEquals(IdempotencyService.Outcome.ACQUIRED, claim.getOutcome());
+
+        assertEquals(IdempotencyService.Outcome.IN_PROGRESS, nodeB.claim("alice", "/api/v1/expenses", "key-1", BODY).getOutcome());
+        assertEquals(IdempotencyService.Outcome.ACQUIRED, nodeB.claim("bob", "/api/v1/expenses", "key-1", BODY).getOutcome());
+
+        nodeA.complete(claim, 200, "application/cbor", new byte[]{(byte) 0xA1, 0x62, 0x69, 0x64, 0x07});
+
+        IdempotencyService.Claim replay = nodeB.claim("alice", "/api/v1/expenses", "key-1", BODY);
+        assertEquals(IdempotencyService.Outcome.REPLAY, replay.getOutcome());
+        assertEquals(200, replay.getResponse().getStatus());
+        assertArrayEquals(new byte[]{(byte) 0xA1, 0x62, 0x69, 0x64, 0x07}, replay.getResponse().getBody());
+        assertEquals(IdempotencyService.Outcome.MISMATCH, nodeB.claim("alice", "/api/v1/expenses", "key-1", new byte[0]).getOutcome());
+
+        // A restarted instance starts with an empty map and still replays the same bytes from the table
+        IdempotencyService.Claim restarted = node().claim("alice", "/api/v1/expenses", "key-1", BODY);
+        assertEquals(IdempotencyService.Outcome.REPLAY, restarted.getOutcome());
+        assertArrayEquals(replay.getResponse().getBody(), restarted.getResponse().getBody());
+        assertEquals("application/cbor", restarted.getResponse().getContentType());
+    }
+
+    @Test
+    @DisplayName("🔁 Idempotency - Should let a key be retried after a server error or an abandoned claim")
+    void testClaim_ReleasedAndExpired() throws Exception {
+        IdempotencyService.Claim failed = nodeA.claim("alice", "/api/v1/expenses", "key-1", BODY);
+        nodeA.complete(failed, 500, "text/plain", "An error occurred while adding the expense!".getBytes(StandardCharsets.UTF_8));
+        assertEquals(IdempotencyService.Outcome.ACQUIRED, nodeB.claim("alice", "/api/v1/expenses", "key-1", BODY).getOutcome());
+
+        ReflectionTestUtils.setField(nodeA, "requestTimeoutMs", -1000L);
+        IdempotencyService.Claim stale = nodeA.claim("alice", "/api/v1/expenses", "key-2", BODY);
+        assertEquals(IdempotencyService.Outcome.ACQUIRED, stale.getOutcome());
+        IdempotencyService.Claim takenOver = nodeB.claim("alice", "/api/v1/expenses", "key-2", BODY);
+        assertEquals(IdempotencyService.Outcome.ACQUIRED, takenOver.getOutcome());
+
+        // The request that outlived its claim can neither store its response nor free the key
+        nodeA.complete(stale, 201, "application/json", "{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+        nodeA.release(stale);
+        assertTrue(idempotencyRecordRepository.findAll().stream().allMatch(record -> record.getStatus() == null));
+        ReflectionTestUtils.setField(nodeA, "waitMs", 0L);
+        assertEquals(IdempotencyService.Outcome.IN_PROGRESS, nodeA.claim("alice", "/api/v1/expenses", "key-2", BODY).getOutcome());
+
+        ReflectionTestUtils.setField(nodeB, "ttlMs", -1000L);
+        nodeB.complete(takenOver, 200, "application/json", "{}".getBytes(StandardCharsets.UTF_8));
+        nodeB.purgeExpired();
+        assertFalse(idempotencyRecordRepository.findAll().stream().anyMatch(record -> record.getStatus() != null));
+    }
+
+    @Test
+    @DisplayName("🔁 Idempotency - Should keep replaying the status of a response too large to keep")
+    void testComplete_OversizedResponse() throws Exception {
+        IdempotencyService.Claim claim = nodeA.claim("alice", "/api/v1/expenses", "key-1", BODY);
+        nodeA.complete(claim, 201, "application/json", new byte[IdempotencyService.MAX_RESPONSE_LENGTH + 1]);
+
+        for (IdempotencyService service : new IdempotencyService[]{nodeA, nodeB}) {
+            IdempotencyService.Claim retry = service.claim("alice", "/api/v1/expenses", "key-1", BODY);
+            assertEquals(IdempotencyService.Outcome.REPLAY, retry.getOutcome());
+            assertEquals(201, retry.getResponse().getStatus());
+            assertTrue(retry.getResponse().isBodyOmitted());
+            assertEquals(0, retry.getResponse().getBody().length);
+            assertNull(retry.getResponse().getContentType());
+        }
+    }
+
+    private IdempotencyService node() {
+        IdempotencyService node = new IdempotencyService();
+        ReflectionTestUtils.setField(node, "idempotencyRecordRepository", idempotencyRecordRepository);
+        return node;
+    }
+
+    private static MockHttpServletResponse post(IdempotencyFilter filter, FilterChain chain, String key, byte[] body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/expenses");
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.KEY_HEADER, key);
+        }
+        request.setContentType("application/json");
+        request.setContent(body);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,119 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Dto.ExpensePatch;
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import com.application.expenseTracker.ExpenseTracker.Repository.CalculationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class RecentExpenseServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 15);
+    private static final String USER = "testuser@gmail.com";
+
+    @Mock
+    private CalculationRepository calculationRepository;
+
+    @InjectMocks
+    private RecentExpenseService recentExpenseService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    @DisplayName("🕓 Recent - Should load a user's window once and serve later reads from memory")
+    void testGetRecent_LoadsOnce() {
+        Expense older = expense(1L, USER, TODAY.minusDays(6));
+        Expense newer = expense(2L, USER, TODAY.minusDays(1));
+        Expense future = expense(3L, USER, TODAY.plusDays(2));
+        when(calculationRepository.findByUserEmailAndExpenseDoneGreaterThanEqual(USER, TODAY.minusDays(7)))
+                .thenReturn(Arrays.asList(older, newer, future));
+
+        assertEquals(Arrays.asList(newer, older), recentExpenseService.getRecent(USER, TODAY));
+        assertEquals(Arrays.asList(newer, older), recentExpenseService.getRecent(USER, TODAY));
+        assertEquals(Arrays.asList(future, newer), recentExpenseService.getRecent(USER, TODAY.plusDays(2)));
+
+        verify(calculationRepository, times(1)).findByUserEmailAndExpenseDoneGreaterThanEqual(any(), any());
+    }
+
+    @Test
+    @DisplayName("🕓 Recent - Should apply saves and deletes to a loaded window without querying again")
+    void testWritesUpdateWindow() {
+        Expense existing = expense(1L, USER, TODAY.minusDays(2));
+        when(calculationRepository.findByUserEmailAndExpenseDoneGreaterThanEqual(USER, TODAY.minusDays(7)))
+                .thenReturn(Collections.singletonList(existing));
+        recentExpenseService.getRecent(USER, TODAY);
+
+        Expense added = expense(2L, USER, TODAY);
+        recentExpenseService.onSaved(added);
+        Expense moved = expense(1L, USER, TODAY.minusDays(30));
+        recentExpenseService.onSaved(moved);
+        assertEquals(Collections.singletonList(added), recentExpenseService.getRecent(USER, TODAY));
+
+        recentExpenseService.onDeleted(Collections.singletonList(2L));
+        assertTrue(recentExpenseService.getRecent(USER, TODAY).isEmpty());
+        verify(calculationRepository, times(1)).findByUserEmailAndExpenseDoneGreaterThanEqual(any(), any());
+    }
+
+    @Test
+    @DisplayName("🕓 Recent - Should reload a user's window after one of their expenses was patched")
+    void testPatchDropsWindow() {
+        Expense existing = expense(1L, USER, TODAY.minusDays(2));
+        when(calculationRepository.findByUserEmailAndExpenseDoneGreaterThanEqual(USER, TODAY.minusDays(7)))
+                .thenReturn(Collections.singletonList(existing));
+        recentExpenseService.getRecent(USER, TODAY);
+
+        ExpensePatch patch = new ExpensePatch();
+        patch.setTitle("Lunch");
+        recentExpenseService.onPatched(1L, patch);
+        recentExpenseService.getRecent(USER, TODAY);
+
+        verify(calculationRepository, times(2)).findByUserEmailAndExpenseDoneGreaterThanEqual(USER, TODAY.minusDays(7));
+    }
+
+    @Test
+    @DisplayName("🕓 Recent - Should serve every user from one load and age out old days on sweep")
+    void testAllUsersAndSweep() {
+        Expense mine = expense(1L, USER, TODAY.minusDays(7));
+        Expense theirs = expense(2L, "other@gmail.com", TODAY);
+        Expense anonymous = expense(3L, null, TODAY.minusDays(3));
+        when(calculationRepository.findByExpenseDoneGreaterThanEqual(TODAY.minusDays(7)))
+                .thenReturn(Arrays.asList(mine, theirs, anonymous));
+
+        assertEquals(Arrays.asList(theirs, anonymous, mine), recentExpenseService.getRecent(null, TODAY));
+        assertEquals(Collections.singletonList(mine), recentExpenseService.getRecent(USER, TODAY));
+
+        recentExpenseService.sweep(TODAY.plusDays(1));
+        List<Expense> afterSweep = recentExpenseService.getRecent(USER, TODAY.plusDays(1));
+
+        assertTrue(afterSweep.isEmpty());
+        verify(calculationRepository, times(1)).findByExpenseDoneGreaterThanEqual(any());
+        verify(calculationRepository, never()).findByUserEmailAndExpenseDoneGreaterThanEqual(any(), any());
+    }
+
+    private static Expense expense(Long id, String userEmail, LocalDate expenseDone) {
+        Expense expense = new Expense();
+        expense.setId(id);
+        expense.setTitle("Expense " + id);
+        expense.setAmount(new BigDecimal("10.00"));
+        expense.setCategory(Expense.ExpenseCategory.FOOD);
+        expense.setUserEmail(userEmail);
+        expense.setExpenseDone(expenseDone);
+        return expense;
+    }
+}
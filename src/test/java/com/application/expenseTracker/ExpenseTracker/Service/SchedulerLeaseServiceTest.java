@@ -0,0 +1,76 @@
+package com.application.expenseTracker.ExpenseTracker.Service;
+
+import com.application.expenseTracker.ExpenseTracker.Repository.SchedulerLeaseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Runs against H2 so the conditional statements that make leases exclusive are exercised for real. */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SchedulerLeaseServiceTest {
+
+    @Autowired
+    private SchedulerLeaseRepository schedulerLeaseRepository;
+
+    private SchedulerLeaseService nodeA;
+    private SchedulerLeaseService nodeB;
+
+    @BeforeEach
+    void setUp() {
+        schedulerLeaseRepository.deleteAll();
+        nodeA = node();
+        nodeB = node();
+    }
+
+    @Test
+    @DisplayName("🔒 Lease - Should let only one instance hold a lease and never hand out a completed one")
+    void testTryAcquire_Exclusive() {
+        assertTrue(nodeA.tryAcquire("job:2024-03:0"));
+        assertFalse(nodeB.tryAcquire("job:2024-03:0"));
+        // Partition 1 has not been taken yet
+        assertTrue(nodeA.isPending("job:2024-03:", 2));
+        assertTrue(nodeB.tryAcquire("job:2024-03:1"));
+        // Both are held and renewed, so there is nothing to pick up
+        assertFalse(nodeA.isPending("job:2024-03:", 2));
+
+        assertTrue(nodeA.renew("job:2024-03:0", 42L));
+        assertFalse(nodeB.renew("job:2024-03:0", 43L));
+        nodeA.complete("job:2024-03:0");
+        nodeB.complete("job:2024-03:1");
+
+        assertFalse(nodeA.tryAcquire("job:2024-03:0"));
+        assertFalse(nodeB.tryAcquire("job:2024-03:0"));
+        assertFalse(nodeA.isPending("job:2024-03:", 2));
+        assertFalse(nodeA.isPending("job:2024-04:", 2));
+    }
+
+    @Test
+    @DisplayName("🔒 Lease - Should let another instance take over an expired lease from its checkpoint")
+    void testTryAcquire_TakeOverExpired() {
+        ReflectionTestUtils.setField(nodeA, "ttlMs", -1000L);
+        assertTrue(nodeA.tryAcquire("job:2024-03:0"));
+        assertTrue(nodeA.renew("job:2024-03:0", 17L));
+        assertTrue(nodeB.isPending("job:2024-03:", 1));
+
+        assertTrue(nodeB.tryAcquire("job:2024-03:0"));
+        assertFalse(nodeA.isPending("job:2024-03:", 1));
+
+        assertEquals(17L, nodeB.getCheckpoint("job:2024-03:0"));
+        assertFalse(nodeA.renew("job:2024-03:0", 18L));
+        assertNull(nodeB.getCheckpoint("job:2024-03:9"));
+    }
+
+    private SchedulerLeaseService node() {
+        SchedulerLeaseService node = new SchedulerLeaseService();
+        ReflectionTestUtils.setField(node, "schedulerLeaseRepository", schedulerLeaseRepository);
+        return node;
+    }
+}
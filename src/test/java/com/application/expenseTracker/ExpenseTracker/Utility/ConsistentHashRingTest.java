@@ -0,0 +1,51 @@
+package com.application.expenseTracker.ExpenseTracker.Utility;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsistentHashRingTest {
+
+    private static final int USERS = 20000;
+
+    @Test
+    @DisplayName("⚖️ Ring - Should spread users evenly over the shards")
+    void testBalance() {
+        ConsistentHashRing ring = new ConsistentHashRing(4, 128);
+        int[] counts = new int[4];
+        for (int i = 0; i < USERS; i++) {
+            counts[ring.shardFor("user" + i + "@example.com")]++;
+        }
+        for (int count : counts) {
+            assertEquals(USERS / 4.0, count, USERS / 4.0 * 0.25, "users per shard");
+        }
+    }
+
+    @Test
+    @DisplayName("➕ Ring - Should only move users to a new shard, about 1/N of them")
+    void testAddingAShardMovesFewUsers() {
+        ConsistentHashRing three = new ConsistentHashRing(3, 128);
+        ConsistentHashRing four = new ConsistentHashRing(4, 128);
+        int moved = 0;
+        for (int i = 0; i < USERS; i++) {
+            String user = "user" + i + "@example.com";
+            int before = three.shardFor(user);
+            int after = four.shardFor(user);
+            if (before != after) {
+                assertEquals(3, after, "a user may only move to the new shard");
+                moved++;
+            }
+        }
+        assertEquals(USERS / 4.0, moved, USERS / 4.0 * 0.25);
+    }
+
+    @Test
+    @DisplayName("🎯 Ring - Should be deterministic and reject empty rings")
+    void testDeterministic() {
+        assertEquals(new ConsistentHashRing(5, 64).shardFor("a@example.com"), new ConsistentHashRing(5, 64).shardFor("a@example.com"));
+        assertEquals(0, new ConsistentHashRing(1, 1).shardFor("a@example.com"));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(0, 128));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(2, 0));
+    }
+}
@@ -0,0 +1,69 @@
+package com.application.expenseTracker.ExpenseTracker.Utility;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DebugSamplingTurboFilterTest {
+
+    private DebugSamplingTurboFilter filter;
+    private Logger logger;
+
+    @BeforeEach
+    void setUp() {
+        LoggerContext context = new LoggerContext();
+        logger = context.getLogger("sampled");
+        logger.setLevel(Level.DEBUG);
+        filter = new DebugSamplingTurboFilter();
+        filter.setContext(context);
+        filter.setBurst(3);
+        filter.setSampleEvery(5);
+        filter.setWindowMs(60000);
+        filter.start();
+    }
+
+    @Test
+    void testRepeatedDebugTemplateIsSampledAfterBurst() {
+        int logged = 0;
+        for (int i = 0; i < 23; i++) {
+            if (filter.decide(null, logger, Level.DEBUG, "Loaded {} expenses", new Object[]{i}, null) == FilterReply.NEUTRAL) {
+                logged++;
+            }
+        }
+        // 3 in the burst, then events 8, 13, 18 and 23
+        assertEquals(7, logged);
+        assertEquals(16, filter.getDropped());
+    }
+
+    @Test
+    void testTemplatesAreSampledIndependently() {
+        for (int i = 0; i < 10; i++) {
+            filter.decide(null, logger, Level.DEBUG, "Loaded {} expenses", null, null);
+        }
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.DEBUG, "Entered getAllExpense", null, null));
+    }
+
+    @Test
+    void testInfoAndAboveAreNeverSampled() {
+        for (int i = 0; i < 50; i++) {
+            assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.INFO, "Fetched expenses of size: {}", null, null));
+            assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.ERROR, "Error while fetching: {}", null, null));
+        }
+        assertEquals(0, filter.getDropped());
+    }
+
+    @Test
+    void testLevelChecksAndDisabledLoggersAreLeftAlone() {
+        logger.setLevel(Level.INFO);
+        for (int i = 0; i < 50; i++) {
+            assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.DEBUG, "Loaded {} expenses", null, null));
+            assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.DEBUG, null, null, null));
+        }
+        assertEquals(0, filter.getDropped());
+    }
+}
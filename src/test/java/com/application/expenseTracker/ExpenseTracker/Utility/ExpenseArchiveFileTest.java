@@ -0,0 +1,130 @@
+package com.application.expenseTracker.ExpenseTracker.Utility;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpenseArchiveFileTest {
+
+    private static final YearMonth MARCH = YearMonth.of(2023, 3);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("🧊 Archive file - Should read back every field and null in id order")
+    void testRoundTrip() throws IOException {
+        Expense full = expense(42L, 15, "-12.50", Expense.ExpenseCategory.FOOD);
+        full.setTitle("Coffée");
+        full.setNotes("with a friend");
+        full.setPaymentMode(Expense.PaymentMode.CARD);
+        full.setRecurring(true);
+        full.setCreatedAt(LocalDateTime.of(2023, 3, 15, 10, 15, 30, 123456789));
+        full.setUpdatedAt(LocalDateTime.of(2023, 3, 16, 8, 0));
+        full.setVersion(3L);
+        Expense sparse = expense(7L, 1, "1000000.00", Expense.ExpenseCategory.OTHER);
+
+        Path target = directory.resolve("u.col");
+        ExpenseArchiveFile.publish(ExpenseArchiveFile.write(target, "user@example.com", MARCH, Arrays.asList(full, sparse)), target);
+        assertFalse(Files.exists(directory.resolve("u.col.tmp")));
+
+        try (ExpenseArchiveFile.Reader reader = ExpenseArchiveFile.open(target)) {
+            assertEquals("user@example.com", reader.getUserEmail());
+            assertEquals(MARCH, reader.getMonth());
+            assertEquals(2, reader.getRowCount());
+            List<Expense> expenses = reader.readExpenses();
+            Expense first = expenses.get(0);
+            assertEquals(7L, first.getId());
+            assertEquals(LocalDate.of(2023, 3, 1), first.getExpenseDone());
+            assertEquals(new BigDecimal("1000000.00"), first.getAmount());
+            assertNull(first.getPaymentMode());
+            assertNull(first.getTitle());
+            assertNull(first.getCreatedAt());
+            assertNull(first.getVersion());
+
+            Expense second = expenses.get(1);
+            assertEquals(42L, second.getId());
+            assertEquals("user@example.com", second.getUserEmail());
+            assertEquals(new BigDecimal("-12.50"), second.getAmount());
+            assertEquals(Expense.ExpenseCategory.FOOD, second.getCategory());
+            assertEquals(Expense.PaymentMode.CARD, second.getPaymentMode());
+            assertEquals("Coffée", second.getTitle());
+            assertEquals("with a friend", second.getNotes());
+            assertTrue(second.isRecurring());
+            assertEquals(full.getCreatedAt(), second.getCreatedAt());
+            assertEquals(full.getUpdatedAt(), second.getUpdatedAt());
+            assertEquals(3L, second.getVersion());
+        }
+    }
+
+    @Test
+    @DisplayName("📦 Archive file - Should compress a month well and visit amounts without the other columns")
+    void testCompressionAndAmounts() throws IOException {
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Expense expense = expense(1_000_000L + i * 3, 1 + i % 28, (100 + i % 50) + ".00", Expense.ExpenseCategory.values()[i % 5]);
+            expense.setTitle("Groceries at the corner store");
+            expense.setPaymentMode(Expense.PaymentMode.UPI);
+            expense.setVersion(0L);
+            expenses.add(expense);
+        }
+        Path target = directory.resolve("u.col");
+        ExpenseArchiveFile.publish(ExpenseArchiveFile.write(target, "user@example.com", MARCH, expenses), target);
+        assertTrue(Files.size(target) < 1000 * 8, "about " + Files.size(target) / 1000 + " bytes per expense");
+
+        BigDecimal[] total = {BigDecimal.ZERO};
+        int[] food = {0};
+        try (ExpenseArchiveFile.Reader reader = ExpenseArchiveFile.open(target)) {
+            reader.forEachAmount((day, category, paymentMode, amount) -> {
+                total[0] = total[0].add(amount);
+                food[0] += category == Expense.ExpenseCategory.FOOD ? 1 : 0;
+                assertEquals(Expense.PaymentMode.UPI, paymentMode);
+            });
+        }
+        BigDecimal expected = expenses.stream().map(Expense::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(expected, total[0]);
+        assertEquals(200, food[0]);
+    }
+
+    @Test
+    @DisplayName("🛡️ Archive file - Should reject a corrupted file")
+    void testCorruptionIsDetected() throws IOException {
+        Path target = directory.resolve("u.col");
+        ExpenseArchiveFile.publish(ExpenseArchiveFile.write(target, null, MARCH, Arrays.asList(expense(1L, 2, "5.00", Expense.ExpenseCategory.RENT))), target);
+        try (ExpenseArchiveFile.Reader reader = ExpenseArchiveFile.open(target)) {
+            assertNull(reader.getUserEmail());
+        }
+        try (RandomAccessFile file = new RandomAccessFile(target.toFile(), "rw")) {
+            file.seek(file.length() - 12);
+            int flipped = file.read() ^ 0xFF;
+            file.seek(file.length() - 12);
+            file.write(flipped);
+        }
+        IOException e = assertThrows(IOException.class, () -> ExpenseArchiveFile.open(target));
+        assertTrue(e.getMessage().contains("checksum"));
+    }
+
+    private static Expense expense(long id, int day, String amount, Expense.ExpenseCategory category) {
+        Expense expense = new Expense();
+        expense.setId(id);
+        expense.setExpenseDone(MARCH.atDay(day));
+        expense.setAmount(new BigDecimal(amount));
+        expense.setCategory(category);
+        return expense;
+    }
+}
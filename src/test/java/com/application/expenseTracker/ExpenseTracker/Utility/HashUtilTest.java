@@ -0,0 +1,19 @@
+package com.application.expenseTracker.ExpenseTracker.Utility;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashUtilTest {
+
+    @Test
+    @DisplayName("#️⃣ SHA-256 - Should match the published digests, with strings hashed as UTF-8")
+    void testSha256Hex() {
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", HashUtil.sha256Hex(""));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", HashUtil.sha256Hex("abc"));
+        assertEquals(HashUtil.sha256Hex("₹ 250".getBytes(StandardCharsets.UTF_8)), HashUtil.sha256Hex("₹ 250"));
+    }
+}
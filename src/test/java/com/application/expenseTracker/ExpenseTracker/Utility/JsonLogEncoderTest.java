@@ -0,0 +1,51 @@
+package com.application.expenseTracker.ExpenseTracker.Utility;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonLogEncoderTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger logger = context.getLogger("com.application.expenseTracker.ExpenseTracker.Controller.CalculationController");
+    private final JsonLogEncoder encoder = new JsonLogEncoder();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testEventIsOneJsonLine() throws Exception {
+        LoggingEvent event = new LoggingEvent(Logger.FQCN, logger, Level.INFO, "Fetched expenses of size: {}", null, new Object[]{3});
+        event.setMDCPropertyMap(Collections.singletonMap("requestId", "abc"));
+        String line = new String(encoder.encode(event), StandardCharsets.UTF_8);
+
+        assertTrue(line.endsWith("\n"));
+        assertEquals(1, line.split("\n").length);
+        JsonNode json = objectMapper.readTree(line);
+        assertEquals("INFO", json.get("level").asText());
+        assertEquals(logger.getName(), json.get("logger").asText());
+        assertEquals("Fetched expenses of size: 3", json.get("message").asText());
+        assertEquals("Fetched expenses of size: {}", json.get("template").asText());
+        assertEquals("abc", json.get("mdc").get("requestId").asText());
+        assertFalse(json.has("stackTrace"));
+    }
+
+    @Test
+    void testExceptionIsIncluded() throws Exception {
+        LoggingEvent event = new LoggingEvent(Logger.FQCN, logger, Level.ERROR, "Error while fetching expense: \"quoted\"",
+                new IllegalStateException("boom"), null);
+        JsonNode json = objectMapper.readTree(encoder.encode(event));
+
+        assertEquals("Error while fetching expense: \"quoted\"", json.get("message").asText());
+        assertFalse(json.has("template"));
+        assertEquals(IllegalStateException.class.getName(), json.get("exception").asText());
+        assertTrue(json.get("stackTrace").asText().contains("boom"));
+    }
+}
@@ -0,0 +1,165 @@
+package com.application.expenseTracker.ExpenseTracker.Utility;
+
+import com.application.expenseTracker.ExpenseTracker.Entity.Expense;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapExpenseCacheTest {
+
+    @Test
+    @DisplayName("📦 Off-heap cache - Should round-trip every field, including absent ones")
+    void testRoundTrip() {
+        OffHeapExpenseCache cache = new OffHeapExpenseCache(16, 256, 1, 60000);
+        Expense full = expense(7L);
+        full.setNotes("Team lunch ₹");
+        full.setRecurring(true);
+        full.setCreatedAt(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123456789));
+        full.setUpdatedAt(LocalDateTime.of(2024, 3, 2, 8, 0));
+        full.setVersion(4L);
+        Expense sparse = new Expense();
+        sparse.setId(8L);
+
+        assertTrue(cache.put(full, cache.stamp(7L)));
+        assertTrue(cache.put(sparse, cache.stamp(8L)));
+
+        Expense copy = cache.get(7L);
+        assertNotSame(full, copy);
+        assertEquals(full.getTitle(), copy.getTitle());
+        assertEquals(full.getUserEmail(), copy.getUserEmail());
+        assertEquals(0, full.getAmount().compareTo(copy.getAmount()));
+        assertEquals(full.getAmount().scale(), copy.getAmount().scale());
+        assertEquals(full.getCategory(), copy.getCategory());
+        assertEquals(full.getPaymentMode(), copy.getPaymentMode());
+        assertEquals(full.getExpenseDone(), copy.getExpenseDone());
+        assertEquals(full.getNotes(), copy.getNotes());
+        assertTrue(copy.isRecurring());
+        assertEquals(full.getCreatedAt(), copy.getCreatedAt());
+        assertEquals(full.getUpdatedAt(), copy.getUpdatedAt());
+        assertEquals(4L, copy.getVersion());
+
+        Expense sparseCopy = cache.get(8L);
+        assertEquals(8L, sparseCopy.getId());
+        assertNull(sparseCopy.getTitle());
+        assertNull(sparseCopy.getAmount());
+        assertNull(sparseCopy.getVersion());
+        assertFalse(sparseCopy.isRecurring());
+    }
+
+    @Test
+    @DisplayName("🕒 Off-heap cache - Should evict entries not read since the clock hand last passed")
+    void testClockEviction() {
+        OffHeapExpenseCache cache = new OffHeapExpenseCache(4, 256, 1, 60000);
+        for (long id = 1; id <= 4; id++) {
+            cache.put(expense(id), cache.stamp(id));
+        }
+        // The first sweep clears every reference bit, then evicts 1; re-reading 2 protects it next time.
+        cache.put(expense(5L), cache.stamp(5L));
+        assertNull(cache.get(1L));
+        assertNotNull(cache.get(2L));
+        cache.put(expense(6L), cache.stamp(6L));
+
+        assertNotNull(cache.get(2L));
+        assertNull(cache.get(3L));
+        assertEquals(4, cache.size());
+        assertEquals(2, cache.getEvictions());
+    }
+
+    @Test
+    @DisplayName("🧮 Off-heap cache - Should agree with a map under random puts, invalidations and evictions")
+    void testMatchesModelUnderRandomOperations() {
+        OffHeapExpenseCache cache = new OffHeapExpenseCache(64, 256, 4, 60000);
+        Map<Long, String> written = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            long id = 1 + random.nextInt(200);
+            if (random.nextInt(4) == 0) {
+                cache.invalidate(id);
+                written.remove(id);
+            } else {
+                Expense expense = expense(id);
+                expense.setTitle("title " + i);
+                cache.put(expense, cache.stamp(id));
+                written.put(id, expense.getTitle());
+            }
+            Expense cached = cache.get(1 + random.nextInt(200));
+            if (cached != null) {
+                assertEquals(written.get(cached.getId()), cached.getTitle(), "a cached entry must be the latest write");
+            }
+        }
+        assertTrue(cache.size() <= 64);
+        for (long id = 1; id <= 200; id++) {
+            Expense cached = cache.get(id);
+            if (cached != null) {
+                assertEquals(written.get(id), cached.getTitle());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("🚫 Off-heap cache - Should drop loads that raced an invalidation, expired entries and oversized records")
+    void testRejectedEntries() {
+        OffHeapExpenseCache cache = new OffHeapExpenseCache(16, 128, 1, 60000);
+        long stamp = cache.stamp(1L);
+        cache.invalidate(1L);
+        assertFalse(cache.put(expense(1L), stamp));
+        assertNull(cache.get(1L));
+
+        Expense large = expense(2L);
+        large.setNotes(String.join("", Collections.nCopies(200, "x")));
+        assertFalse(cache.put(large, cache.stamp(2L)));
+
+        OffHeapExpenseCache expiring = new OffHeapExpenseCache(16, 128, 1, -1);
+        assertTrue(expiring.put(expense(3L), expiring.stamp(3L)));
+        assertNull(expiring.get(3L));
+        assertEquals(0, expiring.size());
+    }
+
+    @Test
+    @DisplayName("💰 Off-heap cache - Should keep amounts longer than 255 bytes and refuse, not truncate, longer ones")
+    void testLongAmounts() {
+        OffHeapExpenseCache cache = new OffHeapExpenseCache(16, 1024, 1, 60000);
+        Expense large = expense(1L);
+        large.setAmount(new BigDecimal(BigInteger.ONE.shiftLeft(300 * 8).negate(), 2));
+        assertTrue(cache.put(large, cache.stamp(1L)));
+        assertEquals(large.getAmount(), cache.get(1L).getAmount());
+
+        Expense tooLarge = expense(2L);
+        tooLarge.setAmount(new BigDecimal(BigInteger.ONE.shiftLeft(OffHeapExpenseCache.MAX_UNSCALED_BYTES * 8), 2));
+        assertNull(OffHeapExpenseCache.encode(tooLarge));
+    }
+
+    @Test
+    @DisplayName("🎯 Off-heap cache - Should keep probe runs short when sequential ids fill every segment")
+    void testProbeLength_SequentialIds() {
+        OffHeapExpenseCache cache = new OffHeapExpenseCache(16 * 1024, 128, 16, 60000);
+        for (long id = 1; id <= 16 * 1024; id++) {
+            cache.put(expense(id), cache.stamp(id));
+        }
+
+        // Segments at half load probe about half a bucket on average; when the segment and the
+        // bucket came from the same hash bits, a segment's ids shared a sixteenth of the buckets
+        // as their homes and the mean passed seven
+        assertTrue(cache.size() > 15 * 1024, "entries cached: " + cache.size());
+        assertTrue(cache.meanProbe() < 1.0, "mean probe: " + cache.meanProbe());
+    }
+
+    private static Expense expense(long id) {
+        Expense expense = new Expense();
+        expense.setId(id);
+        expense.setTitle("Lunch");
+        expense.setUserEmail("testuser@gmail.com");
+        expense.setAmount(new BigDecimal("250.50"));
+        expense.setCategory(Expense.ExpenseCategory.FOOD);
+        expense.setPaymentMode(Expense.PaymentMode.UPI);
+        expense.setExpenseDone(LocalDate.of(2024, 3, 1));
+        return expense;
+    }
+}
@@ -0,0 +1,83 @@
+package com.application.expenseTracker.ExpenseTracker.Utility;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuantileSketchTest {
+
+    @Test
+    @DisplayName("📐 Sketch - Should stay within the relative accuracy of the exact quantiles")
+    void testAccuracy() {
+        QuantileSketch sketch = new QuantileSketch(0.01, 2048);
+        Random random = new Random(7);
+        double[] amounts = new double[20000];
+        for (int i = 0; i < amounts.length; i++) {
+            // Log-normal, like real spending: mostly small amounts with a long tail.
+            amounts[i] = Math.round(Math.exp(5 + 1.2 * random.nextGaussian()) * 100) / 100.0;
+            sketch.add(amounts[i]);
+        }
+        Arrays.sort(amounts);
+
+        for (double quantile : new double[]{0, 0.1, 0.5, 0.9, 0.99, 1}) {
+            double exact = amounts[(int) (quantile * (amounts.length - 1))];
+            assertEquals(exact, sketch.quantile(quantile), exact * 0.01 + 1e-9, "quantile " + quantile);
+        }
+        assertEquals(20000, sketch.getCount());
+    }
+
+    @Test
+    @DisplayName("➕ Sketch - Should merge losslessly and undo adds with removes")
+    void testMergeAndRemove() {
+        QuantileSketch january = new QuantileSketch(0.01, 512);
+        QuantileSketch february = new QuantileSketch(0.01, 512);
+        QuantileSketch both = new QuantileSketch(0.01, 512);
+        for (int i = 1; i <= 100; i++) {
+            january.add(i * 10);
+            february.add(i * 35);
+            both.add(i * 10);
+            both.add(i * 35);
+        }
+        january.merge(february);
+        for (double quantile : new double[]{0.25, 0.5, 0.9}) {
+            assertEquals(both.quantile(quantile), january.quantile(quantile));
+        }
+
+        both.add(99999);
+        both.add(0);
+        both.remove(99999);
+        both.remove(0);
+        both.remove(5000000);
+        assertEquals(january.getCount(), both.getCount());
+        assertEquals(january.quantile(0.99), both.quantile(0.99));
+
+        QuantileSketch empty = new QuantileSketch(0.01, 512);
+        empty.remove(10);
+        assertTrue(empty.isEmpty());
+        assertTrue(Double.isNaN(empty.quantile(0.5)));
+        assertThrows(IllegalArgumentException.class, () -> january.merge(new QuantileSketch(0.02, 512)));
+    }
+
+    @Test
+    @DisplayName("📦 Sketch - Should fold the lowest buckets to stay within its bucket limit")
+    void testBoundedBuckets() {
+        QuantileSketch sketch = new QuantileSketch(0.01, 64);
+        double largest = 0;
+        int added = 0;
+        for (double amount = 0.01; amount < 1e7; amount *= 1.5) {
+            sketch.add(amount);
+            largest = amount;
+            added++;
+        }
+
+        assertTrue(sketch.getBucketCount() <= 64);
+        assertEquals(largest, sketch.quantile(1), largest * 0.01);
+        assertEquals(added, sketch.getCount());
+        // Everything below the kept range was folded into its lowest bucket.
+        assertEquals(sketch.quantile(0), sketch.quantile(0.5));
+    }
+}
@@ -0,0 +1,93 @@
+package com.application.expenseTracker.ExpenseTracker.Utility;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentedLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("📜 Log - Should hand out sequential offsets and read them back across segments")
+    void testAppendAndReadAcrossSegments() throws IOException {
+        try (SegmentedLog log = new SegmentedLog(directory, 256, 100)) {
+            for (int i = 0; i < 200; i++) {
+                assertEquals(i, log.append(("entry-" + i).getBytes(StandardCharsets.UTF_8)));
+            }
+            assertTrue(log.segmentCount() > 1);
+
+            List<SegmentedLog.Record> records = log.read(95, 20);
+
+            assertEquals(20, records.size());
+            assertEquals(95, records.get(0).getOffset());
+            assertEquals("entry-114", new String(records.get(19).getPayload(), StandardCharsets.UTF_8));
+            assertTrue(log.read(200, 10).isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("📜 Log - Should continue after the last intact record when reopened")
+    void testReopenDropsTornRecord() throws IOException {
+        try (SegmentedLog log = new SegmentedLog(directory, 4096, 4)) {
+            log.append("first".getBytes(StandardCharsets.UTF_8));
+            log.append("second".getBytes(StandardCharsets.UTF_8));
+        }
+        // Corrupt the payload of the second record, as a crash halfway through writing it would.
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve(String.format("%020d.log", 0)).toFile(), "rw")) {
+            file.seek(8 + 5 + 8);
+            file.write('X');
+        }
+
+        try (SegmentedLog log = new SegmentedLog(directory, 4096, 4)) {
+            assertEquals(1, log.nextOffset());
+            assertEquals(1, log.append("third".getBytes(StandardCharsets.UTF_8)));
+
+            List<SegmentedLog.Record> records = log.read(0, 10);
+
+            assertEquals(2, records.size());
+            assertEquals("third", new String(records.get(1).getPayload(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    @DisplayName("📜 Log - Should drop the oldest segments beyond retention and start reads at the oldest kept offset")
+    void testRetention() throws IOException {
+        try (SegmentedLog log = new SegmentedLog(directory, 128, 2)) {
+            for (int i = 0; i < 50; i++) {
+                log.append(new byte[20]);
+            }
+
+            assertEquals(2, log.segmentCount());
+            assertTrue(log.firstOffset() > 0);
+            assertEquals(log.firstOffset(), log.read(0, 1).get(0).getOffset());
+        }
+    }
+
+    @Test
+    @DisplayName("📜 Log - Should refuse an append that would drop records at or after the retained offset")
+    void testRetentionKeepsUnconsumedRecords() throws IOException {
+        try (SegmentedLog log = new SegmentedLog(directory, 128, 2)) {
+            int appended = 0;
+            while (log.append(new byte[20], 0) >= 0) {
+                appended++;
+            }
+
+            // Four of these records fill a segment
+            assertEquals(8, appended);
+            assertEquals(0, log.firstOffset());
+            assertEquals(-1, log.append(new byte[20], 3));
+            assertEquals(8, log.append(new byte[20], 4));
+            assertEquals(4, log.firstOffset());
+        }
+    }
+}
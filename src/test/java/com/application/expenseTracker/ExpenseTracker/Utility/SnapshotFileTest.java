@@ -0,0 +1,162 @@
+package com.application.expenseTracker.ExpenseTracker.Utility;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotFileTest {
+
+    private static final List<SnapshotFile.Column> COLUMNS = Arrays.asList(
+            new SnapshotFile.Column("ID", SnapshotFile.ColumnType.LONG),
+            new SnapshotFile.Column("TITLE", SnapshotFile.ColumnType.STRING),
+            new SnapshotFile.Column("AMOUNT", SnapshotFile.ColumnType.DECIMAL),
+            new SnapshotFile.Column("BUDGET", SnapshotFile.ColumnType.INT),
+            new SnapshotFile.Column("RECURRING", SnapshotFile.ColumnType.BOOLEAN),
+            new SnapshotFile.Column("EXPENSE_DONE", SnapshotFile.ColumnType.DATE),
+            new SnapshotFile.Column("CREATED_AT", SnapshotFile.ColumnType.TIMESTAMP));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("💾 Snapshot - Should read back every table, row and null that was written")
+    void testRoundTrip() throws IOException {
+        Path path = directory.resolve("store.snap");
+        Timestamp createdAt = Timestamp.valueOf("2024-03-15 10:15:30.123456789");
+        try (SnapshotFile.Writer writer = SnapshotFile.create(path)) {
+            writer.beginTable("USER_EXPENSE", COLUMNS);
+            writer.writeRow(new Object[]{1L, "Coffée", new BigDecimal("4.50"), 100, true, java.sql.Date.valueOf("2024-03-01"), createdAt});
+            writer.writeRow(new Object[]{2L, null, new BigDecimal("-12345678901234567890.12"), null, false, null, null});
+            writer.endTable();
+            writer.beginTable("APP_USER", Arrays.asList(new SnapshotFile.Column("ID", SnapshotFile.ColumnType.LONG)));
+            writer.endTable();
+            writer.commit();
+        }
+        assertFalse(Files.exists(directory.resolve("store.snap.tmp")));
+
+        try (SnapshotFile.Reader reader = SnapshotFile.open(path)) {
+            assertEquals("USER_EXPENSE", reader.nextTable());
+            assertEquals(7, reader.getColumns().size());
+            assertEquals(SnapshotFile.ColumnType.DECIMAL, reader.getColumns().get(2).getType());
+            assertArrayEquals(new Object[]{1L, "Coffée", new BigDecimal("4.50"), 100, true, LocalDate.of(2024, 3, 1), createdAt}, reader.nextRow());
+            assertArrayEquals(new Object[]{2L, null, new BigDecimal("-12345678901234567890.12"), null, false, null, null}, reader.nextRow());
+            assertNull(reader.nextRow());
+            assertEquals("APP_USER", reader.nextTable());
+            assertNull(reader.nextRow());
+            assertNull(reader.nextTable());
+        }
+    }
+
+    @Test
+    @DisplayName("💾 Snapshot - Should keep decimals whose unscaled value takes more than 255 bytes")
+    void testLongDecimalRoundTrip() throws IOException {
+        Path path = directory.resolve("store.snap");
+        List<SnapshotFile.Column> columns = Collections.singletonList(new SnapshotFile.Column("AMOUNT", SnapshotFile.ColumnType.DECIMAL));
+        BigDecimal boundary = new BigDecimal(BigInteger.ONE.shiftLeft(255 * 8 - 1).subtract(BigInteger.ONE), 2);
+        BigDecimal large = new BigDecimal(BigInteger.ONE.shiftLeft(300 * 8).negate(), 4);
+        try (SnapshotFile.Writer writer = SnapshotFile.create(path)) {
+            writer.beginTable("USER_EXPENSE", columns);
+            writer.writeRow(new Object[]{boundary});
+            writer.writeRow(new Object[]{large});
+            writer.endTable();
+            writer.commit();
+        }
+
+        try (SnapshotFile.Reader reader = SnapshotFile.open(path)) {
+            assertEquals("USER_EXPENSE", reader.nextTable());
+            assertEquals(boundary, reader.nextRow()[0]);
+            assertEquals(large, reader.nextRow()[0]);
+            assertNull(reader.nextRow());
+        }
+    }
+
+    @Test
+    @DisplayName("💾 Snapshot - Should still read version 1 files, whose decimal lengths are a single byte")
+    void testVersion1FileIsRead() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write("EXPSNAP1".getBytes(StandardCharsets.US_ASCII));
+        out.writeInt(1);
+        out.writeLong(1_700_000_000_000L);
+        out.writeByte(1);
+        writeString(out, "USER_EXPENSE");
+        out.writeInt(1);
+        writeString(out, "AMOUNT");
+        out.writeByte(SnapshotFile.ColumnType.DECIMAL.ordinal());
+        out.writeByte(1);
+        out.writeByte(1);
+        out.writeInt(2);
+        byte[] unscaled = BigInteger.valueOf(450).toByteArray();
+        out.writeByte(unscaled.length);
+        out.write(unscaled);
+        out.writeByte(0);
+        out.writeByte(0);
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+        Path path = directory.resolve("v1.snap");
+        Files.write(path, bytes.toByteArray());
+
+        try (SnapshotFile.Reader reader = SnapshotFile.open(path)) {
+            assertEquals(1_700_000_000_000L, reader.getCreatedAt());
+            assertEquals("USER_EXPENSE", reader.nextTable());
+            assertArrayEquals(new Object[]{new BigDecimal("4.50")}, reader.nextRow());
+            assertNull(reader.nextRow());
+            assertNull(reader.nextTable());
+        }
+    }
+
+    @Test
+    @DisplayName("💾 Snapshot - Should reject a file whose contents no longer match the checksum")
+    void testCorruptedFileIsRejected() throws IOException {
+        Path path = directory.resolve("store.snap");
+        try (SnapshotFile.Writer writer = SnapshotFile.create(path)) {
+            writer.beginTable("USER_EXPENSE", COLUMNS);
+            writer.writeRow(new Object[]{1L, "Rent", new BigDecimal("900.00"), 1000, false, LocalDate.of(2024, 3, 1), null});
+            writer.endTable();
+            writer.commit();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(40);
+            file.write(file.read() ^ 0xFF);
+        }
+
+        IOException exception = assertThrows(IOException.class, () -> SnapshotFile.open(path));
+        assertTrue(exception.getMessage().contains("checksum"));
+    }
+
+    @Test
+    @DisplayName("💾 Snapshot - Should leave no file behind when the writer is closed without committing")
+    void testUncommittedWriterLeavesNothing() throws IOException {
+        Path path = directory.resolve("store.snap");
+        try (SnapshotFile.Writer writer = SnapshotFile.create(path)) {
+            writer.beginTable("USER_EXPENSE", COLUMNS);
+        }
+        assertFalse(Files.exists(path));
+        assertFalse(Files.exists(directory.resolve("store.snap.tmp")));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}